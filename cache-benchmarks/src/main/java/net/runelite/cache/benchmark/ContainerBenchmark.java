@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2022, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.benchmark;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import net.runelite.cache.fs.Container;
+import net.runelite.cache.fs.jagex.CompressionType;
+import net.runelite.cache.util.Crc32;
+import net.runelite.cache.util.Xtea;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ContainerBenchmark
+{
+	/**
+	 * Only decompression depends on the compression type, so it is the only
+	 * benchmark which is run once per compression type
+	 */
+	@State(Scope.Thread)
+	public static class Compressed
+	{
+		@Param({"NONE", "BZ2", "GZ"})
+		public String compression;
+
+		private byte[] compressed;
+
+		@Setup(Level.Trial)
+		public void setup(ContainerBenchmark benchmark) throws IOException
+		{
+			Container container = new Container(compressionType(), -1);
+			container.compress(benchmark.data, null);
+			compressed = container.data;
+		}
+
+		private int compressionType()
+		{
+			switch (compression)
+			{
+				case "BZ2":
+					return CompressionType.BZ2;
+				case "GZ":
+					return CompressionType.GZ;
+				default:
+					return CompressionType.NONE;
+			}
+		}
+	}
+
+	@Param({"65536"})
+	public int size;
+
+	private byte[] data;
+	private byte[] encrypted;
+	private byte[] decrypted;
+	private Xtea xtea;
+
+	@Setup(Level.Trial)
+	public void setup()
+	{
+		// compressible, but not trivially so
+		Random random = new Random(42L);
+		data = new byte[size];
+		for (int i = 0; i < data.length; ++i)
+		{
+			data[i] = (byte) random.nextInt(16);
+		}
+
+		xtea = new Xtea(SyntheticCache.KEYS);
+		encrypted = xtea.encrypt(data, data.length);
+		decrypted = new byte[data.length];
+	}
+
+	@Benchmark
+	public Container decompress(Compressed state) throws IOException
+	{
+		return Container.decompress(state.compressed, null);
+	}
+
+	@Benchmark
+	public byte[] decrypt()
+	{
+		xtea.decrypt(encrypted, 0, decrypted, 0, encrypted.length);
+		return decrypted;
+	}
+
+	@Benchmark
+	public int crc32()
+	{
+		Crc32 crc = new Crc32();
+		crc.update(data, 0, data.length);
+		return crc.getHash();
+	}
+}
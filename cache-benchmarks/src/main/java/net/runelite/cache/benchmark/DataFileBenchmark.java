@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2022, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import net.runelite.cache.IndexType;
+import net.runelite.cache.fs.jagex.DataFile;
+import net.runelite.cache.fs.jagex.IndexEntry;
+import net.runelite.cache.fs.jagex.IndexFile;
+import net.runelite.cache.fs.jagex.MappedDataFile;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class DataFileBenchmark
+{
+	private File folder;
+	private DataFile dataFile;
+	private MappedDataFile mappedDataFile;
+	private IndexEntry[] entries;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException
+	{
+		folder = SyntheticCache.location();
+		int indexId = IndexType.MODELS.getNumber();
+
+		try (IndexFile indexFile = new IndexFile(indexId, new File(folder, "main_file_cache.idx" + indexId)))
+		{
+			entries = new IndexEntry[SyntheticCache.MODEL_COUNT];
+			for (int i = 0; i < entries.length; ++i)
+			{
+				entries[i] = indexFile.read(i);
+			}
+		}
+
+		dataFile = new DataFile(new File(folder, "main_file_cache.dat2"));
+		mappedDataFile = new MappedDataFile(new File(folder, "main_file_cache.dat2"));
+	}
+
+	@TearDown(Level.Trial)
+	public void teardown() throws IOException
+	{
+		dataFile.close();
+		mappedDataFile.close();
+		SyntheticCache.release(folder);
+	}
+
+	@Benchmark
+	public void read(Blackhole bh) throws IOException
+	{
+		int indexId = IndexType.MODELS.getNumber();
+		for (IndexEntry entry : entries)
+		{
+			bh.consume(dataFile.read(indexId, entry.getId(), entry.getSector(), entry.getLength()));
+		}
+	}
+
+	@Benchmark
+	public void readMapped(Blackhole bh)
+	{
+		int indexId = IndexType.MODELS.getNumber();
+		for (IndexEntry entry : entries)
+		{
+			bh.consume(mappedDataFile.read(indexId, entry.getId(), entry.getSector(), entry.getLength()));
+		}
+	}
+}
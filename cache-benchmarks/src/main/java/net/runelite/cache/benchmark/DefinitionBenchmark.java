@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2022, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import net.runelite.cache.ConfigType;
+import net.runelite.cache.IndexType;
+import net.runelite.cache.definitions.loaders.ItemLoader;
+import net.runelite.cache.definitions.loaders.ModelLoader;
+import net.runelite.cache.definitions.loaders.ObjectLoader;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.ArchiveFiles;
+import net.runelite.cache.fs.FSFile;
+import net.runelite.cache.fs.Index;
+import net.runelite.cache.fs.Store;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class DefinitionBenchmark
+{
+	private File folder;
+	private byte[] itemArchive;
+	private int itemCount;
+	private List<FSFile> items;
+	private List<FSFile> objects;
+	private byte[][] models;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException
+	{
+		folder = SyntheticCache.location();
+		try (Store store = new Store(folder))
+		{
+			store.load();
+
+			Index configs = store.getIndex(IndexType.CONFIGS);
+			Archive items = configs.getArchive(ConfigType.ITEM.getId());
+			Archive objects = configs.getArchive(ConfigType.OBJECT.getId());
+			itemArchive = items.decompress(store.getStorage().loadArchive(items));
+			itemCount = items.getFileData().length;
+			this.items = store.getArchiveFiles(items).getFiles();
+			this.objects = store.getArchiveFiles(objects).getFiles();
+
+			Index modelIndex = store.getIndex(IndexType.MODELS);
+			models = new byte[modelIndex.getArchives().size()][];
+			for (Archive archive : modelIndex.getArchives())
+			{
+				models[archive.getArchiveId()] = archive.decompress(store.getStorage().loadArchive(archive));
+			}
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void teardown() throws IOException
+	{
+		SyntheticCache.release(folder);
+	}
+
+	@Benchmark
+	public void loadArchiveContents(Blackhole bh) throws IOException
+	{
+		ArchiveFiles files = new ArchiveFiles();
+		for (int i = 0; i < itemCount; ++i)
+		{
+			files.addFile(new FSFile(i));
+		}
+		files.loadContents(itemArchive);
+		bh.consume(files);
+	}
+
+	@Benchmark
+	public void loadItems(Blackhole bh)
+	{
+		ItemLoader loader = new ItemLoader();
+		for (FSFile file : items)
+		{
+			bh.consume(loader.load(file.getFileId(), file.getContents()));
+		}
+	}
+
+	@Benchmark
+	public void loadObjects(Blackhole bh)
+	{
+		ObjectLoader loader = new ObjectLoader();
+		for (FSFile file : objects)
+		{
+			bh.consume(loader.load(file.getFileId(), file.getContents()));
+		}
+	}
+
+	@Benchmark
+	public void loadModels(Blackhole bh)
+	{
+		ModelLoader loader = new ModelLoader();
+		for (int i = 0; i < models.length; ++i)
+		{
+			bh.consume(loader.load(i, models[i]));
+		}
+	}
+}
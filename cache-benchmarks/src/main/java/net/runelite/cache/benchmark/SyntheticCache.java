@@ -0,0 +1,423 @@
+/*
+ * Copyright (c) 2022, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import net.runelite.cache.ConfigType;
+import net.runelite.cache.IndexType;
+import net.runelite.cache.definitions.ItemDefinition;
+import net.runelite.cache.definitions.LocationsDefinition;
+import net.runelite.cache.definitions.MapDefinition;
+import net.runelite.cache.definitions.ObjectDefinition;
+import net.runelite.cache.definitions.savers.ItemSaver;
+import net.runelite.cache.definitions.savers.LocationSaver;
+import net.runelite.cache.definitions.savers.MapSaver;
+import net.runelite.cache.definitions.savers.ObjectSaver;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.ArchiveFiles;
+import net.runelite.cache.fs.Container;
+import net.runelite.cache.fs.FSFile;
+import net.runelite.cache.fs.Index;
+import net.runelite.cache.fs.Store;
+import net.runelite.cache.fs.jagex.CompressionType;
+import net.runelite.cache.index.FileData;
+import net.runelite.cache.io.OutputStream;
+import net.runelite.cache.region.Location;
+import net.runelite.cache.region.Position;
+import net.runelite.cache.util.Djb2;
+import net.runelite.cache.util.XteaKeyManager;
+
+/**
+ * Generates a small, deterministic cache in the jagex disk format, so the
+ * benchmarks do not depend on a real cache being available.
+ */
+public class SyntheticCache
+{
+	public static final int ITEM_COUNT = 4096;
+	public static final int OBJECT_COUNT = 4096;
+	public static final int MODEL_COUNT = 64;
+
+	public static final int REGION_BASE_X = 48;
+	public static final int REGION_BASE_Y = 48;
+	public static final int REGION_SIZE = 4;
+
+	public static final int[] KEYS = new int[]
+	{
+		0x1234, 0x5678, 0x9abc, 0xdef0
+	};
+
+	// grid of vertices each model is made of
+	private static final int MODEL_GRID = 24;
+	private static final int LOCATIONS_PER_REGION = 512;
+
+	private static final Set<File> TEMPORARY = ConcurrentHashMap.newKeySet();
+
+	public static void main(String[] args) throws IOException
+	{
+		generate(new File(args[0]));
+	}
+
+	/**
+	 * Get the location of the synthetic cache. This is the one generated during the
+	 * build, whose path is recorded in the jar and can be overridden with the
+	 * synthetic.cache property. If there is none, one is generated in a temporary
+	 * folder, which is removed again by {@link #release(File)}.
+	 */
+	public static File location() throws IOException
+	{
+		String path = System.getProperty("synthetic.cache", buildLocation());
+		if (path != null && new File(path, "main_file_cache.dat2").exists())
+		{
+			return new File(path);
+		}
+
+		File folder = Files.createTempDirectory("synthetic-cache").toFile();
+		TEMPORARY.add(folder);
+		generate(folder);
+		return folder;
+	}
+
+	/**
+	 * Release a cache returned by {@link #location()}, deleting it if it was
+	 * generated in a temporary folder
+	 */
+	public static void release(File folder) throws IOException
+	{
+		if (folder == null || !TEMPORARY.remove(folder))
+		{
+			return;
+		}
+
+		List<Path> paths;
+		try (Stream<Path> walk = Files.walk(folder.toPath()))
+		{
+			// children before their parents
+			paths = walk.sorted(Comparator.reverseOrder()).collect(Collectors.toList());
+		}
+
+		for (Path path : paths)
+		{
+			Files.delete(path);
+		}
+	}
+
+	private static String buildLocation() throws IOException
+	{
+		try (InputStream in = SyntheticCache.class.getResourceAsStream("/synthetic-cache.properties"))
+		{
+			if (in == null)
+			{
+				return null;
+			}
+
+			Properties properties = new Properties();
+			properties.load(in);
+			return properties.getProperty("synthetic.cache");
+		}
+	}
+
+	public static XteaKeyManager keyManager()
+	{
+		StringBuilder sb = new StringBuilder("[");
+		for (int x = 0; x < REGION_SIZE; ++x)
+		{
+			for (int y = 0; y < REGION_SIZE; ++y)
+			{
+				if (sb.length() > 1)
+				{
+					sb.append(',');
+				}
+				int region = (REGION_BASE_X + x) << 8 | (REGION_BASE_Y + y);
+				sb.append("{\"region\":").append(region)
+					.append(",\"keys\":[").append(KEYS[0]).append(',').append(KEYS[1]).append(',')
+					.append(KEYS[2]).append(',').append(KEYS[3]).append("]}");
+			}
+		}
+		sb.append(']');
+
+		XteaKeyManager keyManager = new XteaKeyManager();
+		keyManager.loadKeys(new ByteArrayInputStream(sb.toString().getBytes(StandardCharsets.UTF_8)));
+		return keyManager;
+	}
+
+	public static void generate(File folder) throws IOException
+	{
+		folder.mkdirs();
+
+		Random random = new Random(42L);
+		try (Store store = new Store(folder))
+		{
+			for (IndexType type : IndexType.values())
+			{
+				store.addIndex(type.getNumber());
+			}
+
+			// the reference table stores archive ids as deltas, so they are added in ascending order
+			Index configs = store.getIndex(IndexType.CONFIGS);
+			List<byte[]> items = items(random);
+			addArchive(store, configs, ConfigType.OBJECT.getId(), null, objects(random), CompressionType.GZ, null);
+			addArchive(store, configs, ConfigType.ITEM.getId(), null, items, CompressionType.GZ, null);
+
+			Index models = store.getIndex(IndexType.MODELS);
+			for (int i = 0; i < MODEL_COUNT; ++i)
+			{
+				List<byte[]> files = new ArrayList<>();
+				files.add(model(random));
+				addArchive(store, models, i, null, files, i % 2 == 0 ? CompressionType.GZ : CompressionType.BZ2, null);
+			}
+
+			Index maps = store.getIndex(IndexType.MAPS);
+			int archiveId = 0;
+			for (int x = REGION_BASE_X; x < REGION_BASE_X + REGION_SIZE; ++x)
+			{
+				for (int y = REGION_BASE_Y; y < REGION_BASE_Y + REGION_SIZE; ++y)
+				{
+					List<byte[]> files = new ArrayList<>();
+					files.add(map(random));
+					addArchive(store, maps, archiveId++, "m" + x + "_" + y, files, CompressionType.GZ, null);
+
+					files = new ArrayList<>();
+					files.add(locations(random));
+					addArchive(store, maps, archiveId++, "l" + x + "_" + y, files, CompressionType.GZ, KEYS);
+				}
+			}
+
+			store.save();
+		}
+	}
+
+	private static void addArchive(Store store, Index index, int archiveId, String name, List<byte[]> contents, int compression, int[] keys) throws IOException
+	{
+		Archive archive = index.addArchive(archiveId);
+		if (name != null)
+		{
+			archive.setNameHash(Djb2.hash(name));
+		}
+
+		ArchiveFiles files = new ArchiveFiles();
+		FileData[] fileData = new FileData[contents.size()];
+		for (int i = 0; i < contents.size(); ++i)
+		{
+			FileData fd = fileData[i] = new FileData();
+			fd.setId(i);
+
+			FSFile file = new FSFile(i);
+			file.setContents(contents.get(i));
+			files.addFile(file);
+		}
+		archive.setFileData(fileData);
+
+		Container container = new Container(compression, -1);
+		container.compress(files.saveContents(), keys);
+		store.getStorage().saveArchive(archive, container.data);
+	}
+
+	private static List<byte[]> items(Random random)
+	{
+		ItemSaver saver = new ItemSaver();
+		List<byte[]> files = new ArrayList<>(ITEM_COUNT);
+		for (int i = 0; i < ITEM_COUNT; ++i)
+		{
+			ItemDefinition def = new ItemDefinition(i);
+			def.name = "Item " + i;
+			def.inventoryModel = random.nextInt(MODEL_COUNT);
+			def.cost = random.nextInt(100000);
+			def.members = random.nextBoolean();
+			files.add(saver.save(def));
+		}
+		return files;
+	}
+
+	private static List<byte[]> objects(Random random)
+	{
+		ObjectSaver saver = new ObjectSaver();
+		List<byte[]> files = new ArrayList<>(OBJECT_COUNT);
+		for (int i = 0; i < OBJECT_COUNT; ++i)
+		{
+			ObjectDefinition def = new ObjectDefinition();
+			def.setId(i);
+			def.setName("Object " + i);
+			def.setObjectModels(new int[]{random.nextInt(MODEL_COUNT)});
+			def.setObjectTypes(new int[]{10});
+			def.setSizeX(1 + random.nextInt(3));
+			def.setSizeY(1 + random.nextInt(3));
+			files.add(saver.save(def));
+		}
+		return files;
+	}
+
+	/**
+	 * Encode a grid mesh in the old model format
+	 */
+	private static byte[] model(Random random)
+	{
+		int vertexCount = MODEL_GRID * MODEL_GRID;
+		int faceCount = (MODEL_GRID - 1) * (MODEL_GRID - 1) * 2;
+
+		OutputStream vertexFlags = new OutputStream();
+		OutputStream vertexX = new OutputStream();
+		OutputStream vertexY = new OutputStream();
+		OutputStream vertexZ = new OutputStream();
+		int prevX = 0, prevY = 0, prevZ = 0;
+		for (int gx = 0; gx < MODEL_GRID; ++gx)
+		{
+			for (int gz = 0; gz < MODEL_GRID; ++gz)
+			{
+				int x = gx * 8;
+				int y = -random.nextInt(32);
+				int z = gz * 8;
+				vertexFlags.writeByte(7);
+				writeSignedShortSmart(vertexX, x - prevX);
+				writeSignedShortSmart(vertexY, y - prevY);
+				writeSignedShortSmart(vertexZ, z - prevZ);
+				prevX = x;
+				prevY = y;
+				prevZ = z;
+			}
+		}
+
+		OutputStream faceTypes = new OutputStream();
+		OutputStream faceIndices = new OutputStream();
+		OutputStream faceColors = new OutputStream();
+		int prev = 0;
+		for (int gx = 0; gx < MODEL_GRID - 1; ++gx)
+		{
+			for (int gz = 0; gz < MODEL_GRID - 1; ++gz)
+			{
+				int a = gx * MODEL_GRID + gz;
+				int b = a + 1;
+				int c = a + MODEL_GRID;
+				int d = c + 1;
+				for (int[] face : new int[][]{{a, b, c}, {b, d, c}})
+				{
+					// each face is stored as deltas from the previous index
+					faceTypes.writeByte(1);
+					writeSignedShortSmart(faceIndices, face[0] - prev);
+					writeSignedShortSmart(faceIndices, face[1] - face[0]);
+					writeSignedShortSmart(faceIndices, face[2] - face[1]);
+					prev = face[2];
+					faceColors.writeShort(random.nextInt(0x10000));
+				}
+			}
+		}
+
+		byte[] vx = vertexX.flip(), vy = vertexY.flip(), vz = vertexZ.flip(), fi = faceIndices.flip();
+
+		OutputStream out = new OutputStream();
+		out.writeBytes(vertexFlags.flip());
+		out.writeBytes(faceTypes.flip());
+		out.writeBytes(fi);
+		out.writeBytes(faceColors.flip());
+		out.writeBytes(vx);
+		out.writeBytes(vy);
+		out.writeBytes(vz);
+
+		out.writeShort(vertexCount);
+		out.writeShort(faceCount);
+		out.writeByte(0); // texture count
+		out.writeByte(0); // textured
+		out.writeByte(0); // render priority
+		out.writeByte(0); // transparencies
+		out.writeByte(0); // packed transparency vertex groups
+		out.writeByte(0); // packed vertex groups
+		out.writeShort(vx.length);
+		out.writeShort(vy.length);
+		out.writeShort(vz.length);
+		out.writeShort(fi.length);
+		return out.flip();
+	}
+
+	private static void writeSignedShortSmart(OutputStream out, int value)
+	{
+		if (value >= -64 && value < 64)
+		{
+			out.writeByte(value + 64);
+		}
+		else
+		{
+			out.writeShort(value + 0xc000);
+		}
+	}
+
+	private static byte[] map(Random random)
+	{
+		MapDefinition map = new MapDefinition();
+		MapDefinition.Tile[][][] tiles = map.getTiles();
+		for (int z = 0; z < MapDefinition.Z; ++z)
+		{
+			for (int x = 0; x < MapDefinition.X; ++x)
+			{
+				for (int y = 0; y < MapDefinition.Y; ++y)
+				{
+					MapDefinition.Tile tile = tiles[z][x][y] = new MapDefinition.Tile();
+					if (z == 0)
+					{
+						tile.height = random.nextInt(64);
+						tile.underlayId = (byte) (1 + random.nextInt(64));
+						if (random.nextInt(4) == 0)
+						{
+							tile.attrOpcode = 2 + random.nextInt(48);
+							tile.overlayId = (byte) (1 + random.nextInt(64));
+						}
+						if (random.nextInt(16) == 0)
+						{
+							tile.settings = 1;
+						}
+					}
+				}
+			}
+		}
+		return new MapSaver().save(map);
+	}
+
+	private static byte[] locations(Random random)
+	{
+		LocationsDefinition locs = new LocationsDefinition();
+		List<Location> locations = locs.getLocations();
+		for (int i = 0; i < LOCATIONS_PER_REGION; ++i)
+		{
+			Position position = new Position(random.nextInt(64), random.nextInt(64), 0);
+			locations.add(new Location(random.nextInt(OBJECT_COUNT), 10, random.nextInt(4), position));
+		}
+		// positions are delta encoded per object id, so they must be ascending
+		locations.sort(Comparator.comparingInt((Location l) -> l.getPosition().getX() << 6 | l.getPosition().getY()));
+		return new LocationSaver().save(locs);
+	}
+}
@@ -31,16 +31,18 @@ import net.runelite.protocol.api.update.ArchiveResponsePacket;
 public class ArchiveResponseHandler extends SimpleChannelInboundHandler<ArchiveResponsePacket>
 {
 	private final CacheClient client;
+	private final UpdateConnection connection;
 
-	public ArchiveResponseHandler(CacheClient client)
+	ArchiveResponseHandler(CacheClient client, UpdateConnection connection)
 	{
 		this.client = client;
+		this.connection = connection;
 	}
 
 	@Override
 	protected void channelRead0(ChannelHandlerContext ctx, ArchiveResponsePacket archiveResponse) throws Exception
 	{
-		client.onFileFinish(archiveResponse.getIndex(),
+		client.onFileFinish(connection, archiveResponse.getIndex(),
 			archiveResponse.getArchive(),
 			archiveResponse.getData());
 	}
@@ -38,11 +38,16 @@ import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.nio.NioSocketChannel;
 import java.io.IOException;
-import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.PriorityQueue;
 import java.util.Queue;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import net.runelite.cache.fs.Archive;
 import net.runelite.cache.fs.Index;
 import net.runelite.cache.fs.Storage;
@@ -50,6 +55,7 @@ import net.runelite.cache.fs.Store;
 import net.runelite.cache.index.ArchiveData;
 import net.runelite.cache.index.IndexData;
 import net.runelite.cache.util.Crc32;
+import net.runelite.cache.util.IntObjectMap;
 import net.runelite.protocol.api.handshake.UpdateHandshakePacket;
 import net.runelite.protocol.api.login.HandshakeResponseType;
 import net.runelite.protocol.api.update.ArchiveRequestPacket;
@@ -69,18 +75,35 @@ public class CacheClient implements AutoCloseable
 
 	private static final int MAX_REQUESTS = 19; // too many and the server closes the conncetion
 
+	// index data is requested first, as the archive requests depend on it
+	private static final int PRIORITY_INDEX = 0;
+	private static final int PRIORITY_ARCHIVE = 1;
+
+	private static final Comparator<PendingFileRequest> REQUEST_ORDER = Comparator
+		.comparingInt(PendingFileRequest::getPriority)
+		.thenComparingLong(PendingFileRequest::getSequence);
+
 	private final Store store; // store cache will be written to
 	private final String host;
+	private final int port;
 	private final int clientRevision;
 	private DownloadWatcher watcher;
 
-	private ClientState state;
+	private final EventLoopGroup group;
+	private final List<UpdateConnection> connections = new ArrayList<>();
+
+	// all requests which have not been completed, keyed by key(index, archive)
+	private final IntObjectMap<PendingFileRequest> pending = new IntObjectMap<>();
+	// requests which have not yet been sent on a connection
+	private final Queue<PendingFileRequest> queue = new PriorityQueue<>(REQUEST_ORDER);
+	private long sequence;
 
-	private final EventLoopGroup group = new NioEventLoopGroup(1);
-	private Channel channel;
+	// archives are saved from the event loop threads of each connection
+	private final Object saveLock = new Object();
 
-	private CompletableFuture<HandshakeResponseType> handshakeFuture;
-	private final Queue<PendingFileRequest> requests = new ArrayDeque<>();
+	private final AtomicInteger downloadedFiles = new AtomicInteger();
+	private final AtomicLong downloadedBytes = new AtomicLong();
+	private volatile long downloadStart = System.nanoTime();
 
 	public CacheClient(Store store, int clientRevision)
 	{
@@ -89,73 +112,137 @@ public class CacheClient implements AutoCloseable
 
 	public CacheClient(Store store, String host, int clientRevision)
 	{
-		this.store = store;
-		this.host = host;
-		this.clientRevision = clientRevision;
+		this(store, host, PORT, clientRevision, 1, null);
 	}
 
 	public CacheClient(Store store, int clientRevision, DownloadWatcher watcher)
 	{
-		this(store, clientRevision);
+		this(store, HOST, PORT, clientRevision, 1, watcher);
+	}
+
+	/**
+	 * @param store store the cache will be written to
+	 * @param host update server host
+	 * @param port update server port
+	 * @param clientRevision revision sent in the handshake
+	 * @param connections number of connections to spread requests over
+	 * @param watcher watcher notified of downloaded archives, or null to
+	 * save the archives to the store
+	 */
+	public CacheClient(Store store, String host, int port, int clientRevision, int connections, DownloadWatcher watcher)
+	{
+		if (connections < 1)
+		{
+			throw new IllegalArgumentException("connections must be positive");
+		}
+
+		this.store = store;
+		this.host = host;
+		this.port = port;
+		this.clientRevision = clientRevision;
 		this.watcher = watcher;
+		this.group = new NioEventLoopGroup(connections);
+
+		for (int i = 0; i < connections; ++i)
+		{
+			this.connections.add(new UpdateConnection(i));
+		}
 	}
 
 	public void connect()
 	{
-		Bootstrap b = new Bootstrap();
-		b.group(group)
-			.channel(NioSocketChannel.class)
-			.option(ChannelOption.TCP_NODELAY, true)
-			.handler(new ChannelInitializer<SocketChannel>()
-			{
-				@Override
-				public void initChannel(SocketChannel ch) throws Exception
+		for (UpdateConnection connection : connections)
+		{
+			Bootstrap b = new Bootstrap();
+			b.group(group)
+				.channel(NioSocketChannel.class)
+				.option(ChannelOption.TCP_NODELAY, true)
+				.handler(new ChannelInitializer<SocketChannel>()
 				{
-					ChannelPipeline p = ch.pipeline();
-
-					//p.addFirst(new HttpProxyHandler(new InetSocketAddress("runelite.net", 3128)));
-					p.addLast("decoder", new HandshakeResponseDecoder());
-
-					p.addLast(
-						new CacheClientHandler(),
-						new HandshakeResponseHandler(CacheClient.this),
-						new ArchiveResponseHandler(CacheClient.this)
-					);
-
-					p.addLast(
-						new UpdateHandshakeEncoder(),
-						new EncryptionEncoder(),
-						new ArchiveRequestEncoder()
-					);
-				}
-			});
+					@Override
+					public void initChannel(SocketChannel ch) throws Exception
+					{
+						ChannelPipeline p = ch.pipeline();
+
+						//p.addFirst(new HttpProxyHandler(new InetSocketAddress("runelite.net", 3128)));
+						p.addLast("decoder", new HandshakeResponseDecoder());
+
+						p.addLast(
+							new CacheClientHandler(CacheClient.this, connection),
+							new HandshakeResponseHandler(CacheClient.this, connection),
+							new ArchiveResponseHandler(CacheClient.this, connection)
+						);
+
+						p.addLast(
+							new UpdateHandshakeEncoder(),
+							new EncryptionEncoder(),
+							new ArchiveRequestEncoder()
+						);
+					}
+				});
 
-		// Start the client.
-		ChannelFuture f = b.connect(host, PORT).syncUninterruptibly();
-		channel = f.channel();
+			// Start the client.
+			ChannelFuture f = b.connect(host, port).syncUninterruptibly();
+			connection.setChannel(f.channel());
+		}
 	}
 
+	/**
+	 * Handshake on each connection.
+	 *
+	 * @return future completed with the first non-ok response, or
+	 * {@link HandshakeResponseType#RESPONSE_OK} if every connection succeeded
+	 */
 	public CompletableFuture<HandshakeResponseType> handshake()
 	{
-		UpdateHandshakePacket handshakePacket = new UpdateHandshakePacket();
-		handshakePacket.setRevision(getClientRevision());
+		List<CompletableFuture<HandshakeResponseType>> futures = new ArrayList<>(connections.size());
 
-		state = ClientState.HANDSHAKING;
+		for (UpdateConnection connection : connections)
+		{
+			UpdateHandshakePacket handshakePacket = new UpdateHandshakePacket();
+			handshakePacket.setRevision(getClientRevision());
+
+			CompletableFuture<HandshakeResponseType> handshakeFuture = new CompletableFuture<>();
 
-		assert handshakeFuture == null;
-		handshakeFuture = new CompletableFuture<>();
+			synchronized (this)
+			{
+				assert connection.getHandshakeFuture() == null;
+				connection.setHandshakeFuture(handshakeFuture);
+				connection.setState(ClientState.HANDSHAKING);
+			}
 
-		channel.writeAndFlush(handshakePacket);
+			connection.getChannel().writeAndFlush(handshakePacket);
+			futures.add(handshakeFuture);
 
-		logger.info("Sent handshake with revision {}", handshakePacket.getRevision());
+			logger.info("Sent handshake with revision {} on connection {}", handshakePacket.getRevision(), connection.getId());
+		}
 
-		return handshakeFuture;
+		return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+			.thenApply(v ->
+			{
+				for (CompletableFuture<HandshakeResponseType> future : futures)
+				{
+					HandshakeResponseType response = future.join();
+					if (response != HandshakeResponseType.RESPONSE_OK)
+					{
+						return response;
+					}
+				}
+				return HandshakeResponseType.RESPONSE_OK;
+			});
 	}
 
 	@Override
 	public void close()
 	{
-		channel.close().syncUninterruptibly();
+		for (UpdateConnection connection : connections)
+		{
+			Channel channel = connection.getChannel();
+			if (channel != null)
+			{
+				channel.close().syncUninterruptibly();
+			}
+		}
 		group.shutdownGracefully();
 	}
 
@@ -164,26 +251,34 @@ public class CacheClient implements AutoCloseable
 		return clientRevision;
 	}
 
-	public ClientState getState()
+	/**
+	 * Get the state of the client, which is connected if any of its
+	 * connections are connected
+	 *
+	 * @return
+	 */
+	public synchronized ClientState getState()
 	{
+		ClientState state = null;
+		for (UpdateConnection connection : connections)
+		{
+			if (connection.getState() == ClientState.CONNECTED)
+			{
+				return ClientState.CONNECTED;
+			}
+			if (connection.getState() == ClientState.HANDSHAKING)
+			{
+				state = ClientState.HANDSHAKING;
+			}
+		}
 		return state;
 	}
 
-	void setState(ClientState state)
-	{
-		this.state = state;
-	}
-
-	CompletableFuture<HandshakeResponseType> getHandshakeFuture()
-	{
-		return handshakeFuture;
-	}
-
 	public List<IndexInfo> requestIndexes() throws IOException
 	{
 		logger.info("Requesting indexes");
 
-		FileResult result = requestFile(255, 255, true).join();
+		FileResult result = requestFile(255, 255).join();
 		result.decompress(null);
 
 		ByteBuf buffer = Unpooled.wrappedBuffer(result.getContents());
@@ -204,7 +299,21 @@ public class CacheClient implements AutoCloseable
 	{
 		Stopwatch stopwatch = Stopwatch.createStarted();
 
+		downloadedFiles.set(0);
+		downloadedBytes.set(0L);
+		downloadStart = System.nanoTime();
+
 		List<IndexInfo> indexes = requestIndexes();
+
+		// request all of the index data up front, so it is downloaded
+		// concurrently instead of one index at a time
+		List<CompletableFuture<FileResult>> indexFutures = new ArrayList<>(indexes.size());
+		for (IndexInfo indexInfo : indexes)
+		{
+			indexFutures.add(requestFile(255, indexInfo.getId()));
+		}
+
+		List<CompletableFuture<Void>> futures = new ArrayList<>();
 		for (IndexInfo indexInfo : indexes)
 		{
 			int i = indexInfo.getId();
@@ -242,7 +351,7 @@ public class CacheClient implements AutoCloseable
 
 			logger.info("Downloading index {}", i);
 
-			FileResult indexFileResult = requestFile(255, i, true).join();
+			FileResult indexFileResult = join(indexFutures.get(i));
 			indexFileResult.decompress(null);
 
 			logger.info("Downloaded index {}", i);
@@ -314,9 +423,15 @@ public class CacheClient implements AutoCloseable
 				// Add files
 				archive.setFileData(ad.getFiles());
 
-				CompletableFuture<FileResult> future = requestFile(index.getId(), ad.getId(), false);
-				future.handle((fr, ex) ->
+				CompletableFuture<FileResult> future = requestFile(index.getId(), ad.getId());
+				futures.add(future.handle((fr, ex) ->
 				{
+					if (ex != null)
+					{
+						logger.warn("unable to download archive {}/{}", archive.getIndex().getId(), archive.getArchiveId(), ex);
+						return null;
+					}
+
 					byte[] data = fr.getCompressedData();
 
 					Crc32 crc32 = new Crc32();
@@ -328,132 +443,209 @@ public class CacheClient implements AutoCloseable
 						logger.warn("crc mismatch on downloaded archive {}/{}: {} != {}",
 							archive.getIndex().getId(), archive.getArchiveId(),
 							hash, archive.getCrc());
-						throw new RuntimeException("crc mismatch");
+						return null;
 					}
 
-					if (watcher != null)
+					synchronized (saveLock)
 					{
-						watcher.downloadComplete(archive, data);
-					}
-					else
-					{
-						try
+						if (watcher != null)
 						{
-							Storage storage = store.getStorage();
-							storage.saveArchive(archive, data);
+							watcher.downloadComplete(archive, data);
 						}
-						catch (IOException ex1)
+						else
 						{
-							logger.warn("unable to save archive data", ex1);
+							try
+							{
+								Storage storage = store.getStorage();
+								storage.saveArchive(archive, data);
+							}
+							catch (IOException ex1)
+							{
+								logger.warn("unable to save archive data", ex1);
+							}
 						}
 					}
 					return null;
-				});
+				}));
 			}
 		}
 
-		// flush any pending requests
-		channel.flush();
+		// wait for pending requests
+		CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
 
-		while (!requests.isEmpty())
+		stopwatch.stop();
+
+		long bytes = downloadedBytes.get();
+		long millis = Math.max(1L, stopwatch.elapsed(TimeUnit.MILLISECONDS));
+		logger.info("Download completed in {}: {} files, {} bytes ({} KB/s)",
+			stopwatch, downloadedFiles.get(), bytes, bytes * 1000L / millis / 1024L);
+	}
+
+	private static FileResult join(CompletableFuture<FileResult> future) throws IOException
+	{
+		try
 		{
-			// wait for pending requests
-			synchronized (this)
+			return future.join();
+		}
+		catch (CompletionException ex)
+		{
+			if (ex.getCause() instanceof IOException)
 			{
-				try
-				{
-					wait();
-				}
-				catch (InterruptedException ex)
-				{
-					logger.warn(null, ex);
-				}
+				throw (IOException) ex.getCause();
 			}
+			throw ex;
 		}
+	}
 
-		stopwatch.stop();
-		logger.info("Download completed in {}", stopwatch);
+	private static int key(int index, int archive)
+	{
+		return index << 16 | archive;
 	}
 
-	private synchronized CompletableFuture<FileResult> requestFile(int index, int fileId, boolean flush)
+	private synchronized CompletableFuture<FileResult> requestFile(int index, int fileId)
 	{
-		if (state != ClientState.CONNECTED)
+		if (getState() != ClientState.CONNECTED)
 		{
 			throw new IllegalStateException("Can't request files until connected!");
 		}
 
-		if (!flush)
+		int key = key(index, fileId);
+		PendingFileRequest existing = pending.get(key);
+		if (existing != null)
 		{
-			while (requests.size() >= MAX_REQUESTS)
-			{
-				channel.flush();
-
-				try
-				{
-					wait();
-				}
-				catch (InterruptedException ex)
-				{
-					logger.warn("interrupted while waiting for requests", ex);
-				}
-			}
+			return existing.getFuture();
 		}
 
-		ArchiveRequestPacket archiveRequest = new ArchiveRequestPacket();
-		archiveRequest.setPriority(false);
-		archiveRequest.setIndex(index);
-		archiveRequest.setArchive(fileId);
-
 		CompletableFuture<FileResult> future = new CompletableFuture<>();
-		PendingFileRequest pf = new PendingFileRequest(index,
-			fileId, future);
-
-		logger.trace("Sending request for {}/{}", index, fileId);
+		PendingFileRequest pf = new PendingFileRequest(index, fileId, future,
+			index == 255 ? PRIORITY_INDEX : PRIORITY_ARCHIVE, sequence++);
 
-		requests.add(pf);
+		pending.put(key, pf);
+		queue.add(pf);
 
-		if (!flush)
-		{
-			channel.write(archiveRequest);
-		}
-		else
-		{
-			channel.writeAndFlush(archiveRequest);
-		}
+		dispatch();
 
 		return future;
 	}
 
-	private PendingFileRequest findRequest(int index, int file)
+	/**
+	 * Send queued requests on each connection with room in its window
+	 */
+	private synchronized void dispatch()
 	{
-		for (PendingFileRequest pr : requests)
+		for (UpdateConnection connection : connections)
 		{
-			if (pr.getIndex() == index && pr.getArchive() == file)
+			if (connection.getState() != ClientState.CONNECTED)
+			{
+				continue;
+			}
+
+			IntObjectMap<PendingFileRequest> inFlight = connection.getInFlight();
+			boolean sent = false;
+
+			while (inFlight.size() < MAX_REQUESTS && !queue.isEmpty())
+			{
+				PendingFileRequest pf = queue.poll();
+				pf.setConnection(connection);
+				inFlight.put(key(pf.getIndex(), pf.getArchive()), pf);
+
+				ArchiveRequestPacket archiveRequest = new ArchiveRequestPacket();
+				archiveRequest.setPriority(false);
+				archiveRequest.setIndex(pf.getIndex());
+				archiveRequest.setArchive(pf.getArchive());
+
+				logger.trace("Sending request for {}/{} on connection {}", pf.getIndex(), pf.getArchive(), connection.getId());
+
+				connection.getChannel().write(archiveRequest);
+				sent = true;
+			}
+
+			if (sent)
 			{
-				return pr;
+				connection.getChannel().flush();
 			}
 		}
-		return null;
 	}
 
-	protected synchronized void onFileFinish(int index, int file, byte[] compressedData)
+	synchronized void connectionReady(UpdateConnection connection)
 	{
-		PendingFileRequest pr = findRequest(index, file);
+		dispatch();
+	}
+
+	synchronized void connectionLost(UpdateConnection connection)
+	{
+		connection.setState(null);
 
-		if (pr == null)
+		CompletableFuture<HandshakeResponseType> handshakeFuture = connection.getHandshakeFuture();
+		if (handshakeFuture != null)
 		{
-			logger.warn("File download {}/{} with no pending request", index, file);
+			handshakeFuture.completeExceptionally(new IOException("connection " + connection.getId() + " closed during handshake"));
+		}
+
+		// move the requests back onto the queue for the remaining connections
+		IntObjectMap<PendingFileRequest> inFlight = connection.getInFlight();
+		for (int key : inFlight.keys())
+		{
+			PendingFileRequest pf = inFlight.get(key);
+			pf.setConnection(null);
+			queue.add(pf);
+		}
+		inFlight.clear();
+
+		if (getState() == null)
+		{
+			if (!pending.isEmpty())
+			{
+				logger.warn("All connections have been lost, failing {} pending requests", pending.size());
+			}
+
+			IOException ex = new IOException("all connections have been closed");
+			for (int key : pending.keys())
+			{
+				pending.get(key).getFuture().completeExceptionally(ex);
+			}
+			pending.clear();
+			queue.clear();
 			return;
 		}
 
-		requests.remove(pr);
+		dispatch();
+	}
+
+	protected void onFileFinish(UpdateConnection connection, int index, int file, byte[] compressedData)
+	{
+		PendingFileRequest pr;
+		int remaining;
+
+		synchronized (this)
+		{
+			int key = key(index, file);
+			pr = connection.getInFlight().remove(key);
+
+			if (pr == null)
+			{
+				logger.warn("File download {}/{} with no pending request", index, file);
+				return;
+			}
+
+			pending.remove(key);
+			remaining = pending.size();
+
+			dispatch();
+		}
 
-		notify();
+		int files = downloadedFiles.incrementAndGet();
+		long bytes = downloadedBytes.addAndGet(compressedData.length);
 
 		FileResult result = new FileResult(index, file, compressedData);
 
 		logger.debug("File download finished for index {} file {}, length {}", index, file, compressedData.length);
 
 		pr.getFuture().complete(result);
+
+		if (watcher != null)
+		{
+			watcher.downloadProgress(files, remaining, bytes, System.nanoTime() - downloadStart);
+		}
 	}
 }
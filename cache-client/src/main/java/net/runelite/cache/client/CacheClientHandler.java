@@ -33,10 +33,20 @@ public class CacheClientHandler extends ChannelInboundHandlerAdapter
 {
 	private static final Logger logger = LoggerFactory.getLogger(CacheClientHandler.class);
 
+	private final CacheClient client;
+	private final UpdateConnection connection;
+
+	CacheClientHandler(CacheClient client, UpdateConnection connection)
+	{
+		this.client = client;
+		this.connection = connection;
+	}
+
 	@Override
 	public void channelInactive(ChannelHandlerContext ctx) throws Exception
 	{
-		logger.warn("Channel has gone inactive");
+		logger.warn("Channel for connection {} has gone inactive", connection.getId());
+		client.connectionLost(connection);
 	}
 
 	@Override
@@ -30,4 +30,16 @@ import net.runelite.cache.fs.Archive;
 public interface DownloadWatcher
 {
 	void downloadComplete(Archive archive, byte[] data);
+
+	/**
+	 * Called as files are downloaded, with the totals for the current download
+	 *
+	 * @param downloaded number of files downloaded
+	 * @param pending number of files requested but not yet downloaded
+	 * @param bytes number of bytes downloaded
+	 * @param elapsedNanos time since the download started
+	 */
+	default void downloadProgress(int downloaded, int pending, long bytes, long elapsedNanos)
+	{
+	}
 }
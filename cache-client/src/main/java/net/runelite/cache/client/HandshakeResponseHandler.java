@@ -41,10 +41,12 @@ public class HandshakeResponseHandler extends SimpleChannelInboundHandler<Handsh
 	private static final Logger logger = LoggerFactory.getLogger(HandshakeResponseHandler.class);
 
 	private final CacheClient client;
+	private final UpdateConnection connection;
 
-	public HandshakeResponseHandler(CacheClient client)
+	HandshakeResponseHandler(CacheClient client, UpdateConnection connection)
 	{
 		this.client = client;
+		this.connection = connection;
 	}
 
 	@Override
@@ -52,7 +54,7 @@ public class HandshakeResponseHandler extends SimpleChannelInboundHandler<Handsh
 	{
 		Channel channel = ctx.channel();
 		ChannelPipeline p = ctx.pipeline();
-		CompletableFuture<HandshakeResponseType> handshakeFuture = client.getHandshakeFuture();
+		CompletableFuture<HandshakeResponseType> handshakeFuture = connection.getHandshakeFuture();
 
 		assert handshakeFuture != null;
 
@@ -69,13 +71,15 @@ public class HandshakeResponseHandler extends SimpleChannelInboundHandler<Handsh
 		encryptionPacket.setKey((byte) 0);
 		channel.writeAndFlush(encryptionPacket);
 
-		client.setState(ClientState.CONNECTED);
+		connection.setState(ClientState.CONNECTED);
 
-		logger.info("Client is now connected!");
+		logger.info("Connection {} is now connected!", connection.getId());
 
 		p.replace("decoder", "decoder", new ArchiveResponseDecoder());
 
 		handshakeFuture.complete(handshakeResponse.getResponse());
+
+		client.connectionReady(connection);
 	}
 
 }
@@ -31,12 +31,24 @@ public class PendingFileRequest
 	private final int index;
 	private final int archive;
 	private final CompletableFuture<FileResult> future;
+	// order requests are sent in, lowest first
+	private final int priority;
+	private final long sequence;
+	// connection the request was sent on, or null if it is queued
+	private UpdateConnection connection;
 
 	public PendingFileRequest(int index, int archive, CompletableFuture<FileResult> future)
+	{
+		this(index, archive, future, 0, 0L);
+	}
+
+	PendingFileRequest(int index, int archive, CompletableFuture<FileResult> future, int priority, long sequence)
 	{
 		this.index = index;
 		this.archive = archive;
 		this.future = future;
+		this.priority = priority;
+		this.sequence = sequence;
 	}
 
 	public int getIndex()
@@ -53,4 +65,24 @@ public class PendingFileRequest
 	{
 		return future;
 	}
+
+	int getPriority()
+	{
+		return priority;
+	}
+
+	long getSequence()
+	{
+		return sequence;
+	}
+
+	UpdateConnection getConnection()
+	{
+		return connection;
+	}
+
+	void setConnection(UpdateConnection connection)
+	{
+		this.connection = connection;
+	}
 }
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2022, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.client;
+
+import io.netty.channel.Channel;
+import java.util.concurrent.CompletableFuture;
+import net.runelite.cache.util.IntObjectMap;
+import net.runelite.protocol.api.login.HandshakeResponseType;
+
+/**
+ * A single connection to the update server, with its own window of
+ * in-flight requests
+ */
+class UpdateConnection
+{
+	private final int id;
+	private Channel channel;
+	private ClientState state;
+	private CompletableFuture<HandshakeResponseType> handshakeFuture;
+
+	// requests sent on this connection which have not been responded to, keyed by CacheClient.key
+	private final IntObjectMap<PendingFileRequest> inFlight = new IntObjectMap<>();
+
+	UpdateConnection(int id)
+	{
+		this.id = id;
+	}
+
+	int getId()
+	{
+		return id;
+	}
+
+	Channel getChannel()
+	{
+		return channel;
+	}
+
+	void setChannel(Channel channel)
+	{
+		this.channel = channel;
+	}
+
+	ClientState getState()
+	{
+		return state;
+	}
+
+	void setState(ClientState state)
+	{
+		this.state = state;
+	}
+
+	CompletableFuture<HandshakeResponseType> getHandshakeFuture()
+	{
+		return handshakeFuture;
+	}
+
+	void setHandshakeFuture(CompletableFuture<HandshakeResponseType> handshakeFuture)
+	{
+		this.handshakeFuture = handshakeFuture;
+	}
+
+	IntObjectMap<PendingFileRequest> getInFlight()
+	{
+		return inFlight;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "UpdateConnection{" + "id=" + id + ", state=" + state + ", inFlight=" + inFlight.size() + '}';
+	}
+}
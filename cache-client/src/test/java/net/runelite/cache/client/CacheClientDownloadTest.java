@@ -0,0 +1,291 @@
+/*
+ * Copyright (c) 2022, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.client;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import net.runelite.cache.StoreLocation;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.Container;
+import net.runelite.cache.fs.Index;
+import net.runelite.cache.fs.Store;
+import net.runelite.cache.fs.jagex.CompressionType;
+import net.runelite.cache.fs.jagex.DiskStorage;
+import net.runelite.cache.index.FileData;
+import net.runelite.protocol.api.login.HandshakeResponseType;
+import net.runelite.protocol.api.update.ArchiveResponsePacket;
+import net.runelite.protocol.update.decoders.UpdateOpcodes;
+import net.runelite.protocol.update.encoders.ArchiveResponseEncoder;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class CacheClientDownloadTest
+{
+	@Rule
+	public TemporaryFolder folder = StoreLocation.getTemporaryFolder();
+
+	@Test(timeout = 60_000L)
+	public void testDownload() throws Exception
+	{
+		File sourceFolder = folder.newFolder();
+		File file = folder.newFolder();
+
+		Random random = new Random(42L);
+		try (Store source = new Store(new DiskStorage(sourceFolder)))
+		{
+			for (int i = 0; i < 3; ++i)
+			{
+				Index index = source.addIndex(i);
+				index.setRevision(i + 1);
+
+				for (int j = 0; j < 100; ++j)
+				{
+					Archive archive = index.addArchive(j);
+					archive.setNameHash(random.nextInt());
+					archive.setRevision(j);
+					archive.setFileData(new FileData[]{new FileData()});
+
+					// some archives span several response chunks
+					byte[] data = new byte[random.nextInt(2048)];
+					random.nextBytes(data);
+
+					Container container = new Container(j % 2 == 0 ? CompressionType.GZ : CompressionType.NONE, -1);
+					container.compress(data, null);
+					source.getStorage().saveArchive(archive, container.data);
+				}
+			}
+			source.save();
+		}
+
+		AtomicInteger progress = new AtomicInteger();
+		DownloadWatcher watcher = new DownloadWatcher()
+		{
+			@Override
+			public void downloadComplete(Archive archive, byte[] data)
+			{
+				throw new UnsupportedOperationException();
+			}
+
+			@Override
+			public void downloadProgress(int downloaded, int pending, long bytes, long elapsedNanos)
+			{
+				progress.accumulateAndGet(downloaded, Math::max);
+			}
+		};
+
+		try (Store source = new Store(new DiskStorage(sourceFolder)))
+		{
+			source.load();
+
+			try (UpdateServer server = new UpdateServer(source))
+			{
+				try (Store store = new Store(new DiskStorage(file)))
+				{
+					CacheClient client = new CacheClient(store, "127.0.0.1", server.getPort(), 1, 2, null);
+					client.connect();
+					assertEquals(HandshakeResponseType.RESPONSE_OK, client.handshake().join());
+
+					client.download();
+					client.close();
+
+					store.save();
+				}
+
+				// a second download has nothing to fetch but the index data
+				try (Store store = new Store(new DiskStorage(file)))
+				{
+					store.load();
+
+					CacheClient client = new CacheClient(store, "127.0.0.1", server.getPort(), 1, 2, watcher);
+					client.connect();
+					assertEquals(HandshakeResponseType.RESPONSE_OK, client.handshake().join());
+
+					client.download();
+					client.close();
+				}
+				assertEquals(1 + source.getIndexes().size(), progress.get());
+
+				try (Store store = new Store(new DiskStorage(file)))
+				{
+					store.load();
+					assertEquals(source, store);
+
+					for (Index index : source.getIndexes())
+					{
+						Index downloaded = store.findIndex(index.getId());
+						for (Archive archive : index.getArchives())
+						{
+							Archive downloadedArchive = downloaded.getArchive(archive.getArchiveId());
+							assertEquals(archive.getCrc(), downloadedArchive.getCrc());
+							assertEquals(archive.getNameHash(), downloadedArchive.getNameHash());
+							assertArrayEquals(archive.decompress(source.getStorage().loadArchive(archive)),
+								downloadedArchive.decompress(store.getStorage().loadArchive(downloadedArchive)));
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * A minimal stand-in for the update server, serving the archives of a store
+	 */
+	private static class UpdateServer implements AutoCloseable
+	{
+		private final Store store;
+		private final DiskStorage storage;
+		private final EventLoopGroup group = new NioEventLoopGroup(2);
+		private final Channel channel;
+
+		UpdateServer(Store store)
+		{
+			this.store = store;
+			this.storage = (DiskStorage) store.getStorage();
+
+			ServerBootstrap b = new ServerBootstrap();
+			b.group(group)
+				.channel(NioServerSocketChannel.class)
+				.childHandler(new ChannelInitializer<SocketChannel>()
+				{
+					@Override
+					public void initChannel(SocketChannel ch) throws Exception
+					{
+						ch.pipeline().addLast(
+							new ArchiveResponseEncoder(),
+							new UpdateDecoder()
+						);
+					}
+				});
+
+			channel = b.bind("127.0.0.1", 0).syncUninterruptibly().channel();
+		}
+
+		int getPort()
+		{
+			return ((InetSocketAddress) channel.localAddress()).getPort();
+		}
+
+		@Override
+		public void close()
+		{
+			channel.close().syncUninterruptibly();
+			group.shutdownGracefully();
+		}
+
+		private synchronized byte[] load(int index, int archive) throws IOException
+		{
+			if (index == 255 && archive == 255)
+			{
+				ByteBuf buf = Unpooled.buffer();
+				for (Index i : store.getIndexes())
+				{
+					buf.writeInt(Container.decompress(trim(storage.readIndex(i.getId())), null).crc);
+					buf.writeInt(i.getRevision());
+				}
+
+				Container container = new Container(CompressionType.NONE, -1);
+				container.compress(Arrays.copyOf(buf.array(), buf.writerIndex()), null);
+				return container.data;
+			}
+
+			if (index == 255)
+			{
+				return trim(storage.readIndex(archive));
+			}
+
+			return trim(storage.loadArchive(store.findIndex(index).getArchive(archive)));
+		}
+
+		// the revision appended to the container is not sent
+		private static byte[] trim(byte[] data)
+		{
+			ByteBuf buf = Unpooled.wrappedBuffer(data);
+			int compression = buf.readUnsignedByte();
+			int length = buf.readInt();
+			return Arrays.copyOf(data, 5 + length + (compression != CompressionType.NONE ? 4 : 0));
+		}
+
+		private class UpdateDecoder extends ByteToMessageDecoder
+		{
+			private boolean handshaken;
+
+			@Override
+			protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception
+			{
+				if (!handshaken)
+				{
+					if (in.readableBytes() < 5)
+					{
+						return;
+					}
+
+					in.skipBytes(5); // handshake type and revision
+					handshaken = true;
+					ctx.writeAndFlush(Unpooled.wrappedBuffer(new byte[]{HandshakeResponseType.RESPONSE_OK.getValue()}));
+					return;
+				}
+
+				if (in.readableBytes() < 4)
+				{
+					return;
+				}
+
+				int opcode = in.readUnsignedByte();
+				int index = in.readUnsignedByte();
+				int archive = in.readUnsignedShort();
+
+				if (opcode != UpdateOpcodes.ARCHIVE_REQUEST_LOW && opcode != UpdateOpcodes.ARCHIVE_REQUEST_HIGH)
+				{
+					return;
+				}
+
+				ArchiveResponsePacket response = new ArchiveResponsePacket();
+				response.setIndex(index);
+				response.setArchive(archive);
+				response.setData(load(index, archive));
+				ctx.writeAndFlush(response);
+			}
+		}
+	}
+}
@@ -28,6 +28,7 @@ import java.time.Instant;
 import java.util.List;
 import net.runelite.cache.updater.beans.ArchiveEntry;
 import net.runelite.cache.updater.beans.CacheEntry;
+import net.runelite.cache.updater.beans.FileEntry;
 import net.runelite.cache.updater.beans.IndexEntry;
 import org.sql2o.Connection;
 import org.sql2o.Query;
@@ -35,10 +36,14 @@ import org.sql2o.ResultSetIterable;
 
 class CacheDAO
 {
+	// number of rows sent per batch by the bulk inserts
+	private static final int BATCH_SIZE = 1000;
+
 	// cache prepared statements for high volume queries
 	private Query associateArchive;
 	private Query findArchive, insertArchive;
 	private Query associateFile;
+	private Query insertArchives, associateFiles, associateArchives;
 
 	public CacheEntry findMostRecent(Connection con)
 	{
@@ -174,4 +179,99 @@ class CacheDAO
 			.addParameter("nameHash", nameHash)
 			.executeUpdate();
 	}
+
+	/**
+	 * Insert archives using batched inserts, setting the id of each entry
+	 * from the generated keys
+	 */
+	public void createArchives(Connection con, List<ArchiveEntry> archives)
+	{
+		if (insertArchives == null)
+		{
+			insertArchives = con.createQuery("insert into archive (archiveId, nameHash, crc, revision, hash) values "
+				+ "(:archiveId, :nameHash, :crc, :revision, :hash)", true);
+		}
+
+		for (int i = 0; i < archives.size(); i += BATCH_SIZE)
+		{
+			List<ArchiveEntry> batch = archives.subList(i, Math.min(i + BATCH_SIZE, archives.size()));
+			for (ArchiveEntry archive : batch)
+			{
+				insertArchives
+					.addParameter("archiveId", archive.getArchiveId())
+					.addParameter("nameHash", archive.getNameHash())
+					.addParameter("crc", archive.getCrc())
+					.addParameter("revision", archive.getRevision())
+					.addParameter("hash", archive.getHash())
+					.addToBatch();
+			}
+
+			List<Integer> keys = insertArchives.executeBatch()
+				.getKeys(Integer.class);
+			if (keys.size() != batch.size())
+			{
+				throw new IllegalStateException("expected " + batch.size() + " generated keys, got " + keys.size());
+			}
+
+			for (int j = 0; j < batch.size(); ++j)
+			{
+				batch.get(j).setId(keys.get(j));
+			}
+		}
+	}
+
+	public void associateFilesToArchives(Connection con, List<FileEntry> files)
+	{
+		if (associateFiles == null)
+		{
+			associateFiles = con.createQuery("insert into file (archive, fileId, nameHash) values (:archive, :fileId, :nameHash)", false);
+		}
+
+		int count = 0;
+		for (FileEntry file : files)
+		{
+			associateFiles
+				.addParameter("archive", file.getArchiveId())
+				.addParameter("fileId", file.getFileId())
+				.addParameter("nameHash", file.getNameHash())
+				.addToBatch();
+
+			if (++count % BATCH_SIZE == 0)
+			{
+				associateFiles.executeBatch();
+			}
+		}
+
+		if (count % BATCH_SIZE != 0)
+		{
+			associateFiles.executeBatch();
+		}
+	}
+
+	public void associateArchivesToIndex(Connection con, List<ArchiveEntry> archives, IndexEntry index)
+	{
+		if (associateArchives == null)
+		{
+			associateArchives = con.createQuery("insert into index_archive (`index`, archive) values (:index, :archive)", false);
+		}
+
+		int count = 0;
+		for (ArchiveEntry archive : archives)
+		{
+			associateArchives
+				.addParameter("index", index.getId())
+				.addParameter("archive", archive.getId())
+				.addToBatch();
+
+			if (++count % BATCH_SIZE == 0)
+			{
+				associateArchives.executeBatch();
+			}
+		}
+
+		if (count % BATCH_SIZE != 0)
+		{
+			associateArchives.executeBatch();
+		}
+	}
 }
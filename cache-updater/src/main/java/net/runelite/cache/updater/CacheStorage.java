@@ -25,7 +25,10 @@
 package net.runelite.cache.updater;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import net.runelite.cache.fs.Archive;
 import net.runelite.cache.fs.Index;
 import net.runelite.cache.fs.Storage;
@@ -33,6 +36,7 @@ import net.runelite.cache.fs.Store;
 import net.runelite.cache.index.FileData;
 import net.runelite.cache.updater.beans.ArchiveEntry;
 import net.runelite.cache.updater.beans.CacheEntry;
+import net.runelite.cache.updater.beans.FileEntry;
 import net.runelite.cache.updater.beans.IndexEntry;
 import org.sql2o.Connection;
 import org.sql2o.ResultSetIterable;
@@ -42,6 +46,8 @@ public class CacheStorage implements Storage
 	private CacheEntry cacheEntry;
 	private final CacheDAO cacheDao;
 	private final Connection con;
+	// indexes of the cache the store was loaded from, by index id
+	private final Map<Integer, IndexEntry> loadedIndexes = new HashMap<>();
 
 	public CacheStorage(CacheEntry cacheEntry, CacheDAO cacheDao, Connection con)
 	{
@@ -76,6 +82,8 @@ public class CacheStorage implements Storage
 		List<IndexEntry> indexes = cacheDao.findIndexesForCache(con, cacheEntry);
 		for (IndexEntry indexEntry : indexes)
 		{
+			loadedIndexes.put(indexEntry.getIndexId(), indexEntry);
+
 			Index index = store.addIndex(indexEntry.getIndexId());
 			index.setCrc(indexEntry.getCrc());
 			index.setRevision(indexEntry.getRevision());
@@ -108,25 +116,83 @@ public class CacheStorage implements Storage
 		{
 			IndexEntry entry = cacheDao.createIndex(con, cacheEntry, index.getId(), index.getCrc(), index.getRevision());
 
+			Map<Integer, ArchiveEntry> previous = findPreviousArchives(index.getId());
+
+			List<ArchiveEntry> archives = new ArrayList<>(index.getArchives().size());
+			List<ArchiveEntry> created = new ArrayList<>();
+			List<Archive> createdArchives = new ArrayList<>();
+
 			for (Archive archive : index.getArchives())
 			{
-				ArchiveEntry archiveEntry = cacheDao.findArchive(con, entry, archive.getArchiveId(),
-					archive.getNameHash(), archive.getCrc(), archive.getRevision());
+				ArchiveEntry archiveEntry = previous.get(archive.getArchiveId());
+				if (archiveEntry == null || archiveEntry.getNameHash() != archive.getNameHash()
+					|| archiveEntry.getCrc() != archive.getCrc() || archiveEntry.getRevision() != archive.getRevision())
+				{
+					// the archive may exist from an older cache
+					archiveEntry = cacheDao.findArchive(con, entry, archive.getArchiveId(),
+						archive.getNameHash(), archive.getCrc(), archive.getRevision());
+				}
+
 				if (archiveEntry == null)
 				{
-					byte[] hash = archive.getHash();
-					archiveEntry = cacheDao.createArchive(con, entry, archive.getArchiveId(),
-						archive.getNameHash(), archive.getCrc(), archive.getRevision(), hash);
+					archiveEntry = new ArchiveEntry();
+					archiveEntry.setArchiveId(archive.getArchiveId());
+					archiveEntry.setNameHash(archive.getNameHash());
+					archiveEntry.setCrc(archive.getCrc());
+					archiveEntry.setRevision(archive.getRevision());
+					archiveEntry.setHash(archive.getHash());
+
+					created.add(archiveEntry);
+					createdArchives.add(archive);
+				}
 
-					for (FileData file : archive.getFileData())
-					{
-						cacheDao.associateFileToArchive(con, archiveEntry, file.getId(), file.getNameHash());
-					}
+				archives.add(archiveEntry);
+			}
+
+			cacheDao.createArchives(con, created);
+
+			List<FileEntry> files = new ArrayList<>();
+			for (int i = 0; i < created.size(); ++i)
+			{
+				ArchiveEntry archiveEntry = created.get(i);
+				for (FileData fileData : createdArchives.get(i).getFileData())
+				{
+					FileEntry file = new FileEntry();
+					file.setArchiveId(archiveEntry.getId());
+					file.setFileId(fileData.getId());
+					file.setNameHash(fileData.getNameHash());
+					files.add(file);
 				}
+			}
+
+			cacheDao.associateFilesToArchives(con, files);
+			cacheDao.associateArchivesToIndex(con, archives, entry);
+		}
+	}
 
-				cacheDao.associateArchiveToIndex(con, archiveEntry, entry);
+	/**
+	 * Find the archives of an index in the cache the store was loaded from
+	 *
+	 * @param indexId
+	 * @return map of archive id to archive
+	 */
+	private Map<Integer, ArchiveEntry> findPreviousArchives(int indexId)
+	{
+		IndexEntry indexEntry = loadedIndexes.get(indexId);
+		if (indexEntry == null)
+		{
+			return new HashMap<>();
+		}
+
+		Map<Integer, ArchiveEntry> archives = new HashMap<>();
+		try (ResultSetIterable<ArchiveEntry> entries = cacheDao.findArchivesForIndex(con, indexEntry))
+		{
+			for (ArchiveEntry archiveEntry : entries)
+			{
+				archives.put(archiveEntry.getArchiveId(), archiveEntry);
 			}
 		}
+		return archives;
 	}
 
 	@Override
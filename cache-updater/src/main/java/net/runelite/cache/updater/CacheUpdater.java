@@ -30,12 +30,8 @@ import io.minio.errors.InvalidPortException;
 import java.io.IOException;
 import java.time.Instant;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
 import net.runelite.cache.client.CacheClient;
 import net.runelite.cache.client.IndexInfo;
-import net.runelite.cache.fs.Archive;
 import net.runelite.cache.fs.Store;
 import net.runelite.cache.updater.beans.CacheEntry;
 import net.runelite.cache.updater.beans.IndexEntry;
@@ -62,6 +58,12 @@ public class CacheUpdater implements CommandLineRunner
 	@Value("${minio.bucket}")
 	private String minioBucket;
 
+	@Value("${minio.upload-threads:8}")
+	private int uploadThreads;
+
+	@Value("${minio.max-pending-uploads:256}")
+	private int maxPendingUploads;
+
 	@Value("${rs.version}")
 	private int rsVersion;
 
@@ -92,10 +94,10 @@ public class CacheUpdater implements CommandLineRunner
 			Store store = new Store(storage);
 			store.load();
 
-			ExecutorService executor = Executors.newSingleThreadExecutor();
+			CacheUploader uploader = new CacheUploader(new MinioObjectStorage(minioClient, minioBucket),
+				uploadThreads, maxPendingUploads);
 
-			CacheClient client = new CacheClient(store, rsVersion,
-				(Archive archive, byte[] data) -> executor.submit(new CacheUploader(minioClient, minioBucket, archive, data)));
+			CacheClient client = new CacheClient(store, rsVersion, uploader);
 
 			client.connect();
 			HandshakeResponseType result = client.handshake().join();
@@ -123,14 +125,10 @@ public class CacheUpdater implements CommandLineRunner
 
 			// ensure objects are added to the store before they become
 			// visible in the database
-			executor.shutdown();
-			while (!executor.awaitTermination(1, TimeUnit.SECONDS))
-			{
-				logger.debug("Waiting for termination of executor...");
-			}
+			uploader.finish();
 
-			// CacheStorage requires archive hashes to be set, which is set in the executor tasks, so it must be
-			// run after shutdown
+			// CacheStorage requires archive hashes to be set, which is set by the uploader, so it must be
+			// run after the uploads finish
 			store.save();
 
 			// commit database
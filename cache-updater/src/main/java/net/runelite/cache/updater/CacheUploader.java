@@ -26,48 +26,130 @@ package net.runelite.cache.updater;
 
 import com.google.common.hash.Hashing;
 import com.google.common.io.BaseEncoding;
-import io.minio.MinioClient;
-import io.minio.errors.ErrorResponseException;
-import io.minio.errors.InsufficientDataException;
-import io.minio.errors.InternalException;
-import io.minio.errors.InvalidArgumentException;
-import io.minio.errors.InvalidBucketNameException;
-import io.minio.errors.NoResponseException;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.security.InvalidKeyException;
-import java.security.NoSuchAlgorithmException;
+import java.io.InterruptedIOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import net.runelite.cache.client.DownloadWatcher;
 import net.runelite.cache.fs.Archive;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.xmlpull.v1.XmlPullParserException;
 
-public class CacheUploader implements Runnable
+/**
+ * Uploads downloaded archives to object storage, keyed by the hash of their
+ * contents. Uploads run concurrently, and {@link #downloadComplete(Archive, byte[])}
+ * blocks once too many uploads are pending, which stops the cache client from
+ * reading more archives until the uploads catch up.
+ */
+public class CacheUploader implements DownloadWatcher
 {
 	private static final Logger logger = LoggerFactory.getLogger(CacheUploader.class);
 
-	private final MinioClient minioClient;
-	private final String minioBucket;
-	private final Archive archive;
-	private final byte[] data;
+	private static final int MAX_ATTEMPTS = 5;
+	private static final long RETRY_DELAY_MILLIS = 250L;
 
-	public CacheUploader(MinioClient minioClient, String minioBucket, Archive archive, byte[] data)
+	public enum Stage
 	{
-		this.minioClient = minioClient;
-		this.minioBucket = minioBucket;
-		this.archive = archive;
-		this.data = data;
+		HASH,
+		CHECK,
+		UPLOAD
+	}
+
+	@FunctionalInterface
+	private interface StorageCall<T>
+	{
+		T call() throws IOException;
+	}
+
+	private final ObjectStorage storage;
+	private final ExecutorService executor;
+	private final Semaphore pending;
+	private final long retryDelayMillis;
+
+	// hashes uploaded or being uploaded by this uploader
+	private final Set<String> hashes = ConcurrentHashMap.newKeySet();
+
+	private final LongAdder[] stageNanos = new LongAdder[Stage.values().length];
+	private final AtomicInteger uploaded = new AtomicInteger();
+	private final AtomicInteger skipped = new AtomicInteger();
+	private final AtomicInteger retries = new AtomicInteger();
+	private final AtomicInteger failed = new AtomicInteger();
+	private final AtomicReference<IOException> failure = new AtomicReference<>();
+
+	/**
+	 * @param storage storage to upload to
+	 * @param threads number of concurrent uploads
+	 * @param maxPending maximum number of archives waiting to be uploaded
+	 */
+	public CacheUploader(ObjectStorage storage, int threads, int maxPending)
+	{
+		this(storage, threads, maxPending, RETRY_DELAY_MILLIS);
+	}
+
+	CacheUploader(ObjectStorage storage, int threads, int maxPending, long retryDelayMillis)
+	{
+		this.storage = storage;
+		this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
+		this.pending = new Semaphore(maxPending);
+		this.retryDelayMillis = retryDelayMillis;
+
+		for (int i = 0; i < stageNanos.length; ++i)
+		{
+			stageNanos[i] = new LongAdder();
+		}
 	}
 
 	@Override
-	public void run()
+	public void downloadComplete(Archive archive, byte[] data)
 	{
+		pending.acquireUninterruptibly();
+		try
+		{
+			executor.execute(() ->
+			{
+				try
+				{
+					upload(archive, data);
+				}
+				finally
+				{
+					pending.release();
+				}
+			});
+		}
+		catch (RejectedExecutionException ex)
+		{
+			pending.release();
+			throw ex;
+		}
+	}
+
+	private void upload(Archive archive, byte[] data)
+	{
+		long start = System.nanoTime();
 		byte[] hash = Hashing.sha256().hashBytes(data).asBytes();
 		String hashStr = BaseEncoding.base16().encode(hash);
+		stageNanos[Stage.HASH.ordinal()].add(System.nanoTime() - start);
 
 		archive.setHash(hash);
 
+		if (!hashes.add(hashStr))
+		{
+			// the same data has already been uploaded
+			skipped.incrementAndGet();
+			return;
+		}
+
 		String path = new StringBuilder()
 			.append(hashStr, 0, 2)
 			.append('/')
@@ -76,21 +158,122 @@ public class CacheUploader implements Runnable
 
 		try
 		{
-			try (InputStream in = minioClient.getObject(minioBucket, path))
+			start = System.nanoTime();
+			boolean exists = retry(() -> storage.exists(path));
+			stageNanos[Stage.CHECK.ordinal()].add(System.nanoTime() - start);
+
+			if (exists)
 			{
-				return; // already exists
+				skipped.incrementAndGet();
+				return;
 			}
-			catch (ErrorResponseException ex)
+
+			start = System.nanoTime();
+			retry(() ->
 			{
-				// doesn't exist
+				storage.put(path, data);
+				return null;
+			});
+			stageNanos[Stage.UPLOAD.ordinal()].add(System.nanoTime() - start);
+
+			uploaded.incrementAndGet();
+		}
+		catch (IOException ex)
+		{
+			logger.warn("unable to upload archive {}/{} to {}", archive.getIndex().getId(), archive.getArchiveId(), path, ex);
+
+			hashes.remove(hashStr);
+			failed.incrementAndGet();
+			failure.compareAndSet(null, ex);
+		}
+	}
+
+	private <T> T retry(StorageCall<T> call) throws IOException
+	{
+		for (int attempt = 1; ; ++attempt)
+		{
+			try
+			{
+				return call.call();
+			}
+			catch (IOException ex)
+			{
+				if (attempt >= MAX_ATTEMPTS)
+				{
+					throw ex;
+				}
+
+				// exponential backoff, with jitter so the threads don't retry in lockstep
+				long delay = retryDelayMillis << (attempt - 1);
+				delay = delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+
+				logger.debug("storage request failed, retrying in {}ms (attempt {}/{})", delay, attempt, MAX_ATTEMPTS, ex);
+				retries.incrementAndGet();
+
+				try
+				{
+					Thread.sleep(delay);
+				}
+				catch (InterruptedException ex1)
+				{
+					Thread.currentThread().interrupt();
+					throw new InterruptedIOException();
+				}
 			}
+		}
+	}
 
-			minioClient.putObject(minioBucket, path, new ByteArrayInputStream(data), data.length, "binary/octet-stream");
+	/**
+	 * Wait for all uploads to complete. No more archives may be uploaded
+	 * afterward.
+	 *
+	 * @throws IOException if any archive failed to upload
+	 * @throws InterruptedException
+	 */
+	public void finish() throws IOException, InterruptedException
+	{
+		executor.shutdown();
+		while (!executor.awaitTermination(1, TimeUnit.SECONDS))
+		{
+			logger.debug("Waiting for uploads to finish...");
 		}
-		catch (ErrorResponseException | InsufficientDataException | InternalException | InvalidArgumentException | InvalidBucketNameException | NoResponseException | IOException | InvalidKeyException | NoSuchAlgorithmException | XmlPullParserException ex)
+
+		logger.info("Uploaded {} archives, skipped {} existing archives, {} retries, {} failures. Time spent hashing {}ms, checking {}ms, uploading {}ms",
+			uploaded.get(), skipped.get(), retries.get(), failed.get(),
+			getTime(Stage.HASH, TimeUnit.MILLISECONDS), getTime(Stage.CHECK, TimeUnit.MILLISECONDS), getTime(Stage.UPLOAD, TimeUnit.MILLISECONDS));
+
+		IOException ex = failure.get();
+		if (ex != null)
 		{
-			logger.warn("unable to upload data to store", ex);
+			throw new IOException(failed.get() + " archives failed to upload", ex);
 		}
 	}
 
+	/**
+	 * Get the total time spent in a stage, summed over all upload threads
+	 */
+	public long getTime(Stage stage, TimeUnit unit)
+	{
+		return unit.convert(stageNanos[stage.ordinal()].sum(), TimeUnit.NANOSECONDS);
+	}
+
+	public int getUploaded()
+	{
+		return uploaded.get();
+	}
+
+	public int getSkipped()
+	{
+		return skipped.get();
+	}
+
+	public int getRetries()
+	{
+		return retries.get();
+	}
+
+	public int getFailed()
+	{
+		return failed.get();
+	}
 }
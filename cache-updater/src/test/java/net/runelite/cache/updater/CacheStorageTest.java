@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2022, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.updater;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.Index;
+import net.runelite.cache.fs.Store;
+import net.runelite.cache.index.FileData;
+import net.runelite.cache.updater.beans.CacheEntry;
+import org.junit.After;
+import static org.junit.Assert.assertEquals;
+import org.junit.Before;
+import org.junit.Test;
+import org.sql2o.Connection;
+import org.sql2o.Sql2o;
+import org.sql2o.converters.Converter;
+import org.sql2o.quirks.NoQuirks;
+
+public class CacheStorageTest
+{
+	private Connection con;
+	private final CacheDAO cacheDao = new CacheDAO();
+
+	@Before
+	public void before()
+	{
+		Map<Class, Converter> converters = new HashMap<>();
+		converters.put(Instant.class, new InstantConverter());
+		Sql2o sql2o = new Sql2o("jdbc:h2:mem:cache;MODE=MySQL;CASE_INSENSITIVE_IDENTIFIERS=TRUE;"
+			+ "INIT=RUNSCRIPT FROM 'classpath:schema-h2.sql'", "sa", "", new NoQuirks(converters));
+		con = sql2o.beginTransaction();
+	}
+
+	@After
+	public void after()
+	{
+		con.rollback();
+	}
+
+	@Test
+	public void testSave() throws Exception
+	{
+		CacheEntry cache = cacheDao.createCache(con, 1, Instant.ofEpochSecond(1));
+		try (Store store = new Store(new CacheStorage(cache, cacheDao, con)))
+		{
+			Index index = store.addIndex(0);
+			for (int i = 0; i < 2500; ++i)
+			{
+				addArchive(index, i, i);
+			}
+			store.save();
+		}
+
+		assertEquals(2500, count("archive"));
+		assertEquals(5000, count("file"));
+		assertEquals(2500, count("index_archive"));
+
+		// change one archive and add another
+		CacheEntry cache2 = cacheDao.createCache(con, 2, Instant.ofEpochSecond(2));
+		CacheStorage storage = new CacheStorage(cache, cacheDao, con);
+		try (Store store = new Store(storage))
+		{
+			store.load();
+
+			Index index = store.findIndex(0);
+			index.removeArchive(index.getArchive(3));
+			addArchive(index, 3, 42);
+			addArchive(index, 2500, 2500);
+
+			storage.setCacheEntry(cache2);
+			store.save();
+		}
+
+		assertEquals(2502, count("archive"));
+		assertEquals(5004, count("file"));
+		assertEquals(5001, count("index_archive"));
+
+		try (Store store = new Store(new CacheStorage(cache2, cacheDao, con)))
+		{
+			store.load();
+
+			Index index = store.findIndex(0);
+			assertEquals(2501, index.getArchives().size());
+			assertEquals(42, index.getArchive(3).getCrc());
+			assertEquals(2500, index.getArchive(2500).getCrc());
+		}
+
+		// reverting an archive reuses the row from the first cache
+		CacheEntry cache3 = cacheDao.createCache(con, 3, Instant.ofEpochSecond(3));
+		storage = new CacheStorage(cache2, cacheDao, con);
+		try (Store store = new Store(storage))
+		{
+			store.load();
+
+			Index index = store.findIndex(0);
+			index.removeArchive(index.getArchive(3));
+			addArchive(index, 3, 3);
+
+			storage.setCacheEntry(cache3);
+			store.save();
+		}
+
+		assertEquals(2502, count("archive"));
+		assertEquals(7502, count("index_archive"));
+	}
+
+	private static void addArchive(Index index, int archiveId, int crc)
+	{
+		Archive archive = index.addArchive(archiveId);
+		archive.setNameHash(archiveId * 31);
+		archive.setCrc(crc);
+		archive.setRevision(crc);
+		archive.setHash(new byte[32]);
+
+		FileData[] files = new FileData[2];
+		for (int i = 0; i < files.length; ++i)
+		{
+			files[i] = new FileData();
+			files[i].setId(i);
+			files[i].setNameHash(i);
+		}
+		archive.setFileData(files);
+	}
+
+	private int count(String table)
+	{
+		return con.createQuery("select count(*) from " + table)
+			.executeScalar(Integer.class);
+	}
+}
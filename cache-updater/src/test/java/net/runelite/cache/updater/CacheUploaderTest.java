@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2022, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.updater;
+
+import com.google.common.hash.Hashing;
+import com.google.common.io.BaseEncoding;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.Index;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+public class CacheUploaderTest
+{
+	/**
+	 * In-process stand-in for the object storage, which fails the first
+	 * request for each path
+	 */
+	private static class TestObjectStorage implements ObjectStorage
+	{
+		private final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+		private final Map<String, Boolean> failed = new ConcurrentHashMap<>();
+		private final AtomicInteger puts = new AtomicInteger();
+		private final AtomicInteger active = new AtomicInteger();
+		private final AtomicInteger maxActive = new AtomicInteger();
+		private volatile boolean alwaysFail;
+
+		@Override
+		public boolean exists(String path) throws IOException
+		{
+			return objects.containsKey(path);
+		}
+
+		@Override
+		public void put(String path, byte[] data) throws IOException
+		{
+			int a = active.incrementAndGet();
+			maxActive.accumulateAndGet(a, Math::max);
+			try
+			{
+				if (alwaysFail || failed.putIfAbsent(path, true) == null)
+				{
+					throw new IOException("unavailable");
+				}
+
+				Thread.sleep(1);
+				puts.incrementAndGet();
+				objects.put(path, data);
+			}
+			catch (InterruptedException ex)
+			{
+				throw new IOException(ex);
+			}
+			finally
+			{
+				active.decrementAndGet();
+			}
+		}
+	}
+
+	@Test
+	public void testUpload() throws Exception
+	{
+		TestObjectStorage storage = new TestObjectStorage();
+
+		byte[] existing = data(1000);
+		storage.objects.put(path(existing), existing);
+
+		Index index = new Index(0);
+		CacheUploader uploader = new CacheUploader(storage, 4, 8, 1L);
+
+		for (int i = 0; i < 100; ++i)
+		{
+			// archives 50+ have the same data as archives 0-49
+			uploader.downloadComplete(index.addArchive(i), data(i % 50));
+		}
+		uploader.downloadComplete(index.addArchive(100), existing);
+
+		uploader.finish();
+
+		assertEquals(50, uploader.getUploaded());
+		assertEquals(51, uploader.getSkipped());
+		assertEquals(50, uploader.getRetries());
+		assertEquals(50, storage.puts.get());
+		assertEquals(51, storage.objects.size());
+		assertTrue(storage.maxActive.get() <= 4);
+
+		for (Archive archive : index.getArchives())
+		{
+			byte[] data = archive.getArchiveId() == 100 ? existing : data(archive.getArchiveId() % 50);
+			assertArrayEquals(Hashing.sha256().hashBytes(data).asBytes(), archive.getHash());
+			assertArrayEquals(data, storage.objects.get(path(data)));
+		}
+	}
+
+	@Test
+	public void testFailure() throws Exception
+	{
+		TestObjectStorage storage = new TestObjectStorage();
+		storage.alwaysFail = true;
+
+		CacheUploader uploader = new CacheUploader(storage, 2, 2, 1L);
+		uploader.downloadComplete(new Index(0).addArchive(0), data(0));
+
+		try
+		{
+			uploader.finish();
+			fail("expected upload to fail");
+		}
+		catch (IOException ex)
+		{
+			// expected
+		}
+
+		assertEquals(1, uploader.getFailed());
+		assertEquals(0, uploader.getUploaded());
+	}
+
+	private static byte[] data(int i)
+	{
+		return ("archive" + i).getBytes();
+	}
+
+	private static String path(byte[] data)
+	{
+		String hash = BaseEncoding.base16().encode(Hashing.sha256().hashBytes(data).asBytes());
+		return hash.substring(0, 2) + "/" + hash.substring(2);
+	}
+}
@@ -0,0 +1,52 @@
+-- H2 version of schema.sql for the embedded database used by the tests
+
+CREATE TABLE `archive` (
+  `id` int(11) NOT NULL AUTO_INCREMENT,
+  `archiveId` int(11) NOT NULL,
+  `nameHash` int(11) NOT NULL,
+  `crc` int(11) NOT NULL,
+  `revision` int(11) NOT NULL,
+  `hash` binary(32) NOT NULL,
+  PRIMARY KEY (`id`)
+);
+
+CREATE INDEX `archive_revision` ON `archive` (`archiveId`, `revision`);
+
+CREATE TABLE `cache` (
+  `id` int(11) NOT NULL AUTO_INCREMENT,
+  `revision` int(11) NOT NULL,
+  `date` timestamp NOT NULL,
+  PRIMARY KEY (`id`),
+  CONSTRAINT `revision_date` UNIQUE (`revision`, `date`)
+);
+
+CREATE TABLE `file` (
+  `id` int(11) NOT NULL AUTO_INCREMENT,
+  `archive` int(11) NOT NULL,
+  `fileId` int(11) NOT NULL,
+  `nameHash` int(11) NOT NULL,
+  PRIMARY KEY (`id`),
+  CONSTRAINT `archive_file` UNIQUE (`archive`, `fileId`),
+  FOREIGN KEY (`archive`) REFERENCES `archive` (`id`)
+);
+
+CREATE TABLE `index` (
+  `id` int(11) NOT NULL AUTO_INCREMENT,
+  `cache` int(11) NOT NULL,
+  `indexId` int(11) NOT NULL,
+  `crc` int(11) NOT NULL,
+  `revision` int(11) NOT NULL,
+  PRIMARY KEY (`id`),
+  CONSTRAINT `indexId` UNIQUE (`cache`, `indexId`, `revision`, `crc`),
+  FOREIGN KEY (`cache`) REFERENCES `cache` (`id`)
+);
+
+CREATE TABLE `index_archive` (
+  `id` int(11) NOT NULL AUTO_INCREMENT,
+  `index` int(11) NOT NULL,
+  `archive` int(11) NOT NULL,
+  PRIMARY KEY (`id`),
+  CONSTRAINT `idx_index_archive` UNIQUE (`index`, `archive`),
+  FOREIGN KEY (`index`) REFERENCES `index` (`id`),
+  FOREIGN KEY (`archive`) REFERENCES `archive` (`id`)
+);
@@ -27,21 +27,19 @@ package net.runelite.cache;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
 import net.runelite.cache.definitions.AreaDefinition;
 import net.runelite.cache.definitions.loaders.AreaLoader;
 import net.runelite.cache.fs.Archive;
 import net.runelite.cache.fs.ArchiveFiles;
 import net.runelite.cache.fs.FSFile;
 import net.runelite.cache.fs.Index;
-import net.runelite.cache.fs.Storage;
 import net.runelite.cache.fs.Store;
+import net.runelite.cache.util.DenseIntObjectMap;
 
 public class AreaManager
 {
 	private final Store store;
-	private final Map<Integer, AreaDefinition> areas = new HashMap<>();
+	private final DenseIntObjectMap<AreaDefinition> areas = new DenseIntObjectMap<>();
 
 	public AreaManager(Store store)
 	{
@@ -50,12 +48,10 @@ public class AreaManager
 
 	public void load() throws IOException
 	{
-		Storage storage = store.getStorage();
 		Index index = store.getIndex(IndexType.CONFIGS);
 		Archive archive = index.getArchive(ConfigType.AREA.getId());
 
-		byte[] archiveData = storage.loadArchive(archive);
-		ArchiveFiles files = archive.getFiles(archiveData);
+		ArchiveFiles files = store.getArchiveFiles(archive);
 
 		for (FSFile file : files.getFiles())
 		{
@@ -0,0 +1,585 @@
+/*
+ * Copyright (c) 2022, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.IntFunction;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+import net.runelite.cache.definitions.ObjectDefinition;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.Index;
+import net.runelite.cache.fs.Store;
+import net.runelite.cache.region.Location;
+import net.runelite.cache.region.Position;
+import net.runelite.cache.region.Region;
+import net.runelite.cache.region.RegionLoader;
+import net.runelite.cache.util.GZip;
+import net.runelite.cache.util.IntObjectMap;
+import net.runelite.cache.util.XteaKeyManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Builds the collision map used by the shortest path plugin, in the format
+ * of its collision-map.zip. There is one gzipped entry per region, named
+ * {@code x_y}, holding the bounds of the region followed by a bitset of
+ * whether each tile can be walked off of to the north and to the east.
+ * <p>
+ * Walls and large objects cross region borders, so the flags of a region
+ * depend on the surrounding regions too. The comment of each entry is a
+ * checksum of everything its region was built from, which lets regions
+ * whose inputs are unchanged be copied from a previous collision map.
+ */
+public class CollisionMapDumper
+{
+	private static final Logger logger = LoggerFactory.getLogger(CollisionMapDumper.class);
+
+	// bumped when the flags built from the same inputs change
+	private static final int VERSION = 1;
+	private static final int MAX_REGION = 32768;
+
+	// collision flags of a tile, matching the client's
+	private static final int BLOCK_NORTH = 0x2;
+	private static final int BLOCK_EAST = 0x8;
+	private static final int BLOCK_SOUTH = 0x20;
+	private static final int BLOCK_WEST = 0x80;
+	private static final int BLOCK_FULL = 0x100;
+
+	private static final int FLAG_NORTH = 0;
+	private static final int FLAG_EAST = 1;
+	private static final int FLAG_COUNT = 2;
+
+	// a region and a border of one tile around it
+	private static final int SIZE = Region.X + 2;
+
+	private final Store store;
+	private final XteaKeyManager keyManager;
+	private final RegionLoader regionLoader;
+	private final ObjectManager objectManager;
+
+	private static final class Entry
+	{
+		private final int checksum;
+		private final byte[] data;
+
+		private Entry(int checksum, byte[] data)
+		{
+			this.checksum = checksum;
+			this.data = data;
+		}
+	}
+
+	public CollisionMapDumper(Store store, XteaKeyManager keyManager)
+	{
+		this.store = store;
+		this.keyManager = keyManager;
+		this.regionLoader = new RegionLoader(store, keyManager);
+		this.objectManager = new ObjectManager(store);
+	}
+
+	public void load() throws IOException
+	{
+		objectManager.load();
+	}
+
+	/**
+	 * Build the collision map of every region. The locations of every region
+	 * are loaded to checksum the inputs of each region, but the terrain is
+	 * only loaded and the flags only built for regions whose checksum differs
+	 * from the previous collision map.
+	 *
+	 * @param previous collision map written by an earlier dump, or null
+	 * @param out file to write the collision map to, which may be the same as previous.
+	 * It is only replaced once every region has been written.
+	 * @param executor executor to load and build the regions on
+	 * @return the number of regions which were built rather than copied
+	 * @throws IOException
+	 */
+	public int dump(File previous, File out, Executor executor) throws IOException
+	{
+		IntObjectMap<Entry> previousEntries = previous != null && previous.exists()
+			? readEntries(previous)
+			: new IntObjectMap<>();
+
+		Index maps = store.getIndex(IndexType.MAPS);
+		List<Integer> regionIds = new ArrayList<>();
+		for (int i = 0; i < MAX_REGION; ++i)
+		{
+			boolean map = maps.findArchiveByName("m" + (i >> 8) + "_" + (i & 0xFF)) != null;
+			boolean land = maps.findArchiveByName("l" + (i >> 8) + "_" + (i & 0xFF)) != null;
+			if (map && land)
+			{
+				regionIds.add(i);
+			}
+			else if (map || land)
+			{
+				// can't be loaded, so it is treated as not existing
+				logger.debug("Skipping region {} which is missing its {} archive", i, map ? "locations" : "terrain");
+			}
+		}
+
+		List<CompletableFuture<List<Location>>> locationFutures = new ArrayList<>(regionIds.size());
+		for (int regionId : regionIds)
+		{
+			locationFutures.add(CompletableFuture.supplyAsync(() ->
+			{
+				try
+				{
+					Region region = regionLoader.loadLocationsFromArchive(regionId);
+					return region != null ? region.getLocations() : Collections.<Location>emptyList();
+				}
+				catch (IOException ex)
+				{
+					throw new UncheckedIOException(ex);
+				}
+			}, executor));
+		}
+
+		IntObjectMap<List<Location>> locations = new IntObjectMap<>(regionIds.size());
+		for (int i = 0; i < regionIds.size(); ++i)
+		{
+			locations.put(regionIds.get(i), join(locationFutures.get(i)));
+		}
+
+		List<CompletableFuture<Entry>> futures = new ArrayList<>(regionIds.size());
+		for (int regionId : regionIds)
+		{
+			futures.add(CompletableFuture.supplyAsync(() ->
+			{
+				int checksum = checksum(maps, locations, regionId);
+				Entry entry = previousEntries.get(regionId);
+				if (entry != null && entry.checksum == checksum)
+				{
+					return entry;
+				}
+
+				try
+				{
+					return new Entry(checksum, buildRegion(regionId));
+				}
+				catch (IOException ex)
+				{
+					throw new UncheckedIOException(ex);
+				}
+			}, executor));
+		}
+
+		int built = 0;
+		// out may be the previous map, which must survive a failed dump
+		File temp = File.createTempFile("collision-map", ".tmp", out.getAbsoluteFile().getParentFile());
+		try
+		{
+			try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(temp)))
+			{
+				for (int i = 0; i < regionIds.size(); ++i)
+				{
+					int regionId = regionIds.get(i);
+					Entry entry = join(futures.get(i));
+					if (entry != previousEntries.get(regionId))
+					{
+						++built;
+					}
+
+					ZipEntry zipEntry = new ZipEntry((regionId >> 8) + "_" + (regionId & 0xFF));
+					zipEntry.setComment(Integer.toHexString(entry.checksum));
+					zip.putNextEntry(zipEntry);
+					zip.write(entry.data);
+					zip.closeEntry();
+				}
+			}
+
+			Files.move(temp.toPath(), out.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		finally
+		{
+			temp.delete();
+		}
+
+		logger.info("Built {} regions and copied {} unchanged regions", built, regionIds.size() - built);
+		return built;
+	}
+
+	/**
+	 * Checksum the inputs of the flags of a region: the terrain and locations
+	 * of it and the regions around it, and the definitions of those locations
+	 */
+	private int checksum(Index maps, IntObjectMap<List<Location>> locations, int regionId)
+	{
+		Hasher hasher = Hashing.crc32().newHasher();
+		hasher.putInt(VERSION);
+
+		for (int dx = -1; dx <= 1; ++dx)
+		{
+			for (int dy = -1; dy <= 1; ++dy)
+			{
+				int id = neighbor(regionId, dx, dy);
+				List<Location> regionLocations = id == -1 ? null : locations.get(id);
+				if (regionLocations == null)
+				{
+					hasher.putInt(-1);
+					continue;
+				}
+
+				Archive map = maps.findArchiveByName("m" + (id >> 8) + "_" + (id & 0xFF));
+				Archive land = maps.findArchiveByName("l" + (id >> 8) + "_" + (id & 0xFF));
+				hasher.putInt(map.getCrc());
+				hasher.putInt(land.getCrc());
+
+				int[] keys = keyManager.getKeys(id);
+				if (keys != null)
+				{
+					for (int key : keys)
+					{
+						hasher.putInt(key);
+					}
+				}
+
+				for (Location location : regionLocations)
+				{
+					ObjectDefinition object = objectManager.getObject(location.getId());
+					if (object == null)
+					{
+						hasher.putInt(-1);
+					}
+					else
+					{
+						hasher.putInt(object.getSizeX());
+						hasher.putInt(object.getSizeY());
+						hasher.putInt(object.getInteractType());
+					}
+				}
+			}
+		}
+
+		return hasher.hash().asInt();
+	}
+
+	private byte[] buildRegion(int regionId) throws IOException
+	{
+		Region[] neighbors = new Region[9];
+		for (int dx = -1; dx <= 1; ++dx)
+		{
+			for (int dy = -1; dy <= 1; ++dy)
+			{
+				int id = neighbor(regionId, dx, dy);
+				if (id != -1)
+				{
+					neighbors[(dx + 1) * 3 + dy + 1] = regionLoader.loadRegionFromArchive(id);
+				}
+			}
+		}
+
+		Region region = neighbors[4];
+		int regionX = region.getRegionX();
+		int regionY = region.getRegionY();
+		BitSet flags = buildFlags(regionX, regionY,
+			id -> neighbors[((id >> 8) - regionX + 1) * 3 + (id & 0xFF) - regionY + 1],
+			objectManager::getObject);
+
+		byte[] bytes = flags.toByteArray();
+		ByteBuffer buffer = ByteBuffer.allocate(16 + bytes.length);
+		buffer.putInt(region.getBaseX());
+		buffer.putInt(region.getBaseY());
+		buffer.putInt(region.getBaseX() + Region.X - 1);
+		buffer.putInt(region.getBaseY() + Region.Y - 1);
+		buffer.put(bytes);
+		return GZip.compress(buffer.array());
+	}
+
+	/**
+	 * Build the flags of a region. Bit {@code (z * 64 * 64 + y * 64 + x) * 2}
+	 * is set if the tile can be walked off of to the north, and the bit after
+	 * it if it can be walked off of to the east. The coordinates are local to
+	 * the region.
+	 *
+	 * @param regionX region x
+	 * @param regionY region y
+	 * @param regions the region and the regions around it by id, or null for
+	 * regions which don't exist
+	 * @param objects object definitions by id
+	 * @return
+	 */
+	static BitSet buildFlags(int regionX, int regionY, IntFunction<Region> regions, IntFunction<ObjectDefinition> objects)
+	{
+		int baseX = (regionX << 6) - 1;
+		int baseY = (regionY << 6) - 1;
+		int[][][] tiles = new int[Region.Z][SIZE][SIZE];
+
+		for (int dx = -1; dx <= 1; ++dx)
+		{
+			for (int dy = -1; dy <= 1; ++dy)
+			{
+				int id = neighbor(regionX << 8 | regionY, dx, dy);
+				Region region = id == -1 ? null : regions.apply(id);
+				addTerrain(tiles, baseX, baseY, (regionX + dx) << 6, (regionY + dy) << 6, region);
+
+				if (region != null)
+				{
+					for (Location location : region.getLocations())
+					{
+						addLocation(tiles, baseX, baseY, region, location, objects.apply(location.getId()));
+					}
+				}
+			}
+		}
+
+		BitSet flags = new BitSet(Region.Z * Region.X * Region.Y * FLAG_COUNT);
+		for (int z = 0; z < Region.Z; ++z)
+		{
+			int[][] plane = tiles[z];
+			for (int x = 0; x < Region.X; ++x)
+			{
+				for (int y = 0; y < Region.Y; ++y)
+				{
+					int tile = plane[x + 1][y + 1];
+					int index = (z * Region.X * Region.Y + y * Region.X + x) * FLAG_COUNT;
+
+					if ((tile & (BLOCK_NORTH | BLOCK_FULL)) == 0 && (plane[x + 1][y + 2] & (BLOCK_SOUTH | BLOCK_FULL)) == 0)
+					{
+						flags.set(index + FLAG_NORTH);
+					}
+
+					if ((tile & (BLOCK_EAST | BLOCK_FULL)) == 0 && (plane[x + 2][y + 1] & (BLOCK_WEST | BLOCK_FULL)) == 0)
+					{
+						flags.set(index + FLAG_EAST);
+					}
+				}
+			}
+		}
+		return flags;
+	}
+
+	/**
+	 * Block the tiles of a region which lie within the border, or all of them
+	 * if the region doesn't exist
+	 */
+	private static void addTerrain(int[][][] tiles, int baseX, int baseY, int regionBaseX, int regionBaseY, Region region)
+	{
+		int minX = Math.max(regionBaseX, baseX);
+		int minY = Math.max(regionBaseY, baseY);
+		int maxX = Math.min(regionBaseX + Region.X, baseX + SIZE);
+		int maxY = Math.min(regionBaseY + Region.Y, baseY + SIZE);
+
+		for (int x = minX; x < maxX; ++x)
+		{
+			for (int y = minY; y < maxY; ++y)
+			{
+				for (int z = 0; z < Region.Z; ++z)
+				{
+					if (region == null)
+					{
+						tiles[z][x - baseX][y - baseY] |= BLOCK_FULL;
+						continue;
+					}
+
+					if ((region.getTileSetting(z, x - regionBaseX, y - regionBaseY) & 1) == 1)
+					{
+						int plane = plane(region, x, y, z);
+						if (plane >= 0)
+						{
+							tiles[plane][x - baseX][y - baseY] |= BLOCK_FULL;
+						}
+					}
+				}
+			}
+		}
+	}
+
+	private static void addLocation(int[][][] tiles, int baseX, int baseY, Region region, Location location, ObjectDefinition object)
+	{
+		if (object == null || object.getInteractType() == 0)
+		{
+			return;
+		}
+
+		Position position = location.getPosition();
+		int plane = plane(region, position.getX(), position.getY(), position.getZ());
+		if (plane < 0)
+		{
+			return;
+		}
+
+		int[][] tile = tiles[plane];
+		int x = position.getX() - baseX;
+		int y = position.getY() - baseY;
+		int type = location.getType();
+		int orientation = location.getOrientation();
+
+		if (type == 0)
+		{
+			addWall(tile, x, y, orientation);
+		}
+		else if (type == 2)
+		{
+			// corner walls block both sides of the corner
+			addWall(tile, x, y, orientation);
+			addWall(tile, x, y, (orientation + 1) & 3);
+		}
+		else if (type == 22)
+		{
+			if (object.getInteractType() == 1)
+			{
+				block(tile, x, y, BLOCK_FULL);
+			}
+		}
+		else if (type >= 9)
+		{
+			int sizeX = object.getSizeX();
+			int sizeY = object.getSizeY();
+			if (orientation == 1 || orientation == 3)
+			{
+				sizeX = object.getSizeY();
+				sizeY = object.getSizeX();
+			}
+
+			for (int dx = 0; dx < sizeX; ++dx)
+			{
+				for (int dy = 0; dy < sizeY; ++dy)
+				{
+					block(tile, x + dx, y + dy, BLOCK_FULL);
+				}
+			}
+		}
+		// wall pillars only block diagonal movement, and decorations don't block at all
+	}
+
+	private static void addWall(int[][] tile, int x, int y, int orientation)
+	{
+		switch (orientation)
+		{
+			case 0:
+				block(tile, x, y, BLOCK_WEST);
+				block(tile, x - 1, y, BLOCK_EAST);
+				break;
+			case 1:
+				block(tile, x, y, BLOCK_NORTH);
+				block(tile, x, y + 1, BLOCK_SOUTH);
+				break;
+			case 2:
+				block(tile, x, y, BLOCK_EAST);
+				block(tile, x + 1, y, BLOCK_WEST);
+				break;
+			case 3:
+				block(tile, x, y, BLOCK_SOUTH);
+				block(tile, x, y - 1, BLOCK_NORTH);
+				break;
+		}
+	}
+
+	private static void block(int[][] tile, int x, int y, int flag)
+	{
+		if (x >= 0 && y >= 0 && x < SIZE && y < SIZE)
+		{
+			tile[x][y] |= flag;
+		}
+	}
+
+	/**
+	 * The plane the collision of a tile applies to. Under bridges, the
+	 * collision of the plane above applies to the plane below.
+	 */
+	private static int plane(Region region, int x, int y, int z)
+	{
+		if ((region.getTileSetting(1, x - region.getBaseX(), y - region.getBaseY()) & 2) == 2)
+		{
+			return z - 1;
+		}
+		return z;
+	}
+
+	private static int neighbor(int regionId, int dx, int dy)
+	{
+		int x = (regionId >> 8) + dx;
+		int y = (regionId & 0xFF) + dy;
+		if (x < 0 || y < 0 || x > 0xFF || y > 0xFF)
+		{
+			return -1;
+		}
+		return x << 8 | y;
+	}
+
+	private static IntObjectMap<Entry> readEntries(File file) throws IOException
+	{
+		IntObjectMap<Entry> entries = new IntObjectMap<>();
+		try (ZipFile zip = new ZipFile(file))
+		{
+			Enumeration<? extends ZipEntry> zipEntries = zip.entries();
+			while (zipEntries.hasMoreElements())
+			{
+				ZipEntry zipEntry = zipEntries.nextElement();
+				if (zipEntry.getComment() == null)
+				{
+					// not written by the dumper
+					continue;
+				}
+
+				String[] name = zipEntry.getName().split("_");
+				int regionId = Integer.parseInt(name[0]) << 8 | Integer.parseInt(name[1]);
+				int checksum = Integer.parseUnsignedInt(zipEntry.getComment(), 16);
+				try (InputStream in = zip.getInputStream(zipEntry))
+				{
+					entries.put(regionId, new Entry(checksum, ByteStreams.toByteArray(in)));
+				}
+			}
+		}
+		return entries;
+	}
+
+	private static <T> T join(CompletableFuture<T> future) throws IOException
+	{
+		try
+		{
+			return future.join();
+		}
+		catch (CompletionException ex)
+		{
+			if (ex.getCause() instanceof UncheckedIOException)
+			{
+				throw ((UncheckedIOException) ex.getCause()).getCause();
+			}
+			throw ex;
+		}
+	}
+}
@@ -34,7 +34,6 @@ import net.runelite.cache.fs.Archive;
 import net.runelite.cache.fs.ArchiveFiles;
 import net.runelite.cache.fs.FSFile;
 import net.runelite.cache.fs.Index;
-import net.runelite.cache.fs.Storage;
 import net.runelite.cache.fs.Store;
 
 public class InventoryManager
@@ -51,12 +50,10 @@ public class InventoryManager
 	{
 		InventoryLoader loader = new InventoryLoader();
 
-		Storage storage = store.getStorage();
 		Index index = store.getIndex(IndexType.CONFIGS);
 		Archive archive = index.getArchive(ConfigType.INV.getId());
 
-		byte[] archiveData = storage.loadArchive(archive);
-		ArchiveFiles files = archive.getFiles(archiveData);
+		ArchiveFiles files = store.getArchiveFiles(archive);
 
 		for (FSFile file : files.getFiles())
 		{
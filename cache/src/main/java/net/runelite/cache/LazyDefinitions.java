@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2022, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import net.runelite.cache.fs.ArchiveFiles;
+import net.runelite.cache.fs.FSFile;
+import net.runelite.cache.util.DenseIntObjectMap;
+
+/**
+ * The definitions of a config archive, decoded on first use. Until then
+ * only the encoded contents of each file are kept.
+ *
+ * @param <T> definition type
+ */
+final class LazyDefinitions<T>
+{
+	interface Decoder<T>
+	{
+		T decode(int id, byte[] data);
+	}
+
+	private static final class Entry<T>
+	{
+		@SuppressWarnings("rawtypes")
+		private static final AtomicReferenceFieldUpdater<Entry, Object> DEFINITION =
+			AtomicReferenceFieldUpdater.newUpdater(Entry.class, Object.class, "definition");
+
+		private final int id;
+		private final byte[] contents;
+		private volatile T definition;
+
+		private Entry(int id, byte[] contents)
+		{
+			this.id = id;
+			this.contents = contents;
+		}
+	}
+
+	private final Decoder<T> decoder;
+	private final DenseIntObjectMap<Entry<T>> entries;
+	// entries in id order
+	private final List<Entry<T>> ordered;
+
+	LazyDefinitions(ArchiveFiles files, Decoder<T> decoder)
+	{
+		List<FSFile> fileList = files.getFiles();
+
+		this.decoder = decoder;
+		this.entries = new DenseIntObjectMap<>(fileList.size());
+
+		for (FSFile file : fileList)
+		{
+			entries.put(file.getFileId(), new Entry<>(file.getFileId(), file.getContents()));
+		}
+
+		this.ordered = entries.values();
+	}
+
+	static <T> LazyDefinitions<T> empty()
+	{
+		return new LazyDefinitions<>(new ArchiveFiles(), null);
+	}
+
+	int size()
+	{
+		return ordered.size();
+	}
+
+	T get(int id)
+	{
+		Entry<T> entry = entries.get(id);
+		return entry != null ? decode(entry) : null;
+	}
+
+	@SuppressWarnings("unchecked")
+	private T decode(Entry<T> entry)
+	{
+		T def = entry.definition;
+		if (def == null)
+		{
+			def = decoder.decode(entry.id, entry.contents);
+			if (!Entry.DEFINITION.compareAndSet(entry, null, def))
+			{
+				// another thread decoded it first
+				def = entry.definition;
+			}
+		}
+		return def;
+	}
+
+	/**
+	 * Get a view of all of the definitions, in id order. Definitions are
+	 * decoded as they are accessed.
+	 *
+	 * @return
+	 */
+	List<T> values()
+	{
+		return new AbstractList<T>()
+		{
+			@Override
+			public T get(int index)
+			{
+				return decode(ordered.get(index));
+			}
+
+			@Override
+			public int size()
+			{
+				return ordered.size();
+			}
+		};
+	}
+}
@@ -27,10 +27,22 @@ package net.runelite.cache;
 import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.Image;
+import java.awt.Point;
+import java.awt.RenderingHints;
 import java.awt.image.BufferedImage;
+import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import javax.imageio.ImageIO;
 import lombok.Getter;
 import lombok.Setter;
 import net.runelite.cache.definitions.AreaDefinition;
@@ -52,6 +64,7 @@ import net.runelite.cache.item.RSTextureProvider;
 import net.runelite.cache.region.Location;
 import net.runelite.cache.region.Region;
 import net.runelite.cache.region.RegionLoader;
+import net.runelite.cache.util.DenseIntObjectMap;
 import net.runelite.cache.util.Djb2;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -75,9 +88,9 @@ public class MapImageDumper
 
 	private final Store store;
 
-	private final Map<Integer, UnderlayDefinition> underlays = new HashMap<>();
-	private final Map<Integer, OverlayDefinition> overlays = new HashMap<>();
-	private final Map<Integer, Image> scaledMapIcons = new HashMap<>();
+	private final DenseIntObjectMap<UnderlayDefinition> underlays = new DenseIntObjectMap<>();
+	private final DenseIntObjectMap<OverlayDefinition> overlays = new DenseIntObjectMap<>();
+	private final DenseIntObjectMap<Image> scaledMapIcons = new DenseIntObjectMap<>();
 
 	private RegionLoader regionLoader;
 	private final AreaManager areas;
@@ -144,6 +157,190 @@ public class MapImageDumper
 		return image;
 	}
 
+	/**
+	 * Render the map for a plane as a pyramid of png tiles, without ever holding
+	 * the full image in memory. Level 0 tiles are regionsPerTile by regionsPerTile
+	 * regions at full scale, and each following level halves the resolution until
+	 * the whole map fits in a single tile. Tiles are written to
+	 * {@code outDir/z/level/x_y.png}, where x and y are the tile coordinates with
+	 * y increasing northward.
+	 *
+	 * @param z plane to render
+	 * @param regionsPerTile width and height of a tile, in regions
+	 * @param outDir directory to write the tiles to
+	 * @param executor executor to render the tiles on
+	 * @throws IOException
+	 */
+	public void drawTiles(int z, int regionsPerTile, File outDir, Executor executor) throws IOException
+	{
+		Map<Point, List<Region>> tileRegions = new HashMap<>();
+		for (Region region : regionLoader.getRegions())
+		{
+			Point tile = new Point(region.getRegionX() / regionsPerTile, region.getRegionY() / regionsPerTile);
+			tileRegions.computeIfAbsent(tile, k -> new ArrayList<>()).add(region);
+		}
+
+		int tileSize = regionsPerTile * Region.X * MAP_SCALE;
+
+		logger.info("Rendering {} tiles of {}px x {}px for plane {}", tileRegions.size(), tileSize, tileSize, z);
+
+		File levelDir = new File(outDir, z + File.separator + 0);
+		levelDir.mkdirs();
+
+		List<CompletableFuture<Void>> futures = new ArrayList<>();
+		for (Map.Entry<Point, List<Region>> entry : tileRegions.entrySet())
+		{
+			Point tile = entry.getKey();
+			futures.add(CompletableFuture.runAsync(() ->
+			{
+				BufferedImage image = drawTile(tile, entry.getValue(), regionsPerTile, z);
+				writeTile(image, levelDir, tile);
+			}, executor));
+		}
+		join(futures);
+
+		// build each level of the pyramid from the one below it
+		Set<Point> tiles = tileRegions.keySet();
+		for (int level = 1; tiles.size() > 1; ++level)
+		{
+			File childDir = levelDir;
+			levelDir = new File(outDir, z + File.separator + level);
+			levelDir.mkdirs();
+
+			Set<Point> parents = new HashSet<>();
+			for (Point tile : tiles)
+			{
+				parents.add(new Point(Math.floorDiv(tile.x, 2), Math.floorDiv(tile.y, 2)));
+			}
+
+			final File dir = levelDir;
+			futures.clear();
+			for (Point parent : parents)
+			{
+				futures.add(CompletableFuture.runAsync(() ->
+				{
+					BufferedImage image = downscaleTiles(parent, childDir, tileSize);
+					writeTile(image, dir, parent);
+				}, executor));
+			}
+			join(futures);
+
+			logger.info("Rendered level {} with {} tiles for plane {}", level, parents.size(), z);
+			tiles = parents;
+		}
+	}
+
+	private BufferedImage drawTile(Point tile, List<Region> regions, int regionsPerTile, int z)
+	{
+		int tileSize = regionsPerTile * Region.X * MAP_SCALE;
+		BufferedImage image = new BufferedImage(tileSize, tileSize, BufferedImage.TYPE_INT_RGB);
+
+		int tileBaseX = tile.x * regionsPerTile;
+		// the top most region of the tile is drawn at 0
+		int tileTopY = tile.y * regionsPerTile + regionsPerTile - 1;
+
+		for (Region region : regions)
+		{
+			int drawBaseX = (region.getRegionX() - tileBaseX) * Region.X;
+			int drawBaseY = (tileTopY - region.getRegionY()) * Region.Y;
+
+			drawMap(image, drawBaseX, drawBaseY, z, region);
+			drawObjects(image, drawBaseX, drawBaseY, region, z);
+			drawMapIcons(image, drawBaseX, drawBaseY, region, z);
+		}
+
+		// icons of the surrounding regions can extend into this tile
+		Graphics2D graphics = image.createGraphics();
+		for (int regionX = tileBaseX - 1; regionX <= tileBaseX + regionsPerTile; ++regionX)
+		{
+			for (int regionY = tileTopY - regionsPerTile; regionY <= tileTopY + 1; ++regionY)
+			{
+				boolean inTile = regionX >= tileBaseX && regionX < tileBaseX + regionsPerTile
+					&& regionY > tileTopY - regionsPerTile && regionY <= tileTopY;
+				if (inTile || regionX < 0 || regionY < 0)
+				{
+					continue;
+				}
+
+				Region region = regionLoader.findRegionForWorldCoordinates(regionX * Region.X, regionY * Region.Y);
+				if (region != null)
+				{
+					drawMapIcons(graphics, region, z, (regionX - tileBaseX) * Region.X, (tileTopY - regionY) * Region.Y);
+				}
+			}
+		}
+		graphics.dispose();
+
+		return image;
+	}
+
+	private static BufferedImage downscaleTiles(Point parent, File childDir, int tileSize)
+	{
+		BufferedImage image = new BufferedImage(tileSize, tileSize, BufferedImage.TYPE_INT_RGB);
+		Graphics2D graphics = image.createGraphics();
+		graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+
+		int half = tileSize / 2;
+		for (int dx = 0; dx < 2; ++dx)
+		{
+			for (int dy = 0; dy < 2; ++dy)
+			{
+				File childFile = new File(childDir, tileName(parent.x * 2 + dx, parent.y * 2 + dy));
+				if (!childFile.exists())
+				{
+					continue;
+				}
+
+				try
+				{
+					BufferedImage child = ImageIO.read(childFile);
+					// the northern child is the upper half
+					graphics.drawImage(child, dx * half, (1 - dy) * half, half, half, null);
+				}
+				catch (IOException ex)
+				{
+					throw new UncheckedIOException(ex);
+				}
+			}
+		}
+
+		graphics.dispose();
+		return image;
+	}
+
+	private static void writeTile(BufferedImage image, File dir, Point tile)
+	{
+		try
+		{
+			ImageIO.write(image, "png", new File(dir, tileName(tile.x, tile.y)));
+		}
+		catch (IOException ex)
+		{
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	private static String tileName(int x, int y)
+	{
+		return x + "_" + y + ".png";
+	}
+
+	private static void join(List<CompletableFuture<Void>> futures) throws IOException
+	{
+		try
+		{
+			CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+		}
+		catch (CompletionException ex)
+		{
+			if (ex.getCause() instanceof UncheckedIOException)
+			{
+				throw ((UncheckedIOException) ex.getCause()).getCause();
+			}
+			throw ex;
+		}
+	}
+
 	public BufferedImage drawRegion(Region region, int z)
 	{
 		int pixelsX = Region.X * MAP_SCALE;
@@ -905,12 +1102,10 @@ public class MapImageDumper
 
 	private void loadUnderlays(Store store) throws IOException
 	{
-		Storage storage = store.getStorage();
 		Index index = store.getIndex(IndexType.CONFIGS);
 		Archive archive = index.getArchive(ConfigType.UNDERLAY.getId());
 
-		byte[] archiveData = storage.loadArchive(archive);
-		ArchiveFiles files = archive.getFiles(archiveData);
+		ArchiveFiles files = store.getArchiveFiles(archive);
 
 		for (FSFile file : files.getFiles())
 		{
@@ -928,12 +1123,10 @@ public class MapImageDumper
 
 	private void loadOverlays(Store store) throws IOException
 	{
-		Storage storage = store.getStorage();
 		Index index = store.getIndex(IndexType.CONFIGS);
 		Archive archive = index.getArchive(ConfigType.OVERLAY.getId());
 
-		byte[] archiveData = storage.loadArchive(archive);
-		ArchiveFiles files = archive.getFiles(archiveData);
+		ArchiveFiles files = store.getArchiveFiles(archive);
 
 		for (FSFile file : files.getFiles())
 		{
@@ -974,8 +1167,12 @@ public class MapImageDumper
 					BufferedImage spriteImage = new BufferedImage(sprite.getWidth(), sprite.getHeight(), BufferedImage.TYPE_INT_ARGB);
 					spriteImage.setRGB(0, 0, sprite.getWidth(), sprite.getHeight(), sprite.getPixels(), 0, sprite.getWidth());
 
-					// scale image down so it fits
-					Image scaledImage = spriteImage.getScaledInstance(MAPICON_MAX_WIDTH, MAPICON_MAX_HEIGHT, 0);
+					// scale image down so it fits. this is drawn eagerly, rather than using
+					// a lazily produced scaled instance, as tiles are drawn concurrently
+					BufferedImage scaledImage = new BufferedImage(MAPICON_MAX_WIDTH, MAPICON_MAX_HEIGHT, BufferedImage.TYPE_INT_ARGB);
+					Graphics2D graphics = scaledImage.createGraphics();
+					graphics.drawImage(spriteImage, 0, 0, MAPICON_MAX_WIDTH, MAPICON_MAX_HEIGHT, null);
+					graphics.dispose();
 
 					assert scaledMapIcons.containsKey(sprite.getFrame()) == false;
 					scaledMapIcons.put(sprite.getFrame(), scaledImage);
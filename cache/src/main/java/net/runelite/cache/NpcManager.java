@@ -28,23 +28,19 @@ import java.io.File;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
 import net.runelite.cache.definitions.NpcDefinition;
 import net.runelite.cache.definitions.exporters.NpcExporter;
 import net.runelite.cache.definitions.loaders.NpcLoader;
 import net.runelite.cache.fs.Archive;
 import net.runelite.cache.fs.ArchiveFiles;
-import net.runelite.cache.fs.FSFile;
 import net.runelite.cache.fs.Index;
-import net.runelite.cache.fs.Storage;
 import net.runelite.cache.fs.Store;
 import net.runelite.cache.util.IDClass;
 
 public class NpcManager
 {
 	private final Store store;
-	private final Map<Integer, NpcDefinition> npcs = new HashMap<>();
+	private LazyDefinitions<NpcDefinition> npcs = LazyDefinitions.empty();
 
 	public NpcManager(Store store)
 	{
@@ -55,18 +51,12 @@ public class NpcManager
 	{
 		NpcLoader loader = new NpcLoader();
 
-		Storage storage = store.getStorage();
 		Index index = store.getIndex(IndexType.CONFIGS);
 		Archive archive = index.getArchive(ConfigType.NPC.getId());
 
-		byte[] archiveData = storage.loadArchive(archive);
-		ArchiveFiles files = archive.getFiles(archiveData);
+		ArchiveFiles files = store.getArchiveFiles(archive);
 
-		for (FSFile f : files.getFiles())
-		{
-			NpcDefinition npc = loader.load(f.getFileId(), f.getContents());
-			npcs.put(f.getFileId(), npc);
-		}
+		npcs = new LazyDefinitions<>(files, loader::load);
 	}
 
 	public Collection<NpcDefinition> getNpcs()
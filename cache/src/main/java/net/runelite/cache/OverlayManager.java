@@ -27,8 +27,6 @@ package net.runelite.cache;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
 import net.runelite.cache.definitions.OverlayDefinition;
 import net.runelite.cache.definitions.loaders.OverlayLoader;
 import net.runelite.cache.definitions.providers.OverlayProvider;
@@ -36,13 +34,13 @@ import net.runelite.cache.fs.Archive;
 import net.runelite.cache.fs.ArchiveFiles;
 import net.runelite.cache.fs.FSFile;
 import net.runelite.cache.fs.Index;
-import net.runelite.cache.fs.Storage;
 import net.runelite.cache.fs.Store;
+import net.runelite.cache.util.DenseIntObjectMap;
 
 public class OverlayManager implements OverlayProvider
 {
 	private final Store store;
-	private final Map<Integer, OverlayDefinition> overlays = new HashMap<>();
+	private final DenseIntObjectMap<OverlayDefinition> overlays = new DenseIntObjectMap<>();
 
 	public OverlayManager(Store store)
 	{
@@ -51,12 +49,10 @@ public class OverlayManager implements OverlayProvider
 
 	public void load() throws IOException
 	{
-		Storage storage = store.getStorage();
 		Index index = store.getIndex(IndexType.CONFIGS);
 		Archive archive = index.getArchive(ConfigType.OVERLAY.getId());
 
-		byte[] archiveData = storage.loadArchive(archive);
-		ArchiveFiles files = archive.getFiles(archiveData);
+		ArchiveFiles files = store.getArchiveFiles(archive);
 
 		for (FSFile file : files.getFiles())
 		{
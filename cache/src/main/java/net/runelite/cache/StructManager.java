@@ -26,22 +26,20 @@ package net.runelite.cache;
 
 import java.io.IOException;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import net.runelite.cache.definitions.StructDefinition;
 import net.runelite.cache.definitions.loaders.StructLoader;
 import net.runelite.cache.definitions.providers.StructProvider;
 import net.runelite.cache.fs.Archive;
 import net.runelite.cache.fs.ArchiveFiles;
-import net.runelite.cache.fs.FSFile;
 import net.runelite.cache.fs.Index;
-import net.runelite.cache.fs.Storage;
 import net.runelite.cache.fs.Store;
 
 public class StructManager implements StructProvider
 {
 	private final Store store;
-	private final Map<Integer, StructDefinition> structs = new HashMap<>();
+	private LazyDefinitions<StructDefinition> structs = LazyDefinitions.empty();
 
 	public StructManager(Store store)
 	{
@@ -52,23 +50,22 @@ public class StructManager implements StructProvider
 	{
 		StructLoader loader = new StructLoader();
 
-		Storage storage = store.getStorage();
 		Index index = store.getIndex(IndexType.CONFIGS);
 		Archive archive = index.getArchive(ConfigType.STRUCT.getId());
 
-		byte[] archiveData = storage.loadArchive(archive);
-		ArchiveFiles files = archive.getFiles(archiveData);
+		ArchiveFiles files = store.getArchiveFiles(archive);
 
-		for (FSFile f : files.getFiles())
-		{
-			StructDefinition def = loader.load(f.getFileId(), f.getContents());
-			structs.put(f.getFileId(), def);
-		}
+		structs = new LazyDefinitions<>(files, loader::load);
 	}
 
 	public Map<Integer, StructDefinition> getStructs()
 	{
-		return Collections.unmodifiableMap(structs);
+		Map<Integer, StructDefinition> map = new LinkedHashMap<>(structs.size());
+		for (StructDefinition def : structs.values())
+		{
+			map.put(def.id, def);
+		}
+		return Collections.unmodifiableMap(map);
 	}
 
 	public StructDefinition getStruct(int structId)
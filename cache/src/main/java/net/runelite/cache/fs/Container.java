@@ -28,7 +28,6 @@ import static com.google.common.primitives.Bytes.concat;
 import com.google.common.primitives.Ints;
 import java.io.IOException;
 import net.runelite.cache.fs.jagex.CompressionType;
-import net.runelite.cache.io.InputStream;
 import net.runelite.cache.io.OutputStream;
 import net.runelite.cache.util.BZip2;
 import net.runelite.cache.util.Crc32;
@@ -41,6 +40,9 @@ public class Container
 {
 	private static final Logger logger = LoggerFactory.getLogger(Container.class);
 
+	// per thread buffer to decrypt compressed data into before decompressing it
+	private static final ThreadLocal<byte[][]> SCRATCH = ThreadLocal.withInitial(() -> new byte[1][]);
+
 	public byte[] data;
 	public int compression; // compression
 	public int revision;
@@ -92,98 +94,104 @@ public class Container
 
 	public static Container decompress(byte[] b, int[] keys) throws IOException
 	{
-		InputStream stream = new InputStream(b);
+		return decompress(b, 0, b.length, keys);
+	}
 
-		int compression = stream.readUnsignedByte();
-		int compressedLength = stream.readInt();
-		if (compressedLength < 0 || compressedLength > 1000000)
+	/**
+	 * Decompress a container from a region of a buffer. The buffer is not
+	 * modified. Encrypted data is decrypted into a buffer reused by the
+	 * calling thread, and the data is then decompressed directly into the
+	 * returned container's data.
+	 *
+	 * @param b buffer
+	 * @param offset offset of the container in b
+	 * @param length length of the container
+	 * @param keys xtea keys, or null
+	 * @return
+	 * @throws IOException
+	 */
+	public static Container decompress(byte[] b, int offset, int length, int[] keys) throws IOException
+	{
+		if (length < 5)
 		{
 			throw new RuntimeException("Invalid data");
 		}
 
-		Crc32 crc32 = new Crc32();
-		crc32.update(b, 0, 5); // compression + length
+		int compression = b[offset] & 0xFF;
+		int compressedLength = Ints.fromBytes(b[offset + 1], b[offset + 2], b[offset + 3], b[offset + 4]);
+		if (compressedLength < 0 || compressedLength > 1000000)
+		{
+			throw new RuntimeException("Invalid data");
+		}
 
-		byte[] data;
-		int revision = -1;
+		int payloadLength;
 		switch (compression)
 		{
 			case CompressionType.NONE:
-			{
-				byte[] encryptedData = new byte[compressedLength];
-				stream.readBytes(encryptedData, 0, compressedLength);
-
-				crc32.update(encryptedData, 0, compressedLength);
-				byte[] decryptedData = decrypt(encryptedData, encryptedData.length, keys);
-
-				if (stream.remaining() >= 2)
-				{
-					revision = stream.readUnsignedShort();
-					assert revision != -1;
-				}
-
-				data = decryptedData;
-
+				payloadLength = compressedLength;
 				break;
-			}
 			case CompressionType.BZ2:
-			{
-				byte[] encryptedData = new byte[compressedLength + 4];
-				stream.readBytes(encryptedData);
-
-				crc32.update(encryptedData, 0, encryptedData.length);
-				byte[] decryptedData = decrypt(encryptedData, encryptedData.length, keys);
-
-				if (stream.remaining() >= 2)
-				{
-					revision = stream.readUnsignedShort();
-					assert revision != -1;
-				}
-
-				stream = new InputStream(decryptedData);
+			case CompressionType.GZ:
+				payloadLength = compressedLength + 4; // decompressed length
+				break;
+			default:
+				throw new RuntimeException("Unknown decompression type");
+		}
 
-				int decompressedLength = stream.readInt();
-				data = BZip2.decompress(stream.getRemaining(), compressedLength);
+		int payloadOffset = offset + 5;
+		if (payloadOffset + payloadLength > offset + length)
+		{
+			throw new IOException("Container data is truncated");
+		}
 
-				if (data == null)
-				{
-					return null;
-				}
+		Crc32 crc32 = new Crc32();
+		crc32.update(b, offset, 5 + payloadLength); // compression + length + payload
 
-				assert data.length == decompressedLength;
+		int revision = -1;
+		if (length - 5 - payloadLength >= 2)
+		{
+			int revisionOffset = payloadOffset + payloadLength;
+			revision = ((b[revisionOffset] & 0xFF) << 8) | (b[revisionOffset + 1] & 0xFF);
+		}
 
-				break;
+		byte[] data;
+		if (compression == CompressionType.NONE)
+		{
+			data = new byte[payloadLength];
+			if (keys != null)
+			{
+				new Xtea(keys).decrypt(b, payloadOffset, data, 0, payloadLength);
 			}
-			case CompressionType.GZ:
+			else
 			{
-				byte[] encryptedData = new byte[compressedLength + 4];
-				stream.readBytes(encryptedData);
-
-				crc32.update(encryptedData, 0, encryptedData.length);
-				byte[] decryptedData = decrypt(encryptedData, encryptedData.length, keys);
-
-				if (stream.remaining() >= 2)
-				{
-					revision = stream.readUnsignedShort();
-					assert revision != -1;
-				}
-
-				stream = new InputStream(decryptedData);
-
-				int decompressedLength = stream.readInt();
-				data = GZip.decompress(stream.getRemaining(), compressedLength);
-
-				if (data == null)
-				{
-					return null;
-				}
+				System.arraycopy(b, payloadOffset, data, 0, payloadLength);
+			}
+		}
+		else
+		{
+			byte[] src = b;
+			int srcOffset = payloadOffset;
+			if (keys != null)
+			{
+				src = scratch(payloadLength);
+				srcOffset = 0;
+				new Xtea(keys).decrypt(b, payloadOffset, src, 0, payloadLength);
+			}
 
-				assert data.length == decompressedLength;
+			int decompressedLength = Ints.fromBytes(src[srcOffset], src[srcOffset + 1], src[srcOffset + 2], src[srcOffset + 3]);
+			if (decompressedLength < 0)
+			{
+				throw new IOException("Invalid decompressed length " + decompressedLength);
+			}
 
-				break;
+			if (compression == CompressionType.BZ2)
+			{
+				data = BZip2.decompress(src, srcOffset + 4, compressedLength, decompressedLength);
+			}
+			else
+			{
+				data = GZip.decompress(src, srcOffset + 4, compressedLength, decompressedLength);
 			}
-			default:
-				throw new RuntimeException("Unknown decompression type");
 		}
 
 		Container container = new Container(compression, revision);
@@ -192,15 +200,15 @@ public class Container
 		return container;
 	}
 
-	private static byte[] decrypt(byte[] data, int length, int[] keys)
+	private static byte[] scratch(int length)
 	{
-		if (keys == null)
+		byte[][] holder = SCRATCH.get();
+		byte[] buf = holder[0];
+		if (buf == null || buf.length < length)
 		{
-			return data;
+			buf = holder[0] = new byte[Math.max(length, 4096)];
 		}
-
-		Xtea xtea = new Xtea(keys);
-		return xtea.decrypt(data, length);
+		return buf;
 	}
 
 	private static byte[] encrypt(byte[] data, int length, int[] keys)
@@ -31,6 +31,7 @@ import net.runelite.cache.index.ArchiveData;
 import net.runelite.cache.index.FileData;
 import net.runelite.cache.index.IndexData;
 import net.runelite.cache.util.Djb2;
+import net.runelite.cache.util.IntObjectMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -47,6 +48,9 @@ public class Index
 	private int compression; // compression method of this index's data in 255
 
 	private final List<Archive> archives = new ArrayList<>();
+	private final IntObjectMap<Archive> archiveIds = new IntObjectMap<>();
+	// built on demand, and reset when an archive is added, removed, or renamed
+	private volatile IntObjectMap<Archive> archiveNames;
 
 	public Index(int id)
 	{
@@ -154,32 +158,72 @@ public class Index
 	{
 		Archive archive = new Archive(this, id);
 		this.archives.add(archive);
+		archiveIds.putIfAbsent(id, archive);
+		archiveNames = null;
 		return archive;
 	}
 
-	public Archive getArchive(int id)
+	public void removeArchive(Archive archive)
 	{
-		for (Archive a : archives)
+		assert archive.getIndex() == this;
+
+		boolean removed = archives.removeIf(a -> a == archive);
+		assert removed;
+
+		if (archiveIds.get(archive.getArchiveId()) == archive)
 		{
-			if (a.getArchiveId() == id)
+			archiveIds.remove(archive.getArchiveId());
+
+			// fall back to any other archive with the same id
+			for (Archive a : archives)
 			{
-				return a;
+				if (a.getArchiveId() == archive.getArchiveId())
+				{
+					archiveIds.put(a.getArchiveId(), a);
+					break;
+				}
 			}
 		}
-		return null;
+
+		archiveNames = null;
+	}
+
+	void archiveRenamed()
+	{
+		archiveNames = null;
+	}
+
+	public Archive getArchive(int id)
+	{
+		return archiveIds.get(id);
 	}
 
 	public Archive findArchiveByName(String name)
 	{
 		int hash = Djb2.hash(name);
-		for (Archive a : archives)
+
+		IntObjectMap<Archive> names = archiveNames;
+		if (names == null)
+		{
+			names = buildArchiveNames();
+		}
+		return names.get(hash);
+	}
+
+	private synchronized IntObjectMap<Archive> buildArchiveNames()
+	{
+		IntObjectMap<Archive> names = archiveNames;
+		if (names == null)
 		{
-			if (a.getNameHash() == hash)
+			names = new IntObjectMap<>(archives.size());
+			for (Archive a : archives)
 			{
-				return a;
+				// the first archive with a given name wins
+				names.putIfAbsent(a.getNameHash(), a);
 			}
+			archiveNames = names;
 		}
-		return null;
+		return names;
 	}
 
 	public IndexData toIndexData()
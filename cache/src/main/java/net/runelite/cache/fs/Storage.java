@@ -25,6 +25,10 @@
 package net.runelite.cache.fs;
 
 import java.io.IOException;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
 
 public interface Storage extends AutoCloseable
 {
@@ -35,9 +39,40 @@ public interface Storage extends AutoCloseable
 
 	void load(Store store) throws IOException;
 
+	/**
+	 * Load the store, allowing the indexes to be decoded concurrently on the given executor.
+	 */
+	default void load(Store store, Executor executor) throws IOException
+	{
+		load(store);
+	}
+
 	void save(Store store) throws IOException;
 
 	byte[] loadArchive(Archive archive) throws IOException;
 
+	/**
+	 * Load the data of many archives at once. Implementations are free to
+	 * reorder the reads, eg. to read them in disk order.
+	 *
+	 * @param archives archives to load
+	 * @return map of archive to archive data, keyed by identity. Archives which
+	 * could not be read are omitted.
+	 * @throws IOException
+	 */
+	default Map<Archive, byte[]> loadArchives(Collection<Archive> archives) throws IOException
+	{
+		Map<Archive, byte[]> data = new IdentityHashMap<>(archives.size());
+		for (Archive archive : archives)
+		{
+			byte[] archiveData = loadArchive(archive);
+			if (archiveData != null)
+			{
+				data.put(archive, archiveData);
+			}
+		}
+		return data;
+	}
+
 	void saveArchive(Archive archive, byte[] data) throws IOException;
 }
@@ -24,15 +24,32 @@
  */
 package net.runelite.cache.fs;
 
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import java.io.Closeable;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import lombok.Value;
 import net.runelite.cache.IndexType;
 import net.runelite.cache.fs.jagex.DiskStorage;
+import net.runelite.cache.index.FileData;
+import net.runelite.cache.util.IntObjectMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -42,6 +59,17 @@ public final class Store implements Closeable
 
 	private final Storage storage;
 	private final List<Index> indexes = new ArrayList<>();
+	private final IntObjectMap<Index> indexIds = new IntObjectMap<>();
+
+	private Cache<ArchiveKey, ArchiveFiles> archiveCache;
+
+	@Value
+	private static class ArchiveKey
+	{
+		int index;
+		int archive;
+		int crc;
+	}
 
 	public Store(File folder) throws IOException
 	{
@@ -96,16 +124,14 @@ public final class Store implements Closeable
 
 	public final Index addIndex(int id) throws FileNotFoundException
 	{
-		for (Index i : indexes)
+		if (indexIds.containsKey(id))
 		{
-			if (i.getId() == id)
-			{
-				throw new IllegalArgumentException("index " + id + " already exists");
-			}
+			throw new IllegalArgumentException("index " + id + " already exists");
 		}
 
 		Index index = new Index(id);
 		this.indexes.add(index);
+		indexIds.put(id, index);
 
 		return index;
 	}
@@ -114,6 +140,7 @@ public final class Store implements Closeable
 	{
 		assert indexes.contains(index);
 		indexes.remove(index);
+		indexIds.remove(index.getId());
 	}
 
 	public void load() throws IOException
@@ -121,11 +148,220 @@ public final class Store implements Closeable
 		storage.load(this);
 	}
 
+	/**
+	 * Load the store, decoding the indexes concurrently on the given executor
+	 */
+	public void loadParallel(Executor executor) throws IOException
+	{
+		storage.load(this, executor);
+	}
+
+	/**
+	 * Load and decompress many archives at once. The archive data is read in bulk
+	 * from the storage and then decompressed on the given executor. This does not
+	 * support xtea encrypted archives.
+	 *
+	 * @param archives archives to load
+	 * @param executor executor to decompress the archives on
+	 * @return map of archive to decompressed archive data, keyed by identity.
+	 * Archives which could not be read are omitted.
+	 * @throws IOException
+	 */
+	public Map<Archive, byte[]> loadArchives(Collection<Archive> archives, Executor executor) throws IOException
+	{
+		Map<Archive, byte[]> archiveData = storage.loadArchives(archives);
+
+		Map<Archive, CompletableFuture<byte[]>> futures = new IdentityHashMap<>(archiveData.size());
+		for (Map.Entry<Archive, byte[]> entry : archiveData.entrySet())
+		{
+			Archive archive = entry.getKey();
+			byte[] data = entry.getValue();
+			futures.put(archive, CompletableFuture.supplyAsync(() ->
+			{
+				try
+				{
+					return archive.decompress(data);
+				}
+				catch (IOException ex)
+				{
+					throw new UncheckedIOException(ex);
+				}
+			}, executor));
+		}
+
+		Map<Archive, byte[]> decompressed = new IdentityHashMap<>(futures.size());
+		try
+		{
+			for (Map.Entry<Archive, CompletableFuture<byte[]>> entry : futures.entrySet())
+			{
+				byte[] data = entry.getValue().join();
+				if (data != null)
+				{
+					decompressed.put(entry.getKey(), data);
+				}
+			}
+		}
+		catch (CompletionException ex)
+		{
+			if (ex.getCause() instanceof UncheckedIOException)
+			{
+				throw ((UncheckedIOException) ex.getCause()).getCause();
+			}
+			throw ex;
+		}
+		return decompressed;
+	}
+
+	/**
+	 * Enable caching of the archives returned by {@link #getArchiveFiles(Archive)}
+	 *
+	 * @param maximumBytes maximum total size of the contents of the cached archives
+	 */
+	public void enableArchiveCache(long maximumBytes)
+	{
+		archiveCache = CacheBuilder.newBuilder()
+			.maximumWeight(maximumBytes)
+			.weigher((ArchiveKey key, ArchiveFiles files) ->
+			{
+				int size = 0;
+				for (FSFile file : files.getFiles())
+				{
+					size += file.getSize();
+				}
+				return size;
+			})
+			.recordStats()
+			.build();
+	}
+
+	public CacheStats getArchiveCacheStats()
+	{
+		Cache<ArchiveKey, ArchiveFiles> cache = archiveCache;
+		return cache != null ? cache.stats() : new CacheStats(0, 0, 0, 0, 0, 0);
+	}
+
+	/**
+	 * Load and decompress the files of an unencrypted archive. If the archive
+	 * cache is enabled, the files are shared between callers and must not be
+	 * modified.
+	 *
+	 * @param archive
+	 * @return
+	 * @throws IOException
+	 */
+	public ArchiveFiles getArchiveFiles(Archive archive) throws IOException
+	{
+		Cache<ArchiveKey, ArchiveFiles> cache = archiveCache;
+		if (cache == null)
+		{
+			return archive.getFiles(storage.loadArchive(archive));
+		}
+
+		ArchiveKey key = new ArchiveKey(archive.getIndex().getId(), archive.getArchiveId(), archive.getCrc());
+		try
+		{
+			return cache.get(key, () -> archive.getFiles(storage.loadArchive(archive)));
+		}
+		catch (ExecutionException | UncheckedExecutionException ex)
+		{
+			Throwables.throwIfInstanceOf(ex.getCause(), IOException.class);
+			Throwables.throwIfUnchecked(ex.getCause());
+			throw new RuntimeException(ex.getCause());
+		}
+	}
+
 	public void save() throws IOException
 	{
 		storage.save(this);
 	}
 
+	/**
+	 * Update this store to match another store. Only archives whose crc,
+	 * revision, or name differ are copied, and archives which no longer
+	 * exist in the other store are removed. The store must be saved
+	 * afterward to write out the updated indexes.
+	 *
+	 * @param source store to copy from
+	 * @return the number of archives copied
+	 * @throws IOException
+	 */
+	public int sync(Store source) throws IOException
+	{
+		int copied = 0;
+		for (Index sourceIndex : source.getIndexes())
+		{
+			Index index = findIndex(sourceIndex.getId());
+			if (index == null)
+			{
+				index = addIndex(sourceIndex.getId());
+			}
+
+			index.setProtocol(sourceIndex.getProtocol());
+			index.setNamed(sourceIndex.isNamed());
+			index.setRevision(sourceIndex.getRevision());
+			index.setCompression(sourceIndex.getCompression());
+
+			for (Archive archive : new ArrayList<>(index.getArchives()))
+			{
+				if (sourceIndex.getArchive(archive.getArchiveId()) == null)
+				{
+					logger.debug("Removing archive {}/{}", index.getId(), archive.getArchiveId());
+					index.removeArchive(archive);
+				}
+			}
+
+			for (Archive sourceArchive : sourceIndex.getArchives())
+			{
+				Archive archive = index.getArchive(sourceArchive.getArchiveId());
+				if (archive != null && archive.getCrc() == sourceArchive.getCrc()
+					&& archive.getRevision() == sourceArchive.getRevision()
+					&& archive.getNameHash() == sourceArchive.getNameHash())
+				{
+					continue;
+				}
+
+				byte[] data = source.getStorage().loadArchive(sourceArchive);
+				if (data == null)
+				{
+					logger.warn("Unable to load archive {}/{} to sync", sourceIndex.getId(), sourceArchive.getArchiveId());
+					continue;
+				}
+
+				if (archive == null)
+				{
+					archive = index.addArchive(sourceArchive.getArchiveId());
+				}
+
+				archive.setNameHash(sourceArchive.getNameHash());
+				archive.setRevision(sourceArchive.getRevision());
+				archive.setCompression(sourceArchive.getCompression());
+				archive.setFileData(copy(sourceArchive.getFileData()));
+				storage.saveArchive(archive, data);
+				archive.setCrc(sourceArchive.getCrc());
+				++copied;
+			}
+
+			// archive ids are delta encoded in the index data
+			index.getArchives().sort(Comparator.comparingInt(Archive::getArchiveId));
+		}
+
+		logger.debug("Synced {} archives", copied);
+		return copied;
+	}
+
+	private static FileData[] copy(FileData[] fileData)
+	{
+		// the stores must not share file data, since it is mutable
+		FileData[] copy = new FileData[fileData.length];
+		for (int i = 0; i < fileData.length; ++i)
+		{
+			copy[i] = new FileData();
+			copy[i].setId(fileData[i].getId());
+			copy[i].setNameHash(fileData[i].getNameHash());
+		}
+		return copy;
+	}
+
 	public List<Index> getIndexes()
 	{
 		return indexes;
@@ -138,13 +374,6 @@ public final class Store implements Closeable
 
 	public Index findIndex(int id)
 	{
-		for (Index i : indexes)
-		{
-			if (i.getId() == id)
-			{
-				return i;
-			}
-		}
-		return null;
+		return indexIds.get(id);
 	}
 }
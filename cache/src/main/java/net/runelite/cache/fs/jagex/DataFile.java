@@ -24,12 +24,19 @@
  */
 package net.runelite.cache.fs.jagex;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
+import java.util.BitSet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -38,11 +45,16 @@ public class DataFile implements Closeable
 	private static final Logger logger = LoggerFactory.getLogger(DataFile.class);
 
 	private static final int SECTOR_SIZE = 520;
+	private static final int FREE_SECTORS_MAGIC = 0x46524545;
 
+	private final File file;
 	private final RandomAccessFile dat;
+	// sectors no longer referenced by any index entry, which may be reused by writes
+	private final BitSet free = new BitSet();
 
 	public DataFile(File file) throws FileNotFoundException
 	{
+		this.file = file;
 		this.dat = new RandomAccessFile(file, "rw");
 	}
 
@@ -52,9 +64,232 @@ public class DataFile implements Closeable
 		dat.close();
 	}
 
-	public void clear() throws IOException
+	public synchronized void clear() throws IOException
 	{
 		dat.setLength(0L);
+		free.clear();
+	}
+
+	/**
+	 * Get the number of sectors which are free to be reused by writes
+	 *
+	 * @return
+	 */
+	public synchronized int getFreeSectorCount()
+	{
+		return free.cardinality();
+	}
+
+	/**
+	 * Release the sectors of a file so that they can be reused by later
+	 * writes. The sector chain is validated first, and nothing is freed
+	 * if it doesn't belong to the given archive.
+	 *
+	 * @param indexId index of archive being freed
+	 * @param archiveId archive being freed
+	 * @param sector first sector of the archive
+	 * @param size size of the archive
+	 * @return whether the sectors were freed
+	 * @throws IOException
+	 */
+	public synchronized boolean free(int indexId, int archiveId, int sector, int size) throws IOException
+	{
+		BitSet sectors = new BitSet();
+		if (!findSectors(indexId, archiveId, sector, size, sectors))
+		{
+			logger.warn("Unable to free {}/{}", indexId, archiveId);
+			return false;
+		}
+
+		free.or(sectors);
+		return true;
+	}
+
+	/**
+	 * Rebuild the free sector map as every sector of the data file which
+	 * is not in use, so sectors freed before the file was opened can be
+	 * reused.
+	 *
+	 * @param used sectors in use, from {@link #findSectors(int, int, int, int, BitSet)}
+	 * @throws IOException
+	 */
+	public synchronized void rebuildFreeSectors(BitSet used) throws IOException
+	{
+		int sectors = (int) ((dat.length() + (long) (SECTOR_SIZE - 1)) / (long) SECTOR_SIZE);
+		free.clear();
+		if (sectors > 1)
+		{
+			free.set(1, sectors);
+		}
+		free.andNot(used);
+	}
+
+	/**
+	 * Load the free sector map saved by {@link #writeFreeSectors(File)}, if it
+	 * was saved for the current contents of the data file.
+	 *
+	 * @param freeFile file the map was saved to
+	 * @return whether the map was loaded
+	 */
+	public synchronized boolean readFreeSectors(File freeFile)
+	{
+		if (!freeFile.exists())
+		{
+			return false;
+		}
+
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(freeFile))))
+		{
+			if (in.readInt() != FREE_SECTORS_MAGIC
+				|| in.readLong() != dat.length()
+				|| in.readLong() != file.lastModified())
+			{
+				logger.debug("Free sector map {} is out of date", freeFile);
+				return false;
+			}
+
+			long[] words = new long[in.readInt()];
+			for (int i = 0; i < words.length; ++i)
+			{
+				words[i] = in.readLong();
+			}
+
+			free.clear();
+			free.or(BitSet.valueOf(words));
+			return true;
+		}
+		catch (IOException ex)
+		{
+			logger.warn("Unable to read free sector map {}", freeFile, ex);
+			return false;
+		}
+	}
+
+	/**
+	 * Save the free sector map, along with the length and modification time
+	 * of the data file it is for. This must be called once the data file
+	 * has been closed, so that the modification time is final.
+	 *
+	 * @param freeFile file to save the map to
+	 * @throws IOException
+	 */
+	public synchronized void writeFreeSectors(File freeFile) throws IOException
+	{
+		long[] words = free.toLongArray();
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(freeFile))))
+		{
+			out.writeInt(FREE_SECTORS_MAGIC);
+			out.writeLong(file.length());
+			out.writeLong(file.lastModified());
+			out.writeInt(words.length);
+			for (long word : words)
+			{
+				out.writeLong(word);
+			}
+		}
+	}
+
+	/**
+	 * Follow the sector chain of a file, setting each sector of it which
+	 * belongs to the given archive.
+	 *
+	 * @param indexId index of the archive
+	 * @param archiveId archive to find
+	 * @param sector first sector of the archive
+	 * @param size size of the archive
+	 * @param sectors set of sectors to add to
+	 * @return whether the whole chain belongs to the archive
+	 * @throws IOException
+	 */
+	synchronized boolean findSectors(int indexId, int archiveId, int sector, int size, BitSet sectors) throws IOException
+	{
+		int headerSize = archiveId > 0xFFFF ? 10 : 8;
+		int sectorCount = sectorCount(archiveId, size);
+		byte[] header = new byte[headerSize];
+
+		for (int part = 0; part < sectorCount; ++part)
+		{
+			if (sector <= 0 || dat.length() / SECTOR_SIZE < (long) sector)
+			{
+				logger.warn("Bad sector {} in {}/{}", sector, indexId, archiveId);
+				return false;
+			}
+
+			dat.seek(SECTOR_SIZE * sector);
+			dat.readFully(header);
+
+			int currentArchive, currentPart, nextSector, currentIndex;
+			if (headerSize == 10)
+			{
+				currentArchive = ((header[0] & 0xFF) << 24)
+					| ((header[1] & 0xFF) << 16)
+					| ((header[2] & 0xFF) << 8)
+					| (header[3] & 0xFF);
+				currentPart = ((header[4] & 0xFF) << 8) | (header[5] & 0xFF);
+				nextSector = ((header[6] & 0xFF) << 16)
+					| ((header[7] & 0xFF) << 8)
+					| (header[8] & 0xFF);
+				currentIndex = header[9] & 0xFF;
+			}
+			else
+			{
+				currentArchive = ((header[0] & 0xFF) << 8)
+					| (header[1] & 0xFF);
+				currentPart = ((header[2] & 0xFF) << 8)
+					| (header[3] & 0xFF);
+				nextSector = ((header[4] & 0xFF) << 16)
+					| ((header[5] & 0xFF) << 8)
+					| (header[6] & 0xFF);
+				currentIndex = header[7] & 0xFF;
+			}
+
+			if (archiveId != currentArchive || currentPart != part || indexId != currentIndex)
+			{
+				logger.warn("Sector {} of {}/{} belongs to {}/{}",
+					sector, indexId, archiveId, currentIndex, currentArchive);
+				return false;
+			}
+
+			sectors.set(sector);
+			sector = nextSector;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Get the number of sectors required to store a file
+	 *
+	 * @param archiveId
+	 * @param size
+	 * @return
+	 */
+	static int sectorCount(int archiveId, int size)
+	{
+		int blockSize = archiveId > 0xFFFF ? SECTOR_SIZE - 10 : SECTOR_SIZE - 8;
+		return (size + blockSize - 1) / blockSize;
+	}
+
+	/**
+	 * Find a run of free sectors large enough to hold the given
+	 * number of sectors, and mark it as used.
+	 *
+	 * @param count
+	 * @return the first sector of the run, or -1 if there is none
+	 */
+	private int allocate(int count)
+	{
+		for (int start = free.nextSetBit(0); start >= 0; )
+		{
+			int end = free.nextClearBit(start);
+			if (end - start >= count)
+			{
+				free.clear(start, start + count);
+				return start;
+			}
+			start = free.nextSetBit(end);
+		}
+		return -1;
 	}
 
 	/**
@@ -177,16 +412,20 @@ public class DataFile implements Closeable
 		byte[] writeBuffer = new byte[SECTOR_SIZE];
 		ByteBuffer data = ByteBuffer.wrap(compressedData);
 
-		sector = (int) ((dat.length() + (long) (SECTOR_SIZE - 1)) / (long) SECTOR_SIZE);
-		if (sector == 0)
+		sector = allocate(sectorCount(archiveId, compressedData.length));
+		if (sector == -1)
 		{
-			sector = 1;
+			sector = (int) ((dat.length() + (long) (SECTOR_SIZE - 1)) / (long) SECTOR_SIZE);
+			if (sector == 0)
+			{
+				sector = 1;
+			}
 		}
 		startSector = sector;
 
 		for (int part = 0; data.hasRemaining(); ++part)
 		{
-			int nextSector = sector + 1; // we always just append sectors
+			int nextSector = sector + 1; // files are always written to a contiguous run of sectors
 			int dataToWrite;
 
 			if (0xFFFF < archiveId)
@@ -28,8 +28,19 @@ import com.google.common.primitives.Ints;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import net.runelite.cache.fs.Archive;
 import net.runelite.cache.fs.Container;
 import net.runelite.cache.fs.Index;
@@ -38,6 +49,7 @@ import net.runelite.cache.fs.Store;
 import net.runelite.cache.index.ArchiveData;
 import net.runelite.cache.index.IndexData;
 import net.runelite.cache.util.Crc32;
+import net.runelite.cache.util.IntObjectMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -47,12 +59,18 @@ public class DiskStorage implements Storage
 
 	private static final String MAIN_FILE_CACHE_DAT = "main_file_cache.dat2";
 	private static final String MAIN_FILE_CACHE_IDX = "main_file_cache.idx";
+	private static final String MAIN_FILE_CACHE_FREE = "main_file_cache.dat2.free";
 
 	private final File folder;
 
 	private final DataFile data;
 	private final IndexFile index255;
-	private final List<IndexFile> indexFiles = new ArrayList<>();
+	private final IntObjectMap<IndexFile> indexFiles = new IntObjectMap<>();
+	private final List<IndexFile> openIndexFiles = new ArrayList<>();
+	// crc and compression of the index data last loaded or saved, used to skip rewriting unchanged indexes
+	private final IntObjectMap<Long> indexDataCrcs = new IntObjectMap<>();
+	// whether the free sectors of the data file have been found, which is done before the first write
+	private boolean freeSectorsLoaded;
 
 	public DiskStorage(File folder) throws IOException
 	{
@@ -78,25 +96,35 @@ public class DiskStorage implements Storage
 	public void close() throws IOException
 	{
 		data.close();
+		if (freeSectorsLoaded)
+		{
+			try
+			{
+				data.writeFreeSectors(new File(folder, MAIN_FILE_CACHE_FREE));
+			}
+			catch (IOException ex)
+			{
+				logger.warn("Unable to save free sector map", ex);
+			}
+		}
 		index255.close();
-		for (IndexFile indexFile : indexFiles)
+		for (IndexFile indexFile : openIndexFiles)
 		{
 			indexFile.close();
 		}
 	}
 
-	private IndexFile getIndex(int i) throws FileNotFoundException
+	private synchronized IndexFile getIndex(int i) throws FileNotFoundException
 	{
-		for (IndexFile indexFile : indexFiles)
+		IndexFile indexFile = indexFiles.get(i);
+		if (indexFile != null)
 		{
-			if (indexFile.getIndexFileId() == i)
-			{
-				return indexFile;
-			}
+			return indexFile;
 		}
 
-		IndexFile indexFile = new IndexFile(i, new File(folder, MAIN_FILE_CACHE_IDX + i));
-		indexFiles.add(indexFile);
+		indexFile = new IndexFile(i, new File(folder, MAIN_FILE_CACHE_IDX + i));
+		indexFiles.put(i, indexFile);
+		openIndexFiles.add(indexFile);
 		return indexFile;
 	}
 
@@ -109,6 +137,54 @@ public class DiskStorage implements Storage
 		}
 	}
 
+	@Override
+	public void load(Store store, Executor executor) throws IOException
+	{
+		// reads from the data file are serialized anyway, so read the index
+		// data up front and only decompress and parse it concurrently
+		List<CompletableFuture<Void>> futures = new ArrayList<>();
+		for (Index index : store.getIndexes())
+		{
+			logger.trace("Loading index {}", index.getId());
+
+			byte[] indexData = readIndex(index.getId());
+			if (indexData == null)
+			{
+				continue;
+			}
+
+			futures.add(CompletableFuture.runAsync(() ->
+			{
+				try
+				{
+					indexLoaded(index, loadIndex(index, indexData));
+				}
+				catch (IOException ex)
+				{
+					throw new UncheckedIOException(ex);
+				}
+			}, executor));
+		}
+
+		join(futures);
+	}
+
+	static void join(List<CompletableFuture<Void>> futures) throws IOException
+	{
+		try
+		{
+			CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+		}
+		catch (CompletionException ex)
+		{
+			if (ex.getCause() instanceof UncheckedIOException)
+			{
+				throw ((UncheckedIOException) ex.getCause()).getCause();
+			}
+			throw ex;
+		}
+	}
+
 	public byte[] readIndex(int indexId) throws IOException
 	{
 		IndexEntry entry = index255.read(indexId);
@@ -131,6 +207,29 @@ public class DiskStorage implements Storage
 			return;
 		}
 
+		indexLoaded(index, loadIndex(index, indexData));
+	}
+
+	private synchronized void indexLoaded(Index index, int dataCrc)
+	{
+		indexDataCrcs.put(index.getId(), indexDataKey(index, dataCrc));
+	}
+
+	private static long indexDataKey(Index index, int dataCrc)
+	{
+		return (long) index.getCompression() << 32 | (dataCrc & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Load the index data into the index
+	 *
+	 * @param index
+	 * @param indexData
+	 * @return the crc of the decompressed index data
+	 * @throws IOException
+	 */
+	static int loadIndex(Index index, byte[] indexData) throws IOException
+	{
 		Container res = Container.decompress(indexData, null);
 		byte[] data = res.data;
 
@@ -155,6 +254,10 @@ public class DiskStorage implements Storage
 		index.setCrc(res.crc);
 		index.setCompression(res.compression);
 		assert res.revision == -1;
+
+		Crc32 crc = new Crc32();
+		crc.update(data, 0, data.length);
+		return crc.getHash();
 	}
 
 	@Override
@@ -181,6 +284,40 @@ public class DiskStorage implements Storage
 		return archiveData;
 	}
 
+	@Override
+	public Map<Archive, byte[]> loadArchives(Collection<Archive> archives) throws IOException
+	{
+		Map<Archive, IndexEntry> entries = new IdentityHashMap<>(archives.size());
+		for (Archive archive : archives)
+		{
+			IndexFile indexFile = getIndex(archive.getIndex().getId());
+			IndexEntry entry = indexFile.read(archive.getArchiveId());
+			if (entry == null)
+			{
+				logger.debug("can't read archive " + archive.getArchiveId() + " from index " + archive.getIndex().getId());
+				continue;
+			}
+
+			entries.put(archive, entry);
+		}
+
+		// read in disk order to avoid seeking back and forth in the data file
+		List<Archive> sorted = new ArrayList<>(entries.keySet());
+		sorted.sort(Comparator.comparingInt(a -> entries.get(a).getSector()));
+
+		Map<Archive, byte[]> archiveData = new IdentityHashMap<>(sorted.size());
+		for (Archive archive : sorted)
+		{
+			IndexEntry entry = entries.get(archive);
+			byte[] data = this.data.read(archive.getIndex().getId(), entry.getId(), entry.getSector(), entry.getLength());
+			if (data != null)
+			{
+				archiveData.put(archive, data);
+			}
+		}
+		return archiveData;
+	}
+
 	@Override
 	public void save(Store store) throws IOException
 	{
@@ -197,16 +334,128 @@ public class DiskStorage implements Storage
 		IndexData indexData = index.toIndexData();
 		byte[] data = indexData.writeIndexData();
 
+		Crc32 crc = new Crc32();
+		crc.update(data, 0, data.length);
+		long key = indexDataKey(index, crc.getHash());
+
+		IndexEntry existing = index255.read(index.getId());
+		Long previous;
+		synchronized (this)
+		{
+			previous = indexDataCrcs.get(index.getId());
+		}
+
+		if (existing != null && previous != null && previous == key)
+		{
+			logger.trace("Index {} is unchanged", index.getId());
+			return;
+		}
+
 		Container container = new Container(index.getCompression(), -1); // index data revision is always -1
 		container.compress(data, null);
 		byte[] compressedData = container.data;
+		loadFreeSectors();
 		DataFileWriteResult res = this.data.write(index255.getIndexFileId(), index.getId(), compressedData);
 
 		index255.write(new IndexEntry(index255, index.getId(), res.sector, res.compressedLength));
 
-		Crc32 crc = new Crc32();
+		if (existing != null)
+		{
+			this.data.free(index255.getIndexFileId(), index.getId(), existing.getSector(), existing.getLength());
+			freeRemovedArchives(index);
+		}
+
+		crc = new Crc32();
 		crc.update(compressedData, 0, compressedData.length);
 		index.setCrc(crc.getHash());
+
+		synchronized (this)
+		{
+			indexDataCrcs.put(index.getId(), key);
+		}
+	}
+
+	/**
+	 * Load the free sectors of the data file before the first write, so that
+	 * space freed in earlier sessions is reused rather than the data file
+	 * growing. The map saved when the cache was last closed is used if it is
+	 * still current, otherwise the sectors not reachable from any index entry
+	 * are found by walking every sector chain.
+	 */
+	private synchronized void loadFreeSectors() throws IOException
+	{
+		if (freeSectorsLoaded)
+		{
+			return;
+		}
+
+		File freeFile = new File(folder, MAIN_FILE_CACHE_FREE);
+		if (!data.readFreeSectors(freeFile))
+		{
+			findFreeSectors();
+		}
+
+		// the data file is about to change, so the saved map is only valid again once it is closed
+		Files.deleteIfExists(freeFile.toPath());
+		freeSectorsLoaded = true;
+
+		logger.debug("Found {} free sectors in {}", data.getFreeSectorCount(), folder);
+	}
+
+	private void findFreeSectors() throws IOException
+	{
+		BitSet used = new BitSet();
+		findSectors(index255, used);
+		for (int i = 0; i < index255.getIndexCount(); ++i)
+		{
+			getIndex(i);
+		}
+		for (IndexFile indexFile : openIndexFiles)
+		{
+			findSectors(indexFile, used);
+		}
+
+		data.rebuildFreeSectors(used);
+	}
+
+	private void findSectors(IndexFile indexFile, BitSet used) throws IOException
+	{
+		for (int i = 0; i < indexFile.getIndexCount(); ++i)
+		{
+			IndexEntry entry = indexFile.read(i);
+			if (entry != null)
+			{
+				// a broken chain keeps the sectors found before the break, in case they are still read
+				data.findSectors(indexFile.getIndexFileId(), i, entry.getSector(), entry.getLength(), used);
+			}
+		}
+	}
+
+	/**
+	 * Free the sectors of archives which are still in the index file
+	 * but have been removed from the index
+	 */
+	private void freeRemovedArchives(Index index) throws IOException
+	{
+		IndexFile indexFile = getIndex(index.getId());
+		for (int i = 0; i < indexFile.getIndexCount(); ++i)
+		{
+			if (index.getArchive(i) != null)
+			{
+				continue;
+			}
+
+			IndexEntry entry = indexFile.read(i);
+			if (entry == null)
+			{
+				continue;
+			}
+
+			logger.debug("Freeing removed archive {}/{}", index.getId(), i);
+
+			indexFile.write(new IndexEntry(indexFile, i, 0, 0));
+			data.free(index.getId(), i, entry.getSector(), entry.getLength());
+		}
 	}
 
 	@Override
@@ -216,9 +465,18 @@ public class DiskStorage implements Storage
 		IndexFile indexFile = getIndex(index.getId());
 		assert indexFile.getIndexFileId() == index.getId();
 
+		// the old sectors are only freed once the new data has been written
+		IndexEntry existing = indexFile.read(a.getArchiveId());
+		loadFreeSectors();
+
 		DataFileWriteResult res = data.write(index.getId(), a.getArchiveId(), archiveData);
 		indexFile.write(new IndexEntry(indexFile, a.getArchiveId(), res.sector, res.compressedLength));
 
+		if (existing != null)
+		{
+			data.free(index.getId(), a.getArchiveId(), existing.getSector(), existing.getLength());
+		}
+
 		byte compression = archiveData[0];
 		int compressedSize = Ints.fromBytes(archiveData[1], archiveData[2],
 			archiveData[3], archiveData[4]);
@@ -236,4 +494,83 @@ public class DiskStorage implements Storage
 		logger.trace("Saved archive {}/{} at sector {}, compressed length {}",
 			index.getId(), a.getArchiveId(), res.sector, res.compressedLength);
 	}
+
+	/**
+	 * Rewrite the cache in the given folder so that every file is stored in
+	 * a sequential run of sectors, ordered by index and archive, dropping
+	 * any sectors which are no longer referenced. The cache must not be
+	 * open while it is being compacted.
+	 *
+	 * @param folder
+	 * @throws IOException
+	 */
+	public static void compact(File folder) throws IOException
+	{
+		File datFile = new File(folder, MAIN_FILE_CACHE_DAT);
+		File compactDatFile = new File(folder, MAIN_FILE_CACHE_DAT + ".compact");
+		List<File> idxFiles = new ArrayList<>();
+
+		try (DataFile data = new DataFile(datFile);
+			DataFile compactData = new DataFile(compactDatFile))
+		{
+			compactData.clear();
+
+			int indexCount;
+			try (IndexFile index255 = new IndexFile(255, new File(folder, MAIN_FILE_CACHE_IDX + "255")))
+			{
+				indexCount = index255.getIndexCount();
+			}
+
+			idxFiles.add(new File(folder, MAIN_FILE_CACHE_IDX + "255"));
+			for (int i = 0; i < indexCount; ++i)
+			{
+				File idxFile = new File(folder, MAIN_FILE_CACHE_IDX + i);
+				if (idxFile.exists())
+				{
+					idxFiles.add(idxFile);
+				}
+			}
+
+			for (File idxFile : idxFiles)
+			{
+				int indexId = Integer.parseInt(idxFile.getName().substring(MAIN_FILE_CACHE_IDX.length()));
+				File compactIdxFile = new File(folder, idxFile.getName() + ".compact");
+
+				try (IndexFile indexFile = new IndexFile(indexId, idxFile);
+					IndexFile compactIndexFile = new IndexFile(indexId, compactIdxFile))
+				{
+					compactIndexFile.clear();
+
+					for (int i = 0; i < indexFile.getIndexCount(); ++i)
+					{
+						IndexEntry entry = indexFile.read(i);
+						if (entry == null)
+						{
+							continue;
+						}
+
+						byte[] archiveData = data.read(indexId, i, entry.getSector(), entry.getLength());
+						if (archiveData == null)
+						{
+							logger.warn("Unable to read {}/{}, dropping it", indexId, i);
+							continue;
+						}
+
+						DataFileWriteResult res = compactData.write(indexId, i, archiveData);
+						compactIndexFile.write(new IndexEntry(compactIndexFile, i, res.sector, res.compressedLength));
+					}
+				}
+			}
+		}
+
+		for (File idxFile : idxFiles)
+		{
+			Files.move(new File(folder, idxFile.getName() + ".compact").toPath(), idxFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+		Files.move(compactDatFile.toPath(), datFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		// a compacted cache has no free sectors
+		Files.deleteIfExists(new File(folder, MAIN_FILE_CACHE_FREE).toPath());
+
+		logger.debug("Compacted {} index files in {}", idxFiles.size(), folder);
+	}
 }
@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2022, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.fs.jagex;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A read only view of a {@link DataFile} backed by memory mapped buffers.
+ * Reads do not mutate any shared state, so they may be done concurrently
+ * from any number of threads without locking.
+ */
+public class MappedDataFile implements Closeable
+{
+	private static final Logger logger = LoggerFactory.getLogger(MappedDataFile.class);
+
+	private static final int SECTOR_SIZE = 520;
+
+	// a single mapping is limited to 2gb, so the file is mapped in
+	// segments of whole sectors, so a sector never spans two segments
+	private static final int SEGMENT_SECTORS = 1 << 20;
+	private static final long SEGMENT_SIZE = (long) SEGMENT_SECTORS * SECTOR_SIZE;
+
+	private final FileChannel channel;
+	private final ByteBuffer[] segments;
+	private final long sectorCount;
+
+	public MappedDataFile(File file) throws IOException
+	{
+		this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+
+		long length = channel.size();
+		int segmentCount = (int) ((length + SEGMENT_SIZE - 1) / SEGMENT_SIZE);
+
+		this.segments = new ByteBuffer[segmentCount];
+		for (int i = 0; i < segmentCount; ++i)
+		{
+			long position = i * SEGMENT_SIZE;
+			segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(SEGMENT_SIZE, length - position));
+		}
+
+		this.sectorCount = length / SECTOR_SIZE;
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		channel.close();
+	}
+
+	/**
+	 *
+	 * @param indexId expected index of archive of contents being read
+	 * @param archiveId expected archive of contents being read
+	 * @param sector sector to start reading at
+	 * @param size size of file
+	 * @return
+	 */
+	public byte[] read(int indexId, int archiveId, int sector, int size)
+	{
+		if (sector <= 0L || sectorCount < (long) sector)
+		{
+			logger.warn("bad read, sector count {}, requested sector {}", sectorCount, sector);
+			return null;
+		}
+
+		byte[] data = new byte[size];
+		int headerSize = archiveId > 0xFFFF ? 10 : 8;
+
+		for (int part = 0, readBytesCount = 0, nextSector;
+			size > readBytesCount;
+			sector = nextSector)
+		{
+			if (sector == 0)
+			{
+				logger.warn("Unexpected end of file");
+				return null;
+			}
+
+			int dataBlockSize = size - readBytesCount;
+			if (dataBlockSize > SECTOR_SIZE - headerSize)
+			{
+				dataBlockSize = SECTOR_SIZE - headerSize;
+			}
+
+			int segmentId = sector / SEGMENT_SECTORS;
+			int position = (sector % SEGMENT_SECTORS) * SECTOR_SIZE;
+			if (segmentId >= segments.length || position + headerSize + dataBlockSize > segments[segmentId].limit())
+			{
+				logger.warn("Short read when reading file data for {}/{}", indexId, archiveId);
+				return null;
+			}
+
+			ByteBuffer segment = segments[segmentId];
+			int currentIndex;
+			int currentPart;
+			int currentArchive;
+			if (headerSize == 10)
+			{
+				currentArchive = segment.getInt(position);
+				currentPart = segment.getShort(position + 4) & 0xFFFF;
+				nextSector = ((segment.get(position + 6) & 0xFF) << 16)
+					| (segment.getShort(position + 7) & 0xFFFF);
+				currentIndex = segment.get(position + 9) & 0xFF;
+			}
+			else
+			{
+				currentArchive = segment.getShort(position) & 0xFFFF;
+				currentPart = segment.getShort(position + 2) & 0xFFFF;
+				nextSector = ((segment.get(position + 4) & 0xFF) << 16)
+					| (segment.getShort(position + 5) & 0xFFFF);
+				currentIndex = segment.get(position + 7) & 0xFF;
+			}
+
+			if (archiveId != currentArchive || currentPart != part || indexId != currentIndex)
+			{
+				logger.warn("data mismatch {} != {}, {} != {}, {} != {}",
+					archiveId, currentArchive,
+					part, currentPart,
+					indexId, currentIndex);
+				return null;
+			}
+
+			if (nextSector < 0 || sectorCount < (long) nextSector)
+			{
+				logger.warn("Invalid next sector");
+				return null;
+			}
+
+			// duplicate so the shared buffer's position is never touched
+			ByteBuffer view = segment.duplicate();
+			view.position(position + headerSize);
+			view.get(data, readBytesCount, dataBlockSize);
+			readBytesCount += dataBlockSize;
+
+			++part;
+		}
+
+		return data;
+	}
+}
@@ -0,0 +1,278 @@
+/*
+ * Copyright (c) 2022, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.fs.jagex;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.Index;
+import net.runelite.cache.fs.Storage;
+import net.runelite.cache.fs.Store;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A read only {@link Storage} for the jagex disk cache format which memory maps
+ * the data and index files. Unlike {@link DiskStorage}, archive reads are lock
+ * free and may be done concurrently. The files are mapped once on init, so
+ * this must not be used on a cache which is being written to.
+ */
+public class MappedDiskStorage implements Storage
+{
+	private static final Logger logger = LoggerFactory.getLogger(MappedDiskStorage.class);
+
+	private static final String MAIN_FILE_CACHE_DAT = "main_file_cache.dat2";
+	private static final String MAIN_FILE_CACHE_IDX = "main_file_cache.idx";
+
+	private static final int INDEX_ENTRY_LEN = 6;
+
+	private final File folder;
+
+	private MappedDataFile data;
+	private ByteBuffer index255;
+	private ByteBuffer[] indexFiles;
+
+	public MappedDiskStorage(File folder)
+	{
+		this.folder = folder;
+	}
+
+	@Override
+	public void init(Store store) throws IOException
+	{
+		data = new MappedDataFile(new File(folder, MAIN_FILE_CACHE_DAT));
+		index255 = map(new File(folder, MAIN_FILE_CACHE_IDX + "255"));
+
+		int indexCount = index255.limit() / INDEX_ENTRY_LEN;
+		indexFiles = new ByteBuffer[indexCount];
+		for (int i = 0; i < indexCount; ++i)
+		{
+			store.addIndex(i);
+			indexFiles[i] = map(new File(folder, MAIN_FILE_CACHE_IDX + i));
+		}
+	}
+
+	private static ByteBuffer map(File file) throws IOException
+	{
+		if (!file.exists())
+		{
+			return ByteBuffer.allocate(0);
+		}
+
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+		{
+			return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		if (data != null)
+		{
+			data.close();
+		}
+	}
+
+	@Override
+	public void load(Store store) throws IOException
+	{
+		for (Index index : store.getIndexes())
+		{
+			logger.trace("Loading index {}", index.getId());
+
+			byte[] indexData = readIndex(index.getId());
+			if (indexData == null)
+			{
+				continue;
+			}
+
+			DiskStorage.loadIndex(index, indexData);
+		}
+	}
+
+	@Override
+	public void load(Store store, Executor executor) throws IOException
+	{
+		List<CompletableFuture<Void>> futures = new ArrayList<>();
+		for (Index index : store.getIndexes())
+		{
+			futures.add(CompletableFuture.runAsync(() ->
+			{
+				logger.trace("Loading index {}", index.getId());
+
+				byte[] indexData = readIndex(index.getId());
+				if (indexData == null)
+				{
+					return;
+				}
+
+				try
+				{
+					DiskStorage.loadIndex(index, indexData);
+				}
+				catch (IOException ex)
+				{
+					throw new UncheckedIOException(ex);
+				}
+			}, executor));
+		}
+
+		DiskStorage.join(futures);
+	}
+
+	public byte[] readIndex(int indexId)
+	{
+		return read(index255, 255, indexId);
+	}
+
+	@Override
+	public byte[] loadArchive(Archive archive) throws IOException
+	{
+		Index index = archive.getIndex();
+		if (index.getId() < 0 || index.getId() >= indexFiles.length)
+		{
+			logger.debug("can't read archive {} from unknown index {}", archive.getArchiveId(), index.getId());
+			return null;
+		}
+
+		byte[] archiveData = read(indexFiles[index.getId()], index.getId(), archive.getArchiveId());
+		if (archiveData == null)
+		{
+			logger.debug("can't read archive {} from index {}", archive.getArchiveId(), index.getId());
+		}
+		return archiveData;
+	}
+
+	@Override
+	public Map<Archive, byte[]> loadArchives(Collection<Archive> archives)
+	{
+		Map<Archive, Long> entries = new IdentityHashMap<>(archives.size());
+		for (Archive archive : archives)
+		{
+			int indexId = archive.getIndex().getId();
+			if (indexId < 0 || indexId >= indexFiles.length)
+			{
+				logger.debug("can't read archive {} from unknown index {}", archive.getArchiveId(), indexId);
+				continue;
+			}
+
+			long entry = readEntry(indexFiles[indexId], indexId, archive.getArchiveId());
+			if (entry != -1L)
+			{
+				entries.put(archive, entry);
+			}
+		}
+
+		// read in disk order, which is friendlier to the os readahead
+		List<Archive> sorted = new ArrayList<>(entries.keySet());
+		sorted.sort(Comparator.comparingInt(a -> sector(entries.get(a))));
+
+		Map<Archive, byte[]> archiveData = new IdentityHashMap<>(sorted.size());
+		for (Archive archive : sorted)
+		{
+			long entry = entries.get(archive);
+			byte[] data = this.data.read(archive.getIndex().getId(), archive.getArchiveId(), sector(entry), length(entry));
+			if (data != null)
+			{
+				archiveData.put(archive, data);
+			}
+		}
+		return archiveData;
+	}
+
+	private byte[] read(ByteBuffer indexFile, int indexId, int archiveId)
+	{
+		long entry = readEntry(indexFile, indexId, archiveId);
+		if (entry == -1L)
+		{
+			return null;
+		}
+
+		logger.trace("Loading archive {} for index {} from sector {} length {}",
+			archiveId, indexId, sector(entry), length(entry));
+
+		return data.read(indexId, archiveId, sector(entry), length(entry));
+	}
+
+	/**
+	 * Read an index entry
+	 * @return the sector and length packed into a long, or -1 if the entry is invalid
+	 */
+	private static long readEntry(ByteBuffer indexFile, int indexId, int archiveId)
+	{
+		int position = archiveId * INDEX_ENTRY_LEN;
+		if (archiveId < 0 || position + INDEX_ENTRY_LEN > indexFile.limit())
+		{
+			logger.debug("short read for id {} on index {}", archiveId, indexId);
+			return -1L;
+		}
+
+		int length = ((indexFile.get(position) & 0xFF) << 16) | (indexFile.getShort(position + 1) & 0xFFFF);
+		int sector = ((indexFile.get(position + 3) & 0xFF) << 16) | (indexFile.getShort(position + 4) & 0xFFFF);
+
+		if (length <= 0 || sector <= 0)
+		{
+			logger.debug("invalid length or sector {}/{}", length, sector);
+			return -1L;
+		}
+
+		return (long) sector << 32 | length;
+	}
+
+	private static int sector(long entry)
+	{
+		return (int) (entry >>> 32);
+	}
+
+	private static int length(long entry)
+	{
+		return (int) entry;
+	}
+
+	@Override
+	public void save(Store store)
+	{
+		throw new UnsupportedOperationException("mapped storage is read only");
+	}
+
+	@Override
+	public void saveArchive(Archive archive, byte[] data)
+	{
+		throw new UnsupportedOperationException("mapped storage is read only");
+	}
+}
@@ -56,10 +56,15 @@ public class RegionLoader
 	private Region highestX = null, highestY = null;
 
 	public RegionLoader(Store store)
+	{
+		this(store, new XteaKeyManager());
+	}
+
+	public RegionLoader(Store store, XteaKeyManager keyManager)
 	{
 		this.store = store;
 		index = store.getIndex(IndexType.MAPS);
-		keyManager = new XteaKeyManager();
+		this.keyManager = keyManager;
 	}
 
 	public void loadRegions() throws IOException
@@ -96,14 +101,42 @@ public class RegionLoader
 
 		Region region = new Region(i);
 		region.loadTerrain(mapDef);
+		loadLocations(region, land);
+
+		return region;
+	}
+
+	/**
+	 * Load a region without decoding its terrain
+	 *
+	 * @param i region id
+	 * @return the region with only its locations loaded, or null if the
+	 * region does not exist
+	 * @throws IOException
+	 */
+	public Region loadLocationsFromArchive(int i) throws IOException
+	{
+		Archive land = index.findArchiveByName("l" + (i >> 8) + "_" + (i & 0xFF));
+		if (land == null)
+		{
+			return null;
+		}
 
+		Region region = new Region(i);
+		loadLocations(region, land);
+		return region;
+	}
+
+	private void loadLocations(Region region, Archive land) throws IOException
+	{
+		int i = region.getRegionID();
 		int[] keys = keyManager.getKeys(i);
 		if (keys != null)
 		{
 			try
 			{
-				data = land.decompress(storage.loadArchive(land), keys);
-				LocationsDefinition locDef = new LocationsLoader().load(x, y, data);
+				byte[] data = land.decompress(store.getStorage().loadArchive(land), keys);
+				LocationsDefinition locDef = new LocationsLoader().load(region.getRegionX(), region.getRegionY(), data);
 				region.loadLocations(locDef);
 			}
 			catch (IOException ex)
@@ -111,8 +144,6 @@ public class RegionLoader
 				logger.debug("Can't decrypt region " + i, ex);
 			}
 		}
-
-		return region;
 	}
 
 	public void calculateBounds()
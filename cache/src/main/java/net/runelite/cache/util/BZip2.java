@@ -29,6 +29,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.SequenceInputStream;
 import java.util.Arrays;
 import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
 import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
@@ -47,6 +48,16 @@ public class BZip2
 		'1'       // block size
 	};
 
+	private static final byte[] BLOCK_MAGIC = new byte[]
+	{
+		0x31, 0x41, 0x59, 0x26, 0x53, 0x59 // pi
+	};
+
+	private static final byte[] EOS_MAGIC = new byte[]
+	{
+		0x17, 0x72, 0x45, 0x38, 0x50, (byte) 0x90 // sqrt(pi)
+	};
+
 	public static byte[] compress(byte[] bytes) throws IOException
 	{
 		InputStream is = new ByteArrayInputStream(bytes);
@@ -83,4 +94,68 @@ public class BZip2
 
 		return os.toByteArray();
 	}
+
+	/**
+	 * Decompress headerless bzip2 data into a new buffer of the expected length.
+	 * The block header is validated before the buffer is allocated.
+	 *
+	 * @param src compressed data, without the bzip2 header
+	 * @param srcOffset offset of the data in src
+	 * @param srcLength length of the compressed data
+	 * @param decompressedLength expected decompressed length
+	 * @return
+	 * @throws IOException if the data is invalid or does not decompress to exactly decompressedLength bytes
+	 */
+	public static byte[] decompress(byte[] src, int srcOffset, int srcLength, int decompressedLength) throws IOException
+	{
+		if (!startsWith(src, srcOffset, srcLength, BLOCK_MAGIC) && !startsWith(src, srcOffset, srcLength, EOS_MAGIC))
+		{
+			throw new IOException("Not in BZip2 format");
+		}
+
+		byte[] dst = new byte[decompressedLength];
+		decompress(src, srcOffset, srcLength, dst, 0, decompressedLength);
+		return dst;
+	}
+
+	private static boolean startsWith(byte[] src, int srcOffset, int srcLength, byte[] magic)
+	{
+		if (srcLength < magic.length)
+		{
+			return false;
+		}
+
+		for (int i = 0; i < magic.length; ++i)
+		{
+			if (src[srcOffset + i] != magic[i])
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Decompress headerless bzip2 data directly into a destination buffer
+	 *
+	 * @param src compressed data, without the bzip2 header
+	 * @param srcOffset offset of the data in src
+	 * @param srcLength length of the compressed data
+	 * @param dst destination buffer
+	 * @param dstOffset offset in dst to decompress to
+	 * @param dstLength expected decompressed length
+	 * @throws IOException if the data is invalid or does not decompress to exactly dstLength bytes
+	 */
+	public static void decompress(byte[] src, int srcOffset, int srcLength, byte[] dst, int dstOffset, int dstLength) throws IOException
+	{
+		InputStream in = new SequenceInputStream(new ByteArrayInputStream(BZIP_HEADER), new ByteArrayInputStream(src, srcOffset, srcLength));
+		try (InputStream is = new BZip2CompressorInputStream(in))
+		{
+			int n = IOUtils.readFully(is, dst, dstOffset, dstLength);
+			if (n != dstLength || is.read() != -1)
+			{
+				throw new IOException("Decompressed length mismatch, expected " + dstLength);
+			}
+		}
+	}
 }
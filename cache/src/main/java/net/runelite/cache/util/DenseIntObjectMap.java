@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2022, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A map of int ids to non-null values, for ids which are mostly small and
+ * dense such as definition ids. Ids are stored directly in an array indexed
+ * by id, falling back to an {@link IntObjectMap} for ids which are too large
+ * compared to the number of entries. This is not thread safe.
+ *
+ * @param <V> value type
+ */
+public class DenseIntObjectMap<V>
+{
+	private static final int MIN_DENSE_CAPACITY = 64;
+	// how sparse the dense array is allowed to become
+	private static final int MAX_DENSE_RATIO = 4;
+
+	private Object[] dense;
+	private int denseSize;
+	private IntObjectMap<V> sparse;
+
+	public DenseIntObjectMap()
+	{
+		this(0);
+	}
+
+	public DenseIntObjectMap(int expectedSize)
+	{
+		dense = new Object[expectedSize];
+	}
+
+	public int size()
+	{
+		return denseSize + (sparse == null ? 0 : sparse.size());
+	}
+
+	public boolean isEmpty()
+	{
+		return size() == 0;
+	}
+
+	@SuppressWarnings("unchecked")
+	public V get(int id)
+	{
+		if (id >= 0 && id < dense.length)
+		{
+			Object value = dense[id];
+			if (value != null || sparse == null)
+			{
+				return (V) value;
+			}
+		}
+		// ids inserted before the dense array grew past them stay in the sparse map
+		return sparse == null ? null : sparse.get(id);
+	}
+
+	public boolean containsKey(int id)
+	{
+		return get(id) != null;
+	}
+
+	/**
+	 * Associate the value with the id
+	 * @return the previous value associated with the id, or null
+	 */
+	@SuppressWarnings("unchecked")
+	public V put(int id, V value)
+	{
+		if (value == null)
+		{
+			throw new NullPointerException("null value");
+		}
+
+		if (id >= dense.length && id >= 0)
+		{
+			int limit = Math.max(MIN_DENSE_CAPACITY, (size() + 1) * MAX_DENSE_RATIO);
+			if (id < limit)
+			{
+				dense = Arrays.copyOf(dense, Math.min(Math.max(id + 1, dense.length * 2), limit));
+			}
+		}
+
+		if (id >= 0 && id < dense.length)
+		{
+			V old = (V) dense[id];
+			if (old == null && sparse != null)
+			{
+				old = sparse.remove(id);
+			}
+			if (dense[id] == null)
+			{
+				++denseSize;
+			}
+			dense[id] = value;
+			return old;
+		}
+
+		if (sparse == null)
+		{
+			sparse = new IntObjectMap<>();
+		}
+		return sparse.put(id, value);
+	}
+
+	/**
+	 * Get the values of the map, in id order
+	 */
+	@SuppressWarnings("unchecked")
+	public List<V> values()
+	{
+		List<V> values = new ArrayList<>(size());
+		int[] sparseIds = sparse == null ? new int[0] : sparse.keys();
+		Arrays.sort(sparseIds);
+
+		// merge the sparse ids, which may be interleaved with the dense ones
+		int s = 0;
+		for (int id = 0; id < dense.length; ++id)
+		{
+			while (s < sparseIds.length && sparseIds[s] < id)
+			{
+				values.add(sparse.get(sparseIds[s++]));
+			}
+			if (dense[id] != null)
+			{
+				values.add((V) dense[id]);
+			}
+		}
+		while (s < sparseIds.length)
+		{
+			values.add(sparse.get(sparseIds[s++]));
+		}
+		return Collections.unmodifiableList(values);
+	}
+
+	public void clear()
+	{
+		Arrays.fill(dense, null);
+		denseSize = 0;
+		sparse = null;
+	}
+}
@@ -30,8 +30,10 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.zip.DataFormatException;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
 import org.apache.commons.compress.utils.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -40,6 +42,15 @@ public class GZip
 {
 	private static final Logger logger = LoggerFactory.getLogger(GZip.class);
 
+	private static final int GZIP_MAGIC = 0x8b1f;
+	private static final int FHCRC = 2;
+	private static final int FEXTRA = 4;
+	private static final int FNAME = 8;
+	private static final int FCOMMENT = 16;
+
+	// inflaters are reused per thread, and are never ended
+	private static final ThreadLocal<Inflater> INFLATER = ThreadLocal.withInitial(() -> new Inflater(true));
+
 	public static byte[] compress(byte[] bytes) throws IOException
 	{
 		InputStream is = new ByteArrayInputStream(bytes);
@@ -64,4 +75,107 @@ public class GZip
 
 		return os.toByteArray();
 	}
+
+	/**
+	 * Decompress gzip data into a new buffer of the expected length. The header
+	 * is validated before the buffer is allocated.
+	 *
+	 * @param src compressed data
+	 * @param srcOffset offset of the gzip header in src
+	 * @param srcLength length of the gzip data
+	 * @param decompressedLength expected decompressed length
+	 * @return
+	 * @throws IOException if the data is invalid or does not decompress to exactly decompressedLength bytes
+	 */
+	public static byte[] decompress(byte[] src, int srcOffset, int srcLength, int decompressedLength) throws IOException
+	{
+		int pos = skipHeader(src, srcOffset, srcLength);
+		byte[] dst = new byte[decompressedLength];
+		inflate(src, pos, srcOffset + srcLength - pos, dst, 0, decompressedLength);
+		return dst;
+	}
+
+	/**
+	 * Decompress gzip data directly into a destination buffer, without intermediate streams
+	 *
+	 * @param src compressed data
+	 * @param srcOffset offset of the gzip header in src
+	 * @param srcLength length of the gzip data
+	 * @param dst destination buffer
+	 * @param dstOffset offset in dst to decompress to
+	 * @param dstLength expected decompressed length
+	 * @throws IOException if the data is invalid or does not decompress to exactly dstLength bytes
+	 */
+	public static void decompress(byte[] src, int srcOffset, int srcLength, byte[] dst, int dstOffset, int dstLength) throws IOException
+	{
+		int pos = skipHeader(src, srcOffset, srcLength);
+		inflate(src, pos, srcOffset + srcLength - pos, dst, dstOffset, dstLength);
+	}
+
+	private static int skipHeader(byte[] src, int srcOffset, int srcLength) throws IOException
+	{
+		int end = srcOffset + srcLength;
+		if (srcLength < 10 || ((src[srcOffset] & 0xFF) | (src[srcOffset + 1] & 0xFF) << 8) != GZIP_MAGIC)
+		{
+			throw new IOException("Not in GZIP format");
+		}
+
+		int flags = src[srcOffset + 3] & 0xFF;
+		int pos = srcOffset + 10;
+		if ((flags & FEXTRA) != 0)
+		{
+			pos += 2 + ((src[pos] & 0xFF) | (src[pos + 1] & 0xFF) << 8);
+		}
+		if ((flags & FNAME) != 0)
+		{
+			while (pos < end && src[pos++] != 0)
+			{
+			}
+		}
+		if ((flags & FCOMMENT) != 0)
+		{
+			while (pos < end && src[pos++] != 0)
+			{
+			}
+		}
+		if ((flags & FHCRC) != 0)
+		{
+			pos += 2;
+		}
+		if (pos > end)
+		{
+			throw new IOException("Truncated GZIP header");
+		}
+		return pos;
+	}
+
+	private static void inflate(byte[] src, int srcOffset, int srcLength, byte[] dst, int dstOffset, int dstLength) throws IOException
+	{
+		Inflater inflater = INFLATER.get();
+		inflater.reset();
+		inflater.setInput(src, srcOffset, srcLength);
+
+		int n = 0;
+		try
+		{
+			while (n < dstLength && !inflater.finished())
+			{
+				int i = inflater.inflate(dst, dstOffset + n, dstLength - n);
+				if (i == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+				{
+					break;
+				}
+				n += i;
+			}
+		}
+		catch (DataFormatException ex)
+		{
+			throw new IOException(ex);
+		}
+
+		if (n != dstLength || !inflater.finished())
+		{
+			throw new IOException("Decompressed length mismatch, expected " + dstLength + " but got " + n);
+		}
+	}
 }
@@ -0,0 +1,240 @@
+/*
+ * Copyright (c) 2022, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.util;
+
+import java.util.Arrays;
+
+/**
+ * An open addressing hash map of int keys to non-null values, which avoids
+ * boxing the keys. This is not thread safe.
+ *
+ * @param <V> value type
+ */
+public class IntObjectMap<V>
+{
+	private static final int DEFAULT_CAPACITY = 16;
+
+	private int[] keys;
+	private Object[] values;
+	private int size;
+	private int mask;
+
+	public IntObjectMap()
+	{
+		this(DEFAULT_CAPACITY);
+	}
+
+	public IntObjectMap(int expectedSize)
+	{
+		allocate(tableSize(expectedSize));
+	}
+
+	private static int tableSize(int expectedSize)
+	{
+		// keep the load factor at or below 0.5
+		int size = Integer.highestOneBit(Math.max(expectedSize, DEFAULT_CAPACITY / 2) * 2 - 1) << 1;
+		if (size <= 0)
+		{
+			throw new IllegalArgumentException("expected size too large: " + expectedSize);
+		}
+		return size;
+	}
+
+	private void allocate(int capacity)
+	{
+		keys = new int[capacity];
+		values = new Object[capacity];
+		mask = capacity - 1;
+	}
+
+	private int slot(int key)
+	{
+		int h = key * 0x9E3779B9;
+		return (h ^ (h >>> 16)) & mask;
+	}
+
+	public int size()
+	{
+		return size;
+	}
+
+	public boolean isEmpty()
+	{
+		return size == 0;
+	}
+
+	@SuppressWarnings("unchecked")
+	public V get(int key)
+	{
+		for (int i = slot(key); ; i = (i + 1) & mask)
+		{
+			Object value = values[i];
+			if (value == null)
+			{
+				return null;
+			}
+			if (keys[i] == key)
+			{
+				return (V) value;
+			}
+		}
+	}
+
+	public boolean containsKey(int key)
+	{
+		return get(key) != null;
+	}
+
+	/**
+	 * Associate the value with the key
+	 * @return the previous value associated with the key, or null
+	 */
+	public V put(int key, V value)
+	{
+		return put(key, value, true);
+	}
+
+	/**
+	 * Associate the value with the key if the key is not already present
+	 * @return the value currently associated with the key, or null if the value was inserted
+	 */
+	public V putIfAbsent(int key, V value)
+	{
+		return put(key, value, false);
+	}
+
+	@SuppressWarnings("unchecked")
+	private V put(int key, V value, boolean replace)
+	{
+		if (value == null)
+		{
+			throw new NullPointerException("null value");
+		}
+
+		int i = slot(key);
+		for (; values[i] != null; i = (i + 1) & mask)
+		{
+			if (keys[i] == key)
+			{
+				V old = (V) values[i];
+				if (replace)
+				{
+					values[i] = value;
+				}
+				return old;
+			}
+		}
+
+		keys[i] = key;
+		values[i] = value;
+
+		if (++size * 2 > values.length)
+		{
+			rehash(values.length << 1);
+		}
+		return null;
+	}
+
+	@SuppressWarnings("unchecked")
+	public V remove(int key)
+	{
+		int i = slot(key);
+		for (; ; i = (i + 1) & mask)
+		{
+			if (values[i] == null)
+			{
+				return null;
+			}
+			if (keys[i] == key)
+			{
+				break;
+			}
+		}
+
+		V old = (V) values[i];
+		--size;
+
+		// shift back any following entries of the probe sequence into the hole
+		for (int j = (i + 1) & mask; values[j] != null; j = (j + 1) & mask)
+		{
+			int home = slot(keys[j]);
+			// move the entry if the hole is cyclically between its home slot and its slot
+			if (((j - home) & mask) >= ((j - i) & mask))
+			{
+				keys[i] = keys[j];
+				values[i] = values[j];
+				i = j;
+			}
+		}
+
+		values[i] = null;
+		return old;
+	}
+
+	/**
+	 * Get the keys of the map, in no particular order
+	 */
+	public int[] keys()
+	{
+		int[] result = new int[size];
+		int n = 0;
+		for (int i = 0; i < values.length; ++i)
+		{
+			if (values[i] != null)
+			{
+				result[n++] = keys[i];
+			}
+		}
+		return result;
+	}
+
+	public void clear()
+	{
+		Arrays.fill(values, null);
+		size = 0;
+	}
+
+	private void rehash(int capacity)
+	{
+		int[] oldKeys = keys;
+		Object[] oldValues = values;
+
+		allocate(capacity);
+
+		for (int i = 0; i < oldValues.length; ++i)
+		{
+			if (oldValues[i] != null)
+			{
+				int j = slot(oldKeys[i]);
+				while (values[j] != null)
+				{
+					j = (j + 1) & mask;
+				}
+				keys[j] = oldKeys[i];
+				values[j] = oldValues[i];
+			}
+		}
+	}
+}
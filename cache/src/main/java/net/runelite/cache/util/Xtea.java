@@ -63,6 +63,48 @@ public class Xtea
 		return out.flip();
 	}
 
+	/**
+	 * Decrypt len bytes of src into dst. Trailing bytes which do not make up a
+	 * whole block are copied as is. src and dst may be the same array, to
+	 * decrypt in place.
+	 */
+	public void decrypt(byte[] src, int srcOffset, byte[] dst, int dstOffset, int len)
+	{
+		int numBlocks = len / 8;
+		for (int block = 0; block < numBlocks; ++block)
+		{
+			int s = srcOffset + block * 8;
+			int v0 = readInt(src, s);
+			int v1 = readInt(src, s + 4);
+			int sum = GOLDEN_RATIO * ROUNDS;
+			for (int i = 0; i < ROUNDS; ++i)
+			{
+				v1 -= (((v0 << 4) ^ (v0 >>> 5)) + v0) ^ (sum + key[(sum >>> 11) & 3]);
+				sum -= GOLDEN_RATIO;
+				v0 -= (((v1 << 4) ^ (v1 >>> 5)) + v1) ^ (sum + key[sum & 3]);
+			}
+			int d = dstOffset + block * 8;
+			writeInt(dst, d, v0);
+			writeInt(dst, d + 4, v1);
+		}
+
+		int tail = numBlocks * 8;
+		System.arraycopy(src, srcOffset + tail, dst, dstOffset + tail, len - tail);
+	}
+
+	private static int readInt(byte[] b, int off)
+	{
+		return ((b[off] & 0xFF) << 24) | ((b[off + 1] & 0xFF) << 16) | ((b[off + 2] & 0xFF) << 8) | (b[off + 3] & 0xFF);
+	}
+
+	private static void writeInt(byte[] b, int off, int v)
+	{
+		b[off] = (byte) (v >> 24);
+		b[off + 1] = (byte) (v >> 16);
+		b[off + 2] = (byte) (v >> 8);
+		b[off + 3] = (byte) v;
+	}
+
 	public byte[] decrypt(byte[] data, int len)
 	{
 		InputStream in = new InputStream(data);
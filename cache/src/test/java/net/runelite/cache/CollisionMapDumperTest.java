@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2022, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import net.runelite.cache.definitions.MapDefinition;
+import net.runelite.cache.definitions.ObjectDefinition;
+import net.runelite.cache.fs.Store;
+import net.runelite.cache.region.Location;
+import net.runelite.cache.region.Position;
+import net.runelite.cache.region.Region;
+import net.runelite.cache.util.XteaKeyManager;
+import org.junit.Ignore;
+import org.junit.Rule;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.rules.TemporaryFolder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class CollisionMapDumperTest
+{
+	private static final Logger logger = LoggerFactory.getLogger(CollisionMapDumperTest.class);
+
+	private static final int REGION_X = 50;
+	private static final int REGION_Y = 50;
+	private static final int BASE_X = REGION_X << 6;
+	private static final int BASE_Y = REGION_Y << 6;
+
+	private static final int WALL = 1;
+	private static final int BOULDER = 2;
+	private static final int RUG = 3;
+
+	@Rule
+	public TemporaryFolder folder = StoreLocation.getTemporaryFolder();
+
+	private final Map<Integer, MapDefinition> maps = new HashMap<>();
+	private final Map<Integer, Region> regions = new HashMap<>();
+	private final Map<Integer, ObjectDefinition> objects = new HashMap<>();
+
+	@Test
+	public void testBuildFlags()
+	{
+		object(WALL, 1, 1, 2);
+		object(BOULDER, 2, 1, 2);
+		object(RUG, 2, 2, 0);
+
+		Region region = region(REGION_X, REGION_Y);
+		region(REGION_X + 1, REGION_Y);
+
+		// a blocked tile
+		setting(region, 10, 10, 0, 1);
+		// a wall on the north side of a tile
+		location(region, WALL, 0, 1, 20, 20, 0);
+		// a rotated object, so it is one tile wide and two tiles tall
+		location(region, BOULDER, 10, 1, 30, 30, 0);
+		// an object which doesn't block
+		location(region, RUG, 10, 0, 40, 40, 0);
+		// an object on a bridge blocks the plane below it
+		setting(region, 5, 5, 1, 2);
+		location(region, BOULDER, 10, 0, 5, 5, 1);
+		// a wall on the west side of the first tile of the region to the east
+		location(regions.get((REGION_X + 1) << 8 | REGION_Y), WALL, 0, 0, 64, 12, 0);
+
+		for (Region r : regions.values())
+		{
+			r.loadTerrain(maps.get(r.getRegionID()));
+		}
+
+		BitSet flags = CollisionMapDumper.buildFlags(REGION_X, REGION_Y, regions::get, objects::get);
+
+		assertTrue(north(flags, 0, 0, 0));
+		assertTrue(east(flags, 0, 0, 0));
+		assertTrue(north(flags, 0, 0, 1));
+
+		assertFalse(north(flags, 10, 9, 0));
+		assertFalse(east(flags, 9, 10, 0));
+		assertFalse(north(flags, 10, 10, 0));
+		assertFalse(east(flags, 10, 10, 0));
+		assertTrue(north(flags, 10, 10, 1));
+
+		assertFalse(north(flags, 20, 20, 0));
+		assertTrue(east(flags, 20, 20, 0));
+		assertTrue(north(flags, 20, 19, 0));
+
+		assertFalse(north(flags, 30, 29, 0));
+		assertFalse(east(flags, 29, 31, 0));
+		assertFalse(north(flags, 30, 31, 0));
+		assertTrue(north(flags, 30, 32, 0));
+		assertFalse(east(flags, 30, 30, 0));
+		assertTrue(east(flags, 31, 30, 0));
+
+		assertTrue(north(flags, 40, 40, 0));
+		assertTrue(east(flags, 40, 40, 0));
+
+		assertFalse(north(flags, 5, 5, 0));
+		assertFalse(east(flags, 4, 5, 0));
+		assertTrue(north(flags, 5, 5, 1));
+
+		// the region to the east exists, the one to the north doesn't
+		assertTrue(east(flags, 63, 11, 0));
+		assertFalse(east(flags, 63, 12, 0));
+		assertFalse(north(flags, 11, 63, 0));
+	}
+
+	@Test
+	@Ignore
+	public void dumpCollisionMap() throws IOException
+	{
+		File base = StoreLocation.LOCATION,
+			outDir = folder.newFolder();
+
+		try (Store store = new Store(base))
+		{
+			store.load();
+
+			CollisionMapDumper dumper = new CollisionMapDumper(store, new XteaKeyManager());
+			dumper.load();
+
+			File file = new File(outDir, "collision-map.zip");
+			int built = dumper.dump(null, file, ForkJoinPool.commonPool());
+			logger.info("Built {} regions to {}", built, file);
+
+			// nothing changed, so every region is copied
+			assertEquals(0, dumper.dump(file, file, ForkJoinPool.commonPool()));
+		}
+	}
+
+	private static boolean north(BitSet flags, int x, int y, int z)
+	{
+		return flags.get((z * Region.X * Region.Y + y * Region.X + x) * 2);
+	}
+
+	private static boolean east(BitSet flags, int x, int y, int z)
+	{
+		return flags.get((z * Region.X * Region.Y + y * Region.X + x) * 2 + 1);
+	}
+
+	private void object(int id, int sizeX, int sizeY, int interactType)
+	{
+		ObjectDefinition object = new ObjectDefinition();
+		object.setId(id);
+		object.setSizeX(sizeX);
+		object.setSizeY(sizeY);
+		object.setInteractType(interactType);
+		objects.put(id, object);
+	}
+
+	/**
+	 * Add a region of walkable tiles. The terrain is loaded into the region
+	 * once its settings are done.
+	 */
+	private Region region(int regionX, int regionY)
+	{
+		MapDefinition map = new MapDefinition();
+		MapDefinition.Tile[][][] tiles = map.getTiles();
+		for (int z = 0; z < Region.Z; ++z)
+		{
+			for (int x = 0; x < Region.X; ++x)
+			{
+				for (int y = 0; y < Region.Y; ++y)
+				{
+					tiles[z][x][y] = new MapDefinition.Tile();
+				}
+			}
+		}
+
+		Region region = new Region(regionX, regionY);
+		maps.put(region.getRegionID(), map);
+		regions.put(region.getRegionID(), region);
+		return region;
+	}
+
+	private void setting(Region region, int x, int y, int z, int settings)
+	{
+		maps.get(region.getRegionID()).getTiles()[z][x][y].settings = (byte) settings;
+	}
+
+	private static void location(Region region, int id, int type, int orientation, int x, int y, int z)
+	{
+		region.getLocations().add(new Location(id, type, orientation, new Position(BASE_X + x, BASE_Y + y, z)));
+	}
+}
@@ -26,8 +26,11 @@ package net.runelite.cache.fs;
 
 import java.io.IOException;
 import java.util.Random;
+import static net.runelite.cache.fs.jagex.CompressionType.BZ2;
 import static net.runelite.cache.fs.jagex.CompressionType.GZ;
+import static net.runelite.cache.fs.jagex.CompressionType.NONE;
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import org.junit.Test;
 
 public class ContainerTest
@@ -52,4 +55,34 @@ public class ContainerTest
 		assertArrayEquals(data, container.data);
 	}
 
+	@Test
+	public void testDecompressOffset() throws IOException
+	{
+		int[] keys = new int[]
+		{
+			4, 8, 15, 16
+		};
+		Random random = new Random(42L);
+		byte[] data = new byte[1024];
+		random.nextBytes(data);
+
+		for (int compression : new int[]{NONE, BZ2, GZ})
+		{
+			Container container = new Container(compression, 7);
+			container.compress(data, keys);
+			byte[] compressedData = container.data;
+
+			// embed the container in a larger buffer
+			byte[] buffer = new byte[compressedData.length + 16];
+			System.arraycopy(compressedData, 0, buffer, 8, compressedData.length);
+			byte[] copy = buffer.clone();
+
+			Container decompressed = Container.decompress(buffer, 8, compressedData.length, keys);
+			assertArrayEquals(data, decompressed.data);
+			assertEquals(7, decompressed.revision);
+			assertEquals(Container.decompress(compressedData, keys).crc, decompressed.crc);
+			// the source buffer must not be modified
+			assertArrayEquals(copy, buffer);
+		}
+	}
 }
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2022, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.fs;
+
+import net.runelite.cache.util.Djb2;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import org.junit.Test;
+
+public class IndexTest
+{
+	@Test
+	public void testArchiveLookup()
+	{
+		Index index = new Index(5);
+		Archive a = index.addArchive(0);
+		Archive b = index.addArchive(70000);
+		a.setNameHash(Djb2.hash("m50_50"));
+		b.setNameHash(Djb2.hash("l50_50"));
+
+		assertSame(a, index.getArchive(0));
+		assertSame(b, index.getArchive(70000));
+		assertSame(a, index.findArchiveByName("m50_50"));
+		assertSame(b, index.findArchiveByName("l50_50"));
+
+		b.setNameHash(Djb2.hash("l50_51"));
+		assertNull(index.findArchiveByName("l50_50"));
+		assertSame(b, index.findArchiveByName("l50_51"));
+
+		index.removeArchive(a);
+		assertNull(index.getArchive(0));
+		assertNull(index.findArchiveByName("m50_50"));
+		assertSame(b, index.getArchive(70000));
+	}
+}
@@ -28,6 +28,7 @@ import java.io.File;
 import java.io.IOException;
 import java.util.Random;
 import net.runelite.cache.StoreLocation;
+import net.runelite.cache.fs.jagex.CompressionType;
 import net.runelite.cache.index.FileData;
 import org.junit.Assert;
 import org.junit.Rule;
@@ -148,4 +149,29 @@ public class StoreTest
 			}
 		}
 	}
+
+	@Test
+	public void testArchiveCache() throws IOException
+	{
+		try (Store store = new Store(folder.newFolder()))
+		{
+			Index index = store.addIndex(0);
+			Archive archive = index.addArchive(0);
+			FileData fileData = new FileData();
+			fileData.setId(3);
+			archive.setFileData(new FileData[]{fileData});
+
+			Container container = new Container(CompressionType.GZ, -1);
+			container.compress("test".getBytes(), null);
+			store.getStorage().saveArchive(archive, container.data);
+
+			store.enableArchiveCache(1024L);
+
+			ArchiveFiles files = store.getArchiveFiles(archive);
+			Assert.assertArrayEquals("test".getBytes(), files.findFile(3).getContents());
+			Assert.assertSame(files, store.getArchiveFiles(archive));
+			Assert.assertEquals(1L, store.getArchiveCacheStats().hitCount());
+			Assert.assertEquals(1L, store.getArchiveCacheStats().missCount());
+		}
+	}
 }
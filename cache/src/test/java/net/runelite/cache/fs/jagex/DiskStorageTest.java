@@ -25,6 +25,9 @@
 package net.runelite.cache.fs.jagex;
 
 import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 import net.runelite.cache.StoreLocation;
 import net.runelite.cache.fs.Archive;
 import net.runelite.cache.fs.Container;
@@ -99,4 +102,200 @@ public class DiskStorageTest
 		}
 	}
 
+	@Test
+	public void testLoadArchives() throws Exception
+	{
+		File file = folder.newFolder();
+		try (Store store = new Store(new DiskStorage(file)))
+		{
+			for (int i = 0; i < 4; ++i)
+			{
+				Index index = store.addIndex(i);
+				for (int j = 0; j < 8; ++j)
+				{
+					index.addArchive(j).setFileData(new FileData[]{new FileData()});
+				}
+
+				// save archives in reverse so the disk order differs from the archive order
+				for (int j = 7; j >= 0; --j)
+				{
+					Archive archive = index.getArchive(j);
+
+					Container container = new Container(CompressionType.GZ, -1);
+					container.compress(("test" + i + "/" + j).getBytes(), null);
+					store.getStorage().saveArchive(archive, container.data);
+				}
+			}
+
+			store.save();
+		}
+
+		try (Store store = new Store(new DiskStorage(file)))
+		{
+			store.loadParallel(ForkJoinPool.commonPool());
+			assertEquals(4, store.getIndexes().size());
+
+			for (Index index : store.getIndexes())
+			{
+				assertEquals(8, index.getArchives().size());
+
+				Map<Archive, byte[]> data = store.loadArchives(index.getArchives(), ForkJoinPool.commonPool());
+				assertEquals(8, data.size());
+
+				for (Archive archive : index.getArchives())
+				{
+					assertArrayEquals(("test" + index.getId() + "/" + archive.getArchiveId()).getBytes(), data.get(archive));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testSaveReusesSectors() throws Exception
+	{
+		File file = folder.newFolder();
+		File dat = new File(file, "main_file_cache.dat2");
+		try (Store store = new Store(new DiskStorage(file)))
+		{
+			Index index = store.addIndex(0);
+			Archive archive = index.addArchive(0);
+			archive.setFileData(new FileData[]{new FileData()});
+
+			store.getStorage().saveArchive(archive, compress(new byte[2048]));
+			store.save();
+			long length = dat.length();
+
+			// saving unchanged indexes must not write anything
+			store.save();
+			assertEquals(length, dat.length());
+
+			// the new data is written before the old sectors are freed, so
+			// the first rewrite grows the file but the second reuses them
+			store.getStorage().saveArchive(archive, compress(new byte[2048]));
+			length = dat.length();
+			store.getStorage().saveArchive(archive, compress(new byte[2048]));
+			assertEquals(length, dat.length());
+
+			assertArrayEquals(new byte[2048], archive.decompress(store.getStorage().loadArchive(archive)));
+		}
+	}
+
+	@Test
+	public void testFreeSectorsFoundOnOpen() throws Exception
+	{
+		File file = folder.newFolder();
+		File dat = new File(file, "main_file_cache.dat2");
+		try (Store store = new Store(new DiskStorage(file)))
+		{
+			Index index = store.addIndex(0);
+			Archive archive = index.addArchive(0);
+			archive.setFileData(new FileData[]{new FileData()});
+
+			store.getStorage().saveArchive(archive, compress(new byte[2048]));
+			store.save();
+			// leaves the sectors of the first write free
+			store.getStorage().saveArchive(archive, compress(new byte[2048]));
+		}
+
+		// the free sectors are saved when the cache is closed
+		File free = new File(file, "main_file_cache.dat2.free");
+		assertTrue(free.exists());
+
+		long length = dat.length();
+		try (Store store = new Store(new DiskStorage(file)))
+		{
+			store.load();
+
+			Archive archive = store.findIndex(0).getArchive(0);
+			store.getStorage().saveArchive(archive, compress(new byte[2048]));
+			assertEquals(length, dat.length());
+
+			assertArrayEquals(new byte[2048], archive.decompress(store.getStorage().loadArchive(archive)));
+		}
+
+		// a map which is out of date with the data file is found again from the index files
+		try (RandomAccessFile raf = new RandomAccessFile(dat, "rw"))
+		{
+			raf.setLength(raf.length() + 520);
+		}
+		length = dat.length();
+		try (Store store = new Store(new DiskStorage(file)))
+		{
+			store.load();
+
+			Archive archive = store.findIndex(0).getArchive(0);
+			store.getStorage().saveArchive(archive, compress(new byte[2048]));
+			assertEquals(length, dat.length());
+
+			assertArrayEquals(new byte[2048], archive.decompress(store.getStorage().loadArchive(archive)));
+		}
+	}
+
+	@Test
+	public void testSyncAndCompact() throws Exception
+	{
+		File sourceFolder = folder.newFolder();
+		File file = folder.newFolder();
+		try (Store source = new Store(new DiskStorage(sourceFolder)))
+		{
+			Index index = source.addIndex(0);
+			for (int i = 0; i < 8; ++i)
+			{
+				Archive archive = index.addArchive(i);
+				archive.setFileData(new FileData[]{new FileData()});
+				source.getStorage().saveArchive(archive, compress(("test" + i).getBytes()));
+			}
+			source.save();
+
+			try (Store store = new Store(new DiskStorage(file)))
+			{
+				assertEquals(8, store.sync(source));
+				// the file data is copied rather than shared between the stores
+				FileData[] fileData = store.findIndex(0).getArchive(0).getFileData();
+				assertNotSame(index.getArchive(0).getFileData(), fileData);
+				assertNotSame(index.getArchive(0).getFileData()[0], fileData[0]);
+				store.save();
+			}
+
+			// change one archive and remove another
+			Archive changed = index.getArchive(3);
+			changed.setRevision(1);
+			source.getStorage().saveArchive(changed, compress("changed".getBytes()));
+			index.removeArchive(index.getArchive(5));
+
+			try (Store store = new Store(new DiskStorage(file)))
+			{
+				store.load();
+				assertEquals(1, store.sync(source));
+				store.save();
+			}
+		}
+
+		long length = new File(file, "main_file_cache.dat2").length();
+		DiskStorage.compact(file);
+		assertTrue(new File(file, "main_file_cache.dat2").length() < length);
+
+		try (Store store = new Store(new DiskStorage(file)))
+		{
+			store.load();
+
+			Index index = store.findIndex(0);
+			assertEquals(7, index.getArchives().size());
+			assertNull(index.getArchive(5));
+
+			for (Archive archive : index.getArchives())
+			{
+				byte[] data = archive.decompress(store.getStorage().loadArchive(archive));
+				String expected = archive.getArchiveId() == 3 ? "changed" : "test" + archive.getArchiveId();
+				assertArrayEquals(expected.getBytes(), data);
+			}
+		}
+	}
+
+	private static byte[] compress(byte[] data) throws Exception
+	{
+		Container container = new Container(CompressionType.GZ, -1);
+		container.compress(data, null);
+		return container.data;
+	}
 }
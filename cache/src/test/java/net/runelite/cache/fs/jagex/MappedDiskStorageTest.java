@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2022, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.fs.jagex;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import net.runelite.cache.StoreLocation;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.Container;
+import net.runelite.cache.fs.Index;
+import net.runelite.cache.fs.Store;
+import net.runelite.cache.index.FileData;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MappedDiskStorageTest
+{
+	@Rule
+	public TemporaryFolder folder = StoreLocation.getTemporaryFolder();
+
+	@Test
+	public void testLoadArchive() throws Exception
+	{
+		File file = folder.newFolder();
+		Random random = new Random(42L);
+		byte[][] contents = new byte[16][];
+
+		try (Store store = new Store(new DiskStorage(file)))
+		{
+			Index index = store.addIndex(0);
+			for (int i = 0; i < contents.length; ++i)
+			{
+				// spread archive ids over both sector header formats
+				Archive archive = index.addArchive(i * 0x2000);
+				FileData[] fileData = new FileData[]{new FileData()};
+				archive.setFileData(fileData);
+
+				contents[i] = new byte[random.nextInt(4096) + 1];
+				random.nextBytes(contents[i]);
+
+				Container container = new Container(CompressionType.GZ, -1);
+				container.compress(contents[i], null);
+				store.getStorage().saveArchive(archive, container.data);
+			}
+
+			store.save();
+		}
+
+		MappedDiskStorage storage = new MappedDiskStorage(file);
+		try (Store store = new Store(storage))
+		{
+			store.load();
+			Index index = store.findIndex(0);
+			assertEquals(contents.length, index.getArchives().size());
+
+			ExecutorService executor = Executors.newFixedThreadPool(4);
+			try
+			{
+				List<Future<byte[]>> futures = new ArrayList<>();
+				for (int i = 0; i < contents.length; ++i)
+				{
+					Archive archive = index.getArchive(i * 0x2000);
+					assertNotNull(archive);
+					futures.add(executor.submit(() -> archive.decompress(storage.loadArchive(archive))));
+				}
+
+				for (int i = 0; i < contents.length; ++i)
+				{
+					assertArrayEquals(contents[i], futures.get(i).get());
+				}
+			}
+			finally
+			{
+				executor.shutdown();
+			}
+		}
+	}
+}
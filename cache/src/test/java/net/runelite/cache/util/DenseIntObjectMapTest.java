@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2022, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.util;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import org.junit.Test;
+
+public class DenseIntObjectMapTest
+{
+	@Test
+	public void testPut()
+	{
+		DenseIntObjectMap<String> map = new DenseIntObjectMap<>();
+		assertNull(map.put(1_000_000, "sparse"));
+		assertNull(map.put(-1, "negative"));
+		assertNull(map.put(3, "a"));
+		assertEquals("a", map.put(3, "b"));
+		assertEquals("b", map.get(3));
+		assertEquals("sparse", map.get(1_000_000));
+		assertEquals("negative", map.get(-1));
+		assertNull(map.get(4));
+		assertEquals(3, map.size());
+	}
+
+	@Test
+	public void testRandom()
+	{
+		Random random = new Random(42L);
+		DenseIntObjectMap<Integer> map = new DenseIntObjectMap<>();
+		Map<Integer, Integer> expected = new TreeMap<>();
+
+		for (int i = 0; i < 10_000; ++i)
+		{
+			// mostly dense ids, with some sparse ones which the dense array later grows past
+			int key = random.nextInt(10) == 0 ? random.nextInt(100_000) : random.nextInt(8192);
+			assertEquals(expected.put(key, i), map.put(key, i));
+		}
+
+		assertEquals(expected.size(), map.size());
+		for (int i = -1; i < 100_000; ++i)
+		{
+			assertEquals(expected.get(i), map.get(i));
+		}
+		assertEquals(new ArrayList<>(expected.values()), map.values());
+	}
+}
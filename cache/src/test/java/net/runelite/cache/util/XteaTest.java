@@ -52,5 +52,9 @@ public class XteaTest
 		byte[] decData = xtea.decrypt(encData, encData.length);
 
 		assertArrayEquals(data, decData);
+
+		// decrypt in place
+		xtea.decrypt(encData, 0, encData, 0, encData.length);
+		assertArrayEquals(data, encData);
 	}
 }
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2022, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import net.runelite.client.eventbus.EventBus;
+import net.runelite.client.eventbus.Subscribe;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the cost of {@link EventBus#post(Object)}. Run with {@code -prof gc}
+ * to check that posting does not allocate.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class EventBusBenchmark
+{
+	public static class Tick
+	{
+	}
+
+	public static class Unsubscribed
+	{
+	}
+
+	public static class TickSubscriber
+	{
+		private final Blackhole blackhole;
+
+		TickSubscriber(Blackhole blackhole)
+		{
+			this.blackhole = blackhole;
+		}
+
+		@Subscribe
+		public void onTick(Tick tick)
+		{
+			blackhole.consume(tick);
+		}
+	}
+
+	private static final Class<?>[] OTHER_EVENTS = {
+		String.class, Integer.class, Long.class, Short.class, Byte.class, Character.class,
+		Boolean.class, Float.class, Double.class, StringBuilder.class, Thread.class, Exception.class,
+	};
+
+	/**
+	 * number of subscribers to the posted event
+	 */
+	@Param({"1", "10", "80"})
+	public int subscribers;
+
+	private final EventBus eventBus = new EventBus();
+	private final Tick tick = new Tick();
+	private final Unsubscribed unsubscribed = new Unsubscribed();
+
+	@Setup(Level.Trial)
+	public void setup(Blackhole blackhole)
+	{
+		for (int i = 0; i < subscribers; ++i)
+		{
+			eventBus.register(new TickSubscriber(blackhole));
+		}
+
+		// subscribers to other events, so the lookup isn't against a single entry table
+		for (Class<?> clazz : OTHER_EVENTS)
+		{
+			eventBus.register(clazz, blackhole::consume, 0);
+		}
+	}
+
+	@Benchmark
+	public void post()
+	{
+		eventBus.post(tick);
+	}
+
+	@Benchmark
+	public void postWithoutSubscribers()
+	{
+		eventBus.post(unsubscribed);
+	}
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2022, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import net.runelite.api.coords.WorldPoint;
+import net.runelite.client.plugins.shortestpath.ShortestPathPlugin;
+import net.runelite.client.plugins.shortestpath.pathfinder.CollisionMap;
+import net.runelite.client.plugins.shortestpath.pathfinder.CompressedCollisionMap;
+import net.runelite.client.plugins.shortestpath.pathfinder.FlatCollisionMap;
+import net.runelite.client.plugins.shortestpath.pathfinder.Pathfinder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the shortest path search over the collision map and transports shipped
+ * with the plugin, on a fixed set of routes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class PathfinderBenchmark
+{
+	/**
+	 * route as start x, y, plane and target x, y, plane
+	 */
+	@Param({
+		"3222,3218,0,3213,3424,0", // lumbridge to varrock
+		"3222,3218,0,2965,3380,0", // lumbridge to falador
+		"3213,3424,0,3093,3244,0", // varrock to draynor
+		"3222,3218,0,2662,3305,0", // lumbridge to ardougne
+		"2809,3435,0,2726,3485,0", // catherby to camelot
+	})
+	public String route;
+
+	/**
+	 * collision map format, the gzip compressed regions or the memory mapped flat file
+	 */
+	@Param({"compressed", "flat"})
+	public String format;
+
+	private CollisionMap map;
+	private Map<WorldPoint, List<WorldPoint>> transports;
+	private WorldPoint start;
+	private WorldPoint target;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException
+	{
+		if (format.equals("flat"))
+		{
+			File file = File.createTempFile("collision-map", ".bin");
+			file.deleteOnExit();
+			FlatCollisionMap.write(CompressedCollisionMap.fromResources(), file);
+			map = FlatCollisionMap.open(file);
+		}
+		else
+		{
+			map = CollisionMap.fromResources();
+		}
+		transports = ShortestPathPlugin.loadTransports();
+
+		String[] s = route.split(",");
+		start = new WorldPoint(Integer.parseInt(s[0]), Integer.parseInt(s[1]), Integer.parseInt(s[2]));
+		target = new WorldPoint(Integer.parseInt(s[3]), Integer.parseInt(s[4]), Integer.parseInt(s[5]));
+	}
+
+	@Benchmark
+	public List<WorldPoint> find()
+	{
+		return new Pathfinder(map, transports, start, target, false).find();
+	}
+}
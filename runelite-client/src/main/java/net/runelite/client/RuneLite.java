@@ -44,6 +44,7 @@ import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.security.cert.X509Certificate;
 import java.util.Locale;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Stream;
 import javax.annotation.Nullable;
@@ -66,6 +67,7 @@ import net.runelite.api.Constants;
 import net.runelite.client.account.SessionManager;
 import net.runelite.client.config.ConfigManager;
 import net.runelite.client.eventbus.EventBus;
+import net.runelite.client.eventbus.EventBusProfiler;
 import net.runelite.client.externalplugins.ExternalPluginManager;
 import net.runelite.client.plugins.PluginManager;
 import net.runelite.client.rs.ClientLoader;
@@ -98,6 +100,8 @@ public class RuneLite
 	public static final File DEFAULT_CONFIG_FILE = new File(RUNELITE_DIR, "settings.properties");
 
 	private static final int MAX_OKHTTP_CACHE_SIZE = 20 * 1024 * 1024; // 20mb
+	private static final int PROFILE_DUMP_INTERVAL_SECONDS = 60;
+	private static final int PROFILE_DUMP_LIMIT = 25;
 	public static String USER_AGENT = "RuneLite/" + RuneLiteProperties.getVersion() + "-" + RuneLiteProperties.getCommit() + (RuneLiteProperties.isDirty() ? "+" : "");
 
 	@Getter
@@ -112,6 +116,9 @@ public class RuneLite
 	@Inject
 	private EventBus eventBus;
 
+	@Inject
+	private ScheduledExecutorService executor;
+
 	@Inject
 	private ConfigManager configManager;
 
@@ -274,6 +281,14 @@ public class RuneLite
 
 	public void start() throws Exception
 	{
+		if (Boolean.getBoolean("runelite.eventbus.profile"))
+		{
+			// profile event subscribers for the whole session, logging the slowest periodically
+			final EventBusProfiler profiler = new EventBusProfiler();
+			profiler.scheduleDump(executor, PROFILE_DUMP_INTERVAL_SECONDS, TimeUnit.SECONDS, PROFILE_DUMP_LIMIT);
+			eventBus.setProfiler(profiler);
+		}
+
 		// Load RuneLite or Vanilla client
 		final boolean isOutdated = client == null;
 
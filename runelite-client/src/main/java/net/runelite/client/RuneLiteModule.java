@@ -43,6 +43,7 @@ import javax.inject.Named;
 import javax.inject.Singleton;
 import lombok.AllArgsConstructor;
 import net.runelite.api.Client;
+import net.runelite.api.events.ChatMessage;
 import net.runelite.api.hooks.Callbacks;
 import net.runelite.client.account.SessionManager;
 import net.runelite.client.callback.Hooks;
@@ -126,8 +127,12 @@ public class RuneLiteModule extends AbstractModule
 
 		bind(Callbacks.class).to(Hooks.class);
 
+		EventBus eventBus = new EventBus();
+		// the client thread keeps changing these after they are posted, so async subscribers get copies
+		eventBus.registerSnapshot(ChatMessage.class, e -> new ChatMessage(e.getMessageNode(), e.getType(), e.getName(),
+			e.getMessage(), e.getSender(), e.getTimestamp()));
 		bind(EventBus.class)
-			.toInstance(new EventBus());
+			.toInstance(eventBus);
 
 		bind(EventBus.class)
 			.annotatedWith(Names.named("Deferred EventBus"))
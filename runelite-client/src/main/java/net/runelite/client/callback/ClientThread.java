@@ -25,8 +25,13 @@
 package net.runelite.client.callback;
 
 import com.google.inject.Inject;
-import java.util.Iterator;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BooleanSupplier;
 import javax.inject.Singleton;
 import lombok.extern.slf4j.Slf4j;
@@ -36,7 +41,72 @@ import net.runelite.api.Client;
 @Slf4j
 public class ClientThread
 {
-	private final ConcurrentLinkedQueue<BooleanSupplier> invokes = new ConcurrentLinkedQueue<>();
+	/**
+	 * Default amount of time spent running {@link Priority#NORMAL} and {@link Priority#LOW}
+	 * tasks each frame, before the rest are postponed to the next frame
+	 */
+	private static final long DEFAULT_FRAME_BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(4);
+
+	public enum Priority
+	{
+		/**
+		 * Run every frame regardless of the frame budget
+		 */
+		HIGH,
+		NORMAL,
+		LOW,
+	}
+
+	private static final class Task
+	{
+		private final BooleanSupplier supplier;
+		private final Priority priority;
+		private final long sequence;
+		// the task is not run before this tick or time, if set
+		private final int tick;
+		private final long deadline;
+
+		private Task(BooleanSupplier supplier, Priority priority, long sequence, int tick, long deadline)
+		{
+			this.supplier = supplier;
+			this.priority = priority;
+			this.sequence = sequence;
+			this.tick = tick;
+			this.deadline = deadline;
+		}
+
+		@Override
+		public String toString()
+		{
+			return supplier.toString();
+		}
+	}
+
+	private static final Comparator<Task> READY_ORDER = Comparator.<Task, Priority>comparing(t -> t.priority)
+		.thenComparingLong(t -> t.sequence);
+	private static final Comparator<Task> TICK_ORDER = Comparator.<Task>comparingInt(t -> t.tick)
+		.thenComparingLong(t -> t.sequence);
+	private static final Comparator<Task> DEADLINE_ORDER = Comparator.<Task>comparingLong(t -> t.deadline)
+		.thenComparingLong(t -> t.sequence);
+
+	// tasks submitted from any thread, moved into the queues below on the client thread
+	private final ConcurrentLinkedQueue<Task> invokes = new ConcurrentLinkedQueue<>();
+	private final AtomicLong sequence = new AtomicLong();
+
+	// only accessed from the client thread
+	private final PriorityQueue<Task> ready = new PriorityQueue<>(READY_ORDER);
+	private final PriorityQueue<Task> tickQueue = new PriorityQueue<>(TICK_ORDER);
+	private final PriorityQueue<Task> delayQueue = new PriorityQueue<>(DEADLINE_ORDER);
+	private final List<Task> deferred = new ArrayList<>();
+
+	private volatile long frameBudgetNanos = DEFAULT_FRAME_BUDGET_NANOS;
+
+	// metrics, written from the client thread
+	private volatile int queueDepth;
+	private volatile long tasksRun;
+	private volatile long overruns;
+	private volatile long postponed;
+	private volatile long maxFrameNanos;
 
 	@Inject
 	private Client client;
@@ -60,7 +130,7 @@ public class ClientThread
 		{
 			if (!r.getAsBoolean())
 			{
-				invokes.add(r);
+				submit(r, Priority.NORMAL, -1, 0L);
 			}
 			return;
 		}
@@ -73,30 +143,167 @@ public class ClientThread
 	 * If r returns false, r will be ran again, at a later point
 	 */
 	public void invokeLater(Runnable r)
+	{
+		invokeLater(r, Priority.NORMAL);
+	}
+
+	public void invokeLater(BooleanSupplier r)
+	{
+		invokeLater(r, Priority.NORMAL);
+	}
+
+	public void invokeLater(Runnable r, Priority priority)
 	{
 		invokeLater(() ->
 		{
 			r.run();
 			return true;
-		});
+		}, priority);
 	}
 
-	public void invokeLater(BooleanSupplier r)
+	/**
+	 * Will run r on the game thread after this method returns. Tasks are run in priority
+	 * order, and in submission order within a priority. Tasks which are not {@link Priority#HIGH}
+	 * may be postponed to a later frame if the frame budget has been used up.
+	 * If r returns false, r will be ran again on the next frame
+	 */
+	public void invokeLater(BooleanSupplier r, Priority priority)
+	{
+		submit(r, priority, -1, 0L);
+	}
+
+	/**
+	 * Will run r on the game thread once at least the given delay has passed
+	 */
+	public void invokeDelayed(Runnable r, long delay, TimeUnit unit)
+	{
+		submit(() ->
+		{
+			r.run();
+			return true;
+		}, Priority.NORMAL, -1, System.nanoTime() + unit.toNanos(delay));
+	}
+
+	/**
+	 * Will run r on the game thread once the client's tick count reaches tick
+	 *
+	 * @see Client#getTickCount()
+	 */
+	public void invokeAtTick(Runnable r, int tick)
 	{
-		invokes.add(r);
+		submit(() ->
+		{
+			r.run();
+			return true;
+		}, Priority.NORMAL, tick, 0L);
+	}
+
+	private void submit(BooleanSupplier r, Priority priority, int tick, long deadline)
+	{
+		invokes.add(new Task(r, priority, sequence.getAndIncrement(), tick, deadline));
+	}
+
+	/**
+	 * Set the amount of time spent running {@link Priority#NORMAL} and {@link Priority#LOW}
+	 * tasks per frame. At least one task is always run per frame.
+	 */
+	public void setFrameBudget(long budget, TimeUnit unit)
+	{
+		frameBudgetNanos = unit.toNanos(budget);
+	}
+
+	/**
+	 * The number of tasks waiting to run, as of the end of the last frame
+	 */
+	public int getQueueDepth()
+	{
+		return queueDepth;
+	}
+
+	public long getTasksRun()
+	{
+		return tasksRun;
+	}
+
+	/**
+	 * The number of frames which used their entire budget and postponed tasks to a later frame
+	 */
+	public long getOverruns()
+	{
+		return overruns;
+	}
+
+	/**
+	 * The number of times a task was postponed to a later frame because the budget was used up
+	 */
+	public long getPostponed()
+	{
+		return postponed;
+	}
+
+	/**
+	 * The longest time spent running tasks in a single frame
+	 */
+	public long getMaxFrameNanos()
+	{
+		return maxFrameNanos;
 	}
 
 	void invoke()
 	{
 		assert client.isClientThread();
-		Iterator<BooleanSupplier> ir = invokes.iterator();
-		while (ir.hasNext())
+
+		final long start = System.nanoTime();
+		final int tick = client.getTickCount();
+
+		for (Task task; (task = invokes.poll()) != null; )
 		{
-			BooleanSupplier r = ir.next();
+			if (task.tick > tick)
+			{
+				tickQueue.add(task);
+			}
+			else if (task.deadline != 0L && task.deadline - start > 0)
+			{
+				delayQueue.add(task);
+			}
+			else
+			{
+				ready.add(task);
+			}
+		}
+
+		while (!tickQueue.isEmpty() && tickQueue.peek().tick <= tick)
+		{
+			ready.add(tickQueue.poll());
+		}
+
+		while (!delayQueue.isEmpty() && delayQueue.peek().deadline - start <= 0)
+		{
+			ready.add(delayQueue.poll());
+		}
+
+		final long budget = frameBudgetNanos;
+		// always run at least one budgeted task, so they can't be starved by a small budget
+		boolean first = true;
+		long run = 0;
+		long now = start;
+		for (Task task; (task = ready.peek()) != null; )
+		{
+			if (task.priority != Priority.HIGH && !first && now - start >= budget)
+			{
+				++overruns;
+				postponed += ready.size();
+				break;
+			}
+
+			ready.poll();
+			first &= task.priority == Priority.HIGH;
+			++run;
+
 			boolean remove = true;
 			try
 			{
-				remove = r.getAsBoolean();
+				remove = task.supplier.getAsBoolean();
 			}
 			catch (ThreadDeath d)
 			{
@@ -106,14 +313,21 @@ public class ClientThread
 			{
 				log.warn("Exception in invoke", e);
 			}
-			if (remove)
+			if (!remove)
 			{
-				ir.remove();
-			}
-			else
-			{
-				log.trace("Deferring task {}", r);
+				log.trace("Deferring task {}", task);
+				deferred.add(task);
 			}
+
+			now = System.nanoTime();
 		}
+
+		// deferred tasks keep their sequence, so they stay ahead of tasks submitted after them
+		ready.addAll(deferred);
+		deferred.clear();
+
+		tasksRun += run;
+		maxFrameNanos = Math.max(maxFrameNanos, now - start);
+		queueDepth = ready.size() + tickQueue.size() + delayQueue.size() + invokes.size();
 	}
 }
@@ -24,45 +24,145 @@
  */
 package net.runelite.client.config;
 
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Objects;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.client.util.ReflectUtil;
 
+/**
+ * Handles the calls to the config proxies of a single config interface. Each getter is bound
+ * up front to a slot which caches its converted value, so a cached get is a map lookup and a
+ * volatile read. Slots are invalidated individually when their key changes.
+ */
 @Slf4j
 class ConfigInvocationHandler implements InvocationHandler
 {
-	// Special object to represent null values in the cache
+	// Special objects to represent null and unloaded values in the slots
 	private static final Object NULL = new Object();
+	private static final Object UNSET = new Object();
 
 	private final ConfigManager manager;
-	private final Cache<Method, Object> cache = CacheBuilder.newBuilder()
-		.maximumSize(256)
-		.build();
+	private final Class<?> iface;
+	private final ConfigGroup group;
+	// keyed by getter, immutable after construction
+	private final Map<Method, ConfigSlot> slots;
+
+	private final class ConfigSlot
+	{
+		private final Method method;
+		private final String key;
+		private volatile Object value = UNSET;
+		// bumped on invalidation, so a value loaded concurrently with a change is not stored
+		private int generation;
+
+		private ConfigSlot(Method method, String key)
+		{
+			this.method = method;
+			this.key = key;
+		}
+
+		private Object get(Object proxy) throws Throwable
+		{
+			final Object v = value;
+			if (v != UNSET)
+			{
+				return v == NULL ? null : v;
+			}
+
+			final int gen;
+			synchronized (this)
+			{
+				gen = generation;
+			}
+
+			log.trace("cache miss (group: {}, key: {})", group.value(), key);
+
+			// Getting configuration item
+			final String value = manager.getConfiguration(group.value(), key);
+
+			if (value == null)
+			{
+				if (method.isDefault())
+				{
+					Object defaultValue = callDefaultMethod(proxy, method, null);
+					store(gen, defaultValue);
+					return defaultValue;
+				}
+
+				store(gen, null);
+				return null;
+			}
+
+			// Convert value to return type
+			try
+			{
+				Object objectValue = manager.stringToObject(value, method.getGenericReturnType());
+				store(gen, objectValue);
+				return objectValue;
+			}
+			catch (Exception e)
+			{
+				log.warn("Unable to unmarshal {}.{} ", group.value(), key, e);
+				if (method.isDefault())
+				{
+					return callDefaultMethod(proxy, method, null);
+				}
+				return null;
+			}
+		}
+
+		private synchronized void store(int gen, Object v)
+		{
+			if (generation == gen)
+			{
+				value = v == null ? NULL : v;
+			}
+		}
 
-	ConfigInvocationHandler(ConfigManager manager)
+		private synchronized void invalidate()
+		{
+			++generation;
+			value = UNSET;
+		}
+	}
+
+	ConfigInvocationHandler(ConfigManager manager, Class<?> iface)
 	{
 		this.manager = manager;
+		this.iface = iface;
+		this.group = iface.getAnnotation(ConfigGroup.class);
+
+		final Map<Method, ConfigSlot> slots = new HashMap<>();
+		if (group != null)
+		{
+			for (Method method : iface.getMethods())
+			{
+				ConfigItem item = method.getAnnotation(ConfigItem.class);
+				if (item != null && method.getParameterCount() == 0)
+				{
+					slots.put(method, new ConfigSlot(method, item.keyName()));
+				}
+			}
+		}
+		this.slots = Collections.unmodifiableMap(slots);
 	}
 
 	@Override
 	public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
 	{
-		// Use cached configuration value if available
 		if (args == null)
 		{
-			Object cachedValue = cache.getIfPresent(method);
-			if (cachedValue != null)
+			ConfigSlot slot = slots.get(method);
+			if (slot != null)
 			{
-				return cachedValue == NULL ? null : cachedValue;
+				return slot.get(proxy);
 			}
 		}
 
-		Class<?> iface = proxy.getClass().getInterfaces()[0];
-
 		if ("toString".equals(method.getName()) && args == null)
 		{
 			return iface.getSimpleName();
@@ -78,7 +178,6 @@ class ConfigInvocationHandler implements InvocationHandler
 			return proxy == args[0];
 		}
 
-		ConfigGroup group = iface.getAnnotation(ConfigGroup.class);
 		ConfigItem item = method.getAnnotation(ConfigItem.class);
 
 		if (group == null)
@@ -95,84 +194,50 @@ class ConfigInvocationHandler implements InvocationHandler
 
 		if (args == null)
 		{
-			log.trace("cache miss (size: {}, group: {}, key: {})", cache.size(), group.value(), item.keyName());
-
-			// Getting configuration item
-			String value = manager.getConfiguration(group.value(), item.keyName());
-
-			if (value == null)
-			{
-				if (method.isDefault())
-				{
-					Object defaultValue = callDefaultMethod(proxy, method, null);
-					cache.put(method, defaultValue == null ? NULL : defaultValue);
-					return defaultValue;
-				}
+			// getters are all bound to slots
+			throw new IllegalStateException("Configuration method " + method + " has no slot");
+		}
 
-				cache.put(method, NULL);
-				return null;
-			}
+		// Setting a configuration value
 
-			// Convert value to return type
-			try
-			{
-				Object objectValue = manager.stringToObject(value, method.getGenericReturnType());
-				cache.put(method, objectValue == null ? NULL : objectValue);
-				return objectValue;
-			}
-			catch (Exception e)
-			{
-				log.warn("Unable to unmarshal {}.{} ", group.value(), item.keyName(), e);
-				if (method.isDefault())
-				{
-					return callDefaultMethod(proxy, method, null);
-				}
-				return null;
-			}
-		}
-		else
+		if (args.length != 1)
 		{
-			// Setting a configuration value
-
-			if (args.length != 1)
-			{
-				throw new RuntimeException("Invalid number of arguments to configuration method");
-			}
+			throw new RuntimeException("Invalid number of arguments to configuration method");
+		}
 
-			Object newValue = args[0];
+		Object newValue = args[0];
 
-			Class<?> type = method.getParameterTypes()[0];
-			Object oldValue = manager.getConfiguration(group.value(), item.keyName(), type);
+		Class<?> type = method.getParameterTypes()[0];
+		Object oldValue = manager.getConfiguration(group.value(), item.keyName(), type);
 
-			if (Objects.equals(oldValue, newValue))
-			{
-				// nothing to do
-				return null;
-			}
-
-			if (method.isDefault())
-			{
-				Object defaultValue = callDefaultMethod(proxy, method, args);
+		if (Objects.equals(oldValue, newValue))
+		{
+			// nothing to do
+			return null;
+		}
 
-				if (Objects.equals(newValue, defaultValue))
-				{
-					// Just unset if it goes back to the default
-					manager.unsetConfiguration(group.value(), item.keyName());
-					return null;
-				}
-			}
+		if (method.isDefault())
+		{
+			Object defaultValue = callDefaultMethod(proxy, method, args);
 
-			if (newValue == null)
+			if (Objects.equals(newValue, defaultValue))
 			{
+				// Just unset if it goes back to the default
 				manager.unsetConfiguration(group.value(), item.keyName());
+				return null;
 			}
-			else
-			{
-				String newValueStr = manager.objectToString(newValue);
-				manager.setConfiguration(group.value(), item.keyName(), newValueStr);
-			}
-			return null;
 		}
+
+		if (newValue == null)
+		{
+			manager.unsetConfiguration(group.value(), item.keyName());
+		}
+		else
+		{
+			String newValueStr = manager.objectToString(newValue);
+			manager.setConfiguration(group.value(), item.keyName(), newValueStr);
+		}
+		return null;
 	}
 
 	static Object callDefaultMethod(Object proxy, Method method, Object[] args) throws Throwable
@@ -184,9 +249,32 @@ class ConfigInvocationHandler implements InvocationHandler
 			.invokeWithArguments(args);
 	}
 
+	/**
+	 * Invalidate the cached value of a key, if this handler's group has it
+	 */
+	void invalidate(String groupName, String key)
+	{
+		if (group == null || !group.value().equals(groupName))
+		{
+			return;
+		}
+
+		for (ConfigSlot slot : slots.values())
+		{
+			if (slot.key.equals(key))
+			{
+				log.trace("cache invalidate {}.{}", groupName, key);
+				slot.invalidate();
+			}
+		}
+	}
+
 	void invalidate()
 	{
 		log.trace("cache invalidate");
-		cache.invalidateAll();
+		for (ConfigSlot slot : slots.values())
+		{
+			slot.invalidate();
+		}
 	}
 }
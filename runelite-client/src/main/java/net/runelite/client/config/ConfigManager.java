@@ -26,14 +26,18 @@ package net.runelite.client.config;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Strings;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ComparisonChain;
 import com.google.common.hash.Hasher;
 import com.google.common.hash.Hashing;
 import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Point;
 import java.awt.Rectangle;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -41,6 +45,7 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.ParameterizedType;
@@ -78,6 +83,7 @@ import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
 import lombok.NonNull;
+import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.Client;
 import net.runelite.api.Player;
@@ -113,6 +119,10 @@ public class ConfigManager
 	private static final int KEY_SPLITTER_PROFILE = 1;
 	private static final int KEY_SPLITTER_KEY = 2;
 
+	// number of journal entries after which the journal is folded into the properties file
+	@VisibleForTesting
+	static final int JOURNAL_COMPACT_THRESHOLD = 1000;
+
 	private final File settingsFileInput;
 	private final EventBus eventBus;
 	private final Gson gson;
@@ -125,10 +135,31 @@ public class ConfigManager
 	@Nullable
 	private final Client client;
 
-	private final ConfigInvocationHandler handler = new ConfigInvocationHandler(this);
+	// one handler per config interface, shared by all of its proxies. The proxies hold their
+	// handler strongly, so it and the interface are only collected once a plugin is unloaded
+	// and its proxies are gone, rather than keeping the plugin's class loader alive.
+	private final Map<Class<?>, ConfigInvocationHandler> handlers = CacheBuilder.newBuilder()
+		.weakKeys()
+		.weakValues()
+		.<Class<?>, ConfigInvocationHandler>build()
+		.asMap();
 	private final Map<String, String> pendingChanges = new HashMap<>();
 
-	private Properties properties = new Properties();
+	private volatile ConfigStore store = new ConfigStore();
+
+	// guards writing the properties file and its journal
+	private final Object journalLock = new Object();
+	private int journalEntries;
+
+	/**
+	 * A change to a configuration value, appended to the journal. A null value unsets the key.
+	 */
+	@Value
+	private static class JournalEntry
+	{
+		String key;
+		String value;
+	}
 
 	// null => we need to make a new profile
 	@Nullable
@@ -226,18 +257,19 @@ public class ConfigManager
 			return;
 		}
 
-		Properties newProperties = new Properties();
+		ConfigStore newStore = new ConfigStore();
 		for (ConfigEntry entry : configuration.getConfig())
 		{
-			newProperties.setProperty(entry.getKey(), entry.getValue());
+			newStore.set(entry.getKey(), entry.getValue());
 		}
 
 		log.debug("Loading in config from server");
-		swapProperties(newProperties, false);
+		swapProperties(newStore, false);
 
 		try
 		{
-			saveToFile(propertiesFile);
+			// the journal is for the previous configuration, so it must be discarded
+			compact();
 
 			log.debug("Updated configuration on disk with the latest version");
 		}
@@ -247,25 +279,28 @@ public class ConfigManager
 		}
 	}
 
-	private void swapProperties(Properties newProperties, boolean saveToServer)
+	private void swapProperties(ConfigStore newStore, boolean saveToServer)
 	{
-		Set<Object> allKeys = new HashSet<>(newProperties.keySet());
+		Map<String, String> newProperties = newStore.toMap();
+		Set<String> allKeys = new HashSet<>(newProperties.keySet());
 
-		Properties oldProperties;
+		ConfigStore oldStore;
 		synchronized (this)
 		{
-			handler.invalidate();
-			oldProperties = properties;
-			this.properties = newProperties;
+			oldStore = store;
+			this.store = newStore;
+			// invalidate after the swap, so a value loaded from the old store is never kept
+			handlers.values().forEach(ConfigInvocationHandler::invalidate);
 		}
 
 		updateRSProfile();
 
+		Map<String, String> oldProperties = oldStore.toMap();
 		allKeys.addAll(oldProperties.keySet());
 
-		for (Object wholeKey : allKeys)
+		for (String wholeKey : allKeys)
 		{
-			String[] split = splitKey((String) wholeKey);
+			String[] split = splitKey(wholeKey);
 			if (split == null)
 			{
 				continue;
@@ -274,8 +309,8 @@ public class ConfigManager
 			String groupName = split[KEY_SPLITTER_GROUP];
 			String profile = split[KEY_SPLITTER_PROFILE];
 			String key = split[KEY_SPLITTER_KEY];
-			String oldValue = (String) oldProperties.get(wholeKey);
-			String newValue = (String) newProperties.get(wholeKey);
+			String oldValue = oldProperties.get(wholeKey);
+			String newValue = newProperties.get(wholeKey);
 
 			if (Objects.equals(oldValue, newValue))
 			{
@@ -296,7 +331,7 @@ public class ConfigManager
 			{
 				synchronized (pendingChanges)
 				{
-					pendingChanges.put((String) wholeKey, newValue);
+					pendingChanges.put(wholeKey, newValue);
 				}
 			}
 		}
@@ -304,10 +339,11 @@ public class ConfigManager
 
 	private void syncPropertiesFromFile(File propertiesFile)
 	{
-		final Properties properties = new Properties();
-		try (FileInputStream in = new FileInputStream(propertiesFile))
+		final ConfigStore newStore;
+		try
 		{
-			properties.load(new InputStreamReader(in, StandardCharsets.UTF_8));
+			newStore = readProperties(propertiesFile);
+			readJournal(newStore, getJournalFile(propertiesFile));
 		}
 		catch (Exception e)
 		{
@@ -316,7 +352,7 @@ public class ConfigManager
 		}
 
 		log.debug("Loading in config from disk for upload");
-		swapProperties(properties, true);
+		swapProperties(newStore, true);
 	}
 
 	public Future<Void> importLocal()
@@ -346,10 +382,10 @@ public class ConfigManager
 
 	private synchronized void loadFromFile()
 	{
-		Properties newProperties = new Properties();
-		try (FileInputStream in = new FileInputStream(propertiesFile))
+		ConfigStore newStore = new ConfigStore();
+		try
 		{
-			newProperties.load(new InputStreamReader(in, StandardCharsets.UTF_8));
+			newStore = readProperties(propertiesFile);
 		}
 		catch (FileNotFoundException ex)
 		{
@@ -360,8 +396,136 @@ public class ConfigManager
 			log.warn("Unable to load settings", ex);
 		}
 
+		synchronized (journalLock)
+		{
+			try
+			{
+				journalEntries = readJournal(newStore, getJournalFile(propertiesFile));
+			}
+			catch (IOException ex)
+			{
+				log.warn("Unable to load settings journal", ex);
+			}
+		}
+
 		log.debug("Loading in config from disk");
-		swapProperties(newProperties, false);
+		swapProperties(newStore, false);
+	}
+
+	private static ConfigStore readProperties(File propertiesFile) throws IOException
+	{
+		Properties properties = new Properties();
+		try (FileInputStream in = new FileInputStream(propertiesFile))
+		{
+			properties.load(new InputStreamReader(in, StandardCharsets.UTF_8));
+		}
+		return ConfigStore.fromProperties(properties);
+	}
+
+	private static File getJournalFile(File propertiesFile)
+	{
+		return new File(propertiesFile.getParentFile(), propertiesFile.getName() + ".journal");
+	}
+
+	/**
+	 * Apply the changes in a journal to a store
+	 *
+	 * @return the number of entries in the journal
+	 */
+	private int readJournal(ConfigStore store, File journalFile) throws IOException
+	{
+		if (!journalFile.exists())
+		{
+			return 0;
+		}
+
+		int entries = 0;
+		try (BufferedReader reader = Files.newBufferedReader(journalFile.toPath(), StandardCharsets.UTF_8))
+		{
+			for (String line; (line = reader.readLine()) != null; )
+			{
+				JournalEntry entry;
+				try
+				{
+					entry = gson.fromJson(line, JournalEntry.class);
+				}
+				catch (JsonParseException ex)
+				{
+					// a partially written entry from a crash, anything after it can't be trusted
+					log.warn("Malformed settings journal entry, ignoring the rest of the journal", ex);
+					break;
+				}
+
+				if (entry == null || entry.getKey() == null)
+				{
+					continue;
+				}
+
+				String[] split = splitKey(entry.getKey());
+				if (split == null)
+				{
+					continue;
+				}
+
+				if (entry.getValue() == null)
+				{
+					store.unset(split[KEY_SPLITTER_GROUP], split[KEY_SPLITTER_PROFILE], split[KEY_SPLITTER_KEY]);
+				}
+				else
+				{
+					store.set(split[KEY_SPLITTER_GROUP], split[KEY_SPLITTER_PROFILE], split[KEY_SPLITTER_KEY], entry.getValue());
+				}
+				++entries;
+			}
+		}
+		return entries;
+	}
+
+	private void appendJournal(Map<String, String> changes) throws IOException
+	{
+		synchronized (journalLock)
+		{
+			if (journalEntries + changes.size() > JOURNAL_COMPACT_THRESHOLD)
+			{
+				// the store already has the changes, so writing it out covers them
+				compact();
+				return;
+			}
+
+			File journalFile = getJournalFile(propertiesFile);
+			journalFile.getParentFile().mkdirs();
+
+			try (FileOutputStream out = new FileOutputStream(journalFile, true);
+				FileChannel channel = out.getChannel();
+				Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)))
+			{
+				channel.lock();
+				for (Map.Entry<String, String> change : changes.entrySet())
+				{
+					writer.write(gson.toJson(new JournalEntry(change.getKey(), change.getValue())));
+					writer.write('\n');
+				}
+				writer.flush();
+				channel.force(true);
+				// FileChannel.close() frees the lock
+			}
+
+			journalEntries += changes.size();
+		}
+	}
+
+	/**
+	 * Write the whole configuration to the properties file and discard the journal
+	 */
+	private void compact() throws IOException
+	{
+		synchronized (journalLock)
+		{
+			log.debug("Compacting configuration journal with {} entries", journalEntries);
+			saveToFile(propertiesFile);
+			Files.deleteIfExists(getJournalFile(propertiesFile).toPath());
+			journalEntries = 0;
+		}
 	}
 
 	private void saveToFile(final File propertiesFile) throws IOException
@@ -377,7 +541,7 @@ public class ConfigManager
 			OutputStreamWriter writer = new OutputStreamWriter(out, StandardCharsets.UTF_8))
 		{
 			channel.lock();
-			properties.store(writer, "RuneLite configuration");
+			store.toProperties().store(writer, "RuneLite configuration");
 			channel.force(true);
 			// FileChannel.close() frees the lock
 		}
@@ -400,6 +564,7 @@ public class ConfigManager
 			throw new RuntimeException("Non-public configuration classes can't have default methods invoked");
 		}
 
+		final ConfigInvocationHandler handler = handlers.computeIfAbsent(clazz, c -> new ConfigInvocationHandler(this, c));
 		T t = (T) Proxy.newProxyInstance(clazz.getClassLoader(), new Class<?>[]
 			{
 				clazz
@@ -410,7 +575,7 @@ public class ConfigManager
 
 	public List<String> getConfigurationKeys(String prefix)
 	{
-		return properties.keySet().stream().filter(v -> ((String) v).startsWith(prefix)).map(String.class::cast).collect(Collectors.toList());
+		return store.keys(prefix);
 	}
 
 	public static String getWholeKey(String groupName, String profile, String key)
@@ -443,7 +608,7 @@ public class ConfigManager
 
 	public String getConfiguration(String groupName, String profile, String key)
 	{
-		return properties.getProperty(getWholeKey(groupName, profile, key));
+		return store.get(groupName, profile, key);
 	}
 
 	public <T> T getConfiguration(String groupName, String key, Type clazz)
@@ -496,7 +661,7 @@ public class ConfigManager
 		String oldValue;
 		synchronized (this)
 		{
-			oldValue = (String) properties.setProperty(wholeKey, value);
+			oldValue = store.set(groupName, profile, key, value);
 		}
 
 		if (Objects.equals(oldValue, value))
@@ -505,7 +670,7 @@ public class ConfigManager
 		}
 
 		log.debug("Setting configuration value for {} to {}", wholeKey, value);
-		handler.invalidate();
+		invalidate(groupName, profile, key);
 
 		synchronized (pendingChanges)
 		{
@@ -580,7 +745,7 @@ public class ConfigManager
 		String oldValue;
 		synchronized (this)
 		{
-			oldValue = (String) properties.remove(wholeKey);
+			oldValue = store.unset(groupName, profile, key);
 		}
 
 		if (oldValue == null)
@@ -589,7 +754,7 @@ public class ConfigManager
 		}
 
 		log.debug("Unsetting configuration value for {}", wholeKey);
-		handler.invalidate();
+		invalidate(groupName, profile, key);
 
 		synchronized (pendingChanges)
 		{
@@ -605,6 +770,18 @@ public class ConfigManager
 		eventBus.post(configChanged);
 	}
 
+	private void invalidate(String groupName, String profile, String key)
+	{
+		// config proxies only read keys without a profile
+		if (profile == null)
+		{
+			for (ConfigInvocationHandler handler : handlers.values())
+			{
+				handler.invalidate(groupName, key);
+			}
+		}
+	}
+
 	public void unsetRSProfileConfiguration(String groupName, String key)
 	{
 		String rsProfileKey = this.rsProfileKey;
@@ -888,71 +1065,78 @@ public class ConfigManager
 	}
 
 	@Subscribe(priority = 100)
-	private void onClientShutdown(ClientShutdown e)
+	@VisibleForTesting
+	void onClientShutdown(ClientShutdown e)
 	{
 		Future<Void> f = sendConfig();
 		if (f != null)
 		{
 			e.waitFor(f);
 		}
-	}
 
-	@Nullable
-	private CompletableFuture<Void> sendConfig()
-	{
-		CompletableFuture<Void> future = null;
-		synchronized (pendingChanges)
+		try
 		{
-			if (pendingChanges.isEmpty())
-			{
-				return null;
-			}
-
-			if (session != null)
+			synchronized (journalLock)
 			{
-				Configuration patch = new Configuration(pendingChanges.entrySet().stream()
-					.map(e -> new ConfigEntry(e.getKey(), e.getValue()))
-					.collect(Collectors.toList()));
-
-				future = configClient.patch(patch);
+				// leave a complete properties file behind, for anything which doesn't read the journal
+				if (journalEntries > 0)
+				{
+					compact();
+				}
 			}
-
-			pendingChanges.clear();
-		}
-
-		try
-		{
-			saveToFile(propertiesFile);
 		}
 		catch (IOException ex)
 		{
 			log.warn("unable to save configuration file", ex);
 		}
-
-		return future;
 	}
 
-	public List<RuneScapeProfile> getRSProfiles()
+	@VisibleForTesting
+	@Nullable
+	CompletableFuture<Void> sendConfig()
 	{
-		String prefix = RSPROFILE_GROUP + "." + RSPROFILE_GROUP + ".";
-		Set<String> profileKeys = new HashSet<>();
-		for (Object oKey : properties.keySet())
+		CompletableFuture<Void> future = null;
+		// held from taking the changes until they are journaled, so concurrent flushes append in order
+		synchronized (journalLock)
 		{
-			String key = (String) oKey;
-			if (!key.startsWith(prefix))
+			final Map<String, String> changes;
+			synchronized (pendingChanges)
 			{
-				continue;
+				if (pendingChanges.isEmpty())
+				{
+					return null;
+				}
+
+				if (session != null)
+				{
+					Configuration patch = new Configuration(pendingChanges.entrySet().stream()
+						.map(e -> new ConfigEntry(e.getKey(), e.getValue()))
+						.collect(Collectors.toList()));
+
+					future = configClient.patch(patch);
+				}
+
+				changes = new HashMap<>(pendingChanges);
+				pendingChanges.clear();
 			}
 
-			String[] split = splitKey(key);
-			if (split == null)
+			try
 			{
-				continue;
+				appendJournal(changes);
+			}
+			catch (IOException ex)
+			{
+				log.warn("unable to save configuration file", ex);
 			}
-
-			profileKeys.add(split[KEY_SPLITTER_PROFILE]);
 		}
 
+		return future;
+	}
+
+	public List<RuneScapeProfile> getRSProfiles()
+	{
+		Set<String> profileKeys = store.profiles(RSPROFILE_GROUP);
+
 		return profileKeys.stream()
 			.map(key ->
 			{
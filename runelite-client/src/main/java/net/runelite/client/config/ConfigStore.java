@@ -0,0 +1,235 @@
+/*
+ * Copyright (c) 2022, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.config;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import javax.annotation.Nullable;
+
+/**
+ * Configuration values, partitioned by group and then profile. Lookups do not build the
+ * whole key, and keys are kept sorted within a profile so prefix queries only visit the
+ * matching keys. Safe for concurrent reads and writes.
+ */
+final class ConfigStore
+{
+	// profile used for keys which are not in a profile, since ConcurrentHashMap has no null keys
+	private static final String NO_PROFILE = "";
+
+	private final Map<String, Map<String, ConcurrentNavigableMap<String, String>>> groups = new ConcurrentHashMap<>();
+
+	@Nullable
+	String get(String group, @Nullable String profile, String key)
+	{
+		final Map<String, ConcurrentNavigableMap<String, String>> profiles = groups.get(group);
+		if (profiles == null)
+		{
+			return null;
+		}
+
+		final Map<String, String> values = profiles.get(profile == null ? NO_PROFILE : profile);
+		return values == null ? null : values.get(key);
+	}
+
+	/**
+	 * @return the previous value
+	 */
+	@Nullable
+	String set(String group, @Nullable String profile, String key, String value)
+	{
+		return groups.computeIfAbsent(group, g -> new ConcurrentHashMap<>())
+			.computeIfAbsent(profile == null ? NO_PROFILE : profile, p -> new ConcurrentSkipListMap<>())
+			.put(key, value);
+	}
+
+	/**
+	 * @return the previous value
+	 */
+	@Nullable
+	String unset(String group, @Nullable String profile, String key)
+	{
+		final Map<String, ConcurrentNavigableMap<String, String>> profiles = groups.get(group);
+		if (profiles == null)
+		{
+			return null;
+		}
+
+		final Map<String, String> values = profiles.get(profile == null ? NO_PROFILE : profile);
+		return values == null ? null : values.remove(key);
+	}
+
+	/**
+	 * Set a value by its whole key
+	 *
+	 * @see ConfigManager#getWholeKey(String, String, String)
+	 * @return false if the key is malformed
+	 */
+	boolean set(String wholeKey, String value)
+	{
+		final String[] split = ConfigManager.splitKey(wholeKey);
+		if (split == null)
+		{
+			return false;
+		}
+
+		set(split[0], split[1], split[2], value);
+		return true;
+	}
+
+	/**
+	 * @return the whole key of every value whose whole key starts with prefix
+	 */
+	List<String> keys(String prefix)
+	{
+		final List<String> keys = new ArrayList<>();
+		final int dot = prefix.indexOf('.');
+		if (dot == -1)
+		{
+			// the prefix is part of a group name
+			for (Map.Entry<String, Map<String, ConcurrentNavigableMap<String, String>>> group : groups.entrySet())
+			{
+				if (group.getKey().startsWith(prefix))
+				{
+					addKeys(keys, group.getKey(), group.getValue(), "");
+				}
+			}
+			return keys;
+		}
+
+		final String group = prefix.substring(0, dot);
+		final Map<String, ConcurrentNavigableMap<String, String>> profiles = groups.get(group);
+		if (profiles != null)
+		{
+			addKeys(keys, group, profiles, prefix.substring(dot + 1));
+		}
+		return keys;
+	}
+
+	private static void addKeys(List<String> keys, String group, Map<String, ConcurrentNavigableMap<String, String>> profiles, String prefix)
+	{
+		for (Map.Entry<String, ConcurrentNavigableMap<String, String>> entry : profiles.entrySet())
+		{
+			final String profile = entry.getKey();
+			final String keyPrefix;
+			if (profile.equals(NO_PROFILE))
+			{
+				keyPrefix = prefix;
+			}
+			else if (prefix.length() <= profile.length() + 1)
+			{
+				// the prefix is within the profile, so it matches either all or none of its keys
+				if (!(profile + ".").startsWith(prefix))
+				{
+					continue;
+				}
+				keyPrefix = "";
+			}
+			else if (prefix.startsWith(profile) && prefix.charAt(profile.length()) == '.')
+			{
+				keyPrefix = prefix.substring(profile.length() + 1);
+			}
+			else
+			{
+				continue;
+			}
+
+			// keys are sorted, so the keys with the prefix are contiguous
+			for (String key : entry.getValue().tailMap(keyPrefix).keySet())
+			{
+				if (!key.startsWith(keyPrefix))
+				{
+					break;
+				}
+
+				keys.add(ConfigManager.getWholeKey(group, profile.equals(NO_PROFILE) ? null : profile, key));
+			}
+		}
+	}
+
+	/**
+	 * @return the profiles of a group which have at least one value
+	 */
+	Set<String> profiles(String group)
+	{
+		final Set<String> result = new HashSet<>();
+		final Map<String, ConcurrentNavigableMap<String, String>> profiles = groups.get(group);
+		if (profiles != null)
+		{
+			for (Map.Entry<String, ConcurrentNavigableMap<String, String>> entry : profiles.entrySet())
+			{
+				if (!entry.getKey().equals(NO_PROFILE) && !entry.getValue().isEmpty())
+				{
+					result.add(entry.getKey());
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @return all values, by whole key
+	 */
+	Map<String, String> toMap()
+	{
+		final Map<String, String> map = new HashMap<>();
+		for (Map.Entry<String, Map<String, ConcurrentNavigableMap<String, String>>> group : groups.entrySet())
+		{
+			for (Map.Entry<String, ConcurrentNavigableMap<String, String>> profile : group.getValue().entrySet())
+			{
+				final String profileName = profile.getKey().equals(NO_PROFILE) ? null : profile.getKey();
+				for (Map.Entry<String, String> value : profile.getValue().entrySet())
+				{
+					map.put(ConfigManager.getWholeKey(group.getKey(), profileName, value.getKey()), value.getValue());
+				}
+			}
+		}
+		return map;
+	}
+
+	Properties toProperties()
+	{
+		final Properties properties = new Properties();
+		properties.putAll(toMap());
+		return properties;
+	}
+
+	static ConfigStore fromProperties(Properties properties)
+	{
+		final ConfigStore store = new ConfigStore();
+		for (String key : properties.stringPropertyNames())
+		{
+			store.set(key, properties.getProperty(key));
+		}
+		return store;
+	}
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2022, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.eventbus;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
+
+/**
+ * Delivers the events of a single {@link Subscribe#async()} subscriber on an executor.
+ * Each event is copied when it is posted, so later changes to it are not seen. Events are queued in a bounded queue and handled one at a time, in the order they
+ * were posted. If the queue is full, the event is dropped so the posting thread never
+ * blocks.
+ */
+@Slf4j
+final class AsyncDispatcher implements Consumer<Object>, Runnable
+{
+	private static final Marker DEDUPLICATE = MarkerFactory.getMarker("DEDUPLICATE");
+
+	// maximum number of events handled before yielding the executor thread to other subscribers
+	private static final int BATCH_SIZE = 64;
+
+	private final EventBus.Subscriber target;
+	private final Executor executor;
+	private final Consumer<Throwable> exceptionHandler;
+	private final Supplier<EventBusProfiler> profiler;
+	private final UnaryOperator<Object> snapshot;
+	private final BlockingQueue<Object> queue;
+	private final AtomicBoolean scheduled = new AtomicBoolean();
+	private volatile boolean closed;
+
+	/**
+	 * @param profiler the installed profiler, if any, which handling events is measured with
+	 * @param snapshot copies an event when it is posted
+	 */
+	AsyncDispatcher(EventBus.Subscriber target, Executor executor, Consumer<Throwable> exceptionHandler,
+		Supplier<EventBusProfiler> profiler, UnaryOperator<Object> snapshot, int capacity)
+	{
+		this.target = target;
+		this.executor = executor;
+		this.exceptionHandler = exceptionHandler;
+		this.profiler = profiler;
+		this.snapshot = snapshot;
+		this.queue = new ArrayBlockingQueue<>(capacity);
+	}
+
+	@Override
+	public void accept(Object event)
+	{
+		if (closed)
+		{
+			return;
+		}
+
+		if (!queue.offer(snapshot.apply(event)))
+		{
+			log.warn(DEDUPLICATE, "Event queue for {} is full, dropping {}", target.getMethod(), event.getClass().getSimpleName());
+			return;
+		}
+
+		schedule();
+	}
+
+	private void schedule()
+	{
+		// only one drain may be scheduled or running at a time, which keeps events in order
+		if (scheduled.compareAndSet(false, true))
+		{
+			try
+			{
+				executor.execute(this);
+			}
+			catch (RejectedExecutionException ex)
+			{
+				scheduled.set(false);
+				log.warn("Unable to schedule event delivery for {}", target.getMethod(), ex);
+			}
+		}
+	}
+
+	@Override
+	public void run()
+	{
+		for (int i = 0; i < BATCH_SIZE && !closed; ++i)
+		{
+			final Object event = queue.poll();
+			if (event == null)
+			{
+				break;
+			}
+
+			try
+			{
+				final EventBusProfiler profiler = this.profiler.get();
+				if (profiler != null)
+				{
+					profiler.invokeAsync(target, event);
+				}
+				else
+				{
+					target.invoke(event);
+				}
+			}
+			catch (Exception e)
+			{
+				exceptionHandler.accept(e);
+			}
+		}
+
+		scheduled.set(false);
+		if (closed)
+		{
+			queue.clear();
+		}
+		else if (!queue.isEmpty())
+		{
+			schedule();
+		}
+	}
+
+	/**
+	 * Stop delivering events. Events which are already queued are discarded, however an
+	 * event which is being handled is allowed to finish.
+	 */
+	void close()
+	{
+		closed = true;
+		queue.clear();
+	}
+}
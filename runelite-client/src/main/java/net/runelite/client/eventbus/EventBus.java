@@ -26,8 +26,6 @@
 package net.runelite.client.eventbus;
 
 import com.google.common.base.Preconditions;
-import com.google.common.collect.ImmutableMultimap;
-import com.google.common.collect.Iterables;
 import java.lang.invoke.CallSite;
 import java.lang.invoke.LambdaMetafactory;
 import java.lang.invoke.MethodHandle;
@@ -35,12 +33,25 @@ import java.lang.invoke.MethodHandles;
 import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
 import lombok.EqualsAndHashCode;
-import lombok.RequiredArgsConstructor;
 import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.client.util.ReflectUtil;
@@ -48,12 +59,18 @@ import org.slf4j.Marker;
 import org.slf4j.MarkerFactory;
 
 @Slf4j
-@RequiredArgsConstructor
 @ThreadSafe
 public class EventBus
 {
 	private static final Marker DEDUPLICATE = MarkerFactory.getMarker("DEDUPLICATE");
 
+	private static final Subscriber[] NO_SUBSCRIBERS = new Subscriber[0];
+
+	private static final int ASYNC_QUEUE_SIZE = 1024;
+
+	private static final Comparator<Subscriber> SUBSCRIBER_ORDER = Comparator.comparingDouble(Subscriber::getPriority).reversed()
+		.thenComparing(s -> s.object.getClass().getName());
+
 	@Value
 	public static class Subscriber
 	{
@@ -76,10 +93,38 @@ public class EventBus
 		}
 	}
 
+	/**
+	 * Immutable snapshot of the subscribers of each event class. The subscriber
+	 * array for an event class is looked up once and then cached on the class
+	 * by the ClassValue, so posting does not hash or allocate. Registering or
+	 * unregistering replaces the whole table.
+	 */
+	private static final class DispatchTable extends ClassValue<Subscriber[]>
+	{
+		private final Map<Class<?>, Subscriber[]> subscribers;
+
+		private DispatchTable(Map<Class<?>, Subscriber[]> subscribers)
+		{
+			this.subscribers = subscribers;
+		}
+
+		@Override
+		protected Subscriber[] computeValue(Class<?> type)
+		{
+			return subscribers.getOrDefault(type, NO_SUBSCRIBERS);
+		}
+	}
+
 	private final Consumer<Throwable> exceptionHandler;
+	private final Executor asyncExecutor;
+	// copies events for async subscribers, by event class
+	private final Map<Class<?>, UnaryOperator<Object>> snapshots = new ConcurrentHashMap<>();
 
 	@Nonnull
-	private ImmutableMultimap<Class<?>, Subscriber> subscribers = ImmutableMultimap.of();
+	private volatile DispatchTable dispatch = new DispatchTable(Collections.emptyMap());
+
+	@Nullable
+	private volatile EventBusProfiler profiler;
 
 	/**
 	 * Instantiates EventBus with default exception handler
@@ -89,6 +134,54 @@ public class EventBus
 		this((e) -> log.warn(DEDUPLICATE, "Uncaught exception in event subscriber", e));
 	}
 
+	/**
+	 * Instantiates EventBus with the given exception handler, delivering
+	 * {@link Subscribe#async()} events on a shared worker pool
+	 *
+	 * @param exceptionHandler handler for exceptions thrown by subscribers
+	 */
+	public EventBus(Consumer<Throwable> exceptionHandler)
+	{
+		this(exceptionHandler, r -> AsyncExecutorHolder.EXECUTOR.execute(r));
+	}
+
+	/**
+	 * @param exceptionHandler handler for exceptions thrown by subscribers
+	 * @param asyncExecutor executor to deliver {@link Subscribe#async()} events on
+	 */
+	public EventBus(Consumer<Throwable> exceptionHandler, Executor asyncExecutor)
+	{
+		this.exceptionHandler = exceptionHandler;
+		this.asyncExecutor = asyncExecutor;
+	}
+
+	private static final class AsyncExecutorHolder
+	{
+		private static final AtomicInteger THREAD_ID = new AtomicInteger();
+
+		// created on first use, so event buses without async subscribers don't start any threads
+		private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(2, r ->
+		{
+			final Thread thread = new Thread(r, "EventBus-async-" + THREAD_ID.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Allow {@link Subscribe#async()} subscribers for an event class. Events keep being used and
+	 * changed on the posting thread, so each async subscriber is given its own copy, taken when
+	 * the event is posted. Immutable events can use {@link UnaryOperator#identity()}.
+	 * This must be called before async subscribers to the event are registered.
+	 *
+	 * @param eventClass event class
+	 * @param snapshot function to copy an event
+	 */
+	public <T> void registerSnapshot(Class<T> eventClass, UnaryOperator<T> snapshot)
+	{
+		snapshots.put(eventClass, (UnaryOperator<Object>) snapshot);
+	}
+
 	/**
 	 * Registers subscriber to EventBus. All methods in subscriber and it's parent classes are checked for
 	 * {@link Subscribe} annotation and then added to map of subscriptions.
@@ -98,10 +191,7 @@ public class EventBus
 	 */
 	public synchronized void register(@Nonnull final Object object)
 	{
-		final ImmutableMultimap.Builder<Class<?>, Subscriber> builder = ImmutableMultimap.builder();
-		builder.putAll(subscribers);
-		builder.orderValuesBy(Comparator.comparingDouble(Subscriber::getPriority).reversed()
-			.thenComparing(s -> s.object.getClass().getName()));
+		final Map<Class<?>, List<Subscriber>> added = new HashMap<>();
 
 		for (Class<?> clazz = object.getClass(); clazz != null; clazz = clazz.getSuperclass())
 		{
@@ -125,7 +215,7 @@ public class EventBus
 
 				for (Class<?> psc = parameterClazz.getSuperclass(); psc != null; psc = psc.getSuperclass())
 				{
-					if (subscribers.containsKey(psc))
+					if (dispatch.subscribers.containsKey(psc))
 					{
 						throw new IllegalArgumentException("@Subscribed method \"" + method + "\" cannot subscribe to class which inherits from subscribed class \"" + psc + "\"");
 					}
@@ -158,28 +248,97 @@ public class EventBus
 					log.warn("Unable to create lambda for method {}", method, e);
 				}
 
-				final Subscriber subscriber = new Subscriber(object, method, sub.priority(), lambda);
-				builder.put(parameterClazz, subscriber);
+				Subscriber subscriber = new Subscriber(object, method, sub.priority(), lambda);
+				if (sub.async())
+				{
+					final UnaryOperator<Object> snapshot = snapshots.get(parameterClazz);
+					Preconditions.checkArgument(snapshot != null, "@Subscribed method \"" + method + "\" cannot be async, " + parameterClazz.getSimpleName() + " has no registered snapshot");
+					final AsyncDispatcher dispatcher = new AsyncDispatcher(subscriber, asyncExecutor, exceptionHandler, this::getProfiler, snapshot, ASYNC_QUEUE_SIZE);
+					subscriber = new Subscriber(object, method, sub.priority(), dispatcher);
+				}
+				added.computeIfAbsent(parameterClazz, k -> new ArrayList<>()).add(subscriber);
 				log.debug("Registering {} - {}", parameterClazz, subscriber);
 			}
 		}
 
-		subscribers = builder.build();
+		add(added);
 	}
 
 	public synchronized <T> Subscriber register(Class<T> clazz, Consumer<T> subFn, float priority)
 	{
-		final ImmutableMultimap.Builder<Class<?>, Subscriber> builder = ImmutableMultimap.builder();
-		builder.putAll(subscribers);
-		builder.orderValuesBy(Comparator.comparingDouble(Subscriber::getPriority).reversed()
-			.thenComparing(s -> s.object.getClass().getName()));
-
 		Subscriber sub = new Subscriber(subFn, null, priority, (Consumer<Object>) subFn);
-		builder.put(clazz, sub);
+		add(Collections.singletonMap(clazz, Collections.singletonList(sub)));
+		return sub;
+	}
 
-		subscribers = builder.build();
+	private void add(Map<Class<?>, List<Subscriber>> added)
+	{
+		if (added.isEmpty())
+		{
+			return;
+		}
 
-		return sub;
+		final Map<Class<?>, Subscriber[]> table = new HashMap<>(dispatch.subscribers);
+		for (Map.Entry<Class<?>, List<Subscriber>> entry : added.entrySet())
+		{
+			final Subscriber[] existing = table.getOrDefault(entry.getKey(), NO_SUBSCRIBERS);
+			final Subscriber[] merged = Arrays.copyOf(existing, existing.length + entry.getValue().size());
+			for (int i = 0; i < entry.getValue().size(); ++i)
+			{
+				merged[existing.length + i] = entry.getValue().get(i);
+			}
+
+			// stable, so subscribers with equal priority and class stay in registration order
+			Arrays.sort(merged, SUBSCRIBER_ORDER);
+			table.put(entry.getKey(), merged);
+		}
+
+		dispatch = new DispatchTable(table);
+	}
+
+	private void remove(Predicate<Subscriber> filter)
+	{
+		Map<Class<?>, Subscriber[]> table = null;
+		for (Map.Entry<Class<?>, Subscriber[]> entry : dispatch.subscribers.entrySet())
+		{
+			final Subscriber[] existing = entry.getValue();
+			final Subscriber[] remaining = Arrays.stream(existing)
+				.filter(filter.negate())
+				.toArray(Subscriber[]::new);
+
+			if (remaining.length == existing.length)
+			{
+				continue;
+			}
+
+			for (Subscriber subscriber : existing)
+			{
+				if (subscriber.getLambda() instanceof AsyncDispatcher && filter.test(subscriber))
+				{
+					// drop any queued events so unregistered subscribers stop receiving them
+					((AsyncDispatcher) subscriber.getLambda()).close();
+				}
+			}
+
+			if (table == null)
+			{
+				table = new HashMap<>(dispatch.subscribers);
+			}
+
+			if (remaining.length == 0)
+			{
+				table.remove(entry.getKey());
+			}
+			else
+			{
+				table.put(entry.getKey(), remaining);
+			}
+		}
+
+		if (table != null)
+		{
+			dispatch = new DispatchTable(table);
+		}
 	}
 
 	/**
@@ -189,10 +348,7 @@ public class EventBus
 	 */
 	public synchronized void unregister(@Nonnull final Object object)
 	{
-		subscribers = ImmutableMultimap.copyOf(Iterables.filter(
-			subscribers.entries(),
-			e -> e.getValue().getObject() != object
-		));
+		remove(s -> s.getObject() == object);
 	}
 
 	public synchronized void unregister(Subscriber sub)
@@ -202,21 +358,26 @@ public class EventBus
 			return;
 		}
 
-		subscribers = ImmutableMultimap.copyOf(Iterables.filter(
-			subscribers.entries(),
-			e -> sub != e.getValue()
-		));
+		remove(s -> s == sub);
 	}
 
 	/**
 	 * Posts provided event to all registered subscribers. Subscriber calls are invoked immediately,
-	 * ordered by priority then their declaring class' name.
+	 * ordered by priority then their declaring class' name. {@link Subscribe#async()} subscribers
+	 * only have the event queued.
 	 *
 	 * @param event event to post
 	 */
 	public void post(@Nonnull final Object event)
 	{
-		for (final Subscriber subscriber : subscribers.get(event.getClass()))
+		final EventBusProfiler profiler = this.profiler;
+		if (profiler != null)
+		{
+			postProfiled(profiler, event);
+			return;
+		}
+
+		for (final Subscriber subscriber : dispatch.get(event.getClass()))
 		{
 			try
 			{
@@ -228,4 +389,35 @@ public class EventBus
 			}
 		}
 	}
+
+	private void postProfiled(final EventBusProfiler profiler, final Object event)
+	{
+		for (final Subscriber subscriber : dispatch.get(event.getClass()))
+		{
+			try
+			{
+				profiler.invoke(subscriber, event);
+			}
+			catch (Exception e)
+			{
+				exceptionHandler.accept(e);
+			}
+		}
+	}
+
+	/**
+	 * Set the profiler which subscriber calls are measured with, or null to stop profiling.
+	 *
+	 * @param profiler
+	 */
+	public void setProfiler(@Nullable EventBusProfiler profiler)
+	{
+		this.profiler = profiler;
+	}
+
+	@Nullable
+	public EventBusProfiler getProfiler()
+	{
+		return profiler;
+	}
 }
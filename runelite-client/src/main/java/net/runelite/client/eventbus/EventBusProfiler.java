@@ -0,0 +1,331 @@
+/*
+ * Copyright (c) 2022, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.eventbus;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.concurrent.ThreadSafe;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Records how long each subscriber takes to handle its events, and optionally how much
+ * it allocates. Install it with {@link EventBus#setProfiler(EventBusProfiler)}; when no
+ * profiler is installed the event bus does not measure anything.
+ * <p>
+ * {@link Subscribe#async()} subscribers have two rows: queueing the event on the posting
+ * thread, and handling it on the async executor.
+ */
+@Slf4j
+@ThreadSafe
+public class EventBusProfiler
+{
+	// the histogram has 2^SUB_BUCKET_BITS buckets per power of two, so percentiles are
+	// accurate to within 1/2^SUB_BUCKET_BITS of the true value
+	private static final int SUB_BUCKET_BITS = 3;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+	@Value
+	public static class Stats
+	{
+		private final String subscriber;
+		private final Class<?> eventClass;
+		private final long count;
+		private final long totalNanos;
+		private final long p99Nanos;
+		private final long maxNanos;
+		/**
+		 * Bytes allocated by the subscriber, or -1 if the jvm can not measure allocations
+		 */
+		private final long allocatedBytes;
+		/**
+		 * Whether the subscriber is async
+		 */
+		private final boolean async;
+		/**
+		 * Whether only queueing the event for an async subscriber is measured, rather than handling it
+		 */
+		private final boolean enqueue;
+
+		public String getDisplayName()
+		{
+			if (enqueue)
+			{
+				return subscriber + " (async, enqueue)";
+			}
+			return async ? subscriber + " (async)" : subscriber;
+		}
+	}
+
+	private static final class Recorder
+	{
+		private final String subscriber;
+		private final Class<?> eventClass;
+		private final boolean async;
+		private final boolean enqueue;
+		private final long[] histogram = new long[BUCKETS];
+		private long count;
+		private long totalNanos;
+		private long maxNanos;
+		private long allocatedBytes;
+
+		private Recorder(String subscriber, Class<?> eventClass, boolean async, boolean enqueue)
+		{
+			this.subscriber = subscriber;
+			this.eventClass = eventClass;
+			this.async = async;
+			this.enqueue = enqueue;
+		}
+
+		private synchronized void record(long nanos, long bytes)
+		{
+			++count;
+			totalNanos += nanos;
+			maxNanos = Math.max(maxNanos, nanos);
+			allocatedBytes += bytes;
+			++histogram[bucket(nanos)];
+		}
+
+		private synchronized Stats snapshot(boolean allocations)
+		{
+			long p99 = 0;
+			long threshold = count - count / 100;
+			long seen = 0;
+			for (int i = 0; i < BUCKETS; ++i)
+			{
+				seen += histogram[i];
+				if (seen >= threshold && seen > 0)
+				{
+					p99 = Math.min(bucketMax(i), maxNanos);
+					break;
+				}
+			}
+
+			return new Stats(subscriber, eventClass, count, totalNanos, p99, maxNanos, allocations ? allocatedBytes : -1, async, enqueue);
+		}
+	}
+
+	private final Map<EventBus.Subscriber, Recorder> recorders = new ConcurrentHashMap<>();
+	// async subscribers handling events on the executor, kept apart from queueing them
+	private final Map<EventBus.Subscriber, Recorder> asyncRecorders = new ConcurrentHashMap<>();
+	private final com.sun.management.ThreadMXBean allocationBean;
+	private ScheduledFuture<?> dumpFuture;
+
+	public EventBusProfiler()
+	{
+		this(true);
+	}
+
+	/**
+	 * @param measureAllocations whether to also measure allocations, if the jvm supports it.
+	 *                           This roughly doubles the overhead of profiling.
+	 */
+	public EventBusProfiler(boolean measureAllocations)
+	{
+		allocationBean = measureAllocations ? findAllocationBean() : null;
+	}
+
+	private static com.sun.management.ThreadMXBean findAllocationBean()
+	{
+		try
+		{
+			ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+			if (bean instanceof com.sun.management.ThreadMXBean)
+			{
+				com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+				if (sunBean.isThreadAllocatedMemorySupported())
+				{
+					sunBean.setThreadAllocatedMemoryEnabled(true);
+					return sunBean;
+				}
+			}
+		}
+		catch (LinkageError | UnsupportedOperationException | SecurityException e)
+		{
+			log.debug("Unable to measure thread allocations", e);
+		}
+		return null;
+	}
+
+	public boolean isMeasuringAllocations()
+	{
+		return allocationBean != null;
+	}
+
+	void invoke(EventBus.Subscriber subscriber, Object event) throws Exception
+	{
+		// async subscribers only queue the event here
+		final boolean async = subscriber.getLambda() instanceof AsyncDispatcher;
+		measure(recorders, subscriber, event, async, async);
+	}
+
+	/**
+	 * Handle an event of an async subscriber, on the async executor
+	 */
+	void invokeAsync(EventBus.Subscriber subscriber, Object event) throws Exception
+	{
+		measure(asyncRecorders, subscriber, event, true, false);
+	}
+
+	private void measure(Map<EventBus.Subscriber, Recorder> table, EventBus.Subscriber subscriber, Object event, boolean async, boolean enqueue) throws Exception
+	{
+		final com.sun.management.ThreadMXBean allocationBean = this.allocationBean;
+		final long threadId = allocationBean != null ? Thread.currentThread().getId() : 0L;
+		final long startBytes = allocationBean != null ? allocationBean.getThreadAllocatedBytes(threadId) : 0L;
+		final long start = System.nanoTime();
+		try
+		{
+			subscriber.invoke(event);
+		}
+		finally
+		{
+			final long nanos = System.nanoTime() - start;
+			final long bytes = allocationBean != null ? allocationBean.getThreadAllocatedBytes(threadId) - startBytes : 0L;
+			// get first, so the common case does not allocate a capturing lambda
+			Recorder recorder = table.get(subscriber);
+			if (recorder == null)
+			{
+				recorder = table.computeIfAbsent(subscriber, s -> new Recorder(name(s), event.getClass(), async, enqueue));
+			}
+			recorder.record(nanos, bytes);
+		}
+	}
+
+	/**
+	 * Get the stats of each subscriber, ordered by total time spent, descending.
+	 */
+	public List<Stats> getStats()
+	{
+		final List<Stats> stats = new ArrayList<>(recorders.size() + asyncRecorders.size());
+		for (Recorder recorder : recorders.values())
+		{
+			stats.add(recorder.snapshot(allocationBean != null));
+		}
+		for (Recorder recorder : asyncRecorders.values())
+		{
+			stats.add(recorder.snapshot(allocationBean != null));
+		}
+		stats.sort(Comparator.comparingLong(Stats::getTotalNanos).reversed());
+		return stats;
+	}
+
+	public void reset()
+	{
+		recorders.clear();
+		asyncRecorders.clear();
+	}
+
+	/**
+	 * Log the slowest subscribers
+	 *
+	 * @param limit maximum number of subscribers to log
+	 */
+	public void dump(int limit)
+	{
+		final List<Stats> stats = getStats();
+		if (stats.isEmpty())
+		{
+			return;
+		}
+
+		final StringBuilder sb = new StringBuilder("Event subscriber profile:");
+		for (Stats s : stats.subList(0, Math.min(limit, stats.size())))
+		{
+			sb.append(String.format("%n  %-60s %-30s calls: %8d total: %8.2fms mean: %8dns p99: %8dns max: %8dns alloc: %s",
+				s.getDisplayName(), s.getEventClass().getSimpleName(), s.getCount(), s.getTotalNanos() / 1e6,
+				s.getTotalNanos() / s.getCount(), s.getP99Nanos(), s.getMaxNanos(),
+				s.getAllocatedBytes() < 0 ? "n/a" : s.getAllocatedBytes() + "B"));
+		}
+		log.info(sb.toString());
+	}
+
+	/**
+	 * Log the slowest subscribers periodically, until {@link #stopDump()} is called.
+	 * This replaces any previously scheduled dump.
+	 *
+	 * @param executor executor to log on
+	 * @param period   time between dumps
+	 * @param unit     unit of the period
+	 * @param limit    maximum number of subscribers to log
+	 */
+	public synchronized void scheduleDump(ScheduledExecutorService executor, long period, TimeUnit unit, int limit)
+	{
+		stopDump();
+		dumpFuture = executor.scheduleWithFixedDelay(() -> dump(limit), period, period, unit);
+	}
+
+	public synchronized void stopDump()
+	{
+		if (dumpFuture != null)
+		{
+			dumpFuture.cancel(false);
+			dumpFuture = null;
+		}
+	}
+
+	private static String name(EventBus.Subscriber subscriber)
+	{
+		if (subscriber.getMethod() != null)
+		{
+			return subscriber.getMethod().getDeclaringClass().getName() + "." + subscriber.getMethod().getName();
+		}
+		return subscriber.getObject().getClass().getName();
+	}
+
+	static int bucket(long nanos)
+	{
+		if (nanos < SUB_BUCKETS)
+		{
+			return (int) Math.max(nanos, 0L);
+		}
+
+		final int shift = 63 - Long.numberOfLeadingZeros(nanos) - SUB_BUCKET_BITS;
+		return ((shift + 1) << SUB_BUCKET_BITS) + (int) ((nanos >>> shift) & (SUB_BUCKETS - 1));
+	}
+
+	/**
+	 * The largest value which falls into the given bucket
+	 */
+	static long bucketMax(int bucket)
+	{
+		if (bucket < SUB_BUCKETS)
+		{
+			return bucket;
+		}
+
+		final int shift = (bucket >>> SUB_BUCKET_BITS) - 1;
+		final long sub = SUB_BUCKETS + (bucket & (SUB_BUCKETS - 1));
+		return ((sub + 1) << shift) - 1;
+	}
+}
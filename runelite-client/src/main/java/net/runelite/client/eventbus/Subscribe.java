@@ -39,4 +39,15 @@ import java.lang.annotation.Target;
 public @interface Subscribe
 {
 	float priority() default 0;
+
+	/**
+	 * Deliver events to this subscriber on a worker thread instead of the posting thread.
+	 * Events are delivered in the order they were posted, but may be dropped if the subscriber
+	 * falls too far behind. Async subscribers receive a copy of the event taken when it was
+	 * posted, so the event class must have a snapshot registered with
+	 * {@link EventBus#registerSnapshot(Class, java.util.function.UnaryOperator)}. They must not
+	 * access client state which is only safe to use from the client thread, including client
+	 * objects referenced by the event.
+	 */
+	boolean async() default false;
 }
@@ -144,6 +144,7 @@ public class DevToolsPlugin extends Plugin
 	private DevToolsButton soundEffects;
 	private DevToolsButton scriptInspector;
 	private DevToolsButton inventoryInspector;
+	private DevToolsButton eventBusInspector;
 	private DevToolsButton roofs;
 	private DevToolsButton shell;
 	private NavigationButton navButton;
@@ -190,6 +191,7 @@ public class DevToolsPlugin extends Plugin
 		soundEffects = new DevToolsButton("Sound Effects");
 		scriptInspector = new DevToolsButton("Script Inspector");
 		inventoryInspector = new DevToolsButton("Inventory Inspector");
+		eventBusInspector = new DevToolsButton("Event Bus Inspector");
 		roofs = new DevToolsButton("Roofs");
 		shell = new DevToolsButton("Shell");
 
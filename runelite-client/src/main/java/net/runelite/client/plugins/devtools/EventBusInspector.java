@@ -0,0 +1,235 @@
+/*
+ * Copyright (c) 2022, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.plugins.devtools;
+
+import java.awt.BorderLayout;
+import java.awt.Dimension;
+import java.awt.FlowLayout;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import javax.swing.JButton;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.Timer;
+import javax.swing.table.AbstractTableModel;
+import net.runelite.client.eventbus.EventBus;
+import net.runelite.client.eventbus.EventBusProfiler;
+
+@Singleton
+class EventBusInspector extends DevToolsFrame
+{
+	private static final int REFRESH_INTERVAL_MS = 1000;
+	private static final int DUMP_INTERVAL_SECONDS = 60;
+	private static final int DUMP_LIMIT = 25;
+
+	private static final String[] COLUMNS = {
+		"Subscriber", "Event", "Calls", "Total (ms)", "Mean (ns)", "p99 (ns)", "Max (ns)", "Allocated (KiB)"
+	};
+
+	private final EventBus eventBus;
+	private final ScheduledExecutorService executor;
+
+	private final StatsTableModel tableModel = new StatsTableModel();
+	private final JLabel allocationLabel = new JLabel();
+	private final Timer refreshTimer = new Timer(REFRESH_INTERVAL_MS, e -> refresh());
+
+	private EventBusProfiler profiler;
+	// whether the profiler was installed by the inspector, rather than at startup
+	private boolean installedProfiler;
+
+	@Inject
+	EventBusInspector(EventBus eventBus, ScheduledExecutorService executor)
+	{
+		this.eventBus = eventBus;
+		this.executor = executor;
+
+		setTitle("RuneLite Event Bus Inspector");
+		setLayout(new BorderLayout());
+
+		final JTable table = new JTable(tableModel);
+		table.setAutoCreateRowSorter(true);
+		table.getColumnModel().getColumn(0).setPreferredWidth(400);
+		table.getColumnModel().getColumn(1).setPreferredWidth(150);
+
+		final JScrollPane scrollPane = new JScrollPane(table);
+		scrollPane.setPreferredSize(new Dimension(1000, 400));
+		add(scrollPane, BorderLayout.CENTER);
+
+		final JPanel bottom = new JPanel();
+		bottom.setLayout(new FlowLayout());
+
+		final JButton resetBtn = new JButton("Reset");
+		resetBtn.addActionListener(e ->
+		{
+			if (profiler != null)
+			{
+				profiler.reset();
+				refresh();
+			}
+		});
+		bottom.add(resetBtn);
+
+		final JButton dumpBtn = new JButton("Log");
+		dumpBtn.addActionListener(e -> dump());
+		bottom.add(dumpBtn);
+
+		bottom.add(allocationLabel);
+
+		add(bottom, BorderLayout.SOUTH);
+
+		pack();
+	}
+
+	@Override
+	public void open()
+	{
+		profiler = eventBus.getProfiler();
+		installedProfiler = profiler == null;
+		if (installedProfiler)
+		{
+			profiler = new EventBusProfiler();
+			profiler.scheduleDump(executor, DUMP_INTERVAL_SECONDS, TimeUnit.SECONDS, DUMP_LIMIT);
+			eventBus.setProfiler(profiler);
+		}
+		allocationLabel.setText(profiler.isMeasuringAllocations() ? "" : "Allocations are not measurable on this jvm");
+
+		refreshTimer.start();
+		super.open();
+	}
+
+	@Override
+	public void close()
+	{
+		refreshTimer.stop();
+
+		// a profiler installed at startup keeps running, with its own dump schedule
+		if (installedProfiler && profiler != null)
+		{
+			profiler.stopDump();
+			if (eventBus.getProfiler() == profiler)
+			{
+				eventBus.setProfiler(null);
+			}
+			dump();
+		}
+		profiler = null;
+		tableModel.setStats(Collections.emptyList());
+		super.close();
+	}
+
+	private void dump()
+	{
+		final EventBusProfiler profiler = this.profiler;
+		if (profiler != null)
+		{
+			profiler.dump(DUMP_LIMIT);
+		}
+	}
+
+	private void refresh()
+	{
+		if (profiler != null)
+		{
+			tableModel.setStats(profiler.getStats());
+		}
+	}
+
+	private static class StatsTableModel extends AbstractTableModel
+	{
+		private List<EventBusProfiler.Stats> stats = Collections.emptyList();
+
+		void setStats(List<EventBusProfiler.Stats> stats)
+		{
+			this.stats = stats;
+			fireTableDataChanged();
+		}
+
+		@Override
+		public String getColumnName(int col)
+		{
+			return COLUMNS[col];
+		}
+
+		@Override
+		public Class<?> getColumnClass(int col)
+		{
+			switch (col)
+			{
+				case 0:
+				case 1:
+					return String.class;
+				case 3:
+					return Double.class;
+				default:
+					return Long.class;
+			}
+		}
+
+		@Override
+		public int getColumnCount()
+		{
+			return COLUMNS.length;
+		}
+
+		@Override
+		public int getRowCount()
+		{
+			return stats.size();
+		}
+
+		@Override
+		public Object getValueAt(int rowIndex, int columnIndex)
+		{
+			final EventBusProfiler.Stats s = stats.get(rowIndex);
+			switch (columnIndex)
+			{
+				case 0:
+					return s.getDisplayName();
+				case 1:
+					return s.getEventClass().getSimpleName();
+				case 2:
+					return s.getCount();
+				case 3:
+					return s.getTotalNanos() / 1e6;
+				case 4:
+					return s.getTotalNanos() / s.getCount();
+				case 5:
+					return s.getP99Nanos();
+				case 6:
+					return s.getMaxNanos();
+				case 7:
+					return s.getAllocatedBytes() < 0 ? null : s.getAllocatedBytes() / 1024;
+				default:
+					return null;
+			}
+		}
+	}
+}
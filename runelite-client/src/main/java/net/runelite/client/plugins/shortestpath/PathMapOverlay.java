@@ -5,6 +5,7 @@ import net.runelite.api.Point;
 import net.runelite.api.coords.WorldPoint;
 import net.runelite.api.widgets.Widget;
 import net.runelite.api.widgets.WidgetInfo;
+import net.runelite.client.plugins.shortestpath.pathfinder.PathfinderService;
 import net.runelite.client.ui.overlay.Overlay;
 import net.runelite.client.ui.overlay.OverlayLayer;
 import net.runelite.client.ui.overlay.OverlayPosition;
@@ -14,7 +15,6 @@ import net.runelite.client.ui.overlay.worldmap.WorldMapOverlay;
 import javax.inject.Inject;
 import java.awt.*;
 import java.awt.geom.Area;
-import java.util.List;
 
 public class PathMapOverlay extends Overlay {
     private final Client client;
@@ -64,17 +64,19 @@ public class PathMapOverlay extends Overlay {
 
         mapClipArea = getWorldMapClipArea(client.getWidget(WidgetInfo.WORLD_MAP_VIEW).getBounds());
 
-        if (plugin.path != null && !plugin.pathUpdateScheduled) {
-            for (WorldPoint point : plugin.path) {
+        PathfinderService pathfinder = plugin.pathfinder;
+        if (pathfinder == null) {
+            return null;
+        }
+
+        PathfinderService.Result result = pathfinder.getResult();
+        if (result.path != null && !result.searching) {
+            for (WorldPoint point : result.path) {
                 drawOnMap(graphics, point, new Color(255, 0, 0, 255));
             }
-        } else if (plugin.pathUpdateScheduled && plugin.pathfinder != null) {
-            List<WorldPoint> bestPath = plugin.pathfinder.currentBest();
-
-            if (bestPath != null) {
-                for (WorldPoint point : bestPath) {
-                    drawOnMap(graphics, point, new Color(0, 0, 255, 255));
-                }
+        } else if (result.partial != null) {
+            for (WorldPoint point : result.partial) {
+                drawOnMap(graphics, point, new Color(0, 0, 255, 255));
             }
         }
 
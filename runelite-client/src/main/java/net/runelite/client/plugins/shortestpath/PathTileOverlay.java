@@ -12,6 +12,7 @@ import net.runelite.client.ui.overlay.OverlayPriority;
 
 import javax.inject.Inject;
 import java.awt.*;
+import java.util.List;
 
 public class PathTileOverlay extends Overlay {
     private final Client client;
@@ -98,8 +99,9 @@ public class PathTileOverlay extends Overlay {
             }
         }
 
-        if (config.drawTiles() && plugin.path != null) {
-            for (WorldPoint point : plugin.path) {
+        List<WorldPoint> path = plugin.getPath();
+        if (config.drawTiles() && path != null) {
+            for (WorldPoint point : path) {
                 drawTile(graphics, point, new Color(255, 0, 0, 128));
             }
         }
@@ -12,13 +12,16 @@ import net.runelite.api.events.MenuOpened;
 import net.runelite.api.events.MenuOptionClicked;
 import net.runelite.api.widgets.Widget;
 import net.runelite.api.widgets.WidgetInfo;
+import net.runelite.client.RuneLite;
 import net.runelite.client.config.ConfigManager;
 import net.runelite.client.eventbus.Subscribe;
 import net.runelite.client.plugins.Plugin;
 import net.runelite.client.plugins.PluginDescriptor;
 import net.runelite.client.plugins.shortestpath.pathfinder.CollisionMap;
-import net.runelite.client.plugins.shortestpath.pathfinder.Pathfinder;
-import net.runelite.client.plugins.shortestpath.pathfinder.SplitFlagMap;
+import net.runelite.client.plugins.shortestpath.pathfinder.CompressedCollisionMap;
+import net.runelite.client.plugins.shortestpath.pathfinder.FlatCollisionMap;
+import net.runelite.client.plugins.shortestpath.pathfinder.PathfinderService;
+import net.runelite.client.plugins.shortestpath.pathfinder.RoutingGraph;
 import net.runelite.client.ui.overlay.OverlayManager;
 import net.runelite.client.ui.overlay.worldmap.WorldMapOverlay;
 import net.runelite.client.ui.overlay.worldmap.WorldMapPoint;
@@ -30,14 +33,12 @@ import javax.inject.Inject;
 import java.awt.*;
 import java.awt.datatransfer.StringSelection;
 import java.awt.image.BufferedImage;
+import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.*;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
+import java.util.concurrent.ScheduledExecutorService;
 
 @Slf4j
 @PluginDescriptor(name = "Shortest Path", description = "Draws the shortest path to a chosen destination on the map (right click a spot on the world map to use)")
@@ -60,39 +61,59 @@ public class ShortestPathPlugin extends Plugin {
     private WorldMapPointManager worldMapPointManager;
     @Inject
     private WorldMapOverlay worldMapOverlay;
-    public CollisionMap map;
-    public List<WorldPoint> path = null;
+    @Inject
+    private ScheduledExecutorService executor;
+    public volatile CollisionMap map;
     private WorldPoint target = null;
-    private boolean running;
     private Point lastMenuOpenedPoint;
     public WorldMapPoint marker;
     private static final BufferedImage MARKER_IMAGE = ImageUtil.loadImageResource(ShortestPathPlugin.class, "marker.png");
-    public boolean pathUpdateScheduled = false;
     public final Map<WorldPoint, List<WorldPoint>> transports = new HashMap<>();
-    public Pathfinder pathfinder;
+    public volatile PathfinderService pathfinder;
     private WorldPoint transportStart;
     private MenuOptionClicked lastClick;
 
     @Override
     protected void startUp() {
-        Map<SplitFlagMap.Position, byte[]> compressedRegions = new HashMap<>();
-
-        InputStream stream = ShortestPathPlugin.class.getResourceAsStream("collision-map.zip");
-        try (ZipInputStream in = new ZipInputStream(stream)) {
-            ZipEntry entry;
-            while ((entry = in.getNextEntry()) != null) {
-                String[] n = entry.getName().split("_");
-
-                compressedRegions.put(
-                        new SplitFlagMap.Position(Integer.parseInt(n[0]), Integer.parseInt(n[1])),
-                        Util.readAllBytes(in)
-                );
+        CompressedCollisionMap compressed = CompressedCollisionMap.fromResources();
+        map = compressed;
+        transports.putAll(loadTransports());
+        PathfinderService service = new PathfinderService(map, RoutingGraph.fromResources());
+        pathfinder = service;
+
+        // converting the flat map takes a few seconds, so search the compressed map until it is ready
+        executor.execute(() -> {
+            FlatCollisionMap flat;
+            try {
+                flat = FlatCollisionMap.fromResources(new File(RuneLite.CACHE_DIR, "shortest-path"), compressed);
+            } catch (IOException e) {
+                log.warn("Unable to create the flat collision map, using the compressed map", e);
+                return;
             }
-        } catch (IOException e) {
-            throw new UncheckedIOException(e);
-        }
 
-        map = new CollisionMap(64, compressedRegions);
+            if (pathfinder == service) {
+                map = flat;
+                service.setMap(flat);
+            }
+        });
+
+        overlayManager.add(pathOverlay);
+        overlayManager.add(pathMinimapOverlay);
+        overlayManager.add(pathMapOverlay);
+    }
+
+    @Override
+    protected void shutDown() {
+        pathfinder.shutdown();
+        pathfinder = null;
+        map = null;
+        overlayManager.remove(pathOverlay);
+        overlayManager.remove(pathMinimapOverlay);
+        overlayManager.remove(pathMapOverlay);
+    }
+
+    public static Map<WorldPoint, List<WorldPoint>> loadTransports() {
+        Map<WorldPoint, List<WorldPoint>> transports = new HashMap<>();
 
         try {
             String s = new String(Util.readAllBytes(ShortestPathPlugin.class.getResourceAsStream("transports.txt")), StandardCharsets.UTF_8);
@@ -113,41 +134,22 @@ public class ShortestPathPlugin extends Plugin {
             throw new RuntimeException(e);
         }
 
-        running = true;
-
-        new Thread(() -> {
-            while (running) {
-                if (pathUpdateScheduled) {
-                    if (target == null) {
-                        path = null;
-                    } else {
-                        pathfinder = new Pathfinder(map, transports, client.getLocalPlayer().getWorldLocation(), target, config.avoidWilderness() && !isInWilderness(target));
-                        path = pathfinder.find();
-                        pathUpdateScheduled = false;
-                    }
-                }
-
-                Util.sleep(10);
-            }
-        }).start();
+        return transports;
+    }
 
-        overlayManager.add(pathOverlay);
-        overlayManager.add(pathMinimapOverlay);
-        overlayManager.add(pathMapOverlay);
+    public static boolean isInWilderness(WorldPoint p) {
+        return isInWilderness(p.getX(), p.getY(), p.getPlane());
     }
 
-    @Override
-    protected void shutDown() {
-        map = null;
-        running = false;
-        overlayManager.remove(pathOverlay);
-        overlayManager.remove(pathMinimapOverlay);
-        overlayManager.add(pathMapOverlay);
+    public static boolean isInWilderness(int x, int y, int plane) {
+        return contains(WILDERNESS_ABOVE_GROUND, x, y, plane) ||
+                contains(WILDERNESS_UNDERGROUND, x, y, plane);
     }
 
-    public static boolean isInWilderness(WorldPoint p) {
-        return WILDERNESS_ABOVE_GROUND.distanceTo(p) == 0 ||
-                WILDERNESS_UNDERGROUND.distanceTo(p) == 0;
+    private static boolean contains(WorldArea area, int x, int y, int plane) {
+        return plane == area.getPlane() &&
+                x >= area.getX() && x < area.getX() + area.getWidth() &&
+                y >= area.getY() && y < area.getY() + area.getHeight();
     }
 
     @Subscribe
@@ -157,23 +159,24 @@ public class ShortestPathPlugin extends Plugin {
 
     @Subscribe
     public void onGameTick(GameTick tick) {
-        if (path != null) {
-            if (!isNearPath()) {
+        PathfinderService.Result result = pathfinder.getResult();
+        if (result.path != null && !result.searching) {
+            if (!isNearPath(result.path)) {
                 if (config.cancelInstead()) {
                     target = null;
                 }
 
-                pathUpdateScheduled = true;
+                updatePath();
             }
 
-            if (client.getLocalPlayer().getWorldLocation().distanceTo(target) < config.reachedDistance()) {
+            if (target != null && client.getLocalPlayer().getWorldLocation().distanceTo(target) < config.reachedDistance()) {
                 target = null;
-                pathUpdateScheduled = true;
+                updatePath();
             }
         }
     }
 
-    private boolean isNearPath() {
+    private boolean isNearPath(List<WorldPoint> path) {
         for (WorldPoint point : path) {
             if (client.getLocalPlayer().getWorldLocation().distanceTo(point) < config.recalculateDistance()) {
                 return true;
@@ -182,6 +185,22 @@ public class ShortestPathPlugin extends Plugin {
         return false;
     }
 
+    /**
+     * @return the last completed path, or null
+     */
+    public List<WorldPoint> getPath() {
+        PathfinderService pathfinder = this.pathfinder;
+        return pathfinder == null ? null : pathfinder.getResult().path;
+    }
+
+    private void updatePath() {
+        if (target == null) {
+            pathfinder.cancel();
+        } else {
+            pathfinder.search(client.getLocalPlayer().getWorldLocation(), target, transports, config.avoidWilderness() && !isInWilderness(target));
+        }
+    }
+
     @Subscribe
     public void onMenuEntryAdded(MenuEntryAdded event) {
         if (config.drawTransports()) {
@@ -236,7 +255,7 @@ public class ShortestPathPlugin extends Plugin {
 
     private void setTarget(WorldPoint target) {
         this.target = target;
-        pathUpdateScheduled = true;
+        updatePath();
 
         if (target == null) {
             worldMapPointManager.remove(marker);
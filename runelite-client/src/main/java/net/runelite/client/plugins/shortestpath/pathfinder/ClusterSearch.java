@@ -0,0 +1,154 @@
+package net.runelite.client.plugins.shortestpath.pathfinder;
+
+import net.runelite.api.coords.WorldPoint;
+import net.runelite.client.plugins.shortestpath.ShortestPathPlugin;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Breadth first search confined to the 64x64 cluster containing the source tile,
+ * walking only and without transports. Walking is symmetric, so searching from a
+ * target also gives the paths from each tile in the cluster to the target.
+ */
+class ClusterSearch {
+    static final int SHIFT = 6;
+    static final int SIZE = 1 << SHIFT;
+
+    private final CollisionMap map;
+    private final int[] distances = new int[SIZE * SIZE];
+    private final int[] parents = new int[SIZE * SIZE];
+    private final int[] queue = new int[SIZE * SIZE];
+    private int minX;
+    private int minY;
+    private int plane;
+
+    ClusterSearch(CollisionMap map) {
+        this.map = map;
+    }
+
+    /**
+     * @return the cluster of a packed tile, itself packed as a position
+     */
+    static int cluster(int packed) {
+        return PackedPosition.pack(PackedPosition.getX(packed) >> SHIFT, PackedPosition.getY(packed) >> SHIFT, PackedPosition.getPlane(packed));
+    }
+
+    void search(int source, boolean avoidWilderness) {
+        minX = PackedPosition.getX(source) & -SIZE;
+        minY = PackedPosition.getY(source) & -SIZE;
+        plane = PackedPosition.getPlane(source);
+        Arrays.fill(distances, -1);
+
+        int head = 0;
+        int tail = 0;
+        int local = local(PackedPosition.getX(source), PackedPosition.getY(source));
+        distances[local] = 0;
+        parents[local] = local;
+        queue[tail++] = local;
+
+        while (head < tail) {
+            int node = queue[head++];
+            int x = minX + (node & (SIZE - 1));
+            int y = minY + (node >> SHIFT);
+            int distance = distances[node] + 1;
+
+            int directions = map.directions(x, y, plane);
+            if ((directions & CollisionMap.WEST) != 0) {
+                tail = visit(node, x - 1, y, distance, avoidWilderness, tail);
+            }
+
+            if ((directions & CollisionMap.EAST) != 0) {
+                tail = visit(node, x + 1, y, distance, avoidWilderness, tail);
+            }
+
+            if ((directions & CollisionMap.SOUTH) != 0) {
+                tail = visit(node, x, y - 1, distance, avoidWilderness, tail);
+            }
+
+            if ((directions & CollisionMap.NORTH) != 0) {
+                tail = visit(node, x, y + 1, distance, avoidWilderness, tail);
+            }
+
+            if ((directions & CollisionMap.SOUTH_WEST) != 0) {
+                tail = visit(node, x - 1, y - 1, distance, avoidWilderness, tail);
+            }
+
+            if ((directions & CollisionMap.SOUTH_EAST) != 0) {
+                tail = visit(node, x + 1, y - 1, distance, avoidWilderness, tail);
+            }
+
+            if ((directions & CollisionMap.NORTH_WEST) != 0) {
+                tail = visit(node, x - 1, y + 1, distance, avoidWilderness, tail);
+            }
+
+            if ((directions & CollisionMap.NORTH_EAST) != 0) {
+                tail = visit(node, x + 1, y + 1, distance, avoidWilderness, tail);
+            }
+        }
+    }
+
+    private int visit(int parent, int x, int y, int distance, boolean avoidWilderness, int tail) {
+        if (x < minX || x >= minX + SIZE || y < minY || y >= minY + SIZE) {
+            return tail;
+        }
+
+        int local = local(x, y);
+        if (distances[local] != -1) {
+            return tail;
+        }
+
+        if (avoidWilderness && ShortestPathPlugin.isInWilderness(x, y, plane)) {
+            return tail;
+        }
+
+        distances[local] = distance;
+        parents[local] = parent;
+        queue[tail] = local;
+        return tail + 1;
+    }
+
+    private int local(int x, int y) {
+        return (y - minY) << SHIFT | (x - minX);
+    }
+
+    private boolean contains(int packed) {
+        int x = PackedPosition.getX(packed);
+        int y = PackedPosition.getY(packed);
+        return PackedPosition.getPlane(packed) == plane && x >= minX && x < minX + SIZE && y >= minY && y < minY + SIZE;
+    }
+
+    /**
+     * @return the number of steps from the source to a tile, or -1 if it was not reached
+     */
+    int distance(int packed) {
+        return contains(packed) ? distances[local(PackedPosition.getX(packed), PackedPosition.getY(packed))] : -1;
+    }
+
+    /**
+     * @return the tiles from the source to a tile, inclusive, or null if it was not reached
+     */
+    List<WorldPoint> path(int packed) {
+        int distance = distance(packed);
+        if (distance == -1) {
+            // the parents of unreached tiles are left over from earlier searches
+            return null;
+        }
+
+        List<WorldPoint> path = new ArrayList<>(distance + 1);
+        int node = local(PackedPosition.getX(packed), PackedPosition.getY(packed));
+        while (true) {
+            path.add(new WorldPoint(minX + (node & (SIZE - 1)), minY + (node >> SHIFT), plane));
+
+            int parent = parents[node];
+            if (parent == node) {
+                break;
+            }
+            node = parent;
+        }
+        Collections.reverse(path);
+        return path;
+    }
+}
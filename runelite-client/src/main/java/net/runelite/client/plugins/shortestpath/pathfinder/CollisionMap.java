@@ -1,41 +1,93 @@
 package net.runelite.client.plugins.shortestpath.pathfinder;
 
-import java.util.Map;
+import java.util.Set;
 
-public class CollisionMap extends SplitFlagMap {
-    public CollisionMap(int regionSize, Map<Position, byte[]> compressedRegions) {
-        super(regionSize, compressedRegions, 2);
-    }
+/**
+ * Walkability of the tiles in the world. A tile stores whether it can be left to the north
+ * and to the east, everything else is derived from its neighbours.
+ */
+public interface CollisionMap {
+    int WEST = 1;
+    int EAST = 1 << 1;
+    int SOUTH = 1 << 2;
+    int NORTH = 1 << 3;
+    int SOUTH_WEST = 1 << 4;
+    int SOUTH_EAST = 1 << 5;
+    int NORTH_WEST = 1 << 6;
+    int NORTH_EAST = 1 << 7;
 
-    public boolean n(int x, int y, int z) {
-        return get(x, y, z, 0);
+    /**
+     * Load the collision map shipped with the plugin
+     */
+    static CollisionMap fromResources() {
+        return CompressedCollisionMap.fromResources();
     }
 
-    public boolean s(int x, int y, int z) {
-        return n(x, y - 1, z);
-    }
+    boolean n(int x, int y, int z);
 
-    public boolean e(int x, int y, int z) {
-        return get(x, y, z, 1);
+    boolean e(int x, int y, int z);
+
+    default boolean s(int x, int y, int z) {
+        return n(x, y - 1, z);
     }
 
-    public boolean w(int x, int y, int z) {
+    default boolean w(int x, int y, int z) {
         return e(x - 1, y, z);
     }
 
-    public boolean ne(int x, int y, int z) {
+    default boolean ne(int x, int y, int z) {
         return n(x, y, z) && e(x, y + 1, z) && e(x, y, z) && n(x + 1, y, z);
     }
 
-    public boolean nw(int x, int y, int z) {
+    default boolean nw(int x, int y, int z) {
         return n(x, y, z) && w(x, y + 1, z) && w(x, y, z) && n(x - 1, y, z);
     }
 
-    public boolean se(int x, int y, int z) {
+    default boolean se(int x, int y, int z) {
         return s(x, y, z) && e(x, y - 1, z) && e(x, y, z) && s(x + 1, y, z);
     }
 
-    public boolean sw(int x, int y, int z) {
+    default boolean sw(int x, int y, int z) {
         return s(x, y, z) && w(x, y - 1, z) && w(x, y, z) && s(x - 1, y, z);
     }
+
+    /**
+     * @return the directions a tile can be left in, as a mask of {@link #WEST}, {@link #EAST},
+     * {@link #SOUTH}, {@link #NORTH} and the diagonals
+     */
+    default int directions(int x, int y, int z) {
+        int directions = 0;
+        if (w(x, y, z)) {
+            directions |= WEST;
+        }
+        if (e(x, y, z)) {
+            directions |= EAST;
+        }
+        if (s(x, y, z)) {
+            directions |= SOUTH;
+        }
+        if (n(x, y, z)) {
+            directions |= NORTH;
+        }
+        if (sw(x, y, z)) {
+            directions |= SOUTH_WEST;
+        }
+        if (se(x, y, z)) {
+            directions |= SOUTH_EAST;
+        }
+        if (nw(x, y, z)) {
+            directions |= NORTH_WEST;
+        }
+        if (ne(x, y, z)) {
+            directions |= NORTH_EAST;
+        }
+        return directions;
+    }
+
+    /**
+     * @return the positions of the regions which have flags
+     */
+    Set<SplitFlagMap.Position> getRegions();
+
+    int getRegionSize();
 }
@@ -0,0 +1,55 @@
+package net.runelite.client.plugins.shortestpath.pathfinder;
+
+import net.runelite.client.plugins.shortestpath.ShortestPathPlugin;
+import net.runelite.client.plugins.shortestpath.Util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Collision map stored as gzip compressed regions, which are inflated on demand
+ */
+public class CompressedCollisionMap extends SplitFlagMap implements CollisionMap {
+    public CompressedCollisionMap(int regionSize, Map<Position, byte[]> compressedRegions) {
+        super(regionSize, compressedRegions, 2);
+    }
+
+    /**
+     * Load the collision map shipped with the plugin
+     */
+    public static CompressedCollisionMap fromResources() {
+        Map<SplitFlagMap.Position, byte[]> compressedRegions = new HashMap<>();
+
+        InputStream stream = ShortestPathPlugin.class.getResourceAsStream("collision-map.zip");
+        try (ZipInputStream in = new ZipInputStream(stream)) {
+            ZipEntry entry;
+            while ((entry = in.getNextEntry()) != null) {
+                String[] n = entry.getName().split("_");
+
+                compressedRegions.put(
+                        new SplitFlagMap.Position(Integer.parseInt(n[0]), Integer.parseInt(n[1])),
+                        Util.readAllBytes(in)
+                );
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return new CompressedCollisionMap(64, compressedRegions);
+    }
+
+    @Override
+    public boolean n(int x, int y, int z) {
+        return get(x, y, z, 0);
+    }
+
+    @Override
+    public boolean e(int x, int y, int z) {
+        return get(x, y, z, 1);
+    }
+}
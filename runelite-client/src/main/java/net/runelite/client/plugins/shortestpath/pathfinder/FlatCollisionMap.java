@@ -0,0 +1,320 @@
+package net.runelite.client.plugins.shortestpath.pathfinder;
+
+import net.runelite.client.plugins.shortestpath.ShortestPathPlugin;
+import net.runelite.client.plugins.shortestpath.Util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * Collision map stored uncompressed in a memory mapped file, so lookups are a couple of
+ * array reads rather than a cache lookup and a region inflated on demand.
+ * <p>
+ * The file starts with a header and a directory covering the bounding box of the regions,
+ * holding the page of each region or 0 for regions without flags. Each region is one page
+ * of 4 planes, 64 rows per plane and 2 words per row, the north word followed by the east
+ * word, with bit n of a word being the tile at x = n.
+ */
+public class FlatCollisionMap implements CollisionMap {
+    private static final int MAGIC = 0x53504d31;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 24;
+    private static final int REGION_SHIFT = 6;
+    private static final int REGION_SIZE = 1 << REGION_SHIFT;
+    private static final int PAGE_SIZE = 4096;
+    private static final int LONGS_PER_PAGE = PAGE_SIZE / Long.BYTES;
+    private static final int ROW_LONGS = 2;
+    private static final int PLANE_LONGS = REGION_SIZE * ROW_LONGS;
+
+    private final LongBuffer words;
+    private final int minRegionX;
+    private final int minRegionY;
+    private final int width;
+    private final int height;
+    private final int[] directory;
+    private final Set<SplitFlagMap.Position> regions;
+
+    private FlatCollisionMap(ByteBuffer buffer) throws IOException {
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("not a collision map, or an unsupported version");
+        }
+
+        minRegionX = buffer.getInt(8);
+        minRegionY = buffer.getInt(12);
+        width = buffer.getInt(16);
+        height = buffer.getInt(20);
+        directory = new int[width * height];
+
+        Set<SplitFlagMap.Position> regions = new HashSet<>();
+        int pages = buffer.capacity() / PAGE_SIZE;
+        for (int i = 0; i < directory.length; i++) {
+            int page = buffer.getInt(HEADER_SIZE + i * Integer.BYTES);
+            if (page < 0 || page >= pages) {
+                throw new IOException("region page " + page + " is outside of the file");
+            }
+            if (page != 0) {
+                regions.add(new SplitFlagMap.Position(minRegionX + i % width, minRegionY + i / width));
+            }
+            directory[i] = page * LONGS_PER_PAGE;
+        }
+        this.regions = Collections.unmodifiableSet(regions);
+
+        buffer.position(0);
+        words = buffer.asLongBuffer();
+    }
+
+    /**
+     * Map a collision map file written by {@link #write(CompressedCollisionMap, File)}
+     */
+    public static FlatCollisionMap open(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new FlatCollisionMap(buffer);
+        }
+    }
+
+    /**
+     * Map the collision map shipped with the plugin, converting it into a file in the given
+     * directory the first time it is used. The file is named after the checksum of the
+     * shipped map, so an updated map is converted again. The conversion takes a few
+     * seconds, so this should not be called from the client or event dispatch threads.
+     *
+     * @param compressed the shipped map, already loaded with {@link CompressedCollisionMap#fromResources()}
+     */
+    public static FlatCollisionMap fromResources(File directory, CompressedCollisionMap compressed) throws IOException {
+        byte[] resource;
+        try (InputStream in = ShortestPathPlugin.class.getResourceAsStream("collision-map.zip")) {
+            resource = Util.readAllBytes(in);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(resource);
+        String name = String.format("collision-map-%08x.bin", crc.getValue());
+
+        File file = new File(directory, name);
+        if (file.exists()) {
+            try {
+                return open(file);
+            } catch (IOException e) {
+                // fall through and convert it again
+            }
+        }
+
+        Files.createDirectories(directory.toPath());
+        File[] stale = directory.listFiles((dir, n) -> n.startsWith("collision-map-") && !n.equals(name));
+        if (stale != null) {
+            for (File f : stale) {
+                // a file still mapped by an earlier instance can't be deleted on some platforms
+                f.delete();
+            }
+        }
+
+        File temp = File.createTempFile("collision-map", ".tmp", directory);
+        try {
+            write(compressed, temp);
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            temp.delete();
+        }
+        return open(file);
+    }
+
+    /**
+     * Convert a compressed collision map into the flat format
+     */
+    public static void write(CompressedCollisionMap map, File file) throws IOException {
+        if (map.getRegionSize() != REGION_SIZE) {
+            throw new IllegalArgumentException("region size must be " + REGION_SIZE);
+        }
+
+        Map<SplitFlagMap.Position, long[]> pages = new HashMap<>();
+        for (SplitFlagMap.Position position : map.getRegions()) {
+            FlagMap region = map.getRegion(position);
+            int regionWidth = region.maxX - region.minX + 1;
+            int regionHeight = region.maxY - region.minY + 1;
+
+            BitSet flags = region.flags;
+            for (int i = flags.nextSetBit(0); i >= 0; i = flags.nextSetBit(i + 1)) {
+                int flag = i % 2;
+                int tile = i / 2;
+                int x = region.minX + tile % regionWidth;
+                int y = region.minY + tile / regionWidth % regionHeight;
+                int z = tile / (regionWidth * regionHeight);
+
+                long[] page = pages.computeIfAbsent(new SplitFlagMap.Position(x >> REGION_SHIFT, y >> REGION_SHIFT), k -> new long[LONGS_PER_PAGE]);
+                page[word(y, z) + flag] |= 1L << x;
+            }
+        }
+
+        int minRegionX = Integer.MAX_VALUE;
+        int minRegionY = Integer.MAX_VALUE;
+        int maxRegionX = Integer.MIN_VALUE;
+        int maxRegionY = Integer.MIN_VALUE;
+        for (SplitFlagMap.Position position : pages.keySet()) {
+            minRegionX = Math.min(minRegionX, position.x);
+            minRegionY = Math.min(minRegionY, position.y);
+            maxRegionX = Math.max(maxRegionX, position.x);
+            maxRegionY = Math.max(maxRegionY, position.y);
+        }
+        if (pages.isEmpty()) {
+            minRegionX = minRegionY = 0;
+            maxRegionX = maxRegionY = -1;
+        }
+
+        int width = maxRegionX - minRegionX + 1;
+        int height = maxRegionY - minRegionY + 1;
+        int headerPages = (HEADER_SIZE + width * height * Integer.BYTES + PAGE_SIZE - 1) / PAGE_SIZE;
+
+        ByteBuffer header = ByteBuffer.allocate(headerPages * PAGE_SIZE);
+        header.putInt(MAGIC);
+        header.putInt(VERSION);
+        header.putInt(minRegionX);
+        header.putInt(minRegionY);
+        header.putInt(width);
+        header.putInt(height);
+
+        ByteBuffer data = ByteBuffer.allocate(pages.size() * PAGE_SIZE);
+        int nextPage = headerPages;
+        for (int ry = 0; ry < height; ry++) {
+            for (int rx = 0; rx < width; rx++) {
+                long[] page = pages.get(new SplitFlagMap.Position(minRegionX + rx, minRegionY + ry));
+                if (page == null) {
+                    header.putInt(0);
+                } else {
+                    header.putInt(nextPage++);
+                    data.asLongBuffer().put(page);
+                    data.position(data.position() + PAGE_SIZE);
+                }
+            }
+        }
+
+        header.clear();
+        data.flip();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            while (data.hasRemaining()) {
+                channel.write(data);
+            }
+        }
+    }
+
+    /**
+     * @return the index of the north word of a tile within its page
+     */
+    private static int word(int y, int z) {
+        return z * PLANE_LONGS + (y & (REGION_SIZE - 1)) * ROW_LONGS;
+    }
+
+    /**
+     * @return the index of the first word of the page holding a tile, or -1 if it has no flags
+     */
+    private int page(int x, int y) {
+        int rx = (x >> REGION_SHIFT) - minRegionX;
+        int ry = (y >> REGION_SHIFT) - minRegionY;
+        if (rx < 0 || ry < 0 || rx >= width || ry >= height) {
+            return -1;
+        }
+
+        int page = directory[ry * width + rx];
+        return page == 0 ? -1 : page;
+    }
+
+    private boolean get(int x, int y, int z, int flag) {
+        int page = page(x, y);
+        if (page == -1 || z < 0 || z >= FlagMap.PLANE_COUNT) {
+            return false;
+        }
+
+        return (words.get(page + word(y, z) + flag) >>> x & 1) != 0;
+    }
+
+    @Override
+    public boolean n(int x, int y, int z) {
+        return get(x, y, z, 0);
+    }
+
+    @Override
+    public boolean e(int x, int y, int z) {
+        return get(x, y, z, 1);
+    }
+
+    /**
+     * Tiles away from the region edges read the five words of their own and the adjacent
+     * rows once and test all eight directions from those.
+     */
+    @Override
+    public int directions(int x, int y, int z) {
+        int lx = x & (REGION_SIZE - 1);
+        int ly = y & (REGION_SIZE - 1);
+        if (lx == 0 || ly == 0 || lx == REGION_SIZE - 1 || ly == REGION_SIZE - 1 || z < 0 || z >= FlagMap.PLANE_COUNT) {
+            return CollisionMap.super.directions(x, y, z);
+        }
+
+        int page = page(x, y);
+        if (page == -1) {
+            return 0;
+        }
+
+        // bit 0 is the tile to the west, bit 1 the tile itself and bit 2 the tile to the east
+        int row = page + word(y, z);
+        int shift = lx - 1;
+        int northBelow = (int) (words.get(row - ROW_LONGS) >>> shift) & 7;
+        int north = (int) (words.get(row) >>> shift) & 7;
+        int eastBelow = (int) (words.get(row - ROW_LONGS + 1) >>> shift) & 7;
+        int east = (int) (words.get(row + 1) >>> shift) & 7;
+        int eastAbove = (int) (words.get(row + ROW_LONGS + 1) >>> shift) & 7;
+
+        int directions = 0;
+        if ((east & 1) != 0) {
+            directions |= WEST;
+        }
+        if ((east & 2) != 0) {
+            directions |= EAST;
+        }
+        if ((northBelow & 2) != 0) {
+            directions |= SOUTH;
+            if ((eastBelow & 1) != 0 && (east & 1) != 0 && (northBelow & 1) != 0) {
+                directions |= SOUTH_WEST;
+            }
+            if ((eastBelow & 2) != 0 && (east & 2) != 0 && (northBelow & 4) != 0) {
+                directions |= SOUTH_EAST;
+            }
+        }
+        if ((north & 2) != 0) {
+            directions |= NORTH;
+            if ((eastAbove & 1) != 0 && (east & 1) != 0 && (north & 1) != 0) {
+                directions |= NORTH_WEST;
+            }
+            if ((eastAbove & 2) != 0 && (east & 2) != 0 && (north & 4) != 0) {
+                directions |= NORTH_EAST;
+            }
+        }
+        return directions;
+    }
+
+    @Override
+    public Set<SplitFlagMap.Position> getRegions() {
+        return regions;
+    }
+
+    @Override
+    public int getRegionSize() {
+        return REGION_SIZE;
+    }
+}
@@ -0,0 +1,168 @@
+package net.runelite.client.plugins.shortestpath.pathfinder;
+
+import net.runelite.api.coords.WorldPoint;
+import net.runelite.client.plugins.shortestpath.ShortestPathPlugin;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Search over the {@link RoutingGraph}. Only the clusters containing the start and the
+ * target are searched tile by tile, to connect them to the graph. The walks within
+ * the clusters in between are refined into tiles once the route is known.
+ */
+class HierarchicalSearch {
+    private final RoutingGraph graph;
+    private final CollisionMap map;
+    private final TransportTable transports;
+    private final int start;
+    private final int target;
+    private final boolean avoidWilderness;
+
+    HierarchicalSearch(RoutingGraph graph, CollisionMap map, TransportTable transports, int start, int target, boolean avoidWilderness) {
+        this.graph = graph;
+        this.map = map;
+        this.transports = transports;
+        this.start = start;
+        this.target = target;
+        this.avoidWilderness = avoidWilderness;
+    }
+
+    /**
+     * @return the path to the target, or null if the target could not be reached through the graph
+     */
+    List<WorldPoint> find() {
+        ClusterSearch startSearch = new ClusterSearch(map);
+        startSearch.search(start, avoidWilderness);
+        ClusterSearch targetSearch = new ClusterSearch(map);
+        targetSearch.search(target, avoidWilderness);
+
+        int goal = graph.size();
+        int[] costs = new int[goal + 1];
+        int[] parents = new int[goal + 1];
+        boolean[] closed = new boolean[goal + 1];
+        Arrays.fill(costs, Integer.MAX_VALUE);
+        NodeQueue open = new NodeQueue();
+
+        int direct = startSearch.distance(target);
+        if (direct != -1) {
+            costs[goal] = direct;
+            parents[goal] = -1;
+            open.push(goal, direct, 0);
+        }
+
+        for (int node : graph.getClusterNodes(start)) {
+            int cost = startSearch.distance(graph.nodes[node]);
+            if (cost != -1 && !excluded(node)) {
+                relax(open, costs, parents, -1, node, cost);
+            }
+        }
+
+        while (!open.isEmpty()) {
+            int node = open.poll();
+            if (closed[node]) {
+                continue;
+            }
+            closed[node] = true;
+
+            if (node == goal) {
+                return refine(parents, startSearch, targetSearch);
+            }
+
+            int remaining = targetSearch.distance(graph.nodes[node]);
+            if (remaining != -1) {
+                relax(open, costs, parents, node, goal, costs[node] + remaining);
+            }
+
+            for (int e = graph.edgeOffsets[node]; e < graph.edgeOffsets[node + 1]; ++e) {
+                int neighbor = graph.edgeTargets[e];
+                int cost = avoidWilderness ? graph.edgeCosts[e] >>> 16 : graph.edgeCosts[e] & 0xFFFF;
+                if (cost != RoutingGraph.UNREACHABLE && !closed[neighbor] && !excluded(neighbor)) {
+                    relax(open, costs, parents, node, neighbor, costs[node] + cost);
+                }
+            }
+        }
+
+        return null;
+    }
+
+    private boolean excluded(int node) {
+        int packed = graph.nodes[node];
+        return avoidWilderness && ShortestPathPlugin.isInWilderness(PackedPosition.getX(packed), PackedPosition.getY(packed), PackedPosition.getPlane(packed));
+    }
+
+    private void relax(NodeQueue open, int[] costs, int[] parents, int from, int to, int cost) {
+        if (cost >= costs[to]) {
+            return;
+        }
+
+        costs[to] = cost;
+        parents[to] = from;
+        int heuristic = to == graph.size() ? 0 : heuristic(graph.nodes[to]);
+        open.push(to, cost + heuristic, heuristic);
+    }
+
+    private int heuristic(int node) {
+        int distance = PackedPosition.distance(node, target);
+        return Math.min(distance, transports.lowerBound(node, distance));
+    }
+
+    /**
+     * @return the tiles of the route, or null if a walk in it can't be followed on the collision map
+     */
+    private List<WorldPoint> refine(int[] parents, ClusterSearch startSearch, ClusterSearch targetSearch) {
+        List<Integer> route = new ArrayList<>();
+        for (int node = parents[graph.size()]; node != -1; node = parents[node]) {
+            route.add(0, node);
+        }
+
+        if (route.isEmpty()) {
+            return startSearch.path(target);
+        }
+
+        List<WorldPoint> path = startSearch.path(graph.nodes[route.get(0)]);
+        if (path == null) {
+            return null;
+        }
+
+        ClusterSearch search = new ClusterSearch(map);
+        for (int i = 1; i < route.size(); ++i) {
+            int from = graph.nodes[route.get(i - 1)];
+            int to = graph.nodes[route.get(i)];
+
+            if (ClusterSearch.cluster(from) != ClusterSearch.cluster(to) || isTransport(from, to)) {
+                // a step between clusters, or a transport
+                path.add(PackedPosition.unpack(to));
+            } else {
+                search.search(from, avoidWilderness);
+                List<WorldPoint> walk = search.path(to);
+                if (walk == null) {
+                    return null;
+                }
+                path.addAll(walk.subList(1, walk.size()));
+            }
+        }
+
+        List<WorldPoint> last = targetSearch.path(graph.nodes[route.get(route.size() - 1)]);
+        if (last == null) {
+            return null;
+        }
+        for (int i = last.size() - 2; i >= 0; --i) {
+            path.add(last.get(i));
+        }
+        return path;
+    }
+
+    private boolean isTransport(int from, int to) {
+        int[] destinations = transports.getDestinations(from);
+        if (destinations != null) {
+            for (int destination : destinations) {
+                if (destination == to) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,70 @@
+package net.runelite.client.plugins.shortestpath.pathfinder;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of packed tiles ordered by estimated total cost, breaking ties
+ * towards the tile closest to the target. Entries are stored as longs so that
+ * pushing and polling does not allocate.
+ */
+class NodeQueue {
+    private static final int MAX_ESTIMATE = (1 << 16) - 1;
+    private static final int MAX_HEURISTIC = (1 << 15) - 1;
+
+    private long[] heap = new long[256];
+    private int size;
+
+    void push(int node, int estimate, int heuristic) {
+        long entry = (long) Math.min(estimate, MAX_ESTIMATE) << 47
+            | (long) Math.min(heuristic, MAX_HEURISTIC) << 32
+            | (node & 0xFFFFFFFFL);
+
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, size * 2);
+        }
+
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heap[parent] <= entry) {
+                break;
+            }
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = entry;
+    }
+
+    /**
+     * Remove the entry with the lowest estimate and return its tile
+     */
+    int poll() {
+        int node = (int) heap[0];
+        long last = heap[--size];
+
+        int i = 0;
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && heap[child + 1] < heap[child]) {
+                ++child;
+            }
+            if (last <= heap[child]) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = last;
+
+        return node;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void clear() {
+        size = 0;
+    }
+}
@@ -0,0 +1,113 @@
+package net.runelite.client.plugins.shortestpath.pathfinder;
+
+import java.util.Arrays;
+
+/**
+ * Open addressed table from a packed tile to its search state: the best known cost,
+ * the packed parent tile, and whether the tile has been expanded.
+ */
+class NodeTable {
+    private static final int CLOSED = 1 << 31;
+
+    private int[] keys;
+    private int[] costs;
+    private int[] parents;
+    private int mask;
+    private int size;
+
+    NodeTable(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedSize) * 2 - 1) << 1;
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        Arrays.fill(keys, PackedPosition.NONE);
+        costs = new int[capacity];
+        parents = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * @return the slot of the key, or -1 if it is not in the table
+     */
+    int find(int key) {
+        for (int i = hash(key) & mask; ; i = (i + 1) & mask) {
+            int k = keys[i];
+            if (k == key) {
+                return i;
+            }
+            if (k == PackedPosition.NONE) {
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * Set the cost and parent of a tile, reopening it if it was closed
+     */
+    void put(int key, int cost, int parent) {
+        if ((size + 1) * 2 > keys.length) {
+            grow();
+        }
+
+        int i = hash(key) & mask;
+        while (keys[i] != key && keys[i] != PackedPosition.NONE) {
+            i = (i + 1) & mask;
+        }
+
+        if (keys[i] == PackedPosition.NONE) {
+            keys[i] = key;
+            ++size;
+        }
+        costs[i] = cost;
+        parents[i] = parent;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        int[] oldCosts = costs;
+        int[] oldParents = parents;
+        allocate(oldKeys.length * 2);
+
+        for (int i = 0; i < oldKeys.length; ++i) {
+            int key = oldKeys[i];
+            if (key == PackedPosition.NONE) {
+                continue;
+            }
+
+            int j = hash(key) & mask;
+            while (keys[j] != PackedPosition.NONE) {
+                j = (j + 1) & mask;
+            }
+            keys[j] = key;
+            costs[j] = oldCosts[i];
+            parents[j] = oldParents[i];
+        }
+    }
+
+    int cost(int slot) {
+        return costs[slot] & ~CLOSED;
+    }
+
+    int parent(int slot) {
+        return parents[slot];
+    }
+
+    boolean isClosed(int slot) {
+        return (costs[slot] & CLOSED) != 0;
+    }
+
+    void close(int slot) {
+        costs[slot] |= CLOSED;
+    }
+
+    int size() {
+        return size;
+    }
+}
@@ -0,0 +1,48 @@
+package net.runelite.client.plugins.shortestpath.pathfinder;
+
+import net.runelite.api.coords.WorldPoint;
+
+/**
+ * Packs a tile into a single int, with 15 bits each for x and y and 2 bits for the plane.
+ * The all ones value, which would be (32767, 32767, 3), is never a valid tile and is
+ * used as a sentinel.
+ */
+public final class PackedPosition {
+    public static final int NONE = -1;
+
+    private static final int COORDINATE_MASK = (1 << 15) - 1;
+
+    private PackedPosition() {
+    }
+
+    public static int pack(int x, int y, int plane) {
+        return (x & COORDINATE_MASK) | (y & COORDINATE_MASK) << 15 | (plane & 3) << 30;
+    }
+
+    public static int pack(WorldPoint point) {
+        return pack(point.getX(), point.getY(), point.getPlane());
+    }
+
+    public static int getX(int packed) {
+        return packed & COORDINATE_MASK;
+    }
+
+    public static int getY(int packed) {
+        return (packed >>> 15) & COORDINATE_MASK;
+    }
+
+    public static int getPlane(int packed) {
+        return packed >>> 30;
+    }
+
+    public static WorldPoint unpack(int packed) {
+        return new WorldPoint(getX(packed), getY(packed), getPlane(packed));
+    }
+
+    /**
+     * Chebyshev distance between two tiles, ignoring the plane
+     */
+    public static int distance(int a, int b) {
+        return Math.max(Math.abs(getX(a) - getX(b)), Math.abs(getY(a) - getY(b)));
+    }
+}
@@ -5,126 +5,197 @@ import net.runelite.client.plugins.shortestpath.ShortestPathPlugin;
 
 import java.util.*;
 
+/**
+ * A* search over the collision map and transports. Every step, including taking a
+ * transport, costs one, so the resulting paths are as short as the breadth first
+ * search this replaced. Tiles are packed into ints and the search state is kept in
+ * primitive tables, so tracking visited tiles does not allocate per tile.
+ * <p>
+ * Given a {@link RoutingGraph}, the route is found over the graph instead, falling back
+ * to the tile search when the target can't be reached, so the closest tile is used.
+ */
 public class Pathfinder {
+    /**
+     * How often the best path found so far is published for {@link #currentBest()}
+     */
+    private static final int PUBLISH_INTERVAL = 1 << 14;
+
     private final CollisionMap map;
-    private final Node start;
-    private final WorldPoint target;
-    private final List<Node> boundary = new LinkedList<>();
-    private final Set<WorldPoint> visited = new HashSet<>();
-    private final Map<WorldPoint, List<WorldPoint>> transports;
+    private final RoutingGraph graph;
+    private final int start;
+    private final int target;
+    private final TransportTable transports;
     private final boolean avoidWilderness;
-    private Node nearest;
+    private final NodeTable nodes = new NodeTable(1 << 16);
+    private final NodeQueue open = new NodeQueue();
+    private int nearest = PackedPosition.NONE;
+    private volatile List<WorldPoint> best;
+    private volatile boolean cancelled;
 
     public Pathfinder(CollisionMap map, Map<WorldPoint, List<WorldPoint>> transports, WorldPoint start, WorldPoint target, boolean avoidWilderness) {
+        this(map, null, transports, start, target, avoidWilderness);
+    }
+
+    /**
+     * @param graph precomputed routing graph to try before searching tile by tile. It must
+     * have been built from the same collision map and transports.
+     */
+    public Pathfinder(CollisionMap map, RoutingGraph graph, Map<WorldPoint, List<WorldPoint>> transports, WorldPoint start, WorldPoint target, boolean avoidWilderness) {
         this.map = map;
-        this.transports = transports;
-        this.target = target;
-        this.start = new Node(start, null);
+        this.graph = graph;
+        this.start = PackedPosition.pack(start);
+        this.target = PackedPosition.pack(target);
         this.avoidWilderness = avoidWilderness;
-        nearest = null;
+        this.transports = new TransportTable(transports, this.target);
     }
 
     public List<WorldPoint> find() {
-        boundary.add(start);
+        if (graph != null) {
+            List<WorldPoint> path = new HierarchicalSearch(graph, map, transports, start, target, avoidWilderness).find();
+            if (path != null) {
+                best = path;
+                return path;
+            }
+        }
+
+        int heuristic = heuristic(start);
+        nodes.put(start, 0, start);
+        open.push(start, heuristic, heuristic);
 
         int bestDistance = Integer.MAX_VALUE;
+        int bestCost = Integer.MAX_VALUE;
+        int expanded = 0;
 
-        while (!boundary.isEmpty()) {
-            Node node = boundary.remove(0);
+        while (!open.isEmpty()) {
+            if (cancelled) {
+                return null;
+            }
+
+            int node = open.poll();
+            int slot = nodes.find(node);
+            if (nodes.isClosed(slot)) {
+                continue;
+            }
+            nodes.close(slot);
 
-            if (node.position.equals(target)) {
-                return node.path();
+            if (node == target) {
+                return publish(node);
             }
 
-            int distance = Math.max(Math.abs(node.position.getX() - target.getX()), Math.abs(node.position.getY() - target.getY()));
-            if (nearest == null || distance < bestDistance) {
+            int cost = nodes.cost(slot);
+            int distance = PackedPosition.distance(node, target);
+            if (distance < bestDistance || (distance == bestDistance && cost < bestCost)) {
                 nearest = node;
                 bestDistance = distance;
+                bestCost = cost;
             }
 
-            addNeighbors(node);
-        }
+            if (++expanded % PUBLISH_INTERVAL == 0) {
+                publish(nearest);
+            }
 
-        if (nearest != null) {
-            return nearest.path();
+            addNeighbors(node, cost + 1);
         }
 
-        return null;
+        return nearest == PackedPosition.NONE ? null : publish(nearest);
     }
 
-    private void addNeighbors(Node node) {
-        if (map.w(node.position.getX(), node.position.getY(), node.position.getPlane())) {
-            addNeighbor(node, new WorldPoint(node.position.getX() - 1, node.position.getY(), node.position.getPlane()));
-        }
+    /**
+     * Lower bound on the number of steps from a tile to the target, the smaller of the
+     * Chebyshev distance and the bound on any route taking a transport
+     */
+    private int heuristic(int node) {
+        int distance = PackedPosition.distance(node, target);
+        return Math.min(distance, transports.lowerBound(node, distance));
+    }
+
+    private void addNeighbors(int node, int cost) {
+        int x = PackedPosition.getX(node);
+        int y = PackedPosition.getY(node);
+        int z = PackedPosition.getPlane(node);
 
-        if (map.e(node.position.getX(), node.position.getY(), node.position.getPlane())) {
-            addNeighbor(node, new WorldPoint(node.position.getX() + 1, node.position.getY(), node.position.getPlane()));
+        int directions = map.directions(x, y, z);
+        if ((directions & CollisionMap.WEST) != 0) {
+            addNeighbor(node, x - 1, y, z, cost);
         }
 
-        if (map.s(node.position.getX(), node.position.getY(), node.position.getPlane())) {
-            addNeighbor(node, new WorldPoint(node.position.getX(), node.position.getY() - 1, node.position.getPlane()));
+        if ((directions & CollisionMap.EAST) != 0) {
+            addNeighbor(node, x + 1, y, z, cost);
         }
 
-        if (map.n(node.position.getX(), node.position.getY(), node.position.getPlane())) {
-            addNeighbor(node, new WorldPoint(node.position.getX(), node.position.getY() + 1, node.position.getPlane()));
+        if ((directions & CollisionMap.SOUTH) != 0) {
+            addNeighbor(node, x, y - 1, z, cost);
         }
 
-        if (map.sw(node.position.getX(), node.position.getY(), node.position.getPlane())) {
-            addNeighbor(node, new WorldPoint(node.position.getX() - 1, node.position.getY() - 1, node.position.getPlane()));
+        if ((directions & CollisionMap.NORTH) != 0) {
+            addNeighbor(node, x, y + 1, z, cost);
         }
 
-        if (map.se(node.position.getX(), node.position.getY(), node.position.getPlane())) {
-            addNeighbor(node, new WorldPoint(node.position.getX() + 1, node.position.getY() - 1, node.position.getPlane()));
+        if ((directions & CollisionMap.SOUTH_WEST) != 0) {
+            addNeighbor(node, x - 1, y - 1, z, cost);
         }
 
-        if (map.nw(node.position.getX(), node.position.getY(), node.position.getPlane())) {
-            addNeighbor(node, new WorldPoint(node.position.getX() - 1, node.position.getY() + 1, node.position.getPlane()));
+        if ((directions & CollisionMap.SOUTH_EAST) != 0) {
+            addNeighbor(node, x + 1, y - 1, z, cost);
         }
 
-        if (map.ne(node.position.getX(), node.position.getY(), node.position.getPlane())) {
-            addNeighbor(node, new WorldPoint(node.position.getX() + 1, node.position.getY() + 1, node.position.getPlane()));
+        if ((directions & CollisionMap.NORTH_WEST) != 0) {
+            addNeighbor(node, x - 1, y + 1, z, cost);
         }
 
-        for (WorldPoint transport : transports.getOrDefault(node.position, new ArrayList<>())) {
-            addNeighbor(node, transport);
+        if ((directions & CollisionMap.NORTH_EAST) != 0) {
+            addNeighbor(node, x + 1, y + 1, z, cost);
         }
-    }
 
-    public List<WorldPoint> currentBest() {
-        return nearest==null ? null : nearest.path();
+        int[] destinations = transports.getDestinations(node);
+        if (destinations != null) {
+            for (int destination : destinations) {
+                addNeighbor(node, PackedPosition.getX(destination), PackedPosition.getY(destination), PackedPosition.getPlane(destination), cost);
+            }
+        }
     }
 
-    private void addNeighbor(Node node, WorldPoint neighbor) {
-        if (avoidWilderness && ShortestPathPlugin.isInWilderness(neighbor)) {
+    private void addNeighbor(int node, int x, int y, int z, int cost) {
+        if (avoidWilderness && ShortestPathPlugin.isInWilderness(x, y, z)) {
             return;
         }
 
-        if (!visited.add(neighbor)) {
+        int neighbor = PackedPosition.pack(x, y, z);
+        int slot = nodes.find(neighbor);
+        if (slot != -1 && nodes.cost(slot) <= cost) {
             return;
         }
 
-        boundary.add(new Node(neighbor, node));
+        nodes.put(neighbor, cost, node);
+        int heuristic = heuristic(neighbor);
+        open.push(neighbor, cost + heuristic, heuristic);
     }
 
-    private static class Node {
-        public final WorldPoint position;
-        public final Node previous;
+    /**
+     * Stop the search from another thread. {@link #find()} then returns null.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
 
-        public Node(WorldPoint position, Node previous) {
-            this.position = position;
-            this.previous = previous;
-        }
+    public List<WorldPoint> currentBest() {
+        return best;
+    }
 
-        public List<WorldPoint> path() {
-            List<WorldPoint> path = new LinkedList<>();
-            Node node = this;
+    private List<WorldPoint> publish(int node) {
+        List<WorldPoint> path = new ArrayList<>();
+        for (int slot = nodes.find(node); ; slot = nodes.find(node)) {
+            path.add(PackedPosition.unpack(node));
 
-            while (node != null) {
-                path.add(0, node.position);
-                node = node.previous;
+            int parent = nodes.parent(slot);
+            if (parent == node) {
+                break;
             }
-
-            return new ArrayList<>(path);
+            node = parent;
         }
+        Collections.reverse(path);
+
+        best = path;
+        return path;
     }
 }
@@ -0,0 +1,204 @@
+package net.runelite.client.plugins.shortestpath.pathfinder;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import net.runelite.api.coords.WorldPoint;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs path searches on a dedicated thread. A search runs in short slices, so a newer
+ * request takes over between slices, and the best path so far is published after
+ * each one. When only the start moves, the search tree rooted at the target is kept.
+ * <p>
+ * Results are published as immutable snapshots through {@link #getResult()}, which
+ * overlays may read every frame without locking or copying.
+ */
+public class PathfinderService {
+    private static final long SLICE_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    public static class Result {
+        /**
+         * The most recently completed path, or null
+         */
+        public final List<WorldPoint> path;
+        /**
+         * The best path found so far by the running search, or null
+         */
+        public final List<WorldPoint> partial;
+        public final boolean searching;
+
+        Result(List<WorldPoint> path, List<WorldPoint> partial, boolean searching) {
+            this.path = path == null ? null : Collections.unmodifiableList(path);
+            this.partial = partial == null ? null : Collections.unmodifiableList(partial);
+            this.searching = searching;
+        }
+    }
+
+    private static class Request {
+        final WorldPoint start;
+        final WorldPoint target;
+        final Map<WorldPoint, List<WorldPoint>> transports;
+        final boolean avoidWilderness;
+        volatile Pathfinder fallback;
+        List<WorldPoint> preview;
+
+        Request(WorldPoint start, WorldPoint target, Map<WorldPoint, List<WorldPoint>> transports, boolean avoidWilderness) {
+            this.start = start;
+            this.target = target;
+            this.transports = transports;
+            this.avoidWilderness = avoidWilderness;
+        }
+
+        void cancel() {
+            Pathfinder pathfinder = fallback;
+            if (pathfinder != null) {
+                pathfinder.cancel();
+            }
+        }
+    }
+
+    /**
+     * Only accessed from the executor, after construction
+     */
+    private CollisionMap map;
+    private final RoutingGraph graph;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+            .setNameFormat("shortest-path")
+            .setDaemon(true)
+            .build());
+    private final AtomicReference<Result> result = new AtomicReference<>(new Result(null, null, false));
+    private volatile Request current;
+    /**
+     * The tree of the last search, only accessed from the executor
+     */
+    private TargetSearch search;
+
+    /**
+     * @param graph optional routing graph, used to publish an approximate path while the exact search runs
+     */
+    public PathfinderService(CollisionMap map, RoutingGraph graph) {
+        this.map = map;
+        this.graph = graph;
+    }
+
+    public Result getResult() {
+        return result.get();
+    }
+
+    /**
+     * Start searching for a path, replacing any running search
+     */
+    public void search(WorldPoint start, WorldPoint target, Map<WorldPoint, List<WorldPoint>> transports, boolean avoidWilderness) {
+        Request request = new Request(start, target, new HashMap<>(transports), avoidWilderness);
+        replace(request);
+        publish(request, new Result(result.get().path, null, true));
+        executor.execute(() -> begin(request));
+    }
+
+    /**
+     * Stop any running search and clear the path
+     */
+    public void cancel() {
+        replace(null);
+        // always a new instance, so that a slice which raced with this can't publish over it
+        result.set(new Result(null, null, false));
+    }
+
+    /**
+     * Replace the collision map used by later searches, for example with a faster map which
+     * has finished loading. The maps must hold the same flags.
+     */
+    public void setMap(CollisionMap map) {
+        executor.execute(() -> {
+            this.map = map;
+            // the tree of the last search still reads the previous map
+            search = null;
+        });
+    }
+
+    public void shutdown() {
+        cancel();
+        executor.shutdownNow();
+    }
+
+    private void replace(Request request) {
+        Request previous = current;
+        current = request;
+        if (previous != null) {
+            previous.cancel();
+        }
+    }
+
+    /**
+     * Publish a result, unless the request has been replaced
+     */
+    private void publish(Request request, Result next) {
+        Result previous;
+        do {
+            previous = result.get();
+            if (current != request) {
+                return;
+            }
+        } while (!result.compareAndSet(previous, next));
+    }
+
+    private void begin(Request request) {
+        if (current != request) {
+            return;
+        }
+
+        if (graph != null) {
+            int target = PackedPosition.pack(request.target);
+            request.preview = new HierarchicalSearch(graph, map, new TransportTable(request.transports, target),
+                    PackedPosition.pack(request.start), target, request.avoidWilderness).find();
+            if (request.preview != null) {
+                publish(request, new Result(result.get().path, request.preview, true));
+            }
+        }
+
+        if (search == null || !search.moveStart(request.start, request.target, request.transports, request.avoidWilderness)) {
+            search = new TargetSearch(map, request.transports, request.start, request.target, request.avoidWilderness);
+        }
+
+        slice(request);
+    }
+
+    private void slice(Request request) {
+        if (current != request) {
+            return;
+        }
+
+        if (!search.run(System.nanoTime() + SLICE_NANOS)) {
+            List<WorldPoint> partial = request.preview != null ? request.preview : search.getPartialPath();
+            publish(request, new Result(result.get().path, partial, true));
+            if (current == request) {
+                executor.execute(() -> slice(request));
+            }
+            return;
+        }
+
+        List<WorldPoint> path = search.getPath();
+        if (path == null) {
+            // the start can't reach the target, so find the closest tile to it instead
+            Pathfinder pathfinder = new Pathfinder(map, request.transports, request.start, request.target, request.avoidWilderness);
+            request.fallback = pathfinder;
+            if (current != request) {
+                return;
+            }
+
+            path = pathfinder.find();
+            if (path == null) {
+                return;
+            }
+        }
+
+        publish(request, new Result(path, null, false));
+    }
+}
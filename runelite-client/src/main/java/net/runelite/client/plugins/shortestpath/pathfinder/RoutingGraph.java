@@ -0,0 +1,191 @@
+package net.runelite.client.plugins.shortestpath.pathfinder;
+
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.client.plugins.shortestpath.ShortestPathPlugin;
+import net.runelite.client.plugins.shortestpath.Util;
+
+import java.io.*;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Precomputed graph over the entrances between 64x64 clusters and the transport
+ * endpoints, built offline by {@link RoutingGraphBuilder}. Edges are either a single
+ * step between adjacent clusters, a transport, or a walk within a cluster whose cost
+ * is the exact walking distance. Each edge has a second cost for when the wilderness
+ * is avoided. The checksums of the collision map and transports it was built from are
+ * stored with it, so a graph which is out of date with them is not used.
+ */
+@Slf4j
+public class RoutingGraph {
+    static final int VERSION = 2;
+    static final String COLLISION_MAP = "collision-map.zip";
+    static final String TRANSPORTS = "transports.txt";
+    public static final int UNREACHABLE = 0xFFFF;
+
+    /**
+     * Packed tile of each node, ascending
+     */
+    final int[] nodes;
+    final int[] edgeOffsets;
+    final int[] edgeTargets;
+    /**
+     * Cost of each edge in the low 16 bits, and the cost avoiding the wilderness in the high 16 bits
+     */
+    final int[] edgeCosts;
+    /**
+     * Checksums of the collision map and transports resources the graph was built from
+     */
+    final int collisionMapCrc;
+    final int transportsCrc;
+
+    private final int[] clusters;
+    private final int[] clusterOffsets;
+    private final int[] clusterNodes;
+
+    RoutingGraph(int[] nodes, int[] edgeOffsets, int[] edgeTargets, int[] edgeCosts, int collisionMapCrc, int transportsCrc) {
+        this.nodes = nodes;
+        this.edgeOffsets = edgeOffsets;
+        this.edgeTargets = edgeTargets;
+        this.edgeCosts = edgeCosts;
+        this.collisionMapCrc = collisionMapCrc;
+        this.transportsCrc = transportsCrc;
+
+        long[] byCluster = new long[nodes.length];
+        for (int i = 0; i < nodes.length; ++i) {
+            byCluster[i] = (long) ClusterSearch.cluster(nodes[i]) << 32 | i;
+        }
+        Arrays.sort(byCluster);
+
+        int[] clusters = new int[nodes.length];
+        int[] clusterOffsets = new int[nodes.length + 1];
+        clusterNodes = new int[nodes.length];
+        int count = 0;
+        for (int i = 0; i < byCluster.length; ++i) {
+            int cluster = (int) (byCluster[i] >>> 32);
+            if (count == 0 || clusters[count - 1] != cluster) {
+                clusters[count] = cluster;
+                clusterOffsets[count++] = i;
+            }
+            clusterNodes[i] = (int) byCluster[i];
+        }
+        clusterOffsets[count] = nodes.length;
+        this.clusters = Arrays.copyOf(clusters, count);
+        this.clusterOffsets = Arrays.copyOf(clusterOffsets, count + 1);
+    }
+
+    /**
+     * Load the graph shipped with the plugin
+     *
+     * @return the graph, or null if it isn't available or was built from a different
+     * collision map or transports than the ones shipped
+     */
+    public static RoutingGraph fromResources() {
+        InputStream in = ShortestPathPlugin.class.getResourceAsStream("routing-graph.gz");
+        if (in == null) {
+            return null;
+        }
+
+        try {
+            RoutingGraph graph = read(in);
+            if (graph.collisionMapCrc != resourceCrc(COLLISION_MAP) || graph.transportsCrc != resourceCrc(TRANSPORTS)) {
+                log.warn("The routing graph is out of date with the collision map or transports, searching tile by tile only");
+                return null;
+            }
+            return graph;
+        } catch (IOException e) {
+            log.warn("Unable to load the routing graph, searching tile by tile only", e);
+            return null;
+        }
+    }
+
+    /**
+     * @return the checksum of a resource shipped with the plugin
+     */
+    static int resourceCrc(String name) throws IOException {
+        byte[] resource;
+        try (InputStream in = ShortestPathPlugin.class.getResourceAsStream(name)) {
+            if (in == null) {
+                throw new FileNotFoundException(name);
+            }
+            resource = Util.readAllBytes(in);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(resource);
+        return (int) crc.getValue();
+    }
+
+    public static RoutingGraph read(InputStream stream) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(stream)))) {
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("unsupported routing graph version " + version);
+            }
+
+            int collisionMapCrc = in.readInt();
+            int transportsCrc = in.readInt();
+
+            int[] nodes = new int[in.readInt()];
+            for (int i = 0; i < nodes.length; ++i) {
+                nodes[i] = in.readInt();
+            }
+
+            int[] edgeOffsets = new int[nodes.length + 1];
+            for (int i = 0; i < nodes.length; ++i) {
+                edgeOffsets[i + 1] = edgeOffsets[i] + in.readUnsignedShort();
+            }
+
+            int[] edgeTargets = new int[edgeOffsets[nodes.length]];
+            int[] edgeCosts = new int[edgeTargets.length];
+            for (int i = 0; i < edgeTargets.length; ++i) {
+                edgeTargets[i] = in.readInt();
+                edgeCosts[i] = in.readInt();
+            }
+
+            return new RoutingGraph(nodes, edgeOffsets, edgeTargets, edgeCosts, collisionMapCrc, transportsCrc);
+        }
+    }
+
+    public void write(OutputStream stream) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(stream)))) {
+            out.writeInt(VERSION);
+            out.writeInt(collisionMapCrc);
+            out.writeInt(transportsCrc);
+
+            out.writeInt(nodes.length);
+            for (int node : nodes) {
+                out.writeInt(node);
+            }
+
+            for (int i = 0; i < nodes.length; ++i) {
+                out.writeShort(edgeOffsets[i + 1] - edgeOffsets[i]);
+            }
+
+            for (int i = 0; i < edgeTargets.length; ++i) {
+                out.writeInt(edgeTargets[i]);
+                out.writeInt(edgeCosts[i]);
+            }
+        }
+    }
+
+    public int size() {
+        return nodes.length;
+    }
+
+    /**
+     * @return the index of the node at a packed tile, or a negative value if there is none
+     */
+    int findNode(int packed) {
+        return Arrays.binarySearch(nodes, packed);
+    }
+
+    /**
+     * @return the indexes of the nodes within the cluster containing a packed tile
+     */
+    int[] getClusterNodes(int packed) {
+        int i = Arrays.binarySearch(clusters, ClusterSearch.cluster(packed));
+        return i < 0 ? new int[0] : Arrays.copyOfRange(clusterNodes, clusterOffsets[i], clusterOffsets[i + 1]);
+    }
+}
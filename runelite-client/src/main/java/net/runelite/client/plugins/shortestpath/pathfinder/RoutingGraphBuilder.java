@@ -0,0 +1,207 @@
+package net.runelite.client.plugins.shortestpath.pathfinder;
+
+import net.runelite.api.coords.WorldPoint;
+import net.runelite.client.plugins.shortestpath.ShortestPathPlugin;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Builds the {@link RoutingGraph} from the collision map and transports. Run after
+ * either changes, with the path of the routing-graph.gz resource to write.
+ */
+public class RoutingGraphBuilder {
+    /**
+     * Runs of passable boundary tiles at least this long get an entrance at each end
+     * rather than one in the middle
+     */
+    private static final int LONG_ENTRANCE = 6;
+
+    private final CollisionMap map;
+    private final Map<WorldPoint, List<WorldPoint>> transports;
+    private final SortedMap<Integer, Map<Integer, Integer>> edges = new TreeMap<>();
+    private int collisionMapCrc;
+    private int transportsCrc;
+
+    public RoutingGraphBuilder(CollisionMap map, Map<WorldPoint, List<WorldPoint>> transports) {
+        this.map = map;
+        this.transports = transports;
+    }
+
+    public static void main(String[] args) throws IOException {
+        RoutingGraph graph = new RoutingGraphBuilder(CollisionMap.fromResources(), ShortestPathPlugin.loadTransports())
+                .sources(RoutingGraph.resourceCrc(RoutingGraph.COLLISION_MAP), RoutingGraph.resourceCrc(RoutingGraph.TRANSPORTS))
+                .build();
+
+        try (OutputStream out = new FileOutputStream(new File(args[0]))) {
+            graph.write(out);
+        }
+    }
+
+    /**
+     * Set the checksums of the collision map and transports resources the graph is built from,
+     * which {@link RoutingGraph#fromResources()} checks against the shipped resources
+     */
+    public RoutingGraphBuilder sources(int collisionMapCrc, int transportsCrc) {
+        this.collisionMapCrc = collisionMapCrc;
+        this.transportsCrc = transportsCrc;
+        return this;
+    }
+
+    public RoutingGraph build() {
+        int regionSize = map.getRegionSize();
+        for (SplitFlagMap.Position region : map.getRegions()) {
+            for (int x = region.x * regionSize; x < (region.x + 1) * regionSize; x += ClusterSearch.SIZE) {
+                for (int y = region.y * regionSize; y < (region.y + 1) * regionSize; y += ClusterSearch.SIZE) {
+                    for (int z = 0; z < FlagMap.PLANE_COUNT; ++z) {
+                        addEntrances(x, y, z);
+                    }
+                }
+            }
+        }
+
+        for (Map.Entry<WorldPoint, List<WorldPoint>> entry : transports.entrySet()) {
+            int origin = PackedPosition.pack(entry.getKey());
+            for (WorldPoint destination : entry.getValue()) {
+                addEdge(origin, PackedPosition.pack(destination), 1, 1);
+            }
+        }
+
+        // every destination is a node, even ones with no outgoing edges
+        for (int node : new ArrayList<>(edges.keySet())) {
+            for (int target : edges.get(node).keySet()) {
+                edges.computeIfAbsent(target, k -> new HashMap<>());
+            }
+        }
+
+        Map<Integer, List<Integer>> clusters = edges.keySet().stream()
+                .collect(Collectors.groupingBy(ClusterSearch::cluster));
+        Map<Integer, Map<Integer, Integer>> walks = clusters.values().parallelStream()
+                .map(this::connectCluster)
+                .flatMap(m -> m.entrySet().stream())
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+        for (Map.Entry<Integer, Map<Integer, Integer>> entry : walks.entrySet()) {
+            for (Map.Entry<Integer, Integer> walk : entry.getValue().entrySet()) {
+                // an adjacent step or transport is never more than the walk
+                edges.get(entry.getKey()).putIfAbsent(walk.getKey(), walk.getValue());
+            }
+        }
+
+        int[] nodes = new int[edges.size()];
+        int[] edgeOffsets = new int[nodes.length + 1];
+        int i = 0;
+        for (Map.Entry<Integer, Map<Integer, Integer>> entry : edges.entrySet()) {
+            nodes[i] = entry.getKey();
+            edgeOffsets[i + 1] = edgeOffsets[i] + entry.getValue().size();
+            ++i;
+        }
+
+        int[] edgeTargets = new int[edgeOffsets[nodes.length]];
+        int[] edgeCosts = new int[edgeTargets.length];
+        int e = 0;
+        for (Map<Integer, Integer> nodeEdges : edges.values()) {
+            for (Map.Entry<Integer, Integer> edge : new TreeMap<>(nodeEdges).entrySet()) {
+                edgeTargets[e] = Arrays.binarySearch(nodes, edge.getKey());
+                edgeCosts[e] = edge.getValue();
+                ++e;
+            }
+        }
+
+        return new RoutingGraph(nodes, edgeOffsets, edgeTargets, edgeCosts, collisionMapCrc, transportsCrc);
+    }
+
+    /**
+     * Add entrances across the east and north edges of a cluster. The west and south
+     * edges are the east and north edges of the neighboring clusters.
+     */
+    private void addEntrances(int minX, int minY, int z) {
+        int x = minX + ClusterSearch.SIZE - 1;
+        int start = -1;
+        for (int y = minY; y <= minY + ClusterSearch.SIZE; ++y) {
+            boolean open = y < minY + ClusterSearch.SIZE && map.e(x, y, z);
+            if (open && start == -1) {
+                start = y;
+            } else if (!open && start != -1) {
+                for (int entrance : entrances(start, y - 1)) {
+                    addEdge(PackedPosition.pack(x, entrance, z), PackedPosition.pack(x + 1, entrance, z), 1, 1);
+                    addEdge(PackedPosition.pack(x + 1, entrance, z), PackedPosition.pack(x, entrance, z), 1, 1);
+                }
+                start = -1;
+            }
+        }
+
+        int y = minY + ClusterSearch.SIZE - 1;
+        start = -1;
+        for (x = minX; x <= minX + ClusterSearch.SIZE; ++x) {
+            boolean open = x < minX + ClusterSearch.SIZE && map.n(x, y, z);
+            if (open && start == -1) {
+                start = x;
+            } else if (!open && start != -1) {
+                for (int entrance : entrances(start, x - 1)) {
+                    addEdge(PackedPosition.pack(entrance, y, z), PackedPosition.pack(entrance, y + 1, z), 1, 1);
+                    addEdge(PackedPosition.pack(entrance, y + 1, z), PackedPosition.pack(entrance, y, z), 1, 1);
+                }
+                start = -1;
+            }
+        }
+    }
+
+    private static int[] entrances(int first, int last) {
+        if (last - first + 1 >= LONG_ENTRANCE) {
+            return new int[]{first, last};
+        }
+        return new int[]{(first + last) / 2};
+    }
+
+    private void addEdge(int from, int to, int cost, int wildernessCost) {
+        edges.computeIfAbsent(from, k -> new HashMap<>()).put(to, wildernessCost << 16 | cost);
+    }
+
+    /**
+     * Find the walking distances between every pair of nodes within a cluster
+     */
+    private Map<Integer, Map<Integer, Integer>> connectCluster(List<Integer> nodes) {
+        ClusterSearch search = new ClusterSearch(map);
+        ClusterSearch wildernessSearch = new ClusterSearch(map);
+        boolean wilderness = intersectsWilderness(nodes.get(0));
+
+        Map<Integer, Map<Integer, Integer>> walks = new HashMap<>();
+        for (int from : nodes) {
+            search.search(from, false);
+            if (wilderness) {
+                wildernessSearch.search(from, true);
+            }
+
+            Map<Integer, Integer> fromWalks = new HashMap<>();
+            for (int to : nodes) {
+                int cost = search.distance(to);
+                if (to == from || cost == -1) {
+                    continue;
+                }
+
+                int wildernessCost = wilderness ? wildernessSearch.distance(to) : cost;
+                fromWalks.put(to, (wildernessCost == -1 ? RoutingGraph.UNREACHABLE : wildernessCost) << 16 | cost);
+            }
+            walks.put(from, fromWalks);
+        }
+        return walks;
+    }
+
+    private static boolean intersectsWilderness(int node) {
+        int minX = PackedPosition.getX(node) & -ClusterSearch.SIZE;
+        int minY = PackedPosition.getY(node) & -ClusterSearch.SIZE;
+        int plane = PackedPosition.getPlane(node);
+        for (int x = minX; x < minX + ClusterSearch.SIZE; ++x) {
+            for (int y = minY; y < minY + ClusterSearch.SIZE; ++y) {
+                if (ShortestPathPlugin.isInWilderness(x, y, plane)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
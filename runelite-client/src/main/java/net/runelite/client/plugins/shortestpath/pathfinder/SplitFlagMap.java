@@ -11,7 +11,10 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.zip.GZIPInputStream;
 
@@ -20,10 +23,12 @@ public abstract class SplitFlagMap {
     private final int regionSize;
     private final LoadingCache<Position, FlagMap> regionMaps;
     private final int flagCount;
+    private final Set<Position> regions;
 
     public SplitFlagMap(int regionSize, Map<Position, byte[]> compressedRegions, int flagCount) {
         this.regionSize = regionSize;
         this.flagCount = flagCount;
+        regions = Collections.unmodifiableSet(new HashSet<>(compressedRegions.keySet()));
         regionMaps = CacheBuilder
                 .newBuilder()
                 .weigher((Weigher<Position, FlagMap>) (k, v) -> v.flags.size() / 8)
@@ -44,13 +49,28 @@ public abstract class SplitFlagMap {
     }
 
     public boolean get(int x, int y, int z, int flag) {
+        return getRegion(new Position(x / regionSize, y / regionSize)).get(x, y, z, flag);
+    }
+
+    FlagMap getRegion(Position position) {
         try {
-            return regionMaps.get(new Position(x / regionSize, y / regionSize)).get(x, y, z, flag);
+            return regionMaps.get(position);
         } catch (ExecutionException e) {
             throw new UncheckedExecutionException(e);
         }
     }
 
+    /**
+     * @return the positions of the regions which have flags
+     */
+    public Set<Position> getRegions() {
+        return regions;
+    }
+
+    public int getRegionSize() {
+        return regionSize;
+    }
+
     public static class Position {
         public final int x;
         public final int y;
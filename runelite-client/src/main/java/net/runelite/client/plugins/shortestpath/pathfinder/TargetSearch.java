@@ -0,0 +1,247 @@
+package net.runelite.client.plugins.shortestpath.pathfinder;
+
+import net.runelite.api.coords.WorldPoint;
+import net.runelite.client.plugins.shortestpath.ShortestPathPlugin;
+
+import java.util.*;
+
+/**
+ * A* search rooted at the target, expanding backwards towards the start. The tree
+ * holds the exact distance to the target of every closed tile, so when the player
+ * moves the search carries on towards the new start rather than starting over, and
+ * finishes immediately if the new start has already been reached.
+ * <p>
+ * This is confined to a single thread, and runs in slices bounded by a deadline.
+ */
+class TargetSearch {
+    /**
+     * How many tiles are expanded between checks of the deadline
+     */
+    private static final int DEADLINE_CHECK_INTERVAL = 256;
+
+    private final CollisionMap map;
+    private final Map<WorldPoint, List<WorldPoint>> transports;
+    /**
+     * Transports with their direction reversed, keyed by destination
+     */
+    private final Map<WorldPoint, List<WorldPoint>> reversedTransports = new HashMap<>();
+    private final int target;
+    private final boolean avoidWilderness;
+    private final NodeTable nodes = new NodeTable(1 << 16);
+    private final NodeQueue open = new NodeQueue();
+    private TransportTable reversed;
+    private int start;
+    private int nearest = PackedPosition.NONE;
+    private int nearestDistance = Integer.MAX_VALUE;
+
+    TargetSearch(CollisionMap map, Map<WorldPoint, List<WorldPoint>> transports, WorldPoint start, WorldPoint target, boolean avoidWilderness) {
+        this.map = map;
+        this.transports = transports;
+        this.target = PackedPosition.pack(target);
+        this.avoidWilderness = avoidWilderness;
+
+        for (Map.Entry<WorldPoint, List<WorldPoint>> entry : transports.entrySet()) {
+            for (WorldPoint destination : entry.getValue()) {
+                reversedTransports.computeIfAbsent(destination, k -> new ArrayList<>()).add(entry.getKey());
+            }
+        }
+
+        this.start = PackedPosition.pack(start);
+        reversed = new TransportTable(reversedTransports, this.start);
+
+        int heuristic = heuristic(this.target);
+        nodes.put(this.target, 0, this.target);
+        open.push(this.target, heuristic, heuristic);
+    }
+
+    /**
+     * Move the start of the search, keeping the tree built so far
+     *
+     * @return false if the tree can't be reused for the given search
+     */
+    boolean moveStart(WorldPoint start, WorldPoint target, Map<WorldPoint, List<WorldPoint>> transports, boolean avoidWilderness) {
+        int packed = PackedPosition.pack(start);
+        if (PackedPosition.pack(target) != this.target || avoidWilderness != this.avoidWilderness
+                || !transports.equals(this.transports)) {
+            return false;
+        }
+
+        // the start is the only tile allowed in the wilderness, so a tree built for
+        // or towards a start in the wilderness isn't valid for any other start
+        if (avoidWilderness && (isInWilderness(packed) || isInWilderness(this.start))) {
+            return packed == this.start;
+        }
+
+        if (packed == this.start) {
+            return true;
+        }
+
+        this.start = packed;
+        reversed = new TransportTable(reversedTransports, packed);
+        nearest = PackedPosition.NONE;
+        nearestDistance = Integer.MAX_VALUE;
+
+        // the estimates of the open tiles were towards the old start
+        int[] pending = new int[16];
+        int count = 0;
+        while (!open.isEmpty()) {
+            int node = open.poll();
+            if (count == pending.length) {
+                pending = Arrays.copyOf(pending, count * 2);
+            }
+            pending[count++] = node;
+        }
+        for (int i = 0; i < count; ++i) {
+            int slot = nodes.find(pending[i]);
+            if (!nodes.isClosed(slot)) {
+                int heuristic = heuristic(pending[i]);
+                open.push(pending[i], nodes.cost(slot) + heuristic, heuristic);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Expand tiles until the start is reached, every reachable tile has been
+     * expanded, or the deadline passes
+     *
+     * @param deadline {@link System#nanoTime()} at which to stop
+     * @return true if the search finished, false if it ran out of time
+     */
+    boolean run(long deadline) {
+        if (isFound()) {
+            return true;
+        }
+
+        int expanded = 0;
+        while (!open.isEmpty()) {
+            if (++expanded % DEADLINE_CHECK_INTERVAL == 0 && System.nanoTime() - deadline > 0) {
+                return false;
+            }
+
+            int node = open.poll();
+            int slot = nodes.find(node);
+            if (nodes.isClosed(slot)) {
+                continue;
+            }
+            nodes.close(slot);
+
+            if (node == start) {
+                return true;
+            }
+
+            int distance = PackedPosition.distance(node, start);
+            if (distance < nearestDistance) {
+                nearest = node;
+                nearestDistance = distance;
+            }
+
+            addNeighbors(node, nodes.cost(slot) + 1);
+        }
+        return true;
+    }
+
+    boolean isFound() {
+        int slot = nodes.find(start);
+        return slot != -1 && nodes.isClosed(slot);
+    }
+
+    /**
+     * @return the path from the start to the target, or null if the start hasn't been reached
+     */
+    List<WorldPoint> getPath() {
+        return isFound() ? pathFrom(start) : null;
+    }
+
+    /**
+     * @return the path to the target from the expanded tile closest to the start, or null
+     */
+    List<WorldPoint> getPartialPath() {
+        return nearest == PackedPosition.NONE ? null : pathFrom(nearest);
+    }
+
+    private List<WorldPoint> pathFrom(int node) {
+        List<WorldPoint> path = new ArrayList<>();
+        for (int slot = nodes.find(node); ; slot = nodes.find(node)) {
+            path.add(PackedPosition.unpack(node));
+
+            int parent = nodes.parent(slot);
+            if (parent == node) {
+                return path;
+            }
+            node = parent;
+        }
+    }
+
+    private int heuristic(int node) {
+        int distance = PackedPosition.distance(node, start);
+        return Math.min(distance, reversed.lowerBound(node, distance));
+    }
+
+    private void addNeighbors(int node, int cost) {
+        int x = PackedPosition.getX(node);
+        int y = PackedPosition.getY(node);
+        int z = PackedPosition.getPlane(node);
+
+        // walking is symmetric, so the tiles which can walk here are the tiles which can be walked to
+        int directions = map.directions(x, y, z);
+        if ((directions & CollisionMap.WEST) != 0) {
+            addNeighbor(node, x - 1, y, z, cost);
+        }
+
+        if ((directions & CollisionMap.EAST) != 0) {
+            addNeighbor(node, x + 1, y, z, cost);
+        }
+
+        if ((directions & CollisionMap.SOUTH) != 0) {
+            addNeighbor(node, x, y - 1, z, cost);
+        }
+
+        if ((directions & CollisionMap.NORTH) != 0) {
+            addNeighbor(node, x, y + 1, z, cost);
+        }
+
+        if ((directions & CollisionMap.SOUTH_WEST) != 0) {
+            addNeighbor(node, x - 1, y - 1, z, cost);
+        }
+
+        if ((directions & CollisionMap.SOUTH_EAST) != 0) {
+            addNeighbor(node, x + 1, y - 1, z, cost);
+        }
+
+        if ((directions & CollisionMap.NORTH_WEST) != 0) {
+            addNeighbor(node, x - 1, y + 1, z, cost);
+        }
+
+        if ((directions & CollisionMap.NORTH_EAST) != 0) {
+            addNeighbor(node, x + 1, y + 1, z, cost);
+        }
+
+        int[] origins = reversed.getDestinations(node);
+        if (origins != null) {
+            for (int origin : origins) {
+                addNeighbor(node, PackedPosition.getX(origin), PackedPosition.getY(origin), PackedPosition.getPlane(origin), cost);
+            }
+        }
+    }
+
+    private void addNeighbor(int node, int x, int y, int z, int cost) {
+        int neighbor = PackedPosition.pack(x, y, z);
+        if (avoidWilderness && neighbor != start && ShortestPathPlugin.isInWilderness(x, y, z)) {
+            return;
+        }
+
+        int slot = nodes.find(neighbor);
+        if (slot != -1 && nodes.cost(slot) <= cost) {
+            return;
+        }
+
+        nodes.put(neighbor, cost, node);
+        int heuristic = heuristic(neighbor);
+        open.push(neighbor, cost + heuristic, heuristic);
+    }
+
+    private static boolean isInWilderness(int packed) {
+        return ShortestPathPlugin.isInWilderness(PackedPosition.getX(packed), PackedPosition.getY(packed), PackedPosition.getPlane(packed));
+    }
+}
@@ -0,0 +1,120 @@
+package net.runelite.client.plugins.shortestpath.pathfinder;
+
+import net.runelite.api.coords.WorldPoint;
+
+import java.util.*;
+
+/**
+ * Transports keyed by packed origin tile, along with what the A* heuristic needs to
+ * bound the cost of reaching a target by way of a transport.
+ */
+class TransportTable {
+    private static final int CELL_SHIFT = 6;
+    private static final int CELL_SIZE = 1 << CELL_SHIFT;
+
+    private final int[] origins;
+    private final int[][] destinations;
+    /**
+     * Smallest distance from any transport destination to the target
+     */
+    private final int nearestDestination;
+    /**
+     * Per 64x64 cell, the origins which can be the closest origin to some tile in the cell
+     */
+    private final Map<Integer, int[]> candidates = new HashMap<>();
+    private int lastCell = -1;
+    private int[] lastCandidates;
+
+    TransportTable(Map<WorldPoint, List<WorldPoint>> transports, int target) {
+        origins = new int[transports.size()];
+        int count = 0;
+        for (WorldPoint origin : transports.keySet()) {
+            origins[count++] = PackedPosition.pack(origin);
+        }
+        Arrays.sort(origins);
+
+        destinations = new int[origins.length][];
+        int nearest = Integer.MAX_VALUE;
+        for (Map.Entry<WorldPoint, List<WorldPoint>> entry : transports.entrySet()) {
+            List<WorldPoint> points = entry.getValue();
+            int[] packed = new int[points.size()];
+            for (int i = 0; i < packed.length; ++i) {
+                packed[i] = PackedPosition.pack(points.get(i));
+                nearest = Math.min(nearest, PackedPosition.distance(packed[i], target));
+            }
+            destinations[Arrays.binarySearch(origins, PackedPosition.pack(entry.getKey()))] = packed;
+        }
+        nearestDestination = nearest;
+    }
+
+    /**
+     * @return the destinations of the transports starting at a tile, or null if there are none
+     */
+    int[] getDestinations(int origin) {
+        int i = Arrays.binarySearch(origins, origin);
+        return i < 0 ? null : destinations[i];
+    }
+
+    /**
+     * Lower bound on the number of steps from a tile to the target for any route which
+     * takes a transport: the walk to the closest transport, the transport itself, and
+     * the distance from the destination closest to the target. Like the Chebyshev
+     * distance, this changes by at most one per step, so the heuristic stays consistent.
+     *
+     * @param node packed tile
+     * @param limit value above which the exact bound is not needed
+     * @return the bound, or a value of at least {@code limit}
+     */
+    int lowerBound(int node, int limit) {
+        if (nearestDestination == Integer.MAX_VALUE || 1 + nearestDestination >= limit) {
+            return limit;
+        }
+
+        int cell = cell(PackedPosition.getX(node), PackedPosition.getY(node));
+        if (cell != lastCell) {
+            lastCandidates = candidates.computeIfAbsent(cell, this::findCandidates);
+            lastCell = cell;
+        }
+
+        int distance = Integer.MAX_VALUE;
+        for (int origin : lastCandidates) {
+            distance = Math.min(distance, PackedPosition.distance(node, origin));
+        }
+        return distance + 1 + nearestDestination;
+    }
+
+    private static int cell(int x, int y) {
+        return (x >>> CELL_SHIFT) << 16 | (y >>> CELL_SHIFT);
+    }
+
+    /**
+     * Find the origins which might be the closest to a tile within a cell. An origin
+     * can only be the closest if its distance to the cell is no more than the
+     * furthest any tile in the cell is from some other origin.
+     */
+    private int[] findCandidates(int cell) {
+        int minX = (cell >>> 16) << CELL_SHIFT;
+        int minY = (cell & 0xFFFF) << CELL_SHIFT;
+        int maxX = minX + CELL_SIZE - 1;
+        int maxY = minY + CELL_SIZE - 1;
+
+        int[] near = new int[origins.length];
+        int threshold = Integer.MAX_VALUE;
+        for (int i = 0; i < origins.length; ++i) {
+            int x = PackedPosition.getX(origins[i]);
+            int y = PackedPosition.getY(origins[i]);
+            near[i] = Math.max(Math.max(Math.max(minX - x, x - maxX), Math.max(minY - y, y - maxY)), 0);
+            int far = Math.max(Math.max(Math.abs(x - minX), Math.abs(x - maxX)), Math.max(Math.abs(y - minY), Math.abs(y - maxY)));
+            threshold = Math.min(threshold, far);
+        }
+
+        int count = 0;
+        int[] candidates = new int[origins.length];
+        for (int i = 0; i < origins.length; ++i) {
+            if (near[i] <= threshold) {
+                candidates[count++] = origins[i];
+            }
+        }
+        return Arrays.copyOf(candidates, count);
+    }
+}
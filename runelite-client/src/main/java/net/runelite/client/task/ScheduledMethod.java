@@ -25,23 +25,109 @@
 package net.runelite.client.task;
 
 import java.lang.reflect.Method;
-import java.time.Instant;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.AccessLevel;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
-import lombok.RequiredArgsConstructor;
-import lombok.Setter;
 import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
 
-@RequiredArgsConstructor
-@ToString
+@ToString(onlyExplicitlyIncluded = true)
 @Getter
+@Slf4j
 public class ScheduledMethod
 {
+	@ToString.Include
 	private final Schedule schedule;
+	@ToString.Include
 	private final Method method;
+	@ToString.Include
 	private final Object object;
 	@EqualsAndHashCode.Exclude
 	private final Runnable lambda;
-	@Setter
-	private Instant last = Instant.now();
+
+	@Getter(AccessLevel.NONE)
+	final long periodNanos;
+	@Getter(AccessLevel.NONE)
+	final AtomicBoolean running = new AtomicBoolean();
+	// runs the method on the executor, bound once so asynchronous schedules don't allocate a lambda per run
+	@Getter(AccessLevel.NONE)
+	final Runnable asyncTask;
+
+	// timing wheel state, only accessed from the thread calling Scheduler.tick()
+	@Getter(AccessLevel.NONE)
+	ScheduledMethod next;
+	@Getter(AccessLevel.NONE)
+	ScheduledMethod prev;
+	@Getter(AccessLevel.NONE)
+	int slot = -1;
+	@Getter(AccessLevel.NONE)
+	long deadline;
+
+	@Getter(AccessLevel.NONE)
+	volatile boolean cancelled;
+
+	private volatile long runs;
+	private volatile long totalNanos;
+	private volatile long maxNanos;
+	/**
+	 * The number of times an asynchronous run was skipped because the previous run had not finished
+	 */
+	private volatile long skipped;
+
+	public ScheduledMethod(Schedule schedule, Method method, Object object, Runnable lambda)
+	{
+		this.schedule = schedule;
+		this.method = method;
+		this.object = object;
+		this.lambda = lambda;
+		this.periodNanos = Duration.of(schedule.period(), schedule.unit()).toNanos();
+		this.asyncTask = () ->
+		{
+			try
+			{
+				run();
+			}
+			finally
+			{
+				running.set(false);
+			}
+		};
+	}
+
+	void run()
+	{
+		final long start = System.nanoTime();
+		try
+		{
+			if (lambda != null)
+			{
+				lambda.run();
+			}
+			else
+			{
+				method.invoke(object);
+			}
+		}
+		catch (ReflectiveOperationException | IllegalArgumentException ex)
+		{
+			log.warn("error invoking scheduled task", ex);
+		}
+		catch (Exception ex)
+		{
+			log.warn("error during scheduled task", ex);
+		}
+
+		// runs of a method never overlap, so these are only written by one thread at a time
+		final long elapsed = System.nanoTime() - start;
+		++runs;
+		totalNanos += elapsed;
+		maxNanos = Math.max(maxNanos, elapsed);
+	}
+
+	void skip()
+	{
+		++skipped;
+	}
 }
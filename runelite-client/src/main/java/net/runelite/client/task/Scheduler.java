@@ -24,34 +24,55 @@
  */
 package net.runelite.client.task;
 
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.time.Duration;
-import java.time.Instant;
 import java.util.Collections;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Runs {@link Schedule} methods from {@link #tick()}. Methods are kept in a hashed timing
+ * wheel keyed by their next run time, so a tick only visits the slots which have elapsed
+ * since the previous tick instead of every scheduled method.
+ */
 @Singleton
 @Slf4j
 public class Scheduler
 {
+	private static final long SLOT_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+	// one revolution of the wheel is ~25 seconds, methods with longer periods are skipped over until due
+	private static final int WHEEL_SIZE = 512;
+	private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
 	private final List<ScheduledMethod> scheduledMethods = new CopyOnWriteArrayList<>();
+	// methods added since the last tick, inserted into the wheel by the ticking thread
+	private final Queue<ScheduledMethod> added = new ConcurrentLinkedQueue<>();
+
+	private final ScheduledMethod[] wheel = new ScheduledMethod[WHEEL_SIZE];
+	private final long origin = System.nanoTime();
+	// the last slot which has been processed
+	private long cursor;
 
 	@Inject
 	ScheduledExecutorService executor;
 
 	public void addScheduledMethod(ScheduledMethod method)
 	{
+		method.cancelled = false;
 		scheduledMethods.add(method);
+		added.add(method);
 	}
 
 	public void removeScheduledMethod(ScheduledMethod method)
 	{
+		// the method is unlinked from the wheel on the next tick
+		method.cancelled = true;
 		scheduledMethods.remove(method);
 	}
 
@@ -62,57 +83,112 @@ public class Scheduler
 
 	public void tick()
 	{
-		Instant now = Instant.now();
+		final long now = System.nanoTime();
 
-		for (ScheduledMethod scheduledMethod : scheduledMethods)
+		for (ScheduledMethod method; (method = added.poll()) != null; )
 		{
-			Instant last = scheduledMethod.getLast();
-
-			Duration difference = Duration.between(last, now);
-
-			Schedule schedule = scheduledMethod.getSchedule();
-			Duration timeSinceRun = Duration.of(schedule.period(), schedule.unit());
-
-			if (difference.compareTo(timeSinceRun) > 0)
+			if (method.slot == -1 && !method.cancelled)
 			{
-				log.trace("Scheduled task triggered: {}", scheduledMethod);
-
-				scheduledMethod.setLast(now);
-
-				if (schedule.asynchronous())
-				{
-					executor.submit(() -> run(scheduledMethod));
-				}
-				else
-				{
-					run(scheduledMethod);
-				}
+				insert(method, now + method.periodNanos);
 			}
 		}
+
+		// process every slot which has fully elapsed, visiting each slot at most once
+		final long current = (now - origin) / SLOT_NANOS;
+		final long end = Math.min(current, cursor + WHEEL_SIZE);
+		while (cursor < end)
+		{
+			++cursor;
+			processSlot((int) (cursor & WHEEL_MASK), now);
+		}
+		cursor = current;
 	}
 
-	private void run(ScheduledMethod scheduledMethod)
+	private void processSlot(int slot, long now)
 	{
-		try
+		ScheduledMethod method = wheel[slot];
+		while (method != null)
 		{
-			Runnable lambda = scheduledMethod.getLambda();
-			if (lambda != null)
+			final ScheduledMethod next = method.next;
+
+			if (method.cancelled)
 			{
-				lambda.run();
+				unlink(method);
 			}
-			else
+			else if (method.deadline - now <= 0)
 			{
-				Method method = scheduledMethod.getMethod();
-				method.invoke(scheduledMethod.getObject());
+				unlink(method);
+				// reschedule first, so the method keeps its place even if it removes itself
+				insert(method, now + method.periodNanos);
+				run(method);
 			}
+
+			method = next;
+		}
+	}
+
+	private void run(ScheduledMethod method)
+	{
+		log.trace("Scheduled task triggered: {}", method);
+
+		if (!method.getSchedule().asynchronous())
+		{
+			method.run();
+			return;
+		}
+
+		if (!method.running.compareAndSet(false, true))
+		{
+			log.debug("Skipping scheduled task {}, the previous run has not finished", method);
+			method.skip();
+			return;
+		}
+
+		try
+		{
+			executor.execute(method.asyncTask);
+		}
+		catch (RejectedExecutionException ex)
+		{
+			method.running.set(false);
+			log.warn("unable to run scheduled task {}", method, ex);
+		}
+	}
+
+	private void insert(ScheduledMethod method, long deadline)
+	{
+		// round up, so a method is never in a slot which is processed before its deadline
+		final long slot = Math.max((deadline - origin + SLOT_NANOS - 1) / SLOT_NANOS, cursor + 1);
+		final int idx = (int) (slot & WHEEL_MASK);
+
+		method.deadline = deadline;
+		method.slot = idx;
+		method.prev = null;
+		method.next = wheel[idx];
+		if (method.next != null)
+		{
+			method.next.prev = method;
+		}
+		wheel[idx] = method;
+	}
+
+	private void unlink(ScheduledMethod method)
+	{
+		if (method.prev != null)
+		{
+			method.prev.next = method.next;
 		}
-		catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException ex)
+		else
 		{
-			log.warn("error invoking scheduled task", ex);
+			wheel[method.slot] = method.next;
 		}
-		catch (Exception ex)
+
+		if (method.next != null)
 		{
-			log.warn("error during scheduled task", ex);
+			method.next.prev = method.prev;
 		}
+
+		method.next = method.prev = null;
+		method.slot = -1;
 	}
 }
@@ -26,6 +26,7 @@ package net.runelite.client.util;
 
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.UnaryOperator;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import net.runelite.client.eventbus.EventBus;
@@ -48,6 +49,12 @@ public class DeferredEventBus extends EventBus
 		eventBus.register(object);
 	}
 
+	@Override
+	public <T> void registerSnapshot(Class<T> eventClass, UnaryOperator<T> snapshot)
+	{
+		eventBus.registerSnapshot(eventClass, snapshot);
+	}
+
 	@Override
 	public void unregister(Object object)
 	{
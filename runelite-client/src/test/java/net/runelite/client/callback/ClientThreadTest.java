@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2022, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.callback;
+
+import com.google.inject.Guice;
+import com.google.inject.Inject;
+import com.google.inject.testing.fieldbinder.Bind;
+import com.google.inject.testing.fieldbinder.BoundFieldModule;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import net.runelite.api.Client;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ClientThreadTest
+{
+	@Inject
+	private ClientThread clientThread;
+
+	@Mock
+	@Bind
+	private Client client;
+
+	@Before
+	public void before()
+	{
+		Guice.createInjector(BoundFieldModule.of(this)).injectMembers(this);
+		lenient().when(client.isClientThread()).thenReturn(true);
+	}
+
+	@Test
+	public void testPriorityOrder()
+	{
+		List<String> order = new ArrayList<>();
+		clientThread.invokeLater(() -> order.add("low"), ClientThread.Priority.LOW);
+		clientThread.invokeLater(() -> order.add("normal1"));
+		clientThread.invokeLater(() -> order.add("high"), ClientThread.Priority.HIGH);
+		clientThread.invokeLater(() -> order.add("normal2"));
+
+		clientThread.invoke();
+		assertEquals(4, order.size());
+		assertEquals("high", order.get(0));
+		assertEquals("normal1", order.get(1));
+		assertEquals("normal2", order.get(2));
+		assertEquals("low", order.get(3));
+		assertEquals(0, clientThread.getQueueDepth());
+	}
+
+	@Test
+	public void testDeferred()
+	{
+		List<String> order = new ArrayList<>();
+		int[] attempts = new int[1];
+		clientThread.invokeLater(() ->
+		{
+			order.add("deferred");
+			return ++attempts[0] == 3;
+		});
+
+		clientThread.invoke();
+		clientThread.invokeLater(() -> order.add("later"));
+		clientThread.invoke();
+		clientThread.invoke();
+		clientThread.invoke();
+
+		assertEquals(3, attempts[0]);
+		// the deferred task keeps its place ahead of tasks submitted after it
+		assertEquals("deferred", order.get(1));
+		assertEquals("later", order.get(2));
+		assertEquals(0, clientThread.getQueueDepth());
+	}
+
+	@Test
+	public void testBudget()
+	{
+		List<Integer> ran = new ArrayList<>();
+		clientThread.setFrameBudget(0, TimeUnit.NANOSECONDS);
+		for (int i = 0; i < 3; ++i)
+		{
+			int id = i;
+			clientThread.invokeLater(() -> ran.add(id));
+		}
+		clientThread.invokeLater(() -> ran.add(-1), ClientThread.Priority.HIGH);
+
+		// high priority tasks ignore the budget, and at least one other task runs each frame
+		clientThread.invoke();
+		assertEquals(2, ran.size());
+		assertEquals(-1, (int) ran.get(0));
+		assertEquals(2, clientThread.getQueueDepth());
+		assertEquals(1, clientThread.getOverruns());
+		assertEquals(2, clientThread.getPostponed());
+
+		clientThread.invoke();
+		clientThread.invoke();
+		assertEquals(4, ran.size());
+		assertEquals(0, clientThread.getQueueDepth());
+		assertEquals(4, clientThread.getTasksRun());
+	}
+
+	@Test
+	public void testInvokeAtTick()
+	{
+		when(client.getTickCount()).thenReturn(10);
+		List<String> order = new ArrayList<>();
+		clientThread.invokeAtTick(() -> order.add("tick"), 11);
+
+		clientThread.invoke();
+		assertTrue(order.isEmpty());
+		assertEquals(1, clientThread.getQueueDepth());
+
+		when(client.getTickCount()).thenReturn(11);
+		clientThread.invoke();
+		assertEquals(1, order.size());
+	}
+
+	@Test
+	public void testInvokeDelayed() throws InterruptedException
+	{
+		List<String> order = new ArrayList<>();
+		clientThread.invokeDelayed(() -> order.add("delayed"), 50, TimeUnit.MILLISECONDS);
+
+		clientThread.invoke();
+		assertTrue(order.isEmpty());
+
+		Thread.sleep(100);
+		clientThread.invoke();
+		assertEquals(1, order.size());
+	}
+}
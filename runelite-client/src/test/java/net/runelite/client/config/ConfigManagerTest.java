@@ -24,12 +24,16 @@
  */
 package net.runelite.client.config;
 
+import com.google.gson.Gson;
 import com.google.inject.Guice;
 import com.google.inject.testing.fieldbinder.Bind;
 import com.google.inject.testing.fieldbinder.BoundFieldModule;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.RandomAccessFile;
 import java.time.Instant;
+import java.util.Properties;
 import java.util.UUID;
 import java.util.concurrent.ScheduledExecutorService;
 import javax.inject.Inject;
@@ -38,10 +42,15 @@ import net.runelite.api.Client;
 import net.runelite.client.RuneLite;
 import net.runelite.client.account.AccountSession;
 import net.runelite.client.eventbus.EventBus;
+import net.runelite.client.events.ClientShutdown;
 import org.junit.Assert;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
@@ -49,6 +58,9 @@ import org.mockito.junit.MockitoJUnitRunner;
 @RunWith(MockitoJUnitRunner.class)
 public class ConfigManagerTest
 {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
 	@Mock
 	@Bind
 	EventBus eventBus;
@@ -120,6 +132,27 @@ public class ConfigManagerTest
 		Assert.assertEquals("new value", conf.key());
 	}
 
+	@Test
+	public void testInvalidateConfig()
+	{
+		TestConfig conf = manager.getConfig(TestConfig.class);
+		TestConfig conf2 = manager.getConfig(TestConfig.class);
+		Assert.assertEquals("default", conf.key());
+		Assert.assertNull(conf.nullDefaultKey());
+
+		manager.setConfiguration("test", "key", "moo");
+		Assert.assertEquals("moo", conf.key());
+		Assert.assertEquals("moo", conf2.key());
+		Assert.assertNull(conf.nullDefaultKey());
+
+		manager.setConfiguration("test", "nullDefaultKey", "cow");
+		Assert.assertEquals("cow", conf2.nullDefaultKey());
+
+		manager.unsetConfiguration("test", "key");
+		Assert.assertEquals("default", conf.key());
+		Assert.assertEquals("cow", conf.nullDefaultKey());
+	}
+
 	@Test
 	public void testGetConfigDescriptor() throws IOException
 	{
@@ -164,4 +197,125 @@ public class ConfigManagerTest
 			Assert.assertEquals(split[2], test[2]);
 		}
 	}
+
+	@Test
+	public void testJournalReload() throws IOException
+	{
+		File settings = folder.newFile("settings.properties");
+		ConfigManager configManager = createManager(settings);
+		configManager.load();
+
+		configManager.setConfiguration("test", "key", "moo");
+		configManager.setConfiguration("test", "other", "cow");
+		configManager.sendConfig();
+		configManager.setConfiguration("test", "key", "baa");
+		configManager.unsetConfiguration("test", "other");
+		configManager.sendConfig();
+
+		assertTrue(journalFile(settings).exists());
+
+		ConfigManager reloaded = createManager(settings);
+		reloaded.load();
+		Assert.assertEquals("baa", reloaded.getConfiguration("test", "key"));
+		Assert.assertNull(reloaded.getConfiguration("test", "other"));
+	}
+
+	@Test
+	public void testJournalTruncated() throws IOException
+	{
+		File settings = folder.newFile("settings.properties");
+		ConfigManager configManager = createManager(settings);
+		configManager.load();
+
+		configManager.setConfiguration("test", "key", "moo");
+		configManager.sendConfig();
+		configManager.setConfiguration("test", "other", "cow");
+		configManager.sendConfig();
+
+		// cut the last entry short, as if the client crashed while appending it
+		File journal = journalFile(settings);
+		try (RandomAccessFile raf = new RandomAccessFile(journal, "rw"))
+		{
+			raf.setLength(raf.length() - 5);
+		}
+
+		ConfigManager reloaded = createManager(settings);
+		reloaded.load();
+		Assert.assertEquals("moo", reloaded.getConfiguration("test", "key"));
+		Assert.assertNull(reloaded.getConfiguration("test", "other"));
+	}
+
+	@Test
+	public void testJournalCompactThreshold() throws IOException
+	{
+		File settings = folder.newFile("settings.properties");
+		ConfigManager configManager = createManager(settings);
+		configManager.load();
+
+		configManager.setConfiguration("test", "key", "moo");
+		configManager.sendConfig();
+		assertTrue(journalFile(settings).exists());
+
+		for (int i = 0; i < ConfigManager.JOURNAL_COMPACT_THRESHOLD; ++i)
+		{
+			configManager.setConfiguration("test", "key" + i, Integer.toString(i));
+		}
+		configManager.sendConfig();
+
+		// crossing the threshold folds the journal into the properties file
+		assertFalse(journalFile(settings).exists());
+		Properties properties = readProperties(settings);
+		Assert.assertEquals("moo", properties.getProperty("test.key"));
+		Assert.assertEquals("0", properties.getProperty("test.key0"));
+
+		configManager.unsetConfiguration("test", "key0");
+		configManager.sendConfig();
+		assertTrue(journalFile(settings).exists());
+
+		ConfigManager reloaded = createManager(settings);
+		reloaded.load();
+		Assert.assertEquals("moo", reloaded.getConfiguration("test", "key"));
+		Assert.assertNull(reloaded.getConfiguration("test", "key0"));
+		Assert.assertEquals("1", reloaded.getConfiguration("test", "key1"));
+	}
+
+	@Test
+	public void testJournalCompactOnShutdown() throws IOException
+	{
+		File settings = folder.newFile("settings.properties");
+		ConfigManager configManager = createManager(settings);
+		configManager.load();
+
+		configManager.setConfiguration("test", "key", "moo");
+		configManager.sendConfig();
+		configManager.setConfiguration("test", "other", "cow");
+		assertTrue(journalFile(settings).exists());
+
+		configManager.onClientShutdown(new ClientShutdown());
+
+		assertFalse(journalFile(settings).exists());
+		Properties properties = readProperties(settings);
+		Assert.assertEquals("moo", properties.getProperty("test.key"));
+		Assert.assertEquals("cow", properties.getProperty("test.other"));
+	}
+
+	private ConfigManager createManager(File settings)
+	{
+		return new ConfigManager(settings, executor, eventBus, null, new Gson(), configClient);
+	}
+
+	private static File journalFile(File settings)
+	{
+		return new File(settings.getParentFile(), settings.getName() + ".journal");
+	}
+
+	private static Properties readProperties(File settings) throws IOException
+	{
+		Properties properties = new Properties();
+		try (FileInputStream in = new FileInputStream(settings))
+		{
+			properties.load(in);
+		}
+		return properties;
+	}
 }
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2022, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.config;
+
+import com.google.common.collect.ImmutableSet;
+import java.util.HashSet;
+import java.util.Properties;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import org.junit.Test;
+
+public class ConfigStoreTest
+{
+	@Test
+	public void testGetSet()
+	{
+		ConfigStore store = new ConfigStore();
+		assertNull(store.set("group", null, "key", "value"));
+		assertNull(store.set("group", "rsprofile.abc", "key", "profile value"));
+
+		assertEquals("value", store.get("group", null, "key"));
+		assertEquals("profile value", store.get("group", "rsprofile.abc", "key"));
+		assertNull(store.get("group", null, "other"));
+		assertNull(store.get("other", null, "key"));
+
+		assertEquals("value", store.set("group", null, "key", "new value"));
+		assertEquals("new value", store.unset("group", null, "key"));
+		assertNull(store.get("group", null, "key"));
+	}
+
+	@Test
+	public void testKeys()
+	{
+		ConfigStore store = new ConfigStore();
+		store.set("banktags", null, "item_1", "a");
+		store.set("banktags", null, "item_2", "b");
+		store.set("banktags", null, "icon_1", "c");
+		store.set("banktags", "rsprofile.abc", "item_3", "d");
+		store.set("banktagsother", null, "item_4", "e");
+		store.set("bank", null, "item_5", "f");
+
+		assertEquals(ImmutableSet.of("banktags.item_1", "banktags.item_2"), new HashSet<>(store.keys("banktags.item_")));
+		assertEquals(ImmutableSet.of("banktags.rsprofile.abc.item_3"), new HashSet<>(store.keys("banktags.rsprofile.abc.item")));
+		assertEquals(ImmutableSet.of("banktags.rsprofile.abc.item_3"), new HashSet<>(store.keys("banktags.rsprofile.a")));
+		assertEquals(6, store.keys("bank").size());
+		assertEquals(4, store.keys("banktags.").size());
+		assertEquals(0, store.keys("banktags.items").size());
+	}
+
+	@Test
+	public void testProfiles()
+	{
+		ConfigStore store = new ConfigStore();
+		store.set("rsprofile", null, "loginSalt", "salt");
+		store.set("rsprofile", "rsprofile.abc", "type", "STANDARD");
+		store.set("rsprofile", "rsprofile.def", "type", "BETA");
+		assertEquals(ImmutableSet.of("rsprofile.abc", "rsprofile.def"), store.profiles("rsprofile"));
+
+		store.unset("rsprofile", "rsprofile.def", "type");
+		assertEquals(ImmutableSet.of("rsprofile.abc"), store.profiles("rsprofile"));
+	}
+
+	@Test
+	public void testProperties()
+	{
+		Properties properties = new Properties();
+		properties.setProperty("group.key", "value");
+		properties.setProperty("group.rsprofile.abc.key", "profile value");
+
+		ConfigStore store = ConfigStore.fromProperties(properties);
+		assertEquals("value", store.get("group", null, "key"));
+		assertEquals("profile value", store.get("group", "rsprofile.abc", "key"));
+		assertEquals(properties, store.toProperties());
+	}
+}
@@ -0,0 +1,285 @@
+/*
+ * Copyright (c) 2022, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.eventbus;
+
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class EventBusTest
+{
+	private static class TestEvent
+	{
+	}
+
+	private static class OtherEvent
+	{
+	}
+
+	private static class TestSubscriber
+	{
+		private final List<String> calls;
+		private final String name;
+
+		TestSubscriber(List<String> calls, String name)
+		{
+			this.calls = calls;
+			this.name = name;
+		}
+
+		@Subscribe
+		public void onTestEvent(TestEvent event)
+		{
+			calls.add(name);
+		}
+	}
+
+	private static class SequenceEvent
+	{
+		private final int sequence;
+
+		SequenceEvent(int sequence)
+		{
+			this.sequence = sequence;
+		}
+	}
+
+	private static class AsyncSubscriber
+	{
+		private final List<Integer> sequences = Collections.synchronizedList(new ArrayList<>());
+		private final CountDownLatch latch;
+		private volatile Thread thread;
+
+		AsyncSubscriber(int events)
+		{
+			latch = new CountDownLatch(events);
+		}
+
+		@Subscribe(async = true)
+		public void onSequenceEvent(SequenceEvent event)
+		{
+			thread = Thread.currentThread();
+			sequences.add(event.sequence);
+			latch.countDown();
+		}
+	}
+
+	@Test
+	public void testPost()
+	{
+		List<String> calls = new ArrayList<>();
+		EventBus eventBus = new EventBus();
+
+		TestSubscriber a = new TestSubscriber(calls, "a");
+		TestSubscriber b = new TestSubscriber(calls, "b");
+		eventBus.register(a);
+		eventBus.register(b);
+		EventBus.Subscriber high = eventBus.register(TestEvent.class, e -> calls.add("high"), 1);
+		eventBus.register(OtherEvent.class, e -> calls.add("other"), 0);
+
+		eventBus.post(new TestEvent());
+		assertEquals(ImmutableList.of("high", "a", "b"), calls);
+
+		calls.clear();
+		eventBus.unregister(a);
+		eventBus.unregister(high);
+		eventBus.post(new TestEvent());
+		eventBus.post(new OtherEvent());
+		assertEquals(ImmutableList.of("b", "other"), calls);
+
+		calls.clear();
+		eventBus.unregister(b);
+		eventBus.post(new TestEvent());
+		assertEquals(ImmutableList.of(), calls);
+	}
+
+	@Test
+	public void testExceptionHandler()
+	{
+		List<Throwable> exceptions = new ArrayList<>();
+		List<String> calls = new ArrayList<>();
+		EventBus eventBus = new EventBus(exceptions::add);
+
+		eventBus.register(TestEvent.class, e ->
+		{
+			throw new IllegalStateException();
+		}, 1);
+		eventBus.register(TestEvent.class, e -> calls.add("called"), 0);
+
+		eventBus.post(new TestEvent());
+		assertEquals(1, exceptions.size());
+		assertEquals(ImmutableList.of("called"), calls);
+	}
+
+	@Test
+	public void testProfiler()
+	{
+		List<String> calls = new ArrayList<>();
+		EventBus eventBus = new EventBus();
+		TestSubscriber a = new TestSubscriber(calls, "a");
+		eventBus.register(a);
+		eventBus.register(TestEvent.class, e -> calls.add("lambda"), 1);
+
+		EventBusProfiler profiler = new EventBusProfiler();
+		eventBus.setProfiler(profiler);
+		for (int i = 0; i < 100; ++i)
+		{
+			eventBus.post(new TestEvent());
+		}
+		eventBus.setProfiler(null);
+		eventBus.post(new TestEvent());
+
+		assertEquals(202, calls.size());
+
+		List<EventBusProfiler.Stats> stats = profiler.getStats();
+		assertEquals(2, stats.size());
+		for (EventBusProfiler.Stats s : stats)
+		{
+			assertEquals(TestEvent.class, s.getEventClass());
+			assertEquals(100, s.getCount());
+			assertTrue(s.getP99Nanos() <= s.getMaxNanos());
+			assertTrue(s.getMaxNanos() <= s.getTotalNanos());
+			assertFalse(s.isAsync());
+		}
+		assertTrue(stats.stream().anyMatch(s -> s.getSubscriber().equals(TestSubscriber.class.getName() + ".onTestEvent")));
+	}
+
+	@Test
+	public void testProfilerAsync() throws InterruptedException
+	{
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try
+		{
+			EventBus eventBus = new EventBus(e ->
+			{
+			}, executor);
+			eventBus.registerSnapshot(SequenceEvent.class, e -> new SequenceEvent(e.sequence));
+			AsyncSubscriber subscriber = new AsyncSubscriber(10);
+			eventBus.register(subscriber);
+
+			EventBusProfiler profiler = new EventBusProfiler(false);
+			eventBus.setProfiler(profiler);
+			for (int i = 0; i < 10; ++i)
+			{
+				eventBus.post(new SequenceEvent(i));
+			}
+			assertTrue(subscriber.latch.await(10, TimeUnit.SECONDS));
+			// the last handler call is recorded after it returns
+			executor.shutdown();
+			assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+			// queueing and handling the event are measured separately
+			List<EventBusProfiler.Stats> stats = profiler.getStats();
+			assertEquals(2, stats.size());
+			assertEquals(1, stats.stream().filter(EventBusProfiler.Stats::isEnqueue).count());
+			for (EventBusProfiler.Stats s : stats)
+			{
+				assertTrue(s.isAsync());
+				assertEquals(10, s.getCount());
+				assertEquals(-1, s.getAllocatedBytes());
+			}
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testProfilerBuckets()
+	{
+		for (long nanos : new long[]{0, 1, 7, 8, 9, 15, 16, 100, 12345, 1L << 40, Long.MAX_VALUE})
+		{
+			int bucket = EventBusProfiler.bucket(nanos);
+			assertTrue(nanos <= EventBusProfiler.bucketMax(bucket));
+			assertTrue(bucket == 0 || nanos > EventBusProfiler.bucketMax(bucket - 1));
+		}
+	}
+
+	@Test
+	public void testAsync() throws InterruptedException
+	{
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try
+		{
+			EventBus eventBus = new EventBus(e ->
+			{
+			}, executor);
+			AtomicInteger copies = new AtomicInteger();
+			eventBus.registerSnapshot(SequenceEvent.class, e ->
+			{
+				copies.incrementAndGet();
+				return new SequenceEvent(e.sequence);
+			});
+			AsyncSubscriber subscriber = new AsyncSubscriber(500);
+			eventBus.register(subscriber);
+
+			for (int i = 0; i < 500; ++i)
+			{
+				eventBus.post(new SequenceEvent(i));
+			}
+
+			assertTrue(subscriber.latch.await(10, TimeUnit.SECONDS));
+			assertNotSame(Thread.currentThread(), subscriber.thread);
+
+			List<Integer> expected = new ArrayList<>();
+			for (int i = 0; i < 500; ++i)
+			{
+				expected.add(i);
+			}
+			assertEquals(expected, subscriber.sequences);
+			// each event is copied when it is posted
+			assertEquals(500, copies.get());
+
+			eventBus.unregister(subscriber);
+			eventBus.post(new SequenceEvent(500));
+			executor.shutdown();
+			assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+			assertEquals(500, subscriber.sequences.size());
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testAsyncRequiresSnapshot()
+	{
+		EventBus eventBus = new EventBus();
+		eventBus.register(new AsyncSubscriber(1));
+	}
+}
@@ -0,0 +1,306 @@
+package net.runelite.client.plugins.shortestpath.pathfinder;
+
+import net.runelite.api.coords.WorldPoint;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.*;
+
+public class PathfinderTest {
+    private static final int REGION_SIZE = 64;
+    private static final int REGION_X = 50;
+    private static final int REGION_Y = 50;
+    private static final int BASE_X = REGION_X * REGION_SIZE;
+    private static final int BASE_Y = REGION_Y * REGION_SIZE;
+    private static final int REGIONS = 2;
+    private static final int SIZE = REGIONS * REGION_SIZE;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final Random random = new Random(42);
+    private CompressedCollisionMap map;
+    private Map<WorldPoint, List<WorldPoint>> transports;
+
+    @Before
+    public void before() throws IOException {
+        Map<SplitFlagMap.Position, byte[]> regions = new HashMap<>();
+        for (int regionX = REGION_X; regionX < REGION_X + REGIONS; ++regionX) {
+            for (int regionY = REGION_Y; regionY < REGION_Y + REGIONS; ++regionY) {
+                int minX = regionX * REGION_SIZE;
+                int minY = regionY * REGION_SIZE;
+                FlagMap flags = new FlagMap(minX, minY, minX + REGION_SIZE - 1, minY + REGION_SIZE - 1, 2);
+                for (int z = 0; z < 2; ++z) {
+                    for (int x = minX; x < minX + REGION_SIZE; ++x) {
+                        for (int y = minY; y < minY + REGION_SIZE; ++y) {
+                            flags.set(x, y, z, 0, y < BASE_Y + SIZE - 1 && random.nextInt(4) != 0);
+                            flags.set(x, y, z, 1, x < BASE_X + SIZE - 1 && random.nextInt(4) != 0);
+                        }
+                    }
+                }
+
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+                    out.write(flags.toBytes());
+                }
+                regions.put(new SplitFlagMap.Position(regionX, regionY), bytes.toByteArray());
+            }
+        }
+        map = new CompressedCollisionMap(REGION_SIZE, regions);
+
+        transports = new HashMap<>();
+        for (int i = 0; i < 8; ++i) {
+            transports.computeIfAbsent(randomPoint(), k -> new ArrayList<>()).add(randomPoint());
+        }
+    }
+
+    @Test
+    public void testPackedPosition() {
+        int packed = PackedPosition.pack(3222, 12814, 3);
+        assertEquals(3222, PackedPosition.getX(packed));
+        assertEquals(12814, PackedPosition.getY(packed));
+        assertEquals(3, PackedPosition.getPlane(packed));
+        assertNotEquals(PackedPosition.NONE, packed);
+        assertEquals(new WorldPoint(3222, 12814, 3), PackedPosition.unpack(packed));
+    }
+
+    @Test
+    public void testFlatCollisionMap() throws IOException {
+        File file = folder.newFile();
+        FlatCollisionMap.write(map, file);
+        FlatCollisionMap flat = FlatCollisionMap.open(file);
+
+        assertEquals(map.getRegions(), flat.getRegions());
+        for (int z = 0; z < 4; ++z) {
+            for (int x = BASE_X - 1; x <= BASE_X + SIZE; ++x) {
+                for (int y = BASE_Y - 1; y <= BASE_Y + SIZE; ++y) {
+                    assertEquals(map.n(x, y, z), flat.n(x, y, z));
+                    assertEquals(map.e(x, y, z), flat.e(x, y, z));
+                    assertEquals(map.directions(x, y, z), flat.directions(x, y, z));
+                }
+            }
+        }
+
+        for (int i = 0; i < 50; ++i) {
+            WorldPoint start = randomPoint();
+            WorldPoint target = randomPoint();
+            assertEquals(new Pathfinder(map, transports, start, target, false).find(),
+                    new Pathfinder(flat, transports, start, target, false).find());
+        }
+    }
+
+    @Test
+    public void testSameLengthAsBreadthFirst() {
+        for (int i = 0; i < 200; ++i) {
+            WorldPoint start = randomPoint();
+            WorldPoint target = randomPoint();
+
+            List<WorldPoint> expected = breadthFirst(start, target);
+            List<WorldPoint> path = new Pathfinder(map, transports, start, target, false).find();
+
+            assertEquals(start, path.get(0));
+            assertEquals(expected.size(), path.size());
+            WorldPoint end = path.get(path.size() - 1);
+            WorldPoint expectedEnd = expected.get(expected.size() - 1);
+            assertEquals(expectedEnd.distanceTo2D(target), end.distanceTo2D(target));
+            if (expectedEnd.equals(target)) {
+                assertEquals(target, end);
+            }
+
+            assertValid(path);
+        }
+    }
+
+    @Test
+    public void testRoutingGraph() throws IOException {
+        RoutingGraph graph = new RoutingGraphBuilder(map, transports).build();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        graph.write(out);
+        graph = RoutingGraph.read(new ByteArrayInputStream(out.toByteArray()));
+
+        for (int i = 0; i < 100; ++i) {
+            WorldPoint start = randomPoint();
+            WorldPoint target = randomPoint();
+
+            List<WorldPoint> expected = breadthFirst(start, target);
+            List<WorldPoint> path = new Pathfinder(map, graph, transports, start, target, false).find();
+
+            assertEquals(start, path.get(0));
+            assertEquals(expected.get(expected.size() - 1).distanceTo2D(target), path.get(path.size() - 1).distanceTo2D(target));
+            assertTrue(path.size() >= expected.size());
+            assertValid(path);
+        }
+    }
+
+    @Test
+    public void testRoutingGraphSources() throws IOException {
+        RoutingGraph graph = new RoutingGraphBuilder(map, transports).sources(1, 2).build();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        graph.write(out);
+        graph = RoutingGraph.read(new ByteArrayInputStream(out.toByteArray()));
+
+        assertEquals(1, graph.collisionMapCrc);
+        assertEquals(2, graph.transportsCrc);
+    }
+
+    @Test
+    public void testShippedRoutingGraphIsCurrent() {
+        // rebuild it with RoutingGraphBuilder after changing the collision map or transports
+        assertNotNull(RoutingGraph.fromResources());
+    }
+
+    @Test
+    public void testClusterSearchUnreached() {
+        ClusterSearch search = new ClusterSearch(map);
+        search.search(PackedPosition.pack(BASE_X, BASE_Y, 0), false);
+
+        int outside = PackedPosition.pack(BASE_X + REGION_SIZE, BASE_Y, 0);
+        assertEquals(-1, search.distance(outside));
+        assertNull(search.path(outside));
+        assertEquals(1, search.path(PackedPosition.pack(BASE_X, BASE_Y, 0)).size());
+    }
+
+    @Test
+    public void testTargetSearchMoveStart() {
+        for (int i = 0; i < 20; ++i) {
+            WorldPoint target = randomPoint();
+            WorldPoint start = randomPoint();
+            TargetSearch search = new TargetSearch(map, transports, start, target, false);
+
+            for (int j = 0; j < 10; ++j) {
+                if (j > 0) {
+                    start = randomPoint();
+                    assertTrue(search.moveStart(start, target, transports, false));
+                }
+
+                while (!search.run(Long.MAX_VALUE)) {
+                }
+
+                List<WorldPoint> expected = breadthFirst(start, target);
+                List<WorldPoint> path = search.getPath();
+                if (!expected.get(expected.size() - 1).equals(target)) {
+                    assertNull(path);
+                    continue;
+                }
+
+                assertEquals(start, path.get(0));
+                assertEquals(target, path.get(path.size() - 1));
+                assertEquals(expected.size(), path.size());
+                assertValid(path);
+            }
+
+            assertFalse(search.moveStart(start, randomPoint(), transports, false));
+        }
+    }
+
+    @Test
+    public void testService() throws InterruptedException {
+        PathfinderService service = new PathfinderService(map, null);
+        try {
+            for (int i = 0; i < 20; ++i) {
+                WorldPoint start = randomPoint();
+                WorldPoint target = randomPoint();
+                service.search(start, target, transports, false);
+
+                // the search may already have finished on the service thread
+                PathfinderService.Result result = service.getResult();
+                assertTrue(result.searching || start.equals(result.path.get(0)));
+
+                while ((result = service.getResult()).searching) {
+                    Thread.sleep(1);
+                }
+
+                List<WorldPoint> expected = breadthFirst(start, target);
+                assertEquals(start, result.path.get(0));
+                assertEquals(expected.size(), result.path.size());
+                assertEquals(expected.get(expected.size() - 1).distanceTo2D(target), result.path.get(result.path.size() - 1).distanceTo2D(target));
+                assertValid(result.path);
+            }
+
+            service.search(randomPoint(), randomPoint(), transports, false);
+            service.cancel();
+            assertNull(service.getResult().path);
+            assertFalse(service.getResult().searching);
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    private void assertValid(List<WorldPoint> path) {
+        for (int i = 1; i < path.size(); ++i) {
+            assertTrue(path.get(i - 1) + " -> " + path.get(i), neighbors(path.get(i - 1)).contains(path.get(i)));
+        }
+    }
+
+    private WorldPoint randomPoint() {
+        return new WorldPoint(BASE_X + random.nextInt(SIZE), BASE_Y + random.nextInt(SIZE), random.nextInt(2));
+    }
+
+    private List<WorldPoint> neighbors(WorldPoint p) {
+        int x = p.getX();
+        int y = p.getY();
+        int z = p.getPlane();
+        List<WorldPoint> neighbors = new ArrayList<>();
+        if (map.w(x, y, z)) neighbors.add(new WorldPoint(x - 1, y, z));
+        if (map.e(x, y, z)) neighbors.add(new WorldPoint(x + 1, y, z));
+        if (map.s(x, y, z)) neighbors.add(new WorldPoint(x, y - 1, z));
+        if (map.n(x, y, z)) neighbors.add(new WorldPoint(x, y + 1, z));
+        if (map.sw(x, y, z)) neighbors.add(new WorldPoint(x - 1, y - 1, z));
+        if (map.se(x, y, z)) neighbors.add(new WorldPoint(x + 1, y - 1, z));
+        if (map.nw(x, y, z)) neighbors.add(new WorldPoint(x - 1, y + 1, z));
+        if (map.ne(x, y, z)) neighbors.add(new WorldPoint(x + 1, y + 1, z));
+        neighbors.addAll(transports.getOrDefault(p, Collections.emptyList()));
+        return neighbors;
+    }
+
+    /**
+     * The breadth first search the pathfinder used to be
+     */
+    private List<WorldPoint> breadthFirst(WorldPoint start, WorldPoint target) {
+        Map<WorldPoint, WorldPoint> previous = new HashMap<>();
+        Deque<WorldPoint> boundary = new ArrayDeque<>();
+        previous.put(start, start);
+        boundary.add(start);
+
+        WorldPoint nearest = null;
+        int bestDistance = Integer.MAX_VALUE;
+        while (!boundary.isEmpty()) {
+            WorldPoint node = boundary.remove();
+            if (node.equals(target)) {
+                nearest = node;
+                break;
+            }
+
+            int distance = node.distanceTo2D(target);
+            if (distance < bestDistance) {
+                nearest = node;
+                bestDistance = distance;
+            }
+
+            for (WorldPoint neighbor : neighbors(node)) {
+                if (previous.putIfAbsent(neighbor, node) == null) {
+                    boundary.add(neighbor);
+                }
+            }
+        }
+
+        LinkedList<WorldPoint> path = new LinkedList<>();
+        for (WorldPoint node = nearest; ; node = previous.get(node)) {
+            path.addFirst(node);
+            if (node.equals(start)) {
+                return path;
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2022, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.task;
+
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.ScheduledExecutorService;
+import static org.junit.Assert.assertEquals;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SchedulerTest
+{
+	@Mock
+	private ScheduledExecutorService executor;
+
+	private Scheduler scheduler;
+	private int syncRuns;
+	private int asyncRuns;
+
+	@Schedule(period = 10, unit = ChronoUnit.MILLIS)
+	public void sync()
+	{
+		++syncRuns;
+	}
+
+	@Schedule(period = 10, unit = ChronoUnit.MILLIS, asynchronous = true)
+	public void async()
+	{
+		++asyncRuns;
+	}
+
+	@Before
+	public void before()
+	{
+		scheduler = new Scheduler();
+		scheduler.executor = executor;
+	}
+
+	private ScheduledMethod scheduledMethod(String name) throws NoSuchMethodException
+	{
+		return new ScheduledMethod(getClass().getMethod(name).getAnnotation(Schedule.class), getClass().getMethod(name), this, null);
+	}
+
+	@Test
+	public void testSynchronous() throws Exception
+	{
+		ScheduledMethod method = scheduledMethod("sync");
+		scheduler.addScheduledMethod(method);
+
+		scheduler.tick();
+		assertEquals(0, syncRuns);
+
+		Thread.sleep(100);
+		scheduler.tick();
+		assertEquals(1, syncRuns);
+		assertEquals(1, method.getRuns());
+
+		Thread.sleep(100);
+		scheduler.tick();
+		assertEquals(2, syncRuns);
+
+		scheduler.removeScheduledMethod(method);
+		Thread.sleep(100);
+		scheduler.tick();
+		assertEquals(2, syncRuns);
+		assertEquals(0, scheduler.getScheduledMethods().size());
+	}
+
+	@Test
+	public void testAsynchronousOverlap() throws Exception
+	{
+		ScheduledMethod method = scheduledMethod("async");
+		scheduler.addScheduledMethod(method);
+		scheduler.tick();
+
+		Thread.sleep(100);
+		scheduler.tick();
+		ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+		verify(executor).execute(captor.capture());
+
+		// the first run hasn't finished, so the next one is skipped
+		Thread.sleep(100);
+		scheduler.tick();
+		verify(executor).execute(captor.capture());
+		assertEquals(1, method.getSkipped());
+
+		captor.getValue().run();
+		assertEquals(1, asyncRuns);
+
+		Thread.sleep(100);
+		scheduler.tick();
+		verify(executor, times(2)).execute(captor.capture());
+	}
+}